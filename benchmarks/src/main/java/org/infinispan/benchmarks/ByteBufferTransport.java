@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.infinispan.client.hotrod.impl.transport.AbstractTransport;
+import org.infinispan.io.UnsignedNumeric;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+
+/**
+ * A Hot Rod client transport that writes to and reads from memory, so that the codec can be measured without any
+ * network in the way. Requests are written to {@link #getOutput()}, responses are read from the buffer passed to
+ * {@link #setInput(byte[])}.
+ *
+ * @since 5.2
+ */
+public class ByteBufferTransport extends AbstractTransport {
+
+   private final ByteBuffer output;
+   private ByteBuffer input;
+
+   public ByteBufferTransport(int capacity) {
+      super(null);
+      output = ByteBuffer.allocate(capacity);
+   }
+
+   public ByteBuffer getOutput() {
+      return output;
+   }
+
+   public void setInput(byte[] bytes) {
+      input = ByteBuffer.wrap(bytes);
+   }
+
+   public void reset() {
+      output.clear();
+      if (input != null)
+         input.rewind();
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      output.put(toAppend);
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      output.put((byte) toWrite);
+   }
+
+   @Override
+   public void writeVInt(int vint) {
+      UnsignedNumeric.writeUnsignedInt(output, vint);
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      UnsignedNumeric.writeUnsignedLong(output, l);
+   }
+
+   @Override
+   public long readVLong() {
+      return UnsignedNumeric.readUnsignedLong(input);
+   }
+
+   @Override
+   public int readVInt() {
+      return UnsignedNumeric.readUnsignedInt(input);
+   }
+
+   @Override
+   public void flush() {
+   }
+
+   @Override
+   public short readByte() {
+      return (short) (input.get() & 0xFF);
+   }
+
+   @Override
+   public void release() {
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      byte[] bytes = new byte[size];
+      input.get(bytes);
+      return bytes;
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      return new byte[0];
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return null;
+   }
+}
@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes entries directly on the {@link DataContainer} of a cache, for each eviction strategy. Twice as
+ * many keys as the container can hold are used, so that bounded containers keep evicting.
+ *
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DataContainerBenchmark {
+
+   @Param({"NONE", "LRU", "LIRS"})
+   public EvictionStrategy strategy;
+
+   @Param({"10000"})
+   public int maxEntries;
+
+   private EmbeddedCacheManager cacheManager;
+   private DataContainer dataContainer;
+   private Object[] keys;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      if (strategy != EvictionStrategy.NONE)
+         builder.eviction().strategy(strategy).maxEntries(maxEntries);
+      cacheManager = new DefaultCacheManager(builder.build());
+      Cache<Object, Object> cache = cacheManager.getCache();
+      dataContainer = cache.getAdvancedCache().getDataContainer();
+      keys = new Object[maxEntries * 2];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = "key" + i;
+         if (i < maxEntries)
+            dataContainer.put(keys[i], "value" + i, null, -1, -1);
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      cacheManager.stop();
+   }
+
+   @Benchmark
+   public InternalCacheEntry get() {
+      return dataContainer.get(nextKey());
+   }
+
+   @Benchmark
+   public void put() {
+      Object key = nextKey();
+      dataContainer.put(key, key, null, -1, -1);
+   }
+
+   private Object nextKey() {
+      return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+   }
+}
@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.Codec12;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Encodes Hot Rod 1.2 put requests and decodes the matching responses with the client codec, over an in-memory
+ * {@link ByteBufferTransport}.
+ *
+ * @since 5.2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HotRodCodecBenchmark {
+
+   private static final byte NO_TX = 0;
+
+   @Param({"16", "1024"})
+   public int valueSize;
+
+   private final Codec codec = new Codec12();
+   private final AtomicInteger topologyId = new AtomicInteger();
+   private final byte[] cacheName = "default".getBytes(HotRodConstants.HOTROD_STRING_CHARSET);
+   private byte[] key;
+   private byte[] value;
+   private ByteBufferTransport transport;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      key = "key".getBytes(HotRodConstants.HOTROD_STRING_CHARSET);
+      value = new byte[valueSize];
+      Arrays.fill(value, (byte) 'v');
+      transport = new ByteBufferTransport(valueSize + 256);
+
+      // a put response returning the previous value; a message id of 0 is accepted whatever the request's id
+      ByteBuffer response = ByteBuffer.allocate(valueSize + 64);
+      response.put((byte) HotRodConstants.RESPONSE_MAGIC);
+      response.put((byte) 0);
+      response.put(HotRodConstants.PUT_RESPONSE);
+      response.put(HotRodConstants.NO_ERROR_STATUS);
+      response.put((byte) 0);
+      ByteBufferTransport writer = new ByteBufferTransport(valueSize + 64);
+      writer.writeArray(value);
+      writer.getOutput().flip();
+      response.put(writer.getOutput());
+      transport.setInput(Arrays.copyOf(response.array(), response.position()));
+   }
+
+   @Benchmark
+   public ByteBuffer encodePut() {
+      transport.reset();
+      codec.writeHeader(transport, newParams());
+      transport.writeArray(key);
+      transport.writeVInt(0);
+      transport.writeVInt(0);
+      transport.writeArray(value);
+      return transport.getOutput();
+   }
+
+   @Benchmark
+   public byte[] decodePutResponse() {
+      transport.reset();
+      codec.readHeader(transport, newParams());
+      return transport.readArray();
+   }
+
+   private HeaderParams newParams() {
+      return new HeaderParams().opCode(HotRodConstants.PUT_REQUEST).cacheName(cacheName)
+            .clientIntel(HotRodConstants.CLIENT_INTELLIGENCE_BASIC).txMarker(NO_TX)
+            .topologyId(topologyId);
+   }
+}
@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.transaction.TransactionMode;
+import org.infinispan.transaction.lookup.DummyTransactionManagerLookup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of going through the interceptor chain of a local cache, non transactional or transactional with
+ * auto-commit. The <tt>container*</tt> benchmarks read and write the same keys directly on the data container, as a
+ * baseline: the difference is the overhead of the chain.
+ *
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class InterceptorChainBenchmark {
+
+   private static final int NUM_KEYS = 1000;
+
+   @Param({"NON_TRANSACTIONAL", "TRANSACTIONAL"})
+   public TransactionMode transactionMode;
+
+   private EmbeddedCacheManager cacheManager;
+   private AdvancedCache<Object, Object> cache;
+   private Object[] keys;
+
+   @Setup(Level.Trial)
+   public void setUp() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.transaction().transactionMode(transactionMode);
+      if (transactionMode == TransactionMode.TRANSACTIONAL)
+         builder.transaction().transactionManagerLookup(new DummyTransactionManagerLookup()).autoCommit(true);
+      cacheManager = new DefaultCacheManager(builder.build());
+      cache = cacheManager.getCache().getAdvancedCache();
+      keys = new Object[NUM_KEYS];
+      for (int i = 0; i < NUM_KEYS; i++) {
+         keys[i] = "key" + i;
+         cache.put(keys[i], "value" + i);
+      }
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      cacheManager.stop();
+   }
+
+   @Benchmark
+   public Object get() {
+      return cache.get(nextKey());
+   }
+
+   @Benchmark
+   public Object put() {
+      Object key = nextKey();
+      return cache.put(key, key);
+   }
+
+   @Benchmark
+   public Object containerGet() {
+      return cache.getDataContainer().get(nextKey());
+   }
+
+   @Benchmark
+   public void containerPut() {
+      Object key = nextKey();
+      cache.getDataContainer().put(key, key, null, -1, -1);
+   }
+
+   private Object nextKey() {
+      return keys[ThreadLocalRandom.current().nextInt(NUM_KEYS)];
+   }
+}
@@ -0,0 +1,135 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.benchmarks;
+
+import org.infinispan.container.entries.ImmortalCacheEntry;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.MarshalledValue;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marshalls and unmarshalls through the cache marshaller: a {@link MarshalledValue} wrapping a user object, which
+ * goes through plain serialization, and an internal cache entry, which goes through the externalizers registered in
+ * the <tt>ExternalizerTable</tt>.
+ *
+ * @since 5.2
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MarshallingBenchmark {
+
+   private EmbeddedCacheManager cacheManager;
+   private StreamingMarshaller marshaller;
+   private Person person;
+   private byte[] marshalledValueBytes;
+   private ImmortalCacheEntry cacheEntry;
+   private byte[] cacheEntryBytes;
+
+   @Setup(Level.Trial)
+   public void setUp() throws Exception {
+      cacheManager = new DefaultCacheManager();
+      marshaller = cacheManager.getCache().getAdvancedCache().getComponentRegistry().getCacheMarshaller();
+      person = new Person("Jane Doe", 42, "1 Main Street, Springfield");
+      marshalledValueBytes = marshaller.objectToByteBuffer(new MarshalledValue(person, true, marshaller));
+      cacheEntry = new ImmortalCacheEntry("key", "value");
+      cacheEntryBytes = marshaller.objectToByteBuffer(cacheEntry);
+   }
+
+   @TearDown(Level.Trial)
+   public void tearDown() {
+      cacheManager.stop();
+   }
+
+   @Benchmark
+   public Object serializeMarshalledValue() {
+      return new MarshalledValue(person, true, marshaller).serialize();
+   }
+
+   @Benchmark
+   public Object marshallMarshalledValue() throws Exception {
+      return marshaller.objectToByteBuffer(new MarshalledValue(person, true, marshaller));
+   }
+
+   @Benchmark
+   public Object unmarshallMarshalledValue() throws Exception {
+      MarshalledValue value = (MarshalledValue) marshaller.objectFromByteBuffer(marshalledValueBytes);
+      return value.get();
+   }
+
+   @Benchmark
+   public byte[] marshallCacheEntry() throws Exception {
+      return marshaller.objectToByteBuffer(cacheEntry);
+   }
+
+   @Benchmark
+   public Object unmarshallCacheEntry() throws Exception {
+      return marshaller.objectFromByteBuffer(cacheEntryBytes);
+   }
+
+   public static class Person implements Serializable {
+      private static final long serialVersionUID = 1L;
+
+      final String name;
+      final int age;
+      final String address;
+
+      Person(String name, int age, String address) {
+         this.name = name;
+         this.age = age;
+         this.address = address;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (o == null || getClass() != o.getClass()) return false;
+         Person person = (Person) o;
+         return age == person.age && name.equals(person.name) && address.equals(person.address);
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * (31 * name.hashCode() + age) + address.hashCode();
+      }
+   }
+}
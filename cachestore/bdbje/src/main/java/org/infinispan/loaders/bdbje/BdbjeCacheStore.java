@@ -26,6 +26,7 @@
 import com.sleepycat.collections.CurrentTransaction;
 import com.sleepycat.collections.StoredMap;
 import com.sleepycat.collections.StoredSortedMap;
+import com.sleepycat.collections.TransactionWorker;
 import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseEntry;
@@ -54,6 +55,7 @@
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -435,6 +437,44 @@ public void store(InternalCacheEntry ed) throws CacheLoaderException {
    }
 
 
+   /**
+    * {@inheritDoc} This implementation stores all the entries in a single SleepyCat transaction, run by {@link
+    * PreparableTransactionRunner#run(com.sleepycat.collections.TransactionWorker)}.
+    */
+   @Override
+   public void storeAll(final Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (entries == null || entries.isEmpty()) return;
+      try {
+         transactionRunner.run(new TransactionWorker() {
+            @Override
+            public void doWork() throws Exception {
+               for (InternalCacheEntry ed : entries) store(ed);
+            }
+         });
+      } catch (Exception caught) {
+         throw convertToCacheLoaderException("Problem storing entries: " + entries, caught);
+      }
+   }
+
+   /**
+    * {@inheritDoc} This implementation removes all the keys in a single SleepyCat transaction, run by {@link
+    * PreparableTransactionRunner#run(com.sleepycat.collections.TransactionWorker)}.
+    */
+   @Override
+   public void removeAll(final Set<Object> keys) throws CacheLoaderException {
+      if (keys == null || keys.isEmpty()) return;
+      try {
+         transactionRunner.run(new TransactionWorker() {
+            @Override
+            public void doWork() throws Exception {
+               for (Object key : keys) remove(key);
+            }
+         });
+      } catch (Exception caught) {
+         throw convertToCacheLoaderException("Problem removing keys: " + keys, caught);
+      }
+   }
+
    private void addNewExpiry(InternalCacheEntry entry) throws IOException {
       long expiry = entry.getExpiryTime();
       if (entry.getMaxIdle() > 0) {
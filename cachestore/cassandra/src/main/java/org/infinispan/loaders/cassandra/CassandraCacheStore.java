@@ -28,13 +28,23 @@
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.dataforte.cassandra.pool.DataSource;
 
@@ -54,6 +64,7 @@
 import org.apache.cassandra.thrift.SlicePredicate;
 import org.apache.cassandra.thrift.SliceRange;
 import org.apache.cassandra.thrift.SuperColumn;
+import org.apache.cassandra.thrift.TokenRange;
 import org.infinispan.Cache;
 import org.infinispan.config.ConfigurationException;
 import org.infinispan.container.entries.InternalCacheEntry;
@@ -65,6 +76,9 @@
 import org.infinispan.loaders.cassandra.logging.Log;
 import org.infinispan.loaders.keymappers.TwoWayKey2StringMapper;
 import org.infinispan.loaders.keymappers.UnsupportedKeyTypeException;
+import org.infinispan.loaders.modifications.Modification;
+import org.infinispan.loaders.modifications.Remove;
+import org.infinispan.loaders.modifications.Store;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.Util;
 import org.infinispan.util.logging.LogFactory;
@@ -72,6 +86,11 @@
 /**
  * A persistent <code>CacheLoader</code> based on Apache Cassandra project. See
  * http://cassandra.apache.org/
+ * <p/>
+ * Multiple modifications (transactions, {@link #storeAll(Collection)}, {@link #removeAll(Set)} and state transfer)
+ * are written with <code>batch_mutate</code> calls of at most {@link CassandraCacheStoreConfig#getBatchSize()} rows.
+ * Iterations over all the entries split the ring in token ranges which are paged through in parallel, each with its
+ * own pooled connection, by up to {@link CassandraCacheStoreConfig#getScanParallelism()} threads.
  *
  * @author Tristan Tarrant
  */
@@ -82,6 +101,11 @@ public class CassandraCacheStore extends AbstractCacheStore {
    private static final String ENTRY_COLUMN_NAME = "entry";
    private static final String EXPIRATION_KEY = "expiration";
    private static final int SLICE_SIZE = 100;
+   /**
+    * Approximate number of keys in each token range obtained by splitting the ring for a parallel scan
+    */
+   private static final int SPLIT_SIZE = 10000;
+   private static final AtomicInteger SCANNER_COUNTER = new AtomicInteger(0);
    private static final Log log = LogFactory.getLog(CassandraCacheStore.class, Log.class);
    private static final boolean trace = log.isTraceEnabled();
 
@@ -99,6 +123,9 @@ public class CassandraCacheStore extends AbstractCacheStore {
    private String entryKeyPrefix;
    private ByteBuffer expirationKey;
    private TwoWayKey2StringMapper keyMapper;
+   private SlicePredicate entrySlicePredicate;
+   private CassandraPartitioner partitioner;
+   private ExecutorService scanExecutor;
 
    static private Charset UTF8Charset = Charset.forName("UTF-8");
 
@@ -132,6 +159,9 @@ public void start() throws CacheLoaderException {
          expirationKey = ByteBufferUtil.bytes(EXPIRATION_KEY
                   + (config.isSharedKeyspace() ? "_" + cacheName : ""));
          keyMapper = (TwoWayKey2StringMapper) Util.getInstance(config.getKeyMapper(), config.getClassLoader());
+         entrySlicePredicate = new SlicePredicate();
+         entrySlicePredicate.setSlice_range(new SliceRange(ByteBuffer.wrap(entryColumnPath.getColumn()),
+                  ByteBufferUtil.EMPTY_BYTE_BUFFER, false, 1));
       } catch (Exception e) {
          throw new ConfigurationException(e);
       }
@@ -147,6 +177,19 @@ public void start() throws CacheLoaderException {
                                                   // created
       }
 
+      partitioner = describePartitioner();
+      if (config.getScanParallelism() > 1 && partitioner != null) {
+         final String scannerName = (cacheName == null ? "" : cacheName + '-') + getClass().getSimpleName() + "-scanner-";
+         scanExecutor = Executors.newFixedThreadPool(config.getScanParallelism(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+               Thread t = new Thread(r, scannerName + SCANNER_COUNTER.getAndIncrement());
+               t.setDaemon(true);
+               return t;
+            }
+         });
+      }
+
       log.debug("cleaning up expired entries...");
       purgeInternal();
 
@@ -220,7 +263,18 @@ public InternalCacheEntry load(Object key) throws CacheLoaderException {
 
    @Override
    public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
-      return load(Integer.MAX_VALUE);
+      final Set<InternalCacheEntry> s = Collections.newSetFromMap(new ConcurrentHashMap<InternalCacheEntry, Boolean>());
+      scan(new KeySliceHandler() {
+         @Override
+         public void handle(Cassandra.Client cassandraClient, List<KeySlice> keySlices) throws Exception {
+            for (KeySlice keySlice : keySlices) {
+               InternalCacheEntry ice = unmarshall(keySlice);
+               if (ice != null)
+                  s.add(ice);
+            }
+         }
+      });
+      return s;
    }
 
    @Override
@@ -229,36 +283,23 @@ public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException
       try {
          cassandraClient = dataSource.getConnection();
          Set<InternalCacheEntry> s = new HashSet<InternalCacheEntry>();
-         SlicePredicate slicePredicate = new SlicePredicate();
-         slicePredicate.setSlice_range(new SliceRange(ByteBuffer.wrap(entryColumnPath.getColumn()),
-                  ByteBufferUtil.EMPTY_BYTE_BUFFER, false, 1));
-         String startKey = "";
+         CassandraPartitioner scanPartitioner = scanPartitioner();
+         String startKey = scanPartitioner.minimumToken();
 
          // Get the keys in SLICE_SIZE blocks
          int sliceSize = Math.min(SLICE_SIZE, numEntries);
          for (boolean complete = false; !complete;) {
             KeyRange keyRange = new KeyRange(sliceSize);
             keyRange.setStart_token(startKey);
-            keyRange.setEnd_token("");
+            keyRange.setEnd_token(scanPartitioner.minimumToken());
             List<KeySlice> keySlices = cassandraClient.get_range_slices(entryColumnParent,
-                     slicePredicate, keyRange, readConsistencyLevel);
+                     entrySlicePredicate, keyRange, readConsistencyLevel);
 
             // Cycle through all the keys
             for (KeySlice keySlice : keySlices) {
-               Object key = unhashKey(keySlice.getKey());
-               if (key == null) // Skip invalid keys
-                  continue;
-               List<ColumnOrSuperColumn> columns = keySlice.getColumns();
-               if (columns.size() > 0) {
-                  if (log.isDebugEnabled()) {
-                     log.debugf("Loading %s", key);
-                  }
-                  byte[] value = columns.get(0).getColumn().getValue();
-                  InternalCacheEntry ice = unmarshall(value, key);
+               InternalCacheEntry ice = unmarshall(keySlice);
+               if (ice != null)
                   s.add(ice);
-               } else if (log.isDebugEnabled()) {
-                  log.debugf("Skipping empty key %s", key);
-               }
             }
             if (keySlices.size() < sliceSize) {
                // Cassandra has returned less keys than what we asked for.
@@ -273,7 +314,7 @@ public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException
                if (sliceSize == 0) {
                   complete = true;
                } else {
-                  startKey = new String(keySlices.get(keySlices.size() - 1).getKey(), UTF8Charset);
+                  startKey = scanPartitioner.tokenOf(keySlices.get(keySlices.size() - 1).getKey());
                }
             }
 
@@ -287,29 +328,11 @@ public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException
    }
 
    @Override
-   public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderException {
-      Cassandra.Client cassandraClient = null;
-      try {
-         cassandraClient = dataSource.getConnection();
-         Set<Object> s = new HashSet<Object>();
-         SlicePredicate slicePredicate = new SlicePredicate();
-         slicePredicate.setSlice_range(new SliceRange(ByteBuffer.wrap(entryColumnPath.getColumn()),
-                  ByteBufferUtil.EMPTY_BYTE_BUFFER, false, 1));
-         String startKey = "";
-         boolean complete = false;
-         // Get the keys in SLICE_SIZE blocks
-         while (!complete) {
-            KeyRange keyRange = new KeyRange(SLICE_SIZE);
-            keyRange.setStart_token(startKey);
-            keyRange.setEnd_token("");
-            List<KeySlice> keySlices = cassandraClient.get_range_slices(entryColumnParent,
-                     slicePredicate, keyRange, readConsistencyLevel);
-            if (keySlices.size() < SLICE_SIZE) {
-               complete = true;
-            } else {
-               startKey = new String(keySlices.get(keySlices.size() - 1).getKey(), UTF8Charset);
-            }
-
+   public Set<Object> loadAllKeys(final Set<Object> keysToExclude) throws CacheLoaderException {
+      final Set<Object> s = Collections.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+      scan(new KeySliceHandler() {
+         @Override
+         public void handle(Cassandra.Client cassandraClient, List<KeySlice> keySlices) {
             for (KeySlice keySlice : keySlices) {
                if (keySlice.getColumnsSize() > 0) {
                   Object key = unhashKey(keySlice.getKey());
@@ -318,12 +341,8 @@ public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderExce
                }
             }
          }
-         return s;
-      } catch (Exception e) {
-         throw new CacheLoaderException(e);
-      } finally {
-         dataSource.releaseConnection(cassandraClient);
-      }
+      });
+      return s;
    }
 
    /**
@@ -332,44 +351,24 @@ public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderExce
     */
    @Override
    public void stop() throws CacheLoaderException {
+      if (scanExecutor != null)
+         scanExecutor.shutdownNow();
       super.stop();
    }
 
    @Override
    public void clear() throws CacheLoaderException {
-      Cassandra.Client cassandraClient = null;
-      try {
-         cassandraClient = dataSource.getConnection();
-         SlicePredicate slicePredicate = new SlicePredicate();
-         slicePredicate.setSlice_range(new SliceRange(ByteBuffer.wrap(entryColumnPath.getColumn()),
-                  ByteBufferUtil.EMPTY_BYTE_BUFFER, false, 1));
-         String startKey = "";
-         boolean complete = false;
-         // Get the keys in SLICE_SIZE blocks
-         while (!complete) {
-            KeyRange keyRange = new KeyRange(SLICE_SIZE);
-            keyRange.setStart_token(startKey);
-            keyRange.setEnd_token("");
-            List<KeySlice> keySlices = cassandraClient.get_range_slices(entryColumnParent,
-                     slicePredicate, keyRange, readConsistencyLevel);
-            if (keySlices.size() < SLICE_SIZE) {
-               complete = true;
-            } else {
-               startKey = new String(keySlices.get(keySlices.size() - 1).getKey(), UTF8Charset);
-            }
+      scan(new KeySliceHandler() {
+         @Override
+         public void handle(Cassandra.Client cassandraClient, List<KeySlice> keySlices) throws Exception {
             Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
-
             for (KeySlice keySlice : keySlices) {
                remove0(ByteBuffer.wrap(keySlice.getKey()), mutationMap);
             }
-            cassandraClient.batch_mutate(mutationMap, ConsistencyLevel.ALL);
+            if (!mutationMap.isEmpty())
+               cassandraClient.batch_mutate(mutationMap, ConsistencyLevel.ALL);
          }
-      } catch (Exception e) {
-         throw new CacheLoaderException(e);
-      } finally {
-         dataSource.releaseConnection(cassandraClient);
-      }
-
+      });
    }
 
    @Override
@@ -406,6 +405,24 @@ private byte[] marshall(InternalCacheEntry entry) throws IOException, Interrupte
       return getMarshaller().objectToByteBuffer(entry.toInternalCacheValue());
    }
 
+   private InternalCacheEntry unmarshall(KeySlice keySlice) throws IOException, ClassNotFoundException {
+      Object key = unhashKey(keySlice.getKey());
+      if (key == null) // Skip invalid keys
+         return null;
+      List<ColumnOrSuperColumn> columns = keySlice.getColumns();
+      if (columns.size() > 0) {
+         if (log.isDebugEnabled()) {
+            log.debugf("Loading %s", key);
+         }
+         return unmarshall(columns.get(0).getColumn().getValue(), key);
+      } else {
+         if (log.isDebugEnabled()) {
+            log.debugf("Skipping empty key %s", key);
+         }
+         return null;
+      }
+   }
+
    private InternalCacheEntry unmarshall(Object o, Object key) throws IOException,
             ClassNotFoundException {
       if (o == null)
@@ -432,6 +449,85 @@ public void store(InternalCacheEntry entry) throws CacheLoaderException {
       }
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      List<Modification> mods = new ArrayList<Modification>(entries.size());
+      for (InternalCacheEntry entry : entries) {
+         mods.add(new Store(entry));
+      }
+      mutate(mods);
+   }
+
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      List<Modification> mods = new ArrayList<Modification>(keys.size());
+      for (Object key : keys) {
+         mods.add(new Remove(key));
+      }
+      mutate(mods);
+   }
+
+   /**
+    * Only the last modification of each key is written, so that the stores and removes of a transaction can share
+    * the same batches.
+    */
+   @Override
+   protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      Map<Object, Modification> lastModifications = new LinkedHashMap<Object, Modification>();
+      for (Modification m : mods) {
+         switch (m.getType()) {
+            case STORE:
+               lastModifications.put(((Store) m).getStoredEntry().getKey(), m);
+               break;
+            case REMOVE:
+               lastModifications.put(((Remove) m).getKey(), m);
+               break;
+            case CLEAR:
+               // the clear overrides all the previous modifications
+               lastModifications.clear();
+               clear();
+               break;
+            default:
+               throw new IllegalArgumentException("Unknown modification type " + m.getType());
+         }
+      }
+      mutate(lastModifications.values());
+   }
+
+   /**
+    * Writes store and remove modifications with batch_mutate calls of at most batchSize rows each
+    */
+   private void mutate(Collection<? extends Modification> mods) throws CacheLoaderException {
+      if (mods.isEmpty())
+         return;
+      Cassandra.Client cassandraClient = null;
+      try {
+         cassandraClient = dataSource.getConnection();
+         Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+         int batched = 0;
+         for (Modification m : mods) {
+            if (m.getType() == Modification.Type.STORE) {
+               store0(((Store) m).getStoredEntry(), mutationMap);
+            } else {
+               if (trace)
+                  log.tracef("remove(\"%s\") ", ((Remove) m).getKey());
+               remove0(ByteBufferUtil.bytes(hashKey(((Remove) m).getKey())), mutationMap);
+            }
+            if (++batched == config.getBatchSize()) {
+               cassandraClient.batch_mutate(mutationMap, writeConsistencyLevel);
+               mutationMap = new HashMap<ByteBuffer, Map<String, List<Mutation>>>();
+               batched = 0;
+            }
+         }
+         if (!mutationMap.isEmpty())
+            cassandraClient.batch_mutate(mutationMap, writeConsistencyLevel);
+      } catch (Exception e) {
+         throw new CacheLoaderException(e);
+      } finally {
+         dataSource.releaseConnection(cassandraClient);
+      }
+   }
+
    private void store0(InternalCacheEntry entry,
             Map<ByteBuffer, Map<String, List<Mutation>>> mutationMap) throws IOException,
             UnsupportedKeyTypeException {
@@ -464,17 +560,25 @@ private void addExpiryEntry(String cassandraKey, long expiryTime,
    }
 
    /**
-    * Writes to a stream the number of entries (long) then the entries themselves.
+    * Writes the entries to a stream, as they are read from Cassandra, followed by a null marker.
     */
    @Override
-   public void toStream(ObjectOutput out) throws CacheLoaderException {
+   public void toStream(final ObjectOutput out) throws CacheLoaderException {
       try {
-         Set<InternalCacheEntry> loadAll = loadAll();
-         int count = 0;
-         for (InternalCacheEntry entry : loadAll) {
-            getMarshaller().objectToObjectStream(entry, out);
-            count++;
-         }
+         scan(new KeySliceHandler() {
+            @Override
+            public void handle(Cassandra.Client cassandraClient, List<KeySlice> keySlices) throws Exception {
+               for (KeySlice keySlice : keySlices) {
+                  InternalCacheEntry ice = unmarshall(keySlice);
+                  if (ice != null) {
+                     // the token ranges may be scanned by multiple threads
+                     synchronized (out) {
+                        getMarshaller().objectToObjectStream(ice, out);
+                     }
+                  }
+               }
+            }
+         });
          getMarshaller().objectToObjectStream(null, out);
       } catch (IOException e) {
          throw new CacheLoaderException(e);
@@ -482,20 +586,24 @@ public void toStream(ObjectOutput out) throws CacheLoaderException {
    }
 
    /**
-    * Reads from a stream the number of entries (long) then the entries themselves.
+    * Reads the entries from a stream until the null marker is found, and stores them in batches.
     */
    @Override
    public void fromStream(ObjectInput in) throws CacheLoaderException {
       try {
-         int count = 0;
+         List<InternalCacheEntry> batch = new ArrayList<InternalCacheEntry>(config.getBatchSize());
          while (true) {
-            count++;
             InternalCacheEntry entry = (InternalCacheEntry) getMarshaller().objectFromObjectStream(
                      in);
             if (entry == null)
                break;
-            store(entry);
+            batch.add(entry);
+            if (batch.size() == config.getBatchSize()) {
+               storeAll(batch);
+               batch.clear();
+            }
          }
+         storeAll(batch);
       } catch (IOException e) {
          throw new CacheLoaderException(e);
       } catch (ClassNotFoundException e) {
@@ -558,6 +666,151 @@ public String toString() {
       return "CassandraCacheStore";
    }
 
+   private CassandraPartitioner describePartitioner() {
+      Cassandra.Client cassandraClient = null;
+      try {
+         cassandraClient = dataSource.getConnection();
+         String partitionerClassName = cassandraClient.describe_partitioner();
+         CassandraPartitioner p = CassandraPartitioner.forClassName(partitionerClassName);
+         if (p == null)
+            log.debugf("Tokens of partitioner %s cannot be computed, entries will be scanned sequentially", partitionerClassName);
+         return p;
+      } catch (Exception e) {
+         log.debugf(e, "Could not describe the partitioner, entries will be scanned sequentially");
+         return null;
+      } finally {
+         dataSource.releaseConnection(cassandraClient);
+      }
+   }
+
+   /**
+    * Scans use keys as tokens if the partitioner is unknown, which works for order preserving partitioners
+    */
+   private CassandraPartitioner scanPartitioner() {
+      return partitioner == null ? CassandraPartitioner.ORDER_PRESERVING : partitioner;
+   }
+
+   /**
+    * Pages through all the entries, passing each page to the handler. The token ranges of the ring are scanned in
+    * parallel if possible, so the handler must be thread safe.
+    */
+   private void scan(final KeySliceHandler handler) throws CacheLoaderException {
+      List<String[]> ranges = scanRanges();
+      if (ranges.size() == 1) {
+         scanRange(ranges.get(0)[0], ranges.get(0)[1], handler);
+         return;
+      }
+      List<Future<Void>> futures = new ArrayList<Future<Void>>(ranges.size());
+      try {
+         for (final String[] range : ranges) {
+            futures.add(scanExecutor.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws Exception {
+                  scanRange(range[0], range[1], handler);
+                  return null;
+               }
+            }));
+         }
+         for (Future<Void> future : futures) {
+            future.get();
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while scanning entries", e);
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof CacheLoaderException)
+            throw (CacheLoaderException) e.getCause();
+         throw new CacheLoaderException(e.getCause());
+      } finally {
+         for (Future<Void> future : futures) {
+            future.cancel(true);
+         }
+      }
+   }
+
+   /**
+    * Splits the ring in non-wrapping token ranges. If there are fewer ranges than scanning threads, they are further
+    * split according to the number of keys Cassandra estimates they hold.
+    */
+   private List<String[]> scanRanges() {
+      CassandraPartitioner p = scanPartitioner();
+      List<String[]> wholeRing = Collections.singletonList(new String[] { p.minimumToken(), p.minimumToken() });
+      if (scanExecutor == null)
+         return wholeRing;
+      Cassandra.Client cassandraClient = null;
+      try {
+         cassandraClient = dataSource.getConnection();
+         List<String[]> ranges = new ArrayList<String[]>();
+         for (TokenRange tokenRange : cassandraClient.describe_ring(config.keySpace)) {
+            String start = tokenRange.getStart_token();
+            String end = tokenRange.getEnd_token();
+            if (p.compare(start, end) < 0 || end.equals(p.minimumToken())) {
+               ranges.add(new String[] { start, end });
+            } else {
+               // The range wraps around the end of the ring
+               ranges.add(new String[] { start, p.minimumToken() });
+               ranges.add(new String[] { p.minimumToken(), end });
+            }
+         }
+         if (ranges.size() >= config.getScanParallelism())
+            return ranges;
+         List<String[]> splitRanges = new ArrayList<String[]>();
+         for (String[] range : ranges) {
+            List<String> splits = cassandraClient.describe_splits(config.entryColumnFamily, range[0], range[1], SPLIT_SIZE);
+            if (splits.size() < 2) {
+               splitRanges.add(range);
+            } else {
+               for (int i = 1; i < splits.size(); i++) {
+                  splitRanges.add(new String[] { splits.get(i - 1), splits.get(i) });
+               }
+            }
+         }
+         return splitRanges;
+      } catch (Exception e) {
+         log.debugf(e, "Could not split the ring in token ranges, entries will be scanned sequentially");
+         return wholeRing;
+      } finally {
+         dataSource.releaseConnection(cassandraClient);
+      }
+   }
+
+   /**
+    * Pages through the entries in the (startToken, endToken] range, in SLICE_SIZE blocks
+    */
+   private void scanRange(String startToken, String endToken, KeySliceHandler handler) throws CacheLoaderException {
+      CassandraPartitioner p = scanPartitioner();
+      boolean toEndOfRing = endToken.equals(p.minimumToken());
+      Cassandra.Client cassandraClient = null;
+      try {
+         cassandraClient = dataSource.getConnection();
+         for (boolean complete = false; !complete;) {
+            KeyRange keyRange = new KeyRange(SLICE_SIZE);
+            keyRange.setStart_token(startToken);
+            keyRange.setEnd_token(endToken);
+            List<KeySlice> keySlices = cassandraClient.get_range_slices(entryColumnParent,
+                     entrySlicePredicate, keyRange, readConsistencyLevel);
+            if (keySlices.size() < SLICE_SIZE) {
+               complete = true;
+            } else {
+               startToken = p.tokenOf(keySlices.get(keySlices.size() - 1).getKey());
+               // (end, end] would be read as the whole ring
+               complete = !toEndOfRing && p.compare(startToken, endToken) >= 0;
+            }
+            handler.handle(cassandraClient, keySlices);
+         }
+      } catch (CacheLoaderException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new CacheLoaderException(e);
+      } finally {
+         dataSource.releaseConnection(cassandraClient);
+      }
+   }
+
+   private interface KeySliceHandler {
+      void handle(Cassandra.Client cassandraClient, List<KeySlice> keySlices) throws Exception;
+   }
+
    private String hashKey(Object key) throws UnsupportedKeyTypeException {
       if (!keyMapper.isSupportedType(key.getClass())) {
          throw new UnsupportedKeyTypeException(key);
@@ -88,6 +88,16 @@ public class CassandraCacheStoreConfig extends AbstractCacheStoreConfig {
     */
    boolean autoCreateKeyspace = true;
 
+   /**
+    * @configRef desc="The maximum number of rows mutated by a single batch_mutate call"
+    */
+   int batchSize = 500;
+
+   /**
+    * @configRef desc="The number of token ranges which are scanned in parallel when iterating over all the entries"
+    */
+   int scanParallelism = 4;
+
    protected PoolProperties poolProperties;
 
    public CassandraCacheStoreConfig() {
@@ -243,6 +253,22 @@ public void setAutoCreateKeyspace(boolean autoCreateKeyspace) {
       this.autoCreateKeyspace = autoCreateKeyspace;
    }
 
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+   public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+   }
+
+   public int getScanParallelism() {
+      return scanParallelism;
+   }
+
+   public void setScanParallelism(int scanParallelism) {
+      this.scanParallelism = scanParallelism;
+   }
+
    public void setReadConsistencyLevel(ConsistencyLevel readConsistencyLevel) {
       this.readConsistencyLevel = readConsistencyLevel.toString();
    }
@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.cassandra;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The partitioners whose tokens can be computed on the client side, which is needed to page through a token range
+ * since a Thrift {@link org.apache.cassandra.thrift.KeyRange} cannot mix keys and tokens.
+ *
+ * @since 5.2
+ */
+enum CassandraPartitioner {
+   ORDER_PRESERVING("org.apache.cassandra.dht.OrderPreservingPartitioner", "") {
+      @Override
+      String tokenOf(byte[] key) {
+         return new String(key, ByteBufferUtil.UTF_8);
+      }
+
+      @Override
+      int compare(String token1, String token2) {
+         return token1.compareTo(token2);
+      }
+   },
+   BYTE_ORDERED("org.apache.cassandra.dht.ByteOrderedPartitioner", "") {
+      @Override
+      String tokenOf(byte[] key) {
+         StringBuilder sb = new StringBuilder(key.length * 2);
+         for (byte b : key) {
+            sb.append(HEX[(b >> 4) & 0xf]).append(HEX[b & 0xf]);
+         }
+         return sb.toString();
+      }
+
+      @Override
+      int compare(String token1, String token2) {
+         // lower case hex strings sort like the bytes they encode
+         return token1.compareTo(token2);
+      }
+   },
+   RANDOM("org.apache.cassandra.dht.RandomPartitioner", "-1") {
+      @Override
+      String tokenOf(byte[] key) {
+         try {
+            return new BigInteger(MessageDigest.getInstance("MD5").digest(key)).abs().toString();
+         } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+         }
+      }
+
+      @Override
+      int compare(String token1, String token2) {
+         return new BigInteger(token1).compareTo(new BigInteger(token2));
+      }
+   };
+
+   private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+   private final String className;
+   private final String minimumToken;
+
+   private CassandraPartitioner(String className, String minimumToken) {
+      this.className = className;
+      this.minimumToken = minimumToken;
+   }
+
+   /**
+    * The token which sorts before all the others. Used as the end of a range it stands for the end of the ring.
+    */
+   String minimumToken() {
+      return minimumToken;
+   }
+
+   abstract String tokenOf(byte[] key);
+
+   abstract int compare(String token1, String token2);
+
+   /**
+    * @return the partitioner with the given class name, or null if its tokens cannot be computed on the client side
+    */
+   static CassandraPartitioner forClassName(String className) {
+      for (CassandraPartitioner partitioner : values()) {
+         if (partitioner.className.equals(className))
+            return partitioner;
+      }
+      return null;
+   }
+}
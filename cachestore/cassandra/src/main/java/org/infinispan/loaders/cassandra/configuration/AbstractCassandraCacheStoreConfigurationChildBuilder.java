@@ -98,6 +98,16 @@ public CassandraCacheStoreConfigurationBuilder writeConsistencyLevel(Consistency
       return builder.writeConsistencyLevel(writeConsistencyLevel);
    }
 
+   @Override
+   public CassandraCacheStoreConfigurationBuilder batchSize(int batchSize) {
+      return builder.batchSize(batchSize);
+   }
+
+   @Override
+   public CassandraCacheStoreConfigurationBuilder scanParallelism(int scanParallelism) {
+      return builder.scanParallelism(scanParallelism);
+   }
+
    @Override
    public CassandraServerConfigurationBuilder addServer() {
       return builder.addServer();
@@ -31,6 +31,7 @@ public enum Attribute {
    // must be first
    UNKNOWN(null),
    AUTO_CREATE_KEYSPACE("autoCreateKeyspace"),
+   BATCH_SIZE("batchSize"),
    CONFIGURATION_PROPERTIES_FILE("configurationPropertiesFile"),
    ENTRY_COLUMN_FAMILY("entryColumnFamily"),
    EXPIRATION_COLUMN_FAMILY("expirationColumnFamily"),
@@ -42,6 +43,7 @@ public enum Attribute {
    PORT("port"),
    USERNAME("USERNAME"),
    READ_CONSISTENCY_LEVEL("readConsistencyLevel"),
+   SCAN_PARALLELISM("scanParallelism"),
    WRITE_CONSISTENCY_LEVEL("writeConsistencyLevel")
    ;
 
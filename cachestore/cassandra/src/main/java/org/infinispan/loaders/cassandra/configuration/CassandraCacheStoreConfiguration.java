@@ -48,11 +48,14 @@ public class CassandraCacheStoreConfiguration extends AbstractStoreConfiguration
    private final boolean sharedKeyspace;
    private final String username;
    private final ConsistencyLevel writeConsistencyLevel;
+   private final int batchSize;
+   private final int scanParallelism;
 
    public CassandraCacheStoreConfiguration(boolean autoCreateKeyspace, String configurationPropertiesFile,
          String entryColumnFamily, String expirationColumnFamily, boolean framed, List<CassandraServerConfiguration> servers, String keyMapper,
          String keySpace, String password, boolean sharedKeyspace, String username,
-         ConsistencyLevel readConsistencyLevel, ConsistencyLevel writeConsistencyLevel, boolean purgeOnStartup,
+         ConsistencyLevel readConsistencyLevel, ConsistencyLevel writeConsistencyLevel, int batchSize,
+         int scanParallelism, boolean purgeOnStartup,
          boolean purgeSynchronously, int purgerThreads, boolean fetchPersistentState, boolean ignoreModifications,
          TypedProperties properties, AsyncStoreConfiguration asyncStoreConfiguration,
          SingletonStoreConfiguration singletonStoreConfiguration) {
@@ -71,6 +74,8 @@ public CassandraCacheStoreConfiguration(boolean autoCreateKeyspace, String confi
       this.username = username;
       this.readConsistencyLevel = readConsistencyLevel;
       this.writeConsistencyLevel = writeConsistencyLevel;
+      this.batchSize = batchSize;
+      this.scanParallelism = scanParallelism;
    }
 
    public boolean autoCreateKeyspace() {
@@ -130,6 +135,14 @@ public ConsistencyLevel writeConsistencyLevel() {
       return writeConsistencyLevel;
    }
 
+   public int batchSize() {
+      return batchSize;
+   }
+
+   public int scanParallelism() {
+      return scanParallelism;
+   }
+
    @Override
    public CassandraCacheStoreConfig adapt() {
       CassandraCacheStoreConfig config = new CassandraCacheStoreConfig();
@@ -155,6 +168,8 @@ public CassandraCacheStoreConfig adapt() {
       config.setSharedKeyspace(sharedKeyspace);
       config.setUsername(username);
       config.setWriteConsistencyLevel(writeConsistencyLevel);
+      config.setBatchSize(batchSize);
+      config.setScanParallelism(scanParallelism);
 
       return config;
    }
@@ -52,6 +52,8 @@ public class CassandraCacheStoreConfigurationBuilder extends
    private boolean sharedKeyspace = false;
    private String username;
    private ConsistencyLevel writeConsistencyLevel = ConsistencyLevel.ONE;
+   private int batchSize = 500;
+   private int scanParallelism = 4;
 
    public CassandraCacheStoreConfigurationBuilder(LoadersConfigurationBuilder builder) {
       super(builder);
@@ -141,6 +143,17 @@ public CassandraCacheStoreConfigurationBuilder writeConsistencyLevel(Consistency
       return this;
    }
 
+   @Override
+   public CassandraCacheStoreConfigurationBuilder batchSize(int batchSize) {
+      this.batchSize = batchSize;
+      return this;
+   }
+
+   @Override
+   public CassandraCacheStoreConfigurationBuilder scanParallelism(int scanParallelism) {
+      this.scanParallelism = scanParallelism;
+      return this;
+   }
 
 
    @Override
@@ -149,6 +162,12 @@ public void validate() {
       if (servers.isEmpty()) {
          throw new ConfigurationException("No servers specified");
       }
+      if (batchSize < 1) {
+         throw new ConfigurationException("batchSize must be greater than 0");
+      }
+      if (scanParallelism < 1) {
+         throw new ConfigurationException("scanParallelism must be greater than 0");
+      }
    }
 
    @Override
@@ -159,7 +178,7 @@ public CassandraCacheStoreConfiguration create() {
       }
       return new CassandraCacheStoreConfiguration(autoCreateKeyspace, configurationPropertiesFile, entryColumnFamily,
             expirationColumnFamily, framed, remoteServers, keyMapper, keySpace, password, sharedKeyspace, username,
-            readConsistencyLevel, writeConsistencyLevel, autoCreateKeyspace, sharedKeyspace, purgerThreads, framed,
+            readConsistencyLevel, writeConsistencyLevel, batchSize, scanParallelism, autoCreateKeyspace, sharedKeyspace, purgerThreads, framed,
             autoCreateKeyspace, TypedProperties.toTypedProperties(properties), async.create(), singletonStore.create());
    }
 
@@ -180,6 +199,8 @@ public CassandraCacheStoreConfigurationBuilder read(CassandraCacheStoreConfigura
       sharedKeyspace = template.sharedKeyspace();
       username = template.username();
       writeConsistencyLevel = template.writeConsistencyLevel();
+      batchSize = template.batchSize();
+      scanParallelism = template.scanParallelism();
 
       // AbstractStore-specific configuration
       fetchPersistentState = template.fetchPersistentState();
@@ -53,5 +53,15 @@
 
    CassandraCacheStoreConfigurationBuilder writeConsistencyLevel(ConsistencyLevel writeConsistencyLevel);
 
+   /**
+    * The maximum number of rows mutated by a single batch_mutate call when storing or removing multiple entries
+    */
+   CassandraCacheStoreConfigurationBuilder batchSize(int batchSize);
+
+   /**
+    * The number of token ranges which are scanned in parallel when loading, clearing or streaming all the entries
+    */
+   CassandraCacheStoreConfigurationBuilder scanParallelism(int scanParallelism);
+
    CassandraServerConfigurationBuilder addServer();
 }
@@ -136,6 +136,10 @@ private void parseCassandraStoreAttributes(XMLExtendedStreamReader reader,
             builder.autoCreateKeyspace(Boolean.parseBoolean(value));
             break;
          }
+         case BATCH_SIZE: {
+            builder.batchSize(Integer.parseInt(value));
+            break;
+         }
          case CONFIGURATION_PROPERTIES_FILE: {
             builder.configurationPropertiesFile(value);
             break;
@@ -168,6 +172,10 @@ private void parseCassandraStoreAttributes(XMLExtendedStreamReader reader,
             builder.readConsistencyLevel(ConsistencyLevel.valueOf(value));
             break;
          }
+         case SCAN_PARALLELISM: {
+            builder.scanParallelism(Integer.parseInt(value));
+            break;
+         }
          case USERNAME: {
             builder.username(value);
             break;
@@ -34,6 +34,8 @@ public void testCassandraCacheStoreConfigurationAdaptor() {
          .framed(true)
          .readConsistencyLevel(ConsistencyLevel.EACH_QUORUM)
          .writeConsistencyLevel(ConsistencyLevel.ANY)
+         .batchSize(50)
+         .scanParallelism(2)
          .fetchPersistentState(true)
          .addServer()
             .host("one")
@@ -47,6 +49,8 @@ public void testCassandraCacheStoreConfigurationAdaptor() {
       assert store.servers().size() == 2;
       assert store.readConsistencyLevel().equals(ConsistencyLevel.EACH_QUORUM);
       assert store.writeConsistencyLevel().equals(ConsistencyLevel.ANY);
+      assert store.batchSize() == 50;
+      assert store.scanParallelism() == 2;
       assert store.fetchPersistentState();
       assert store.async().enabled();
 
@@ -59,6 +63,8 @@ public void testCassandraCacheStoreConfigurationAdaptor() {
       assert store2.servers().size() == 2;
       assert store2.readConsistencyLevel().equals(ConsistencyLevel.EACH_QUORUM);
       assert store2.writeConsistencyLevel().equals(ConsistencyLevel.ANY);
+      assert store2.batchSize() == 50;
+      assert store2.scanParallelism() == 2;
       assert store2.fetchPersistentState();
       assert store2.async().enabled();
 
@@ -67,6 +73,8 @@ public void testCassandraCacheStoreConfigurationAdaptor() {
       assert legacy.isFramed();
       assert legacy.getReadConsistencyLevel().equals(ConsistencyLevel.EACH_QUORUM.toString());
       assert legacy.getWriteConsistencyLevel().equals(ConsistencyLevel.ANY.toString());
+      assert legacy.getBatchSize() == 50;
+      assert legacy.getScanParallelism() == 2;
       assert legacy.isFetchPersistentState();
       assert legacy.getAsyncStoreConfig().isEnabled();
    }
@@ -50,7 +50,7 @@ public void testRemoteCacheStore() throws Exception {
       String config = INFINISPAN_START_TAG +
             "   <default>\n" +
             "     <loaders>\n" +
-            "       <cassandraStore xmlns=\"urn:infinispan:config:cassandra:5.2\" autoCreateKeyspace=\"false\" fetchPersistentState=\"true\" readConsistencyLevel=\"EACH_QUORUM\" writeConsistencyLevel=\"ANY\">\n" +
+            "       <cassandraStore xmlns=\"urn:infinispan:config:cassandra:5.2\" autoCreateKeyspace=\"false\" fetchPersistentState=\"true\" readConsistencyLevel=\"EACH_QUORUM\" writeConsistencyLevel=\"ANY\" batchSize=\"50\" scanParallelism=\"2\">\n" +
             "         <servers>\n" +
             "           <server host=\"one\" />\n" +
             "           <server host=\"two\" />\n" +
@@ -67,6 +67,8 @@ public void testRemoteCacheStore() throws Exception {
       assert store.servers().size() == 2;
       assert store.readConsistencyLevel().equals(ConsistencyLevel.EACH_QUORUM);
       assert store.writeConsistencyLevel().equals(ConsistencyLevel.ANY);
+      assert store.batchSize() == 50;
+      assert store.scanParallelism() == 2;
       assert store.fetchPersistentState();
       assert store.async().enabled();
    }
@@ -306,6 +306,59 @@ public String getSelectIdRowSql() {
       return selectIdRowSql;
    }
 
+   /**
+    * Returns the query selecting the id and data columns of the rows matching any of <tt>count</tt> ids, which must
+    * not exceed {@link #getMaxSelectInSize()}.
+    */
+   public String getSelectRowsSql(int count) {
+      return "SELECT " + idColumnName + ", " + dataColumnName + " FROM " + getTableName() + " WHERE " + idColumnName + " IN (" + getIdParameters(count) + ")";
+   }
+
+   /**
+    * Returns the query selecting the id column of the rows matching any of <tt>count</tt> ids, which must not exceed
+    * {@link #getMaxSelectInSize()}.
+    */
+   public String getSelectIdRowsSql(int count) {
+      return "SELECT " + idColumnName + " FROM " + getTableName() + " WHERE " + idColumnName + " IN (" + getIdParameters(count) + ")";
+   }
+
+   /**
+    * The maximum number of ids looked up by a single {@link #getSelectRowsSql(int)} or {@link #getSelectIdRowsSql(int)}
+    * query, within the database limits on the number of statement parameters and of IN list elements.
+    */
+   public int getMaxSelectInSize() {
+      switch (getDatabaseType()) {
+         case SQLITE:
+            // the default SQLITE_MAX_VARIABLE_NUMBER
+            return 999;
+         default:
+            // Oracle rejects IN lists of more than 1000 elements, which also keeps well below the parameter limits of
+            // SQL Server (2100) and Sybase (2048)
+            return 1000;
+      }
+   }
+
+   private String getIdParameters(int count) {
+      String parameter;
+      switch (getDatabaseType()) {
+         case SYBASE:
+            parameter = "convert(" + idColumnType + ",?)";
+            break;
+         case POSTGRES:
+            parameter = "cast(? as " + idColumnType + ")";
+            break;
+         default:
+            parameter = "?";
+            break;
+      }
+      StringBuilder sb = new StringBuilder(count * (parameter.length() + 1));
+      for (int i = 0; i < count; i++) {
+         if (i > 0) sb.append(',');
+         sb.append(parameter);
+      }
+      return sb.toString();
+   }
+
    public String getDeleteRowSql() {
       if (deleteRowSql == null) {
          switch(getDatabaseType()) {
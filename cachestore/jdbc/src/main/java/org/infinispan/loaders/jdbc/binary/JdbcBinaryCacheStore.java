@@ -47,6 +47,7 @@
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -264,6 +265,59 @@ protected void updateBucket(Bucket bucket) throws CacheLoaderException {
       }
    }
 
+   @Override
+   protected void insertBuckets(Collection<Bucket> buckets) throws CacheLoaderException {
+      writeBuckets(tableManipulation.getInsertRowSql(), buckets);
+   }
+
+   @Override
+   protected void updateBuckets(Collection<Bucket> buckets) throws CacheLoaderException {
+      writeBuckets(tableManipulation.getUpdateRowSql(), buckets);
+   }
+
+   /**
+    * Writes several buckets over a single connection, using JDBC batches of {@link TableManipulation#getBatchSize()}
+    * statements.
+    */
+   private void writeBuckets(String sql, Collection<Bucket> buckets) throws CacheLoaderException {
+      Connection conn = null;
+      PreparedStatement ps = null;
+      try {
+         if (log.isTraceEnabled()) {
+            log.tracef("Running writeBuckets. Sql: '%s', on %d buckets", sql, buckets.size());
+         }
+         conn = connectionFactory.getConnection();
+         ps = conn.prepareStatement(sql);
+         int batchSize = tableManipulation.getBatchSize();
+         int count = 0;
+         for (Bucket bucket : buckets) {
+            ByteBuffer buffer = JdbcUtil.marshall(getMarshaller(), bucket);
+            ps.setBinaryStream(1, buffer.getStream(), buffer.getLength());
+            ps.setLong(2, bucket.timestampOfFirstEntryToExpire());
+            ps.setString(3, bucket.getBucketIdAsString());
+            ps.addBatch();
+            if (++count % batchSize == 0) {
+               ps.executeBatch();
+            }
+         }
+         if (count % batchSize != 0) {
+            ps.executeBatch();
+         }
+      } catch (SQLException e) {
+         log.sqlFailureWritingBuckets(buckets.size(), e);
+         throw new CacheLoaderException(String.format(
+               "Sql failure while writing a batch of %d buckets", buckets.size()), e);
+      } catch (InterruptedException ie) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to write buckets");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
    @Override
    protected Bucket loadBucket(Integer keyHashCode) throws CacheLoaderException {
       Connection conn = null;
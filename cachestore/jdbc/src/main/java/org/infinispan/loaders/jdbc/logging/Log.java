@@ -158,4 +158,8 @@ public interface Log extends org.infinispan.util.logging.Log {
    @Message(value = "SQL error while fetching stored entry with key: %s, lockingKey: %s", id = 8027)
    void sqlFailureReadingKey(Object key, String lockingKey, @Cause SQLException e);
 
+   @LogMessage(level = ERROR)
+   @Message(value = "Sql failure while writing a batch of %d buckets", id = 8028)
+   void sqlFailureWritingBuckets(int bucketCount, @Cause SQLException e);
+
 }
@@ -39,6 +39,10 @@
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -147,6 +151,23 @@ public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       return fromBuckets;
    }
 
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Set<Object> stringKeys = new HashSet<Object>();
+      Set<Object> binaryKeys = new HashSet<Object>();
+      for (Object key : keys) {
+         if (getCacheStore(key) == stringBasedCacheStore) {
+            stringKeys.add(key);
+         } else {
+            binaryKeys.add(key);
+         }
+      }
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      if (!stringKeys.isEmpty()) result.addAll(stringBasedCacheStore.loadAll(stringKeys));
+      if (!binaryKeys.isEmpty()) result.addAll(binaryCacheStore.loadAll(binaryKeys));
+      return result;
+   }
+
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
       if (numEntries < 0) return loadAll();
@@ -173,6 +194,21 @@ public void store(InternalCacheEntry ed) throws CacheLoaderException {
       getCacheStore(ed.getKey()).store(ed);
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      List<InternalCacheEntry> stringEntries = new ArrayList<InternalCacheEntry>();
+      List<InternalCacheEntry> binaryEntries = new ArrayList<InternalCacheEntry>();
+      for (InternalCacheEntry ed : entries) {
+         if (getCacheStore(ed.getKey()) == stringBasedCacheStore) {
+            stringEntries.add(ed);
+         } else {
+            binaryEntries.add(ed);
+         }
+      }
+      if (!stringEntries.isEmpty()) stringBasedCacheStore.storeAll(stringEntries);
+      if (!binaryEntries.isEmpty()) binaryCacheStore.storeAll(binaryEntries);
+   }
+
    @Override
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
       binaryCacheStore.fromStream(inputStream);
@@ -190,6 +226,21 @@ public boolean remove(Object key) throws CacheLoaderException {
       return getCacheStore(key).remove(key);
    }
 
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      Set<Object> stringKeys = new HashSet<Object>();
+      Set<Object> binaryKeys = new HashSet<Object>();
+      for (Object key : keys) {
+         if (getCacheStore(key) == stringBasedCacheStore) {
+            stringKeys.add(key);
+         } else {
+            binaryKeys.add(key);
+         }
+      }
+      if (!stringKeys.isEmpty()) stringBasedCacheStore.removeAll(stringKeys);
+      if (!binaryKeys.isEmpty()) binaryCacheStore.removeAll(binaryKeys);
+   }
+
    @Override
    public void clear() throws CacheLoaderException {
       binaryCacheStore.clear();
@@ -49,6 +49,11 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -264,6 +269,186 @@ public void storeLockSafe(InternalCacheEntry ed, String lockingKey) throws Cache
       }
    }
 
+   /**
+    * Writes the whole batch over a single connection: the existing rows are looked up first, with queries matching up
+    * to {@link TableManipulation#getMaxSelectInSize()} ids each, then all the updates and all the inserts are sent as
+    * JDBC batches of {@link TableManipulation#getBatchSize()} statements.
+    */
+   @Override
+   protected void storeAllLockSafe(Map<String, List<InternalCacheEntry>> entries) throws CacheLoaderException {
+      Connection connection = null;
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      try {
+         connection = connectionFactory.getConnection();
+         Set<String> existing = new HashSet<String>();
+         List<String> lockingKeys = new ArrayList<String>(entries.keySet());
+         int maxInSize = tableManipulation.getMaxSelectInSize();
+         for (int from = 0; from < lockingKeys.size(); from += maxInSize) {
+            List<String> chunk = lockingKeys.subList(from, Math.min(from + maxInSize, lockingKeys.size()));
+            ps = prepareSelectIn(connection, tableManipulation.getSelectIdRowsSql(chunk.size()), chunk);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+               existing.add(rs.getString(1));
+            }
+            JdbcUtil.safeClose(rs);
+            JdbcUtil.safeClose(ps);
+         }
+
+         Map<String, InternalCacheEntry> toUpdate = new LinkedHashMap<String, InternalCacheEntry>();
+         Map<String, InternalCacheEntry> toInsert = new LinkedHashMap<String, InternalCacheEntry>();
+         for (Map.Entry<String, List<InternalCacheEntry>> e : entries.entrySet()) {
+            // several entries may map to the same row, the last one wins
+            List<InternalCacheEntry> forKey = e.getValue();
+            InternalCacheEntry last = forKey.get(forKey.size() - 1);
+            if (existing.contains(e.getKey())) {
+               toUpdate.put(e.getKey(), last);
+            } else {
+               toInsert.put(e.getKey(), last);
+            }
+         }
+         executeBatch(connection, tableManipulation.getUpdateRowSql(), toUpdate);
+         executeBatch(connection, tableManipulation.getInsertRowSql(), toInsert);
+      } catch (SQLException ex) {
+         log.sqlFailureStoringKeys(ex);
+         throw new CacheLoaderException("SQL Error while storing string keys to database", ex);
+      } catch (InterruptedException e) {
+         // the batch was only partly written, so the caller must not consider it stored
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while marshalling entries to store", e);
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   private PreparedStatement prepareSelectIn(Connection connection, String sql, List<String> lockingKeys) throws SQLException {
+      if (log.isTraceEnabled()) {
+         log.tracef("Running sql '%s' on %d keys", sql, lockingKeys.size());
+      }
+      PreparedStatement ps = connection.prepareStatement(sql);
+      try {
+         int i = 1;
+         for (String lockingKey : lockingKeys) {
+            ps.setString(i++, lockingKey);
+         }
+         return ps;
+      } catch (SQLException e) {
+         JdbcUtil.safeClose(ps);
+         throw e;
+      }
+   }
+
+   private void executeBatch(Connection connection, String sql, Map<String, InternalCacheEntry> rows)
+         throws SQLException, CacheLoaderException, InterruptedException {
+      if (rows.isEmpty()) {
+         return;
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("Running sql '%s' on %d keys", sql, rows.size());
+      }
+      PreparedStatement ps = connection.prepareStatement(sql);
+      try {
+         int batchSize = tableManipulation.getBatchSize();
+         int count = 0;
+         for (Map.Entry<String, InternalCacheEntry> row : rows.entrySet()) {
+            ByteBuffer byteBuffer = JdbcUtil.marshall(getMarshaller(), row.getValue().toInternalCacheValue());
+            ps.setBinaryStream(1, byteBuffer.getStream(), byteBuffer.getLength());
+            ps.setLong(2, row.getValue().getExpiryTime());
+            ps.setString(3, row.getKey());
+            ps.addBatch();
+            if (++count % batchSize == 0) {
+               ps.executeBatch();
+            }
+         }
+         if (count % batchSize != 0) {
+            ps.executeBatch();
+         }
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
+   @Override
+   protected Set<InternalCacheEntry> loadAllLockSafe(Map<String, List<Object>> keys) throws CacheLoaderException {
+      Connection conn = null;
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      Object key = null;
+      String lockingKey = null;
+      try {
+         conn = connectionFactory.getConnection();
+         long now = System.currentTimeMillis();
+         List<String> lockingKeys = new ArrayList<String>(keys.keySet());
+         int maxInSize = tableManipulation.getMaxSelectInSize();
+         for (int from = 0; from < lockingKeys.size(); from += maxInSize) {
+            List<String> chunk = lockingKeys.subList(from, Math.min(from + maxInSize, lockingKeys.size()));
+            ps = prepareSelectIn(conn, tableManipulation.getSelectRowsSql(chunk.size()), chunk);
+            rs = ps.executeQuery();
+            while (rs.next()) {
+               lockingKey = rs.getString(1);
+               List<Object> forLockingKey = keys.get(lockingKey);
+               if (forLockingKey == null) {
+                  continue;
+               }
+               key = forLockingKey.get(0);
+               InputStream inputStream = rs.getBinaryStream(2);
+               InternalCacheValue icv = (InternalCacheValue) JdbcUtil.unmarshall(getMarshaller(), inputStream);
+               InternalCacheEntry storedEntry = icv.toInternalCacheEntry(key);
+               if (!storedEntry.isExpired(now)) {
+                  result.add(storedEntry);
+               }
+            }
+            JdbcUtil.safeClose(rs);
+            JdbcUtil.safeClose(ps);
+         }
+         return result;
+      } catch (SQLException e) {
+         log.sqlFailureReadingKey(key, lockingKey, e);
+         throw new CacheLoaderException(String.format(
+               "SQL error while fetching stored entry with key: %s, lockingKey: %s",
+               key, lockingKey), e);
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(conn);
+      }
+   }
+
+   @Override
+   protected void removeAllLockSafe(Map<String, List<Object>> keys) throws CacheLoaderException {
+      Connection connection = null;
+      PreparedStatement ps = null;
+      try {
+         String sql = tableManipulation.getDeleteRowSql();
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql '%s' on %d keys", sql, keys.size());
+         }
+         connection = connectionFactory.getConnection();
+         ps = connection.prepareStatement(sql);
+         int batchSize = tableManipulation.getBatchSize();
+         int count = 0;
+         for (String keyStr : keys.keySet()) {
+            ps.setString(1, keyStr);
+            ps.addBatch();
+            if (++count % batchSize == 0) {
+               ps.executeBatch();
+            }
+         }
+         if (count % batchSize != 0) {
+            ps.executeBatch();
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureRemovingKeys(ex);
+         throw new CacheLoaderException("Error while removing string keys from database", ex);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
    @Override
    public boolean removeLockSafe(Object key, String keyStr) throws CacheLoaderException {
       Connection connection = null;
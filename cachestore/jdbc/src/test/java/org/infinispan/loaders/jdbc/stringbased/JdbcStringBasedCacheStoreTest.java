@@ -25,7 +25,13 @@
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.infinispan.CacheImpl;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.loaders.BaseCacheStoreTest;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheStore;
@@ -33,6 +39,7 @@
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactory;
 import org.infinispan.loaders.jdbc.connectionfactory.ConnectionFactoryConfig;
 import org.infinispan.loaders.keymappers.UnsupportedKeyTypeException;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
 import org.infinispan.test.fwk.UnitTestDatabaseManager;
 import org.testng.annotations.Test;
 
@@ -82,6 +89,28 @@ public void testNotCreateConnectionFactory() throws Exception {
       stringBasedCacheStore.stop();
    }
 
+   public void testStoreAllAndLoadAllSpanSeveralQueries() throws Exception {
+      // more keys than a single IN query may look up, half of them already stored
+      int numKeys = 2500;
+      for (int i = 0; i < numKeys; i += 2) {
+         cs.store(TestInternalCacheEntryFactory.create("k" + i, "old"));
+      }
+      List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>(numKeys);
+      Set<Object> keys = new HashSet<Object>();
+      for (int i = 0; i < numKeys; i++) {
+         entries.add(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+         keys.add("k" + i);
+      }
+      cs.storeAll(entries);
+      keys.add("missing");
+
+      Set<InternalCacheEntry> loaded = cs.loadAll(keys);
+      assert loaded.size() == numKeys : "Expected " + numKeys + " entries but loaded " + loaded.size();
+      for (InternalCacheEntry entry : loaded) {
+         assert entry.getValue().equals("v" + ((String) entry.getKey()).substring(1)) : "Unexpected entry " + entry;
+      }
+   }
+
    @Override
    @Test(expectedExceptions = UnsupportedKeyTypeException.class)
    public void testLoadAndStoreMarshalledValues() throws CacheLoaderException {
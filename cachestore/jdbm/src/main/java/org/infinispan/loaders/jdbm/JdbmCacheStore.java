@@ -54,6 +54,7 @@
 import java.text.SimpleDateFormat;
 import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -273,6 +274,18 @@ public boolean remove(Object key) throws CacheLoaderException {
       }
    }
 
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      if (keys == null || keys.isEmpty())
+         return;
+      try {
+         for (Object key : keys)
+            remove0(key);
+      } finally {
+         commit();
+      }
+   }
+
    private void commit() throws CacheLoaderException {
       try {
          recman.commit();
@@ -302,6 +315,18 @@ public void store(InternalCacheEntry entry) throws CacheLoaderException {
       commit();
    }
 
+   /**
+    * Stores all the entries and commits the record manager only once.
+    */
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (entries == null || entries.isEmpty())
+         return;
+      for (InternalCacheEntry entry : entries)
+         store0(entry);
+      commit();
+   }
+
    private byte[] marshall(InternalCacheEntry entry) throws IOException, InterruptedException {
       return getMarshaller().objectToByteBuffer(entry.toInternalCacheValue());
    }
@@ -0,0 +1,969 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logstructured;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.Cache;
+import org.infinispan.config.ConfigurationException;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.loaders.AbstractCacheStore;
+import org.infinispan.loaders.CacheLoaderConfig;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderMetadata;
+import org.infinispan.loaders.logstructured.logging.Log;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * A log-structured file based cache store. Rather than rewriting a file per bucket on every modification, like
+ * {@link org.infinispan.loaders.file.FileCacheStore} does, every store and remove is appended as a record to the
+ * segment file currently open for writing, and an in-memory index maps each key to the segment and offset of its
+ * latest record together with its expiry time.
+ * <p/>
+ * Each record is laid out as follows:
+ * <pre>
+ *    int keyLength | int valueLength (-1 for removals) | long expiryTime (-1 if immortal) | int crc32 | key | value
+ * </pre>
+ * Once a segment reaches {@link LogStructuredCacheStoreConfig#getMaxFileSize()} it is sealed: it is forced to disk
+ * and a companion hint file is written, holding the index information of every record in the segment but none of
+ * the values. On start up, the index is rebuilt from the hint files where available, falling back to scanning the
+ * segment itself otherwise, and a torn record at the end of a segment is truncated away.
+ * <p/>
+ * Because the expiry time lives in the index, {@link #purgeExpired()} never reads a value from disk. Overwritten,
+ * removed and expired records are accounted for as garbage in their segment and, once the ratio of garbage in a
+ * sealed segment reaches {@link LogStructuredCacheStoreConfig#getCompactionThreshold()}, the segment is compacted
+ * in the background by copying its live records to the end of the log and deleting it.
+ * <p/>
+ * When {@link LogStructuredCacheStoreConfig#isSyncWrites()} is enabled, writers wait for their records to be forced
+ * to disk before returning. Writers arriving while a force is in progress are satisfied together by the next one, so
+ * concurrent writers share the cost of a single fsync.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+@CacheLoaderMetadata(configurationClass = LogStructuredCacheStoreConfig.class)
+public class LogStructuredCacheStore extends AbstractCacheStore {
+
+   private static final Log log = LogFactory.getLog(LogStructuredCacheStore.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   static final String SEGMENT_SUFFIX = ".log";
+   static final String HINT_SUFFIX = ".hint";
+   static final int HEADER_SIZE = 4 + 4 + 8 + 4;
+   private static final int TOMBSTONE = -1;
+
+   private LogStructuredCacheStoreConfig config;
+   private File root;
+   private ExecutorService compactor;
+   private volatile boolean stopping;
+
+   private final ConcurrentMap<Object, EntryPosition> index = ConcurrentMapFactory.makeConcurrentMap();
+   private final ConcurrentMap<Integer, Segment> segments = ConcurrentMapFactory.makeConcurrentMap();
+   private final Set<Integer> pendingCompactions = Collections.newSetFromMap(ConcurrentMapFactory.<Integer, Boolean>makeConcurrentMap());
+
+   private final ReentrantLock writeLock = new ReentrantLock();
+   // guarded by writeLock, though readers may peek at which segment is active
+   private volatile Segment active;
+   private List<HintRecord> activeHints;
+   private int nextSegmentId;
+   private long appendedBytes;
+
+   private final Object syncMonitor = new Object();
+   // guarded by syncMonitor
+   private long syncedBytes;
+   private boolean syncing;
+
+   @Override
+   public Class<? extends CacheLoaderConfig> getConfigurationClass() {
+      return LogStructuredCacheStoreConfig.class;
+   }
+
+   @Override
+   public void init(CacheLoaderConfig clc, Cache<?, ?> cache, StreamingMarshaller m) throws CacheLoaderException {
+      super.init(clc, cache, m);
+      this.config = (LogStructuredCacheStoreConfig) clc;
+   }
+
+   @Override
+   public void start() throws CacheLoaderException {
+      String location = config.getLocation();
+      if (location == null || location.trim().length() == 0)
+         location = "Infinispan-LogStructuredCacheStore";
+      root = new File(location, cache == null ? "default" : cache.getName());
+      if (!root.exists() && !root.mkdirs())
+         throw new ConfigurationException("Unable to create cache store location " + root);
+      if (!root.isDirectory())
+         throw new ConfigurationException("Cache store location [" + root + "] is not a directory!");
+
+      stopping = false;
+      final String threadName = (cache == null ? "" : cache.getName() + '-') + getClass().getSimpleName() + "-Compactor";
+      compactor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+         }
+      });
+
+      writeLock.lock();
+      try {
+         rebuildIndex();
+         openActiveSegment();
+      } catch (IOException e) {
+         throw new CacheLoaderException("Unable to open log-structured store in " + root, e);
+      } finally {
+         writeLock.unlock();
+      }
+      log.logStructuredStoreOpened(root, index.size(), segments.size());
+
+      for (Segment segment : segments.values())
+         compactIfNeeded(segment);
+      super.start();
+   }
+
+   @Override
+   public void stop() throws CacheLoaderException {
+      super.stop();
+      stopping = true;
+      if (compactor != null) {
+         compactor.shutdown();
+         try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+
+      writeLock.lock();
+      try {
+         if (active != null)
+            sealActiveSegment();
+      } catch (IOException e) {
+         throw new CacheLoaderException(e);
+      } finally {
+         for (Segment segment : segments.values())
+            segment.close();
+         segments.clear();
+         index.clear();
+         pendingCompactions.clear();
+         active = null;
+         activeHints = null;
+         writeLock.unlock();
+      }
+   }
+
+   @Override
+   public InternalCacheEntry load(Object key) throws CacheLoaderException {
+      while (true) {
+         EntryPosition position = index.get(key);
+         if (position == null)
+            return null;
+         if (position.isExpired(System.currentTimeMillis())) {
+            discard(key, position);
+            return null;
+         }
+         Segment segment = segments.get(position.segment);
+         if (segment != null) {
+            try {
+               return readEntry(segment, position, key);
+            } catch (IOException e) {
+               // the segment may have been compacted away under our feet, in which case the index has moved on
+               if (index.get(key) == position)
+                  throw new CacheLoaderException("Unable to read entry for key " + key + " from " + segment.file, e);
+            }
+         } else if (index.get(key) == position) {
+            throw new CacheLoaderException("Index for key " + key + " refers to missing segment " + position.segment);
+         }
+      }
+   }
+
+   @Override
+   public boolean containsKey(Object key) throws CacheLoaderException {
+      EntryPosition position = index.get(key);
+      return position != null && !position.isExpired(System.currentTimeMillis());
+   }
+
+   @Override
+   public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
+      return load(Integer.MAX_VALUE);
+   }
+
+   @Override
+   public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      for (Object key : index.keySet()) {
+         if (result.size() >= numEntries)
+            break;
+         InternalCacheEntry entry = load(key);
+         if (entry != null)
+            result.add(entry);
+      }
+      return result;
+   }
+
+   @Override
+   public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderException {
+      long now = System.currentTimeMillis();
+      Set<Object> result = new HashSet<Object>();
+      for (Map.Entry<Object, EntryPosition> entry : index.entrySet()) {
+         Object key = entry.getKey();
+         if (!entry.getValue().isExpired(now) && (keysToExclude == null || !keysToExclude.contains(key)))
+            result.add(key);
+      }
+      return result;
+   }
+
+   @Override
+   public void store(InternalCacheEntry entry) throws CacheLoaderException {
+      storeAll(Collections.singleton(entry));
+   }
+
+   /**
+    * Appends all the entries under a single acquisition of the write lock and waits for a single sync.
+    */
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (entries == null || entries.isEmpty())
+         return;
+      List<byte[]> keys = new ArrayList<byte[]>(entries.size());
+      List<byte[]> values = new ArrayList<byte[]>(entries.size());
+      for (InternalCacheEntry entry : entries) {
+         keys.add(marshall(entry.getKey()));
+         values.add(marshall(entry.toInternalCacheValue()));
+      }
+
+      long appended;
+      writeLock.lock();
+      try {
+         int i = 0;
+         for (InternalCacheEntry entry : entries) {
+            if (trace) log.tracef("store() %s", entry.getKey());
+            long expiry = entry.canExpire() ? entry.getExpiryTime() : -1;
+            EntryPosition position = append(keys.get(i), values.get(i), expiry);
+            EntryPosition previous = index.put(entry.getKey(), position);
+            if (previous != null)
+               markDead(previous);
+            i++;
+         }
+         appended = appendedBytes;
+      } catch (IOException e) {
+         throw new CacheLoaderException(e);
+      } finally {
+         writeLock.unlock();
+      }
+      sync(appended);
+   }
+
+   @Override
+   public boolean remove(Object key) throws CacheLoaderException {
+      return removeKeys(Collections.singleton(key)) > 0;
+   }
+
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      if (keys != null && !keys.isEmpty())
+         removeKeys(keys);
+   }
+
+   /**
+    * Appends a tombstone for every key currently present in the index and returns how many of those were not
+    * expired yet.
+    */
+   private int removeKeys(Set<Object> keys) throws CacheLoaderException {
+      long now = System.currentTimeMillis();
+      int removed = 0;
+      long appended;
+      writeLock.lock();
+      try {
+         for (Object key : keys) {
+            if (trace) log.tracef("remove() %s", key);
+            EntryPosition previous = index.remove(key);
+            if (previous == null)
+               continue;
+            markDead(previous);
+            markDead(append(marshall(key), null, -1));
+            if (!previous.isExpired(now))
+               removed++;
+         }
+         appended = appendedBytes;
+      } catch (IOException e) {
+         throw new CacheLoaderException(e);
+      } finally {
+         writeLock.unlock();
+      }
+      sync(appended);
+      return removed;
+   }
+
+   @Override
+   public void clear() throws CacheLoaderException {
+      if (trace) log.trace("clear()");
+      writeLock.lock();
+      try {
+         index.clear();
+         for (Segment segment : segments.values()) {
+            segments.remove(segment.id);
+            segment.close();
+            delete(segment.file);
+            delete(segment.hintFile());
+         }
+         openActiveSegment();
+      } catch (IOException e) {
+         throw new CacheLoaderException(e);
+      } finally {
+         writeLock.unlock();
+      }
+   }
+
+   /**
+    * Drops the expired entries from the index without reading their values; the space they use on disk is reclaimed
+    * by compaction.
+    */
+   @Override
+   protected void purgeInternal() throws CacheLoaderException {
+      long now = System.currentTimeMillis();
+      int count = 0;
+      for (Map.Entry<Object, EntryPosition> entry : index.entrySet()) {
+         EntryPosition position = entry.getValue();
+         if (position.isExpired(now) && discard(entry.getKey(), position))
+            count++;
+      }
+      if (count != 0)
+         log.debugf("purged %d entries", count);
+   }
+
+   /**
+    * Writes to a stream the entries themselves, followed by a null marker.
+    */
+   @Override
+   public void toStream(ObjectOutput out) throws CacheLoaderException {
+      try {
+         int count = 0;
+         for (InternalCacheEntry entry : loadAll()) {
+            getMarshaller().objectToObjectStream(entry, out);
+            count++;
+         }
+         getMarshaller().objectToObjectStream(null, out);
+         log.debugf("wrote %d entries", count);
+      } catch (IOException e) {
+         throw new CacheLoaderException(e);
+      }
+   }
+
+   /**
+    * Reads from a stream the entries until the null marker is found.
+    */
+   @Override
+   public void fromStream(ObjectInput in) throws CacheLoaderException {
+      try {
+         int count = 0;
+         while (true) {
+            InternalCacheEntry entry = (InternalCacheEntry) getMarshaller().objectFromObjectStream(in);
+            if (entry == null)
+               break;
+            store(entry);
+            count++;
+         }
+         log.debugf("read %d entries", count);
+      } catch (IOException e) {
+         throw new CacheLoaderException(e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheLoaderException(e);
+      } catch (InterruptedException ie) {
+         if (trace) log.trace("Interrupted while reading from stream");
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private boolean discard(Object key, EntryPosition position) {
+      if (index.remove(key, position)) {
+         markDead(position);
+         return true;
+      }
+      return false;
+   }
+
+   private void markDead(EntryPosition position) {
+      Segment segment = segments.get(position.segment);
+      if (segment != null) {
+         segment.dead.addAndGet(position.length);
+         compactIfNeeded(segment);
+      }
+   }
+
+   private void compactIfNeeded(final Segment segment) {
+      if (stopping || segment == active || segment.garbageRatio() < config.getCompactionThreshold())
+         return;
+      if (pendingCompactions.add(segment.id)) {
+         try {
+            compactor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  try {
+                     compact(segment);
+                  } catch (Exception e) {
+                     if (segments.get(segment.id) == segment)
+                        log.errorCompactingSegment(segment.file, e);
+                  } finally {
+                     pendingCompactions.remove(segment.id);
+                  }
+               }
+            });
+         } catch (RejectedExecutionException e) {
+            pendingCompactions.remove(segment.id);
+         }
+      }
+   }
+
+   /**
+    * Copies the live records of a sealed segment to the end of the log and deletes it. Records no longer live are
+    * dropped; if their key has no live record either and older segments exist, a single tombstone is carried over so
+    * that a record in an older segment is not resurrected when the index is rebuilt.
+    */
+   private void compact(Segment segment) throws IOException {
+      List<HintRecord> records = readHints(segment);
+      if (trace) log.tracef("Compacting %s with %d records", segment.file, records.size());
+      Set<Object> tombstones = new HashSet<Object>();
+      boolean hasOlderSegments = false;
+      for (Integer id : segments.keySet())
+         hasOlderSegments |= id < segment.id;
+
+      for (HintRecord record : records) {
+         if (stopping)
+            return;
+         Object key = unmarshallKey(record.key);
+         writeLock.lock();
+         try {
+            if (segments.get(segment.id) != segment)
+               return;
+            EntryPosition current = index.get(key);
+            if (current != null && current.isExpired(System.currentTimeMillis()) && index.remove(key, current)) {
+               markDead(current);
+               current = null;
+            }
+            if (current != null && current.segment == segment.id && current.offset == record.offset) {
+               ByteBuffer raw = read(segment, current.offset, current.length);
+               index.put(key, appendRaw(raw, record.key, record.valueLength, record.expiry));
+            } else if (current == null && hasOlderSegments && tombstones.add(key)) {
+               markDead(append(record.key, null, -1));
+            }
+         } finally {
+            writeLock.unlock();
+         }
+      }
+
+      writeLock.lock();
+      try {
+         if (segments.get(segment.id) != segment)
+            return;
+         // the copied records must be durable before the originals go away
+         active.force();
+         segments.remove(segment.id);
+      } finally {
+         writeLock.unlock();
+      }
+      segment.close();
+      delete(segment.file);
+      delete(segment.hintFile());
+      if (trace) log.tracef("Compacted %s", segment.file);
+   }
+
+   private void sync(long upTo) throws CacheLoaderException {
+      if (!config.isSyncWrites())
+         return;
+      synchronized (syncMonitor) {
+         while (syncing) {
+            try {
+               syncMonitor.wait();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new CacheLoaderException("Interrupted while waiting for the log to be synced", e);
+            }
+         }
+         if (syncedBytes >= upTo)
+            return;
+         syncing = true;
+      }
+
+      long target = -1;
+      try {
+         Segment segment;
+         writeLock.lock();
+         try {
+            // everything appended so far gets synced, not just what this thread wrote
+            target = appendedBytes;
+            segment = active;
+         } finally {
+            writeLock.unlock();
+         }
+         segment.force();
+      } catch (IOException e) {
+         target = -1;
+         throw new CacheLoaderException(e);
+      } finally {
+         synchronized (syncMonitor) {
+            if (target > syncedBytes)
+               syncedBytes = target;
+            syncing = false;
+            syncMonitor.notifyAll();
+         }
+      }
+   }
+
+   private EntryPosition append(byte[] key, byte[] value, long expiry) throws IOException {
+      int valueLength = value == null ? TOMBSTONE : value.length;
+      ByteBuffer record = ByteBuffer.allocate(recordLength(key.length, valueLength));
+      record.putInt(key.length).putInt(valueLength).putLong(expiry).putInt(checksum(key, value)).put(key);
+      if (value != null)
+         record.put(value);
+      record.flip();
+      return appendRaw(record, key, valueLength, expiry);
+   }
+
+   private EntryPosition appendRaw(ByteBuffer record, byte[] key, int valueLength, long expiry) throws IOException {
+      if (active.size >= config.getMaxFileSize())
+         rollSegment();
+      Segment segment = active;
+      long offset = segment.size;
+      int length = record.remaining();
+      long position = offset;
+      while (record.hasRemaining())
+         position += segment.write(record, position);
+      segment.size = position;
+      appendedBytes += length;
+      activeHints.add(new HintRecord(offset, key, valueLength, expiry));
+      return new EntryPosition(segment.id, offset, length, expiry);
+   }
+
+   private void rollSegment() throws IOException {
+      Segment sealed = active;
+      sealActiveSegment();
+      openActiveSegment();
+      compactIfNeeded(sealed);
+   }
+
+   private void sealActiveSegment() throws IOException {
+      active.force();
+      writeHints(active, activeHints);
+   }
+
+   private void openActiveSegment() throws IOException {
+      Segment segment = new Segment(nextSegmentId++, root);
+      segments.put(segment.id, segment);
+      activeHints = new ArrayList<HintRecord>();
+      active = segment;
+   }
+
+   private void rebuildIndex() throws IOException {
+      String[] names = root.list(new FilenameFilter() {
+         @Override
+         public boolean accept(File dir, String name) {
+            return name.endsWith(SEGMENT_SUFFIX);
+         }
+      });
+      Set<Integer> ids = new TreeSet<Integer>();
+      for (String name : names) {
+         try {
+            ids.add(Integer.valueOf(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+         } catch (NumberFormatException e) {
+            log.debugf("Ignoring unexpected file %s in %s", name, root);
+         }
+      }
+
+      long now = System.currentTimeMillis();
+      nextSegmentId = 0;
+      for (Integer id : ids) {
+         Segment segment = new Segment(id, root);
+         segments.put(id, segment);
+         nextSegmentId = id + 1;
+         segment.size = segment.channel.size();
+         for (HintRecord record : readHints(segment)) {
+            int length = recordLength(record.key.length, record.valueLength);
+            Object key = unmarshallKey(record.key);
+            EntryPosition previous;
+            if (record.valueLength == TOMBSTONE || (record.expiry > 0 && record.expiry < now)) {
+               previous = index.remove(key);
+               segment.dead.addAndGet(length);
+            } else {
+               previous = index.put(key, new EntryPosition(id, record.offset, length, record.expiry));
+            }
+            if (previous != null)
+               segments.get(previous.segment).dead.addAndGet(previous.length);
+         }
+      }
+   }
+
+   /**
+    * Reads the index information of a segment from its hint file, or from the segment itself when the hint file is
+    * missing or unreadable, in which case the hint file is recreated.
+    */
+   private List<HintRecord> readHints(Segment segment) throws IOException {
+      File hintFile = segment.hintFile();
+      if (hintFile.exists()) {
+         try {
+            return readHintFile(hintFile);
+         } catch (IOException e) {
+            log.unreadableHintFile(hintFile, e);
+         }
+      }
+      List<HintRecord> records = scan(segment);
+      writeHints(segment, records);
+      return records;
+   }
+
+   private List<HintRecord> readHintFile(File hintFile) throws IOException {
+      List<HintRecord> records = new ArrayList<HintRecord>();
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(hintFile)));
+      try {
+         int count = in.readInt();
+         for (int i = 0; i < count; i++) {
+            byte[] key = new byte[in.readInt()];
+            in.readFully(key);
+            records.add(new HintRecord(in.readLong(), key, in.readInt(), in.readLong()));
+         }
+      } finally {
+         Util.close(in);
+      }
+      return records;
+   }
+
+   private void writeHints(Segment segment, List<HintRecord> records) throws IOException {
+      File hintFile = segment.hintFile();
+      File tmp = new File(hintFile.getPath() + ".tmp");
+      FileOutputStream fos = new FileOutputStream(tmp);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+      try {
+         out.writeInt(records.size());
+         for (HintRecord record : records) {
+            out.writeInt(record.key.length);
+            out.write(record.key);
+            out.writeLong(record.offset);
+            out.writeInt(record.valueLength);
+            out.writeLong(record.expiry);
+         }
+         out.flush();
+         fos.getFD().sync();
+      } finally {
+         Util.close(out);
+      }
+      if (hintFile.exists())
+         delete(hintFile);
+      if (!tmp.renameTo(hintFile))
+         throw new IOException("Unable to rename " + tmp + " to " + hintFile);
+   }
+
+   /**
+    * Scans a segment record by record, truncating it after the last complete record.
+    */
+   private List<HintRecord> scan(Segment segment) throws IOException {
+      List<HintRecord> records = new ArrayList<HintRecord>();
+      long length = segment.channel.size();
+      long offset = 0;
+      DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.file)));
+      try {
+         while (offset + HEADER_SIZE <= length) {
+            int keyLength = in.readInt();
+            int valueLength = in.readInt();
+            long expiry = in.readLong();
+            int checksum = in.readInt();
+            if (keyLength < 0 || valueLength < TOMBSTONE || offset + recordLength(keyLength, valueLength) > length)
+               break;
+            byte[] key = new byte[keyLength];
+            in.readFully(key);
+            byte[] value = null;
+            if (valueLength != TOMBSTONE) {
+               value = new byte[valueLength];
+               in.readFully(value);
+            }
+            if (checksum(key, value) != checksum)
+               break;
+            records.add(new HintRecord(offset, key, valueLength, expiry));
+            offset += recordLength(keyLength, valueLength);
+         }
+      } catch (EOFException e) {
+         // torn record, truncated below
+      } finally {
+         Util.close(in);
+      }
+      if (offset < length) {
+         log.truncatingSegment(segment.file, offset);
+         segment.channel.truncate(offset);
+      }
+      segment.size = offset;
+      return records;
+   }
+
+   private InternalCacheEntry readEntry(Segment segment, EntryPosition position, Object key) throws IOException, CacheLoaderException {
+      ByteBuffer record = read(segment, position.offset, position.length);
+      int keyLength = record.getInt(0);
+      int valueLength = record.getInt(4);
+      byte[] value = new byte[valueLength];
+      record.position(HEADER_SIZE + keyLength);
+      record.get(value);
+      try {
+         InternalCacheValue icv = (InternalCacheValue) getMarshaller().objectFromByteBuffer(value);
+         InternalCacheEntry entry = icv.toInternalCacheEntry(key);
+         return entry.isExpired(System.currentTimeMillis()) ? null : entry;
+      } catch (ClassNotFoundException e) {
+         throw new CacheLoaderException(e);
+      }
+   }
+
+   private ByteBuffer read(Segment segment, long offset, int length) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      long position = offset;
+      while (buffer.hasRemaining()) {
+         int read = segment.read(buffer, position);
+         if (read < 0)
+            throw new EOFException("Unexpected end of " + segment.file + " at " + position);
+         position += read;
+      }
+      buffer.flip();
+      return buffer;
+   }
+
+   private byte[] marshall(Object o) throws CacheLoaderException {
+      try {
+         return getMarshaller().objectToByteBuffer(o);
+      } catch (IOException e) {
+         throw new CacheLoaderException(e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException(e);
+      }
+   }
+
+   private Object unmarshallKey(byte[] bytes) throws IOException {
+      try {
+         return getMarshaller().objectFromByteBuffer(bytes);
+      } catch (ClassNotFoundException e) {
+         throw new IOException(e.getMessage());
+      }
+   }
+
+   private static void delete(File file) {
+      if (file.exists() && !file.delete())
+         log.unableToDeleteFile(file);
+   }
+
+   private static int recordLength(int keyLength, int valueLength) {
+      return HEADER_SIZE + keyLength + (valueLength == TOMBSTONE ? 0 : valueLength);
+   }
+
+   private static int checksum(byte[] key, byte[] value) {
+      CRC32 crc = new CRC32();
+      crc.update(key);
+      if (value != null)
+         crc.update(value);
+      return (int) crc.getValue();
+   }
+
+   @Override
+   public String toString() {
+      return "LogStructuredCacheStore{location=" + root + ", segments=" + segments.size() + ", entries=" + index.size() + '}';
+   }
+
+   /**
+    * Where the latest record of a key lives, and when it expires. Compared by identity so that concurrent updates
+    * to the index can be made conditional on the exact record a thread has seen.
+    */
+   private static final class EntryPosition {
+      final int segment;
+      final long offset;
+      final int length;
+      final long expiry;
+
+      EntryPosition(int segment, long offset, int length, long expiry) {
+         this.segment = segment;
+         this.offset = offset;
+         this.length = length;
+         this.expiry = expiry;
+      }
+
+      boolean isExpired(long now) {
+         return expiry > 0 && expiry < now;
+      }
+   }
+
+   private static final class HintRecord {
+      final long offset;
+      final byte[] key;
+      final int valueLength;
+      final long expiry;
+
+      HintRecord(long offset, byte[] key, int valueLength, long expiry) {
+         this.offset = offset;
+         this.key = key;
+         this.valueLength = valueLength;
+         this.expiry = expiry;
+      }
+   }
+
+   /**
+    * A segment file. Its channel is shared by all threads, and a thread interrupted while using it closes it for
+    * everybody, so reads, writes and forces reopen the channel and retry when they find it closed by an interruption,
+    * restoring the interrupt status of the calling thread afterwards. Only {@link #close()} closes a segment for good.
+    */
+   private static final class Segment {
+      final int id;
+      final File file;
+      final AtomicLong dead = new AtomicLong();
+      volatile long size;
+      volatile FileChannel channel;
+      // guarded by this
+      private boolean closed;
+
+      Segment(int id, File root) throws IOException {
+         this.id = id;
+         this.file = new File(root, id + SEGMENT_SUFFIX);
+         this.channel = new RandomAccessFile(file, "rw").getChannel();
+      }
+
+      File hintFile() {
+         return new File(file.getParentFile(), id + HINT_SUFFIX);
+      }
+
+      int read(ByteBuffer buffer, long position) throws IOException {
+         boolean interrupted = false;
+         try {
+            while (true) {
+               FileChannel current = channel;
+               try {
+                  return current.read(buffer, position);
+               } catch (ClosedChannelException e) {
+                  interrupted |= Thread.interrupted();
+                  reopen(current, e);
+               }
+            }
+         } finally {
+            if (interrupted)
+               Thread.currentThread().interrupt();
+         }
+      }
+
+      int write(ByteBuffer buffer, long position) throws IOException {
+         boolean interrupted = false;
+         try {
+            while (true) {
+               FileChannel current = channel;
+               try {
+                  return current.write(buffer, position);
+               } catch (ClosedChannelException e) {
+                  // an interrupted write may have written part of the buffer, which is then written again in place
+                  interrupted |= Thread.interrupted();
+                  reopen(current, e);
+               }
+            }
+         } finally {
+            if (interrupted)
+               Thread.currentThread().interrupt();
+         }
+      }
+
+      void force() throws IOException {
+         boolean interrupted = false;
+         try {
+            while (true) {
+               FileChannel current = channel;
+               try {
+                  // forcing any channel of the file flushes what was written through the previous ones too
+                  current.force(false);
+                  return;
+               } catch (ClosedChannelException e) {
+                  interrupted |= Thread.interrupted();
+                  reopen(current, e);
+               }
+            }
+         } finally {
+            if (interrupted)
+               Thread.currentThread().interrupt();
+         }
+      }
+
+      /**
+       * Replaces the given channel, closed by an interruption, unless another thread already did so.
+       *
+       * @throws ClosedChannelException the given exception, if the segment itself has been closed
+       */
+      private synchronized void reopen(FileChannel closedChannel, ClosedChannelException e) throws IOException {
+         if (closed)
+            throw e;
+         if (channel == closedChannel) {
+            if (trace) log.tracef("Reopening %s, closed by an interrupted thread", file);
+            channel = new RandomAccessFile(file, "rw").getChannel();
+         }
+      }
+
+      double garbageRatio() {
+         long s = size;
+         return s == 0 ? 0 : (double) dead.get() / s;
+      }
+
+      synchronized void close() {
+         closed = true;
+         try {
+            channel.close();
+         } catch (IOException e) {
+            log.debugf(e, "Error closing %s", file);
+         }
+      }
+   }
+}
@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logstructured;
+
+import org.infinispan.loaders.AbstractCacheStoreConfig;
+
+/**
+ * Configures {@link LogStructuredCacheStore}. This allows you to tune a number of characteristics of the
+ * {@link LogStructuredCacheStore}.
+ * <p/>
+ * <ul>
+ *    <li><tt>location</tt> - a location on disk where the store writes its segment and hint files. This defaults
+ *    to <tt>Infinispan-LogStructuredCacheStore</tt> in the current working directory.</li>
+ *    <li><tt>maxFileSize</tt> - the size in bytes after which the segment currently being appended to is sealed and
+ *    a new one is started. Defaults to 16 MB.</li>
+ *    <li><tt>compactionThreshold</tt> - the ratio of garbage (overwritten, removed or expired records) to the size
+ *    of a sealed segment above which the segment is compacted in the background. Defaults to 0.5.</li>
+ *    <li><tt>syncWrites</tt> - whether every write is forced to disk before returning. Concurrent writers share a
+ *    single fsync, so the cost is paid once per group of writes rather than once per write. Defaults to false.</li>
+ * </ul>
+ *
+ * @since 5.2
+ */
+public class LogStructuredCacheStoreConfig extends AbstractCacheStoreConfig {
+
+   private static final long serialVersionUID = 6409417208460862736L;
+
+   private String location = "Infinispan-LogStructuredCacheStore";
+
+   private long maxFileSize = 16 * 1024 * 1024;
+
+   private double compactionThreshold = 0.5;
+
+   private boolean syncWrites = false;
+
+   public LogStructuredCacheStoreConfig() {
+      setCacheLoaderClassName(LogStructuredCacheStore.class.getName());
+   }
+
+   public String getLocation() {
+      return location;
+   }
+
+   public void setLocation(String location) {
+      testImmutability("location");
+      this.location = location;
+   }
+
+   public LogStructuredCacheStoreConfig location(String location) {
+      setLocation(location);
+      return this;
+   }
+
+   public long getMaxFileSize() {
+      return maxFileSize;
+   }
+
+   public void setMaxFileSize(long maxFileSize) {
+      testImmutability("maxFileSize");
+      this.maxFileSize = maxFileSize;
+   }
+
+   public LogStructuredCacheStoreConfig maxFileSize(long maxFileSize) {
+      setMaxFileSize(maxFileSize);
+      return this;
+   }
+
+   public double getCompactionThreshold() {
+      return compactionThreshold;
+   }
+
+   public void setCompactionThreshold(double compactionThreshold) {
+      testImmutability("compactionThreshold");
+      this.compactionThreshold = compactionThreshold;
+   }
+
+   public LogStructuredCacheStoreConfig compactionThreshold(double compactionThreshold) {
+      setCompactionThreshold(compactionThreshold);
+      return this;
+   }
+
+   public boolean isSyncWrites() {
+      return syncWrites;
+   }
+
+   public void setSyncWrites(boolean syncWrites) {
+      testImmutability("syncWrites");
+      this.syncWrites = syncWrites;
+   }
+
+   public LogStructuredCacheStoreConfig syncWrites(boolean syncWrites) {
+      setSyncWrites(syncWrites);
+      return this;
+   }
+}
@@ -0,0 +1,122 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logstructured.configuration;
+
+import org.infinispan.config.ConfigurationException;
+import org.infinispan.configuration.cache.AbstractStoreConfigurationBuilder;
+import org.infinispan.configuration.cache.LoadersConfigurationBuilder;
+import org.infinispan.loaders.logstructured.LogStructuredCacheStore;
+import org.infinispan.util.TypedProperties;
+
+/**
+ * LogStructuredCacheStoreConfigurationBuilder. Configures a {@link LogStructuredCacheStore}
+ *
+ * @since 5.2
+ */
+public class LogStructuredCacheStoreConfigurationBuilder extends
+      AbstractStoreConfigurationBuilder<LogStructuredCacheStoreConfiguration, LogStructuredCacheStoreConfigurationBuilder> {
+
+   private String location = "Infinispan-LogStructuredCacheStore";
+   private long maxFileSize = 16 * 1024 * 1024;
+   private double compactionThreshold = 0.5;
+   private boolean syncWrites = false;
+
+   public LogStructuredCacheStoreConfigurationBuilder(LoadersConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   @Override
+   public LogStructuredCacheStoreConfigurationBuilder self() {
+      return this;
+   }
+
+   /**
+    * A location on disk where the store writes its segment and hint files. Defaults to
+    * "Infinispan-LogStructuredCacheStore"
+    */
+   public LogStructuredCacheStoreConfigurationBuilder location(String location) {
+      this.location = location;
+      return this;
+   }
+
+   /**
+    * The size in bytes after which the segment being appended to is sealed and a new one is started. Defaults to
+    * 16 MB
+    */
+   public LogStructuredCacheStoreConfigurationBuilder maxFileSize(long maxFileSize) {
+      this.maxFileSize = maxFileSize;
+      return this;
+   }
+
+   /**
+    * The ratio of garbage to the size of a sealed segment above which the segment is compacted. Must be greater
+    * than 0 and no greater than 1. Defaults to 0.5
+    */
+   public LogStructuredCacheStoreConfigurationBuilder compactionThreshold(double compactionThreshold) {
+      this.compactionThreshold = compactionThreshold;
+      return this;
+   }
+
+   /**
+    * Whether writes are forced to disk before returning. Concurrent writers share a single fsync. Defaults to false
+    */
+   public LogStructuredCacheStoreConfigurationBuilder syncWrites(boolean syncWrites) {
+      this.syncWrites = syncWrites;
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (maxFileSize <= 0)
+         throw new ConfigurationException("maxFileSize must be greater than zero");
+      if (compactionThreshold <= 0 || compactionThreshold > 1)
+         throw new ConfigurationException("compactionThreshold must be greater than 0 and no greater than 1");
+   }
+
+   @Override
+   public LogStructuredCacheStoreConfiguration create() {
+      return new LogStructuredCacheStoreConfiguration(location, maxFileSize, compactionThreshold, syncWrites,
+            purgeOnStartup, purgeSynchronously, purgerThreads, fetchPersistentState, ignoreModifications,
+            TypedProperties.toTypedProperties(properties), async.create(), singletonStore.create());
+   }
+
+   @Override
+   public LogStructuredCacheStoreConfigurationBuilder read(LogStructuredCacheStoreConfiguration template) {
+      this.location = template.location();
+      this.maxFileSize = template.maxFileSize();
+      this.compactionThreshold = template.compactionThreshold();
+      this.syncWrites = template.syncWrites();
+
+      // AbstractStore-specific configuration
+      fetchPersistentState = template.fetchPersistentState();
+      ignoreModifications = template.ignoreModifications();
+      properties = template.properties();
+      purgeOnStartup = template.purgeOnStartup();
+      purgeSynchronously = template.purgeSynchronously();
+      async.read(template.async());
+      singletonStore.read(template.singletonStore());
+
+      return this;
+   }
+}
@@ -0,0 +1,117 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logstructured.configuration;
+
+import static org.infinispan.util.StringPropertyReplacer.replaceProperties;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.LoadersConfigurationBuilder;
+import org.infinispan.configuration.parsing.ConfigurationBuilderHolder;
+import org.infinispan.configuration.parsing.ConfigurationParser;
+import org.infinispan.configuration.parsing.Namespace;
+import org.infinispan.configuration.parsing.ParseUtils;
+import org.infinispan.configuration.parsing.Parser52;
+import org.jboss.staxmapper.XMLExtendedStreamReader;
+
+/**
+ *
+ * LogStructuredCacheStoreConfigurationParser52.
+ *
+ * @since 5.2
+ */
+public class LogStructuredCacheStoreConfigurationParser52 implements ConfigurationParser<ConfigurationBuilderHolder> {
+
+   private static final Namespace NAMESPACES[] = {
+         new Namespace(Namespace.INFINISPAN_NS_BASE_URI, "logstructured", Element.LOG_STRUCTURED_STORE.getLocalName(), 5, 2),
+         new Namespace("", Element.LOG_STRUCTURED_STORE.getLocalName(), 0, 0) };
+
+   public LogStructuredCacheStoreConfigurationParser52() {
+   }
+
+   @Override
+   public Namespace[] getSupportedNamespaces() {
+      return NAMESPACES;
+   }
+
+   @Override
+   public void readElement(final XMLExtendedStreamReader reader, final ConfigurationBuilderHolder holder)
+         throws XMLStreamException {
+      ConfigurationBuilder builder = holder.getCurrentConfigurationBuilder();
+
+      Element element = Element.forName(reader.getLocalName());
+      switch (element) {
+      case LOG_STRUCTURED_STORE: {
+         parseLogStructuredStore(reader, builder.loaders(), holder.getClassLoader());
+         break;
+      }
+      default: {
+         throw ParseUtils.unexpectedElement(reader);
+      }
+      }
+   }
+
+   private void parseLogStructuredStore(final XMLExtendedStreamReader reader, LoadersConfigurationBuilder loadersBuilder,
+         ClassLoader classLoader) throws XMLStreamException {
+      LogStructuredCacheStoreConfigurationBuilder builder = new LogStructuredCacheStoreConfigurationBuilder(loadersBuilder);
+      parseLogStructuredStoreAttributes(reader, builder);
+
+      while (reader.hasNext() && (reader.nextTag() != XMLStreamConstants.END_ELEMENT)) {
+         Parser52.parseCommonStoreChildren(reader, builder);
+      }
+      loadersBuilder.addStore(builder);
+   }
+
+   private void parseLogStructuredStoreAttributes(XMLExtendedStreamReader reader, LogStructuredCacheStoreConfigurationBuilder builder)
+         throws XMLStreamException {
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         ParseUtils.requireNoNamespaceAttribute(reader, i);
+         String value = replaceProperties(reader.getAttributeValue(i));
+         Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
+         switch (attribute) {
+         case COMPACTION_THRESHOLD: {
+            builder.compactionThreshold(Double.parseDouble(value));
+            break;
+         }
+         case LOCATION: {
+            builder.location(value);
+            break;
+         }
+         case MAX_FILE_SIZE: {
+            builder.maxFileSize(Long.parseLong(value));
+            break;
+         }
+         case SYNC_WRITES: {
+            builder.syncWrites(Boolean.parseBoolean(value));
+            break;
+         }
+         default: {
+            Parser52.parseCommonStoreAttributes(reader, i, builder);
+            break;
+         }
+         }
+      }
+   }
+}
@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.loaders.logstructured.logging;
+
+import org.jboss.logging.Cause;
+import org.jboss.logging.LogMessage;
+import org.jboss.logging.Message;
+import org.jboss.logging.MessageLogger;
+
+import java.io.File;
+
+import static org.jboss.logging.Logger.Level.*;
+
+/**
+ * Log abstraction for the log-structured cache store. For this module, message ids
+ * ranging from 16001 to 17000 inclusively have been reserved.
+ *
+ * @since 5.2
+ */
+@MessageLogger(projectCode = "ISPN")
+public interface Log extends org.infinispan.util.logging.Log {
+
+   @LogMessage(level = INFO)
+   @Message(value = "Log-structured store opened in %s with %d entries across %d segments", id = 16001)
+   void logStructuredStoreOpened(File location, int entries, int segments);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Segment %s ends with an incomplete record, truncating it to %d bytes", id = 16002)
+   void truncatingSegment(File segment, long length);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Unable to read hint file %s, rebuilding the index from its segment instead", id = 16003)
+   void unreadableHintFile(File hint, @Cause Exception e);
+
+   @LogMessage(level = ERROR)
+   @Message(value = "Failed compacting segment %s", id = 16004)
+   void errorCompactingSegment(File segment, @Cause Exception e);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Unable to delete file %s", id = 16005)
+   void unableToDeleteFile(File file);
+}
@@ -0,0 +1,239 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logstructured;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.BaseCacheStoreTest;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "loaders.logstructured.LogStructuredCacheStoreTest")
+public class LogStructuredCacheStoreTest extends BaseCacheStoreTest {
+
+   private String tmpDirectory;
+
+   @BeforeClass
+   protected void setUpTempDir() {
+      tmpDirectory = TestingUtil.tmpDirectory(this);
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void clearTempDir() {
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+      new File(tmpDirectory).mkdirs();
+   }
+
+   @Override
+   protected CacheStore createCacheStore() throws CacheLoaderException {
+      clearTempDir();
+      LogStructuredCacheStoreConfig cfg = new LogStructuredCacheStoreConfig();
+      cfg.setLocation(tmpDirectory);
+      cfg.setPurgeSynchronously(true); // for more accurate unit testing
+      return startStore(cfg);
+   }
+
+   private CacheStore startStore(LogStructuredCacheStoreConfig config) throws CacheLoaderException {
+      LogStructuredCacheStore store = new LogStructuredCacheStore();
+      store.init(config, getCache(), getMarshaller());
+      store.start();
+      return store;
+   }
+
+   private File storeDirectory() {
+      return new File(tmpDirectory, getCache().getName());
+   }
+
+   private Set<String> files(final String suffix) {
+      Set<String> names = new HashSet<String>();
+      for (String name : storeDirectory().list(new FilenameFilter() {
+         @Override
+         public boolean accept(File dir, String name) {
+            return name.endsWith(suffix);
+         }
+      })) names.add(name);
+      return names;
+   }
+
+   public void testIndexRebuiltFromHintsOnRestart() throws Exception {
+      cs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      cs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      cs.store(TestInternalCacheEntryFactory.create("k1", "v1-updated"));
+      cs.remove("k2");
+      cs.stop();
+
+      assert !files(LogStructuredCacheStore.HINT_SUFFIX).isEmpty();
+      cs.start();
+      assert cs.load("k1").getValue().equals("v1-updated");
+      assert !cs.containsKey("k2");
+      assert cs.loadAllKeys(null).size() == 1;
+   }
+
+   public void testTornRecordIsTruncatedOnRestart() throws Exception {
+      cs.store(TestInternalCacheEntryFactory.create("k1", "v1"));
+      cs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      cs.stop();
+
+      // simulate a crash half way through an append: no hints and a partial record at the end of the segment
+      String segment = null;
+      for (String name : files(LogStructuredCacheStore.SEGMENT_SUFFIX)) {
+         if (new File(storeDirectory(), name).length() > 0)
+            segment = name;
+      }
+      for (String hint : files(LogStructuredCacheStore.HINT_SUFFIX))
+         assert new File(storeDirectory(), hint).delete();
+      File segmentFile = new File(storeDirectory(), segment);
+      long validLength = segmentFile.length();
+      FileOutputStream out = new FileOutputStream(segmentFile, true);
+      out.write(new byte[]{0, 0, 0, 2, 0, 0});
+      out.close();
+
+      cs.start();
+      assert segmentFile.length() == validLength;
+      assert cs.load("k1").getValue().equals("v1");
+      assert cs.load("k2").getValue().equals("v2");
+   }
+
+   public void testCompactionReclaimsOverwrittenSegments() throws Exception {
+      cs.stop();
+      LogStructuredCacheStoreConfig config = new LogStructuredCacheStoreConfig();
+      config.setLocation(tmpDirectory);
+      config.setPurgeSynchronously(true);
+      config.setMaxFileSize(512);
+      config.setCompactionThreshold(0.5);
+      cs = startStore(config);
+
+      for (int round = 0; round < 20; round++) {
+         for (int i = 0; i < 5; i++)
+            cs.store(TestInternalCacheEntryFactory.create("k" + i, "v" + round));
+      }
+      cs.remove("k4");
+
+      long end = System.currentTimeMillis() + 10000;
+      while (files(LogStructuredCacheStore.SEGMENT_SUFFIX).size() > 4 && System.currentTimeMillis() < end)
+         Thread.sleep(50);
+      assert files(LogStructuredCacheStore.SEGMENT_SUFFIX).size() <= 4 : files(LogStructuredCacheStore.SEGMENT_SUFFIX);
+
+      cs.stop();
+      cs.start();
+      for (int i = 0; i < 4; i++)
+         assert cs.load("k" + i).getValue().equals("v19");
+      assert cs.load("k4") == null;
+   }
+
+   public void testPurgeOnlyTouchesIndex() throws Exception {
+      InternalCacheEntry expiring = TestInternalCacheEntryFactory.create("k1", "v1", 100);
+      cs.store(expiring);
+      cs.store(TestInternalCacheEntryFactory.create("k2", "v2"));
+      Thread.sleep(200);
+      assert expiring.isExpired();
+      cs.purgeExpired();
+      assert !cs.containsKey("k1");
+      assert cs.loadAllKeys(null).size() == 1;
+
+      cs.stop();
+      cs.start();
+      assert cs.load("k1") == null;
+      assert cs.load("k2").getValue().equals("v2");
+   }
+
+   public void testSyncWrites() throws Exception {
+      cs.stop();
+      LogStructuredCacheStoreConfig config = new LogStructuredCacheStoreConfig();
+      config.setLocation(tmpDirectory);
+      config.setPurgeSynchronously(true);
+      config.setSyncWrites(true);
+      cs = startStore(config);
+
+      Thread[] writers = new Thread[4];
+      for (int t = 0; t < writers.length; t++) {
+         final int id = t;
+         writers[t] = new Thread() {
+            @Override
+            public void run() {
+               try {
+                  for (int i = 0; i < 50; i++)
+                     cs.store(TestInternalCacheEntryFactory.create("k" + id + "-" + i, "v" + i));
+               } catch (CacheLoaderException e) {
+                  throw new RuntimeException(e);
+               }
+            }
+         };
+         writers[t].start();
+      }
+      for (Thread writer : writers)
+         writer.join();
+      assert cs.loadAllKeys(null).size() == 200;
+   }
+
+   public void testInterruptedReaderDoesNotCloseSegmentForOthers() throws Exception {
+      for (int i = 0; i < 10; i++)
+         cs.store(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+
+      final AtomicBoolean done = new AtomicBoolean();
+      final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+      Thread reader = new Thread() {
+         @Override
+         public void run() {
+            try {
+               while (!done.get()) {
+                  for (int i = 0; i < 10; i++)
+                     assert cs.load("k" + i).getValue().equals("v" + i);
+               }
+            } catch (Throwable t) {
+               failure.set(t);
+            }
+         }
+      };
+      reader.start();
+      try {
+         for (int round = 0; round < 100; round++) {
+            // reading from a channel with the interrupt status set closes it
+            Thread.currentThread().interrupt();
+            InternalCacheEntry entry = cs.load("k" + round % 10);
+            boolean interrupted = Thread.interrupted();
+            assert interrupted : "The interrupt status of the reader was lost";
+            assert entry.getValue().equals("v" + round % 10);
+         }
+         cs.store(TestInternalCacheEntryFactory.create("k10", "v10"));
+         assert cs.load("k10").getValue().equals("v10");
+      } finally {
+         Thread.interrupted();
+         done.set(true);
+         reader.join();
+      }
+      assert failure.get() == null : failure.get();
+   }
+}
@@ -0,0 +1,73 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders.logstructured.configuration;
+
+import org.infinispan.config.ConfigurationException;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.loaders.logstructured.LogStructuredCacheStoreConfig;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "loaders.logstructured.configuration.ConfigurationTest")
+public class ConfigurationTest {
+
+   public void testLogStructuredCacheStoreConfigurationAdaptor() {
+      ConfigurationBuilder b = new ConfigurationBuilder();
+      b.loaders().addStore(LogStructuredCacheStoreConfigurationBuilder.class).location("/tmp/logstructured")
+            .maxFileSize(1024).compactionThreshold(0.25).syncWrites(true).fetchPersistentState(true).async().enable();
+      Configuration configuration = b.build();
+      LogStructuredCacheStoreConfiguration store = (LogStructuredCacheStoreConfiguration) configuration.loaders().cacheLoaders().get(0);
+      assert store.location().equals("/tmp/logstructured");
+      assert store.maxFileSize() == 1024;
+      assert store.compactionThreshold() == 0.25;
+      assert store.syncWrites();
+      assert store.fetchPersistentState();
+      assert store.async().enabled();
+
+      b = new ConfigurationBuilder();
+      b.loaders().addStore(LogStructuredCacheStoreConfigurationBuilder.class).read(store);
+      Configuration configuration2 = b.build();
+      LogStructuredCacheStoreConfiguration store2 = (LogStructuredCacheStoreConfiguration) configuration2.loaders().cacheLoaders().get(0);
+      assert store2.location().equals("/tmp/logstructured");
+      assert store2.maxFileSize() == 1024;
+      assert store2.compactionThreshold() == 0.25;
+      assert store2.syncWrites();
+      assert store2.fetchPersistentState();
+      assert store2.async().enabled();
+
+      LogStructuredCacheStoreConfig legacy = store.adapt();
+      assert legacy.getLocation().equals("/tmp/logstructured");
+      assert legacy.getMaxFileSize() == 1024;
+      assert legacy.getCompactionThreshold() == 0.25;
+      assert legacy.isSyncWrites();
+      assert legacy.isFetchPersistentState();
+      assert legacy.getAsyncStoreConfig().isEnabled();
+   }
+
+   @Test(expectedExceptions = ConfigurationException.class)
+   public void testInvalidCompactionThreshold() {
+      ConfigurationBuilder b = new ConfigurationBuilder();
+      b.loaders().addStore(LogStructuredCacheStoreConfigurationBuilder.class).compactionThreshold(0);
+      b.build();
+   }
+}
@@ -24,12 +24,16 @@
 
 import net.jcip.annotations.ThreadSafe;
 import org.infinispan.Cache;
+import org.infinispan.CacheException;
 import org.infinispan.api.BasicCacheContainer;
 import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataEntryHandler;
 import org.infinispan.client.hotrod.MetadataValue;
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.container.InternalEntryFactory;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.loaders.AbstractCacheStore;
@@ -46,7 +50,11 @@
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -60,6 +68,11 @@
  * Purging elements is not possible, as HotRod does not support the fetching of all remote keys (this would be a
  * very costly operation as well). Purging takes place at the remote end (infinispan cluster).
  * <p/>
+ * Bulk reads ({@link #loadAll()}, {@link #load(int)} and {@link #toStream(java.io.ObjectOutput)}) stream the remote
+ * entries along with their metadata, so that entries are converted one at a time as they are received, while
+ * {@link #storeAll(java.util.Collection)} and {@link #removeAll(java.util.Set)} use the multi-key Hot Rod operations,
+ * which are performed key by key when the configured protocol version is older than 1.2.
+ * <p/>
  *
  * @author Mircea.Markus@jboss.com
  * @see org.infinispan.loaders.remote.RemoteCacheStoreConfig
@@ -80,13 +93,19 @@ public class RemoteCacheStore extends AbstractCacheStore {
    private InternalEntryFactory iceFactory;
    private static final String LIFESPAN = "lifespan";
    private static final String MAXIDLE = "maxidle";
+   /**
+    * Number of entries read from a state transfer stream before they are written to the remote cache.
+    */
+   private static final int STREAM_BATCH_SIZE = 1000;
+
+   private volatile boolean bulkGetWithMetadataSupported = true;
 
    @Override
    public InternalCacheEntry load(Object key) throws CacheLoaderException {
       if (config.isRawValues()) {
          MetadataValue<?> value = remoteCache.getWithMetadata(key);
          if (value != null)
-            return iceFactory.create(entryWrapper.wrapKey(key), entryWrapper.wrapValue(value), null, value.getCreated(), TimeUnit.SECONDS.toMillis(value.getLifespan()), value.getLastUsed(), TimeUnit.SECONDS.toMillis(value.getMaxIdle()));
+            return toInternalCacheEntry(key, value);
          else
             return null;
       } else {
@@ -94,6 +113,21 @@ public InternalCacheEntry load(Object key) throws CacheLoaderException {
       }
    }
 
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      if (config.isRawValues()) {
+         // getAll does not return the metadata needed to build the entries
+         return super.loadAll(keys);
+      }
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      if (keys != null && !keys.isEmpty()) {
+         for (Object value : remoteCache.getAll(keys).values()) {
+            result.add((InternalCacheEntry) value);
+         }
+      }
+      return result;
+   }
+
    @Override
    protected void purgeInternal() throws CacheLoaderException {
       if (log.isTraceEnabled()) {
@@ -115,22 +149,77 @@ public void store(InternalCacheEntry entry) throws CacheLoaderException {
    }
 
    @Override
-   @SuppressWarnings("unchecked")
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (entries == null || entries.isEmpty()) {
+         return;
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("Adding %d entries", entries.size());
+      }
+      // a single putAll request shares the expiration settings of all its entries
+      Map<Expiration, Map<Object, Object>> byExpiration = new HashMap<Expiration, Map<Object, Object>>();
+      for (InternalCacheEntry entry : entries) {
+         Expiration expiration = new Expiration(toSeconds(entry.getLifespan(), entry, LIFESPAN), toSeconds(entry.getMaxIdle(), entry, MAXIDLE));
+         Map<Object, Object> batch = byExpiration.get(expiration);
+         if (batch == null) {
+            batch = new HashMap<Object, Object>();
+            byExpiration.put(expiration, batch);
+         }
+         batch.put(entry.getKey(), config.isRawValues() ? entry.getValue() : entry);
+      }
+      for (Map.Entry<Expiration, Map<Object, Object>> e : byExpiration.entrySet()) {
+         Expiration expiration = e.getKey();
+         remoteCache.putAll(e.getValue(), expiration.lifespan, TimeUnit.SECONDS, expiration.maxIdle, TimeUnit.SECONDS);
+      }
+   }
+
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      if (keys != null && !keys.isEmpty()) {
+         remoteCache.removeAll(keys);
+      }
+   }
+
+   /**
+    * Reads from a stream the entries written by {@link #toStream(java.io.ObjectOutput)}, until the null marker is
+    * found, and stores them in batches.
+    */
+   @Override
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
-      Map<?, ?> result;
       try {
-         result = (Map<Object, InternalCacheEntry>) marshaller.objectFromObjectStream(inputStream);
-         remoteCache.putAll(result);
+         List<InternalCacheEntry> batch = new ArrayList<InternalCacheEntry>(STREAM_BATCH_SIZE);
+         InternalCacheEntry entry;
+         while ((entry = (InternalCacheEntry) marshaller.objectFromObjectStream(inputStream)) != null) {
+            batch.add(entry);
+            if (batch.size() == STREAM_BATCH_SIZE) {
+               storeAll(batch);
+               batch.clear();
+            }
+         }
+         storeAll(batch);
+      } catch (CacheLoaderException e) {
+         throw e;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while reading data", e);
       } catch (Exception e) {
          throw new CacheLoaderException("Exception while reading data", e);
       }
    }
 
+   /**
+    * Writes to a stream the remote entries, as they are received from the server, followed by a null marker.
+    */
    @Override
-   public void toStream(ObjectOutput outputStream) throws CacheLoaderException {
-      Map<?, ?> map = remoteCache.getBulk();
+   public void toStream(final ObjectOutput outputStream) throws CacheLoaderException {
       try {
-         marshaller.objectToObjectStream(map, outputStream);
+         forEachEntry(0, new EntryCallback() {
+            @Override
+            public void entry(InternalCacheEntry entry) throws IOException {
+               marshaller.objectToObjectStream(entry, outputStream);
+            }
+         });
+         marshaller.objectToObjectStream(null, outputStream);
       } catch (IOException e) {
          throw new CacheLoaderException("Exception while serializing remote data to stream", e);
       }
@@ -151,13 +240,24 @@ public boolean remove(Object key) throws CacheLoaderException {
 
    @Override
    public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
-      Map<Object, Object> map = remoteCache.getBulk();
-      return convertToInternalCacheEntries(map);
+      return load(0);
    }
 
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
-      return convertToInternalCacheEntries(remoteCache.getBulk(numEntries));
+      final Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      try {
+         forEachEntry(numEntries, new EntryCallback() {
+            @Override
+            public void entry(InternalCacheEntry entry) {
+               result.add(entry);
+            }
+         });
+      } catch (IOException e) {
+         // not thrown by the callback above
+         throw new CacheLoaderException(e);
+      }
+      return result;
    }
 
    @Override
@@ -214,17 +314,87 @@ private long toSeconds(long millis, InternalCacheEntry entry, String desc) {
       return TimeUnit.MILLISECONDS.toSeconds(millis);
    }
 
-   private Set<InternalCacheEntry> convertToInternalCacheEntries(Map<Object, Object> map) throws CacheLoaderException {
-      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>(map.size());
-      Set<Map.Entry<Object, Object>> set = map.entrySet();
-      for (Map.Entry<Object, Object> e : set) {
+   private InternalCacheEntry toInternalCacheEntry(Object key, MetadataValue<?> value) throws CacheLoaderException {
+      return iceFactory.create(entryWrapper.wrapKey(key), entryWrapper.wrapValue(value), null, value.getCreated(), TimeUnit.SECONDS.toMillis(value.getLifespan()), value.getLastUsed(), TimeUnit.SECONDS.toMillis(value.getMaxIdle()));
+   }
+
+   /**
+    * Passes up to <code>numEntries</code> remote entries (all of them if 0) to the callback, as they are received from
+    * the server. Falls back to a plain bulk get if the server rejects the operation reading the entries with their
+    * metadata as unknown, which can only happen before any entry was received.
+    */
+   private void forEachEntry(int numEntries, final EntryCallback callback) throws CacheLoaderException, IOException {
+      if (bulkGetWithMetadataSupported) {
+         final int[] handled = new int[1];
+         try {
+            remoteCache.getBulkWithMetadata(numEntries, new MetadataEntryHandler<Object, Object>() {
+               @Override
+               public void handle(Object key, MetadataValue<Object> value) {
+                  handled[0]++;
+                  try {
+                     callback.entry(config.isRawValues() ? toInternalCacheEntry(key, value) : (InternalCacheEntry) value.getValue());
+                  } catch (Exception e) {
+                     throw new EntryCallbackException(e);
+                  }
+               }
+            });
+            return;
+         } catch (EntryCallbackException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof CacheLoaderException) throw (CacheLoaderException) cause;
+            throw new CacheLoaderException(cause);
+         } catch (HotRodClientException e) {
+            if (handled[0] > 0 || e.getErrorStatusCode() != HotRodConstants.UNKNOWN_COMMAND_STATUS) {
+               throw new CacheLoaderException(e);
+            }
+            log.bulkGetWithMetadataNotSupported(e);
+            bulkGetWithMetadataSupported = false;
+         }
+      }
+      for (Map.Entry<Object, Object> e : remoteCache.getBulk(numEntries).entrySet()) {
          if (config.isRawValues()) {
-            result.add(load(e.getKey())); // Inefficient: should probably have a getBulkWithMetadata
+            InternalCacheEntry entry = load(e.getKey());
+            if (entry != null) callback.entry(entry);
          } else {
-            result.add((InternalCacheEntry) e.getValue());
+            callback.entry((InternalCacheEntry) e.getValue());
          }
       }
-      return result;
+   }
+
+   private interface EntryCallback {
+      void entry(InternalCacheEntry entry) throws IOException;
+   }
+
+   private static class EntryCallbackException extends CacheException {
+      private static final long serialVersionUID = -6414863186385441826L;
+
+      EntryCallbackException(Throwable cause) {
+         super(cause);
+      }
+   }
+
+   private static final class Expiration {
+      final long lifespan;
+      final long maxIdle;
+
+      Expiration(long lifespan, long maxIdle) {
+         this.lifespan = lifespan;
+         this.maxIdle = maxIdle;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (!(o instanceof Expiration)) return false;
+         Expiration other = (Expiration) o;
+         return lifespan == other.lifespan && maxIdle == other.maxIdle;
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * (int) (lifespan ^ (lifespan >>> 32)) + (int) (maxIdle ^ (maxIdle >>> 32));
+      }
    }
 
    public void setInternalCacheEntryFactory(InternalEntryFactory iceFactory) {
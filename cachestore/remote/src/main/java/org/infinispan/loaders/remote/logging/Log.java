@@ -59,4 +59,8 @@ public interface Log extends org.infinispan.util.logging.Log {
 
    @Message(value = "Cannot load the HotRodEntryWrapper class (make sure the infinispan-server-hotrod classes are available)", id = 10006)
    ConfigurationException cannotLoadHotRodEntryWrapper(@Cause Exception e);
+
+   @LogMessage(level = WARN)
+   @Message(value = "The remote server does not support reading entries along with their metadata in bulk, falling back to a plain bulk get", id = 10007)
+   void bulkGetWithMetadataNotSupported(@Cause Exception e);
 }
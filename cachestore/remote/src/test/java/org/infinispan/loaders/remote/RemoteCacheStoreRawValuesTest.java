@@ -22,19 +22,31 @@
  */
 package org.infinispan.loaders.remote;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
+import org.infinispan.client.hotrod.MetadataValue;
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.TestHelper;
 import org.infinispan.client.hotrod.test.HotRodClientTestingUtil;
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.container.InternalEntryFactoryImpl;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.io.UnclosableObjectInputStream;
+import org.infinispan.io.UnclosableObjectOutputStream;
 import org.infinispan.loaders.BaseCacheStoreTest;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheStore;
 import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.server.hotrod.HotRodServer;
 import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
@@ -114,6 +126,80 @@ protected void purgeExpired() throws CacheLoaderException {
    public void testLoadKeys() throws CacheLoaderException {
    }
 
+   public void testStoreAllGroupsByExpiration() throws CacheLoaderException {
+      List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>();
+      entries.add(TestInternalCacheEntryFactory.create("immortal1", "v1"));
+      entries.add(TestInternalCacheEntryFactory.create("immortal2", "v2"));
+      entries.add(TestInternalCacheEntryFactory.create("mortal1", "v3", 60000));
+      entries.add(TestInternalCacheEntryFactory.create("mortal2", "v4", 60000));
+      entries.add(TestInternalCacheEntryFactory.create("idle", "v5", 60000, 30000));
+      cs.storeAll(entries);
+
+      RemoteCache<Object, Object> remoteCache = ((RemoteCacheStore) cs).getRemoteCache();
+      for (String key : Arrays.asList("immortal1", "immortal2")) {
+         MetadataValue<Object> value = remoteCache.getWithMetadata(key);
+         assert value.getLifespan() < 0 : "Expected " + key + " to be immortal but its lifespan is " + value.getLifespan();
+         assert value.getMaxIdle() < 0 : "Expected " + key + " to be immortal but its max idle is " + value.getMaxIdle();
+      }
+      for (String key : Arrays.asList("mortal1", "mortal2")) {
+         MetadataValue<Object> value = remoteCache.getWithMetadata(key);
+         assert value.getLifespan() == 60 : "Expected a 60s lifespan for " + key + " but got " + value.getLifespan();
+         assert value.getMaxIdle() < 0 : "Expected no max idle for " + key + " but got " + value.getMaxIdle();
+      }
+      MetadataValue<Object> value = remoteCache.getWithMetadata("idle");
+      assert value.getLifespan() == 60 : "Expected a 60s lifespan but got " + value.getLifespan();
+      assert value.getMaxIdle() == 30 : "Expected a 30s max idle but got " + value.getMaxIdle();
+      assert "v5".equals(value.getValue());
+   }
+
+   /**
+    * Checks that values and expiration survive a {@link RemoteCacheStore#toStream(java.io.ObjectOutput)} and
+    * {@link RemoteCacheStore#fromStream(java.io.ObjectInput)} round trip. The number of entries stays below the
+    * maxEntries of the remote cache, so that none are evicted.
+    */
+   public void testStreamingRoundTripKeepsValuesAndExpiration() throws Exception {
+      int numEntries = 60;
+      List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>(numEntries);
+      for (int i = 0; i < numEntries; i++) {
+         entries.add(i % 2 == 0 ? TestInternalCacheEntryFactory.create("k" + i, "v" + i)
+               : TestInternalCacheEntryFactory.create("k" + i, "v" + i, 60000));
+      }
+      cs.storeAll(entries);
+
+      StreamingMarshaller marshaller = getMarshaller();
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      ObjectOutput oo = marshaller.startObjectOutput(out, false, 12);
+      try {
+         cs.toStream(new UnclosableObjectOutputStream(oo));
+      } finally {
+         marshaller.finishObjectOutput(oo);
+         out.close();
+         cs.clear();
+      }
+      assert cs.loadAll().isEmpty();
+
+      ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+      ObjectInput oi = marshaller.startObjectInput(in, false);
+      try {
+         cs.fromStream(new UnclosableObjectInputStream(oi));
+      } finally {
+         marshaller.finishObjectInput(oi);
+         in.close();
+      }
+
+      assert cs.loadAll().size() == numEntries;
+      for (int i = 0; i < numEntries; i++) {
+         InternalCacheEntry entry = cs.load("k" + i);
+         assert entry != null : "Missing k" + i;
+         assert ("v" + i).equals(entry.getValue()) : "Unexpected value " + entry.getValue() + " for k" + i;
+         if (i % 2 == 0) {
+            assert !entry.canExpire() : "Expected k" + i + " to be immortal";
+         } else {
+            assert entry.getLifespan() == 60000 : "Expected a 60s lifespan for k" + i + " but got " + entry.getLifespan();
+         }
+      }
+   }
+
    @Override
    public void testReplaceExpiredEntry() throws Exception {
       cs.store(TestInternalCacheEntryFactory.create("k1", "v1", 100));
@@ -0,0 +1,42 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+/**
+ * Receives the entries read by {@link RemoteCache#getBulkWithMetadata(int, MetadataEntryHandler)} one at a time, as
+ * they are read from the server.
+ *
+ * @since 5.2
+ */
+public interface MetadataEntryHandler<K, V> {
+
+   /**
+    * Invoked for every entry read from the server. Implementations should return quickly, as the connection to the
+    * server is held until all the entries have been handled.
+    *
+    * @param key   the key of the entry
+    * @param value the value of the entry, along with its version and expiration information
+    */
+   void handle(K key, MetadataValue<V> value);
+
+}
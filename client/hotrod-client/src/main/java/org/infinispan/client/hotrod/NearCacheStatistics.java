@@ -0,0 +1,53 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+/**
+ * Statistics of the near cache kept by a {@link RemoteCache} on the client side. Can be obtained through
+ * {@link RemoteCache#nearCacheStats()}.
+ *
+ * @since 5.2
+ */
+public interface NearCacheStatistics {
+
+   /**
+    * Number of reads served from the near cache without contacting the server.
+    */
+   long getHits();
+
+   /**
+    * Number of reads for which the near cache held no entry, or held an entry which had changed on the server.
+    */
+   long getMisses();
+
+   /**
+    * Number of reads for which the near cache entry had to be checked against the server and was found to be still
+    * current, so its value did not have to be unmarshalled again.
+    */
+   long getRevalidations();
+
+   /**
+    * Number of entries currently held in the near cache.
+    */
+   int getNumberOfEntries();
+}
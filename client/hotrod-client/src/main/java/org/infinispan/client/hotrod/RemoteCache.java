@@ -273,9 +273,10 @@
    NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue, long lifespan, TimeUnit lifespanUnit, long maxIdle, TimeUnit maxIdleUnit);
 
    /**
-    * Synthetic operation. The client iterates over the set of keys and calls put for each one of them. This results in
-    * operation not being atomic (if a failure happens after few puts it is not rolled back) and costly (for each key in
-    * the parameter map a remote call is performed).
+    * Synthetic operation. The entries are grouped by the server owning them and each group is stored with a single
+    * request. With a protocol version older than 1.2 the client iterates over the set of keys and calls put for each
+    * one of them instead. In both cases the operation is not atomic (if a failure happens after few puts it is not
+    * rolled back).
     */
    @Override
    void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit unit);
@@ -320,8 +321,23 @@
    @Override
    void putAll(Map<? extends K, ? extends V> m);
 
+   /**
+    * Removes all the given keys from the remote cache. The keys are grouped by the server owning them and each group
+    * is removed with a single request, so this is considerably cheaper than removing the keys one by one. With a
+    * protocol version older than 1.2 the keys are removed one by one.
+    *
+    * @param keys the keys to remove
+    */
+   void removeAll(Set<? extends K> keys);
+
    ServerStatistics stats();
 
+   /**
+    * Returns the statistics of the near cache of this remote cache, or null if near caching is not enabled. See the
+    * <tt>infinispan.client.hotrod.near_cache.*</tt> properties of {@link RemoteCacheManager}.
+    */
+   NearCacheStatistics nearCacheStats();
+
    /**
     * Applies one or more {@link Flag}s to the scope of a single invocation.  See the {@link Flag} enumeration to for
     * information on available flags.
@@ -354,4 +370,20 @@
     * guarantee that "size" elements are returned( e.g. if the number of elements in the back-end server is smaller that "size")
     */
    Map<K, V> getBulk(int size);
+
+   /**
+    * Reads up to <code>size</code> entries of the remote cache (all of them if <code>size</code> is 0), along with their
+    * version and expiration information. Unlike {@link #getBulk(int)}, entries are not collected in a map: each one is
+    * unmarshalled and passed to the handler as soon as it is read from the server, so that large caches can be
+    * traversed with constant memory. Which entries are returned follows the same rules as {@link #getBulk()}.
+    * <p/>
+    * If the connection to the server fails before any entry has been handled, the operation is retried on another
+    * connection. Once entries have been handed to the handler it is not retried, so that no entry is handled twice,
+    * and the failure is thrown instead.
+    *
+    * @param size    the maximum number of entries to read, or 0 for all of them
+    * @param handler the handler invoked for every entry read
+    * @return the number of entries read
+    */
+   int getBulkWithMetadata(int size, MetadataEntryHandler<K, V> handler);
 }
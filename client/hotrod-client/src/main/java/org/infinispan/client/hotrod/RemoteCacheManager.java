@@ -30,20 +30,25 @@
 import java.net.URL;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.infinispan.api.BasicCacheContainer;
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.NearCache;
 import org.infinispan.client.hotrod.impl.RemoteCacheImpl;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation.PingResult;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.protocol.CodecFactory;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.nio.MultiplexedTransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
 import org.infinispan.executors.ExecutorFactory;
@@ -51,6 +56,7 @@
 import org.infinispan.util.FileLookupFactory;
 import org.infinispan.util.SysPropertyActions;
 import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
 
 /**
  * Factory for {@link org.infinispan.client.hotrod.RemoteCache}s. <p/> <p> <b>Lifecycle:</b> </p> In order to be able to
@@ -92,6 +98,11 @@
  * <li><tt>infinispan.client.hotrod.socket_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket read timeout before giving up waiting for bytes from the server.</li>
  * <li><tt>infinispan.client.hotrod.protocol_version</tt>, default = 1.1 .This property defines the protocol version that this client should use. Other valid values include 1.0.</li>
  * <li><tt>infinispan.client.hotrod.connect_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket connect timeout before giving up connecting to the server.</li>
+ * <li><tt>infinispan.client.hotrod.async_pipelining</tt>, default = false.  If true, the asynchronous key based operations (e.g. getAsync, putAsync) are pipelined over a few non-blocking connections per server and completed by a selector thread, rather than each occupying an executor thread and a pooled connection until its response arrives.</li>
+ * <li><tt>infinispan.client.hotrod.async_pipelining.connections_per_server</tt>, default = 2.  The number of non-blocking connections opened to each server when async pipelining is enabled.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.max_entries</tt>, default = 0.  If positive, each remote cache keeps a near cache holding up to this many of the entries recently read, so that repeated reads of the same keys are served locally.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.eviction_strategy</tt>, default = LRU.  The strategy used for evicting entries from a full near cache, either LRU or LIRS.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.revalidation_interval</tt>, default = 1000.  Number of milliseconds a near cache entry is used before its version is checked against the server again. Servers do not notify clients about modifications, so this bounds how stale a value read from the near cache can be, unless it was modified through the same remote cache, which invalidates it immediately. A negative value disables revalidation.</li>
  * </ul>
  * <br/>
  * <i>The following properties are related to connection pooling</i>:
@@ -156,6 +167,7 @@ public class RemoteCacheManager implements BasicCacheContainer {
 
    ConfigurationProperties config;
    private TransportFactory transportFactory;
+   private MultiplexedTransportFactory multiplexedTransportFactory;
    private Marshaller marshaller;
    private volatile boolean started = false;
    private boolean forceReturnValueDefault = false;
@@ -476,6 +488,15 @@ public void start() {
          asyncExecutorService = executorFactory.getExecutor(config.getProperties());
       }
 
+      if (config.getAsyncPipelining()) {
+         if (transportFactory instanceof TcpTransportFactory) {
+            multiplexedTransportFactory = new MultiplexedTransportFactory(
+                  (TcpTransportFactory) transportFactory, config, asyncExecutorService);
+         } else {
+            log.pipeliningNotSupportedByTransportFactory(TcpTransportFactory.class.getName(), factory);
+         }
+      }
+
       synchronized (cacheName2RemoteCache) {
          for (RemoteCacheHolder rcc : cacheName2RemoteCache.values()) {
             startRemoteCache(rcc);
@@ -487,6 +508,10 @@ public void start() {
    @Override
    public void stop() {
       if (isStarted()) {
+         if (multiplexedTransportFactory != null) {
+            multiplexedTransportFactory.destroy();
+            multiplexedTransportFactory = null;
+         }
          transportFactory.destroy();
          asyncExecutorService.shutdownNow();
       }
@@ -542,9 +567,19 @@ private <K, V> PingResult ping(RemoteCacheImpl<K, V> cache) {
 
    private void startRemoteCache(RemoteCacheHolder remoteCacheHolder) {
       RemoteCacheImpl<?, ?> remoteCache = remoteCacheHolder.remoteCache;
-      OperationsFactory operationsFactory = new OperationsFactory(
-            transportFactory, remoteCache.getName(), topologyId, remoteCacheHolder.forceReturnValue, codec);
-      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, config.getKeySizeEstimate(), config.getValueSizeEstimate());
+      OperationsFactory operationsFactory = new OperationsFactory(transportFactory, multiplexedTransportFactory,
+            remoteCache.getName(), topologyId, remoteCacheHolder.forceReturnValue, codec);
+      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, config.getKeySizeEstimate(), config.getValueSizeEstimate(), newNearCache());
+   }
+
+   @SuppressWarnings("unchecked")
+   private NearCache newNearCache() {
+      int maxEntries = config.getNearCacheMaxEntries();
+      if (maxEntries <= 0) {
+         return null;
+      }
+      Eviction eviction = Eviction.valueOf(config.getNearCacheEvictionStrategy().toUpperCase(Locale.ENGLISH));
+      return new NearCache(maxEntries, eviction, config.getNearCacheRevalidationInterval(), TimeUnit.MILLISECONDS);
    }
 
    private void setMarshaller(Marshaller marshaller) {
@@ -53,6 +53,14 @@ public HotRodClientException(String remoteMessage, long messageId, int errorStat
       this.errorStatusCode = errorStatusCode;
    }
 
+   /**
+    * @return the status code of the server response that caused this exception, or -1 if it was not caused by an error
+    *         response
+    */
+   public int getErrorStatusCode() {
+      return errorStatusCode;
+   }
+
    @Override
    public String toString() {
       StringBuilder sb = new StringBuilder(getClass().getName());
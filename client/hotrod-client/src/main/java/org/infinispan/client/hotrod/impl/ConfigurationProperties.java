@@ -57,6 +57,11 @@ public class ConfigurationProperties {
    public static final String SO_TIMEOUT = "infinispan.client.hotrod.socket_timeout";
    public static final String CONNECT_TIMEOUT = "infinispan.client.hotrod.connect_timeout";
    public static final String PROTOCOL_VERSION = "infinispan.client.hotrod.protocol_version";
+   public static final String ASYNC_PIPELINING = "infinispan.client.hotrod.async_pipelining";
+   public static final String ASYNC_PIPELINING_CONNECTIONS_PER_SERVER = "infinispan.client.hotrod.async_pipelining.connections_per_server";
+   public static final String NEAR_CACHE_MAX_ENTRIES = "infinispan.client.hotrod.near_cache.max_entries";
+   public static final String NEAR_CACHE_EVICTION_STRATEGY = "infinispan.client.hotrod.near_cache.eviction_strategy";
+   public static final String NEAR_CACHE_REVALIDATION_INTERVAL = "infinispan.client.hotrod.near_cache.revalidation_interval";
 
    // defaults
 
@@ -69,6 +74,8 @@ public class ConfigurationProperties {
    public static final String PROTOCOL_VERSION_11 = "1.1";
    public static final String PROTOCOL_VERSION_10 = "1.0";
    public static final String DEFAULT_PROTOCOL_VERSION = PROTOCOL_VERSION_12;
+   public static final String DEFAULT_NEAR_CACHE_EVICTION_STRATEGY = "LRU";
+   public static final long DEFAULT_NEAR_CACHE_REVALIDATION_INTERVAL = 1000;
 
    private final TypedProperties props;
 
@@ -162,4 +169,24 @@ public int getConnectTimeout() {
       return props.getIntProperty(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT);
    }
 
+   public boolean getAsyncPipelining() {
+      return props.getBooleanProperty(ASYNC_PIPELINING, false);
+   }
+
+   public int getAsyncPipeliningConnectionsPerServer() {
+      return props.getIntProperty(ASYNC_PIPELINING_CONNECTIONS_PER_SERVER, 2);
+   }
+
+   public int getNearCacheMaxEntries() {
+      return props.getIntProperty(NEAR_CACHE_MAX_ENTRIES, 0);
+   }
+
+   public String getNearCacheEvictionStrategy() {
+      return props.getProperty(NEAR_CACHE_EVICTION_STRATEGY, DEFAULT_NEAR_CACHE_EVICTION_STRATEGY);
+   }
+
+   public long getNearCacheRevalidationInterval() {
+      return props.getLongProperty(NEAR_CACHE_REVALIDATION_INTERVAL, DEFAULT_NEAR_CACHE_REVALIDATION_INTERVAL);
+   }
+
 }
@@ -0,0 +1,178 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.infinispan.client.hotrod.NearCacheStatistics;
+import org.infinispan.util.ByteArrayKey;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+
+/**
+ * Bounded local copy of the entries recently read through a {@link RemoteCacheImpl}. Entries are keyed by the
+ * marshalled key and remember the version they had on the server, so that an entry which is due for revalidation
+ * can be checked against the server without unmarshalling its value again if it has not changed.
+ * <p/>
+ * Hot Rod servers do not notify clients about modifications, so an entry is only trusted for the configured
+ * revalidation interval; writes issued through the owning remote cache invalidate the affected entries straight away.
+ * <p/>
+ * A value read from the server may be stale by the time it is cached, if the key was invalidated while it was being
+ * read. Readers therefore take an {@link #invalidationStamp(ByteArrayKey) invalidation stamp} before reading from the
+ * server, and {@link #put(ByteArrayKey, Object, long, long)} only keeps the value if no invalidation of the key
+ * happened since.
+ *
+ * @since 5.2
+ */
+public class NearCache<V> implements NearCacheStatistics {
+
+   private static final int CONCURRENCY_LEVEL = 16;
+   private static final int INVALIDATION_STRIPES = 64;
+
+   private final BoundedConcurrentHashMap<ByteArrayKey, Entry<V>> entries;
+   private final long revalidationIntervalNanos;
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+   private final AtomicLong revalidations = new AtomicLong();
+   /**
+    * Number of invalidations of the keys mapped to each stripe.
+    */
+   private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+   /**
+    * @param maxEntries           maximum number of entries held
+    * @param eviction             strategy choosing the entries to evict when the near cache is full
+    * @param revalidationInterval time an entry is used without checking its version against the server; a negative
+    *                             value means entries are never revalidated
+    */
+   public NearCache(int maxEntries, Eviction eviction, long revalidationInterval, TimeUnit unit) {
+      this.entries = new BoundedConcurrentHashMap<ByteArrayKey, Entry<V>>(maxEntries, CONCURRENCY_LEVEL, eviction);
+      this.revalidationIntervalNanos = revalidationInterval < 0 ? -1 : unit.toNanos(revalidationInterval);
+   }
+
+   /**
+    * Returns the value of the entry if it can be used without contacting the server, or null otherwise.
+    */
+   public V getIfValid(ByteArrayKey key) {
+      Entry<V> entry = entries.get(key);
+      if (entry != null && (revalidationIntervalNanos < 0 || System.nanoTime() - entry.validated < revalidationIntervalNanos)) {
+         hits.incrementAndGet();
+         return entry.value;
+      }
+      return null;
+   }
+
+   /**
+    * Returns the value held for the key if it has the given version, or null if the near cache holds no value or a
+    * different version. In both cases the entry is considered validated against the server.
+    */
+   public V getIfVersion(ByteArrayKey key, long version) {
+      Entry<V> entry = entries.get(key);
+      if (entry != null && entry.version == version) {
+         revalidations.incrementAndGet();
+         entries.replace(key, entry, new Entry<V>(entry.value, version));
+         return entry.value;
+      }
+      misses.incrementAndGet();
+      return null;
+   }
+
+   /**
+    * Records that the key does not exist on the server.
+    */
+   public void missing(ByteArrayKey key) {
+      misses.incrementAndGet();
+      entries.remove(key);
+   }
+
+   /**
+    * Returns a stamp which changes whenever the key is invalidated, to be passed to
+    * {@link #put(ByteArrayKey, Object, long, long)}. Invalidating other keys may change it too.
+    */
+   public long invalidationStamp(ByteArrayKey key) {
+      return invalidations.get(stripe(key));
+   }
+
+   /**
+    * Caches a value read from the server, unless the key was invalidated since the stamp was taken.
+    *
+    * @param stamp the {@link #invalidationStamp(ByteArrayKey)} of the key taken before reading the value
+    */
+   public void put(ByteArrayKey key, V value, long version, long stamp) {
+      Entry<V> entry = new Entry<V>(value, version);
+      entries.put(key, entry);
+      // an invalidation racing with the put either removes the entry itself, or changes the stamp seen here
+      if (invalidations.get(stripe(key)) != stamp) {
+         entries.remove(key, entry);
+      }
+   }
+
+   public void invalidate(ByteArrayKey key) {
+      invalidations.incrementAndGet(stripe(key));
+      entries.remove(key);
+   }
+
+   public void clear() {
+      for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+         invalidations.incrementAndGet(i);
+      }
+      entries.clear();
+   }
+
+   private static int stripe(ByteArrayKey key) {
+      return key.hashCode() & (INVALIDATION_STRIPES - 1);
+   }
+
+   @Override
+   public long getHits() {
+      return hits.get();
+   }
+
+   @Override
+   public long getMisses() {
+      return misses.get();
+   }
+
+   @Override
+   public long getRevalidations() {
+      return revalidations.get();
+   }
+
+   @Override
+   public int getNumberOfEntries() {
+      return entries.size();
+   }
+
+   private static final class Entry<V> {
+      final V value;
+      final long version;
+      final long validated = System.nanoTime();
+
+      Entry(V value, long version) {
+         this.value = value;
+         this.version = version;
+      }
+   }
+}
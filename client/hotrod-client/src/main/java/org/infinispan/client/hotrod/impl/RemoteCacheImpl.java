@@ -25,42 +25,58 @@
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.RemoteCache;
 import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.infinispan.client.hotrod.ServerStatistics;
+import org.infinispan.client.hotrod.MetadataEntryHandler;
 import org.infinispan.client.hotrod.MetadataValue;
+import org.infinispan.client.hotrod.NearCacheStatistics;
 import org.infinispan.client.hotrod.Version;
 import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteCacheManagerNotStartedException;
 import org.infinispan.client.hotrod.exceptions.TransportException;
 import org.infinispan.client.hotrod.impl.async.NotifyingFutureImpl;
 import org.infinispan.client.hotrod.impl.operations.BulkGetOperation;
+import org.infinispan.client.hotrod.impl.operations.BulkGetWithMetadataOperation;
 import org.infinispan.client.hotrod.impl.operations.ClearOperation;
 import org.infinispan.client.hotrod.impl.operations.ContainsKeyOperation;
+import org.infinispan.client.hotrod.impl.operations.GetAllOperation;
 import org.infinispan.client.hotrod.impl.operations.GetOperation;
 import org.infinispan.client.hotrod.impl.operations.GetWithMetadataOperation;
 import org.infinispan.client.hotrod.impl.operations.GetWithVersionOperation;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation;
+import org.infinispan.client.hotrod.impl.operations.PutAllOperation;
 import org.infinispan.client.hotrod.impl.operations.PutIfAbsentOperation;
 import org.infinispan.client.hotrod.impl.operations.PutOperation;
+import org.infinispan.client.hotrod.impl.operations.RemoveAllOperation;
 import org.infinispan.client.hotrod.impl.operations.RemoveIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.RemoveOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceOperation;
+import org.infinispan.client.hotrod.impl.operations.RetryOnFailureOperation;
 import org.infinispan.client.hotrod.impl.operations.StatsOperation;
+import org.infinispan.client.hotrod.impl.transport.nio.MultiplexedTransportFactory;
+import org.infinispan.client.hotrod.impl.transport.nio.ResponseFuture;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
 import org.infinispan.marshall.Marshaller;
+import org.infinispan.util.ByteArrayKey;
 import org.infinispan.util.concurrent.NotifyingFuture;
 
 /**
@@ -78,6 +94,7 @@
    private OperationsFactory operationsFactory;
    private int estimateKeySize;
    private int estimateValueSize;
+   private NearCache<V> nearCache;
 
 
    public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
@@ -89,6 +106,11 @@ public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
    }
 
    public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize) {
+      init(marshaller, executorService, operationsFactory, estimateKeySize, estimateValueSize, null);
+   }
+
+   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize, NearCache<V> nearCache) {
+      this.nearCache = nearCache;
       this.marshaller = marshaller;
       this.executorService = executorService;
       this.operationsFactory = operationsFactory;
@@ -104,8 +126,10 @@ public RemoteCacheManager getRemoteCacheManager() {
    @Override
    public boolean removeWithVersion(K key, long version) {
       assertRemoteCacheManagerIsStarted();
-      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(obj2bytes(key, true), version);
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
       VersionedOperationResponse response = op.execute();
+      invalidateNearCache(keyBytes);
       return response.getCode().isUpdated();
    }
 
@@ -113,6 +137,14 @@ public boolean removeWithVersion(K key, long version) {
    public NotifyingFuture<Boolean> removeWithVersionAsync(final K key, final long version) {
       assertRemoteCacheManagerIsStarted();
       final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
+      MultiplexedTransportFactory multiplexed = operationsFactory.getMultiplexedTransportFactory();
+      if (multiplexed != null) {
+         byte[] keyBytes = obj2bytes(key, true);
+         invalidateNearCache(keyBytes);
+         RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
+         multiplexed.execute(op, new UpdatedResponseFuture(result, keyBytes));
+         return result;
+      }
       Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
          @Override
          public Boolean call() throws Exception {
@@ -128,8 +160,10 @@ public Boolean call() throws Exception {
    @Override
    public boolean replaceWithVersion(K key, V newValue, long version, int lifespanSeconds, int maxIdleTimeSeconds) {
       assertRemoteCacheManagerIsStarted();
-      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
       VersionedOperationResponse response = op.execute();
+      invalidateNearCache(keyBytes);
       return response.getCode().isUpdated();
    }
 
@@ -137,6 +171,14 @@ public boolean replaceWithVersion(K key, V newValue, long version, int lifespanS
    public NotifyingFuture<Boolean> replaceWithVersionAsync(final K key, final V newValue, final long version, final int lifespanSeconds, final int maxIdleSeconds) {
       assertRemoteCacheManagerIsStarted();
       final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
+      MultiplexedTransportFactory multiplexed = operationsFactory.getMultiplexedTransportFactory();
+      if (multiplexed != null) {
+         byte[] keyBytes = obj2bytes(key, true);
+         invalidateNearCache(keyBytes);
+         ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleSeconds, version);
+         multiplexed.execute(op, new UpdatedResponseFuture(result, keyBytes));
+         return result;
+      }
       Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
          @Override
          public Boolean call() throws Exception {
@@ -168,8 +210,52 @@ public MetadataValue<V> getWithMetadata(K key) {
    @Override
    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isMultiKeySupported()) {
+         for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         }
+         return;
+      }
+      int lifespanSecs = toSeconds(lifespan, lifespanUnit);
+      int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
+      applyDefaultExpirationFlags(lifespan, maxIdleTime);
+      if (log.isTraceEnabled()) {
+         log.tracef("About to add %d entries, lifespanSecs:%d, maxIdleSecs:%d", map.size(), lifespanSecs, maxIdleSecs);
+      }
+      Map<byte[], byte[]> entries = new HashMap<byte[], byte[]>(map.size());
       for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-         put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         entries.put(obj2bytes(entry.getKey(), true), obj2bytes(entry.getValue(), false));
+      }
+      List<PutAllOperation> ops = operationsFactory.newPutAllOperations(entries, lifespanSecs, maxIdleSecs);
+      try {
+         executeAll(ops);
+      } finally {
+         for (byte[] keyBytes : entries.keySet()) {
+            invalidateNearCache(keyBytes);
+         }
+      }
+   }
+
+   @Override
+   public void removeAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isMultiKeySupported()) {
+         for (K key : keys) {
+            remove(key);
+         }
+         return;
+      }
+      List<byte[]> keyBytes = new ArrayList<byte[]>(keys.size());
+      for (K key : keys) {
+         keyBytes.add(obj2bytes(key, true));
+      }
+      List<RemoveAllOperation> ops = operationsFactory.newRemoveAllOperations(keyBytes);
+      try {
+         executeAll(ops);
+      } finally {
+         for (byte[] bytes : keyBytes) {
+            invalidateNearCache(bytes);
+         }
       }
    }
 
@@ -224,8 +310,10 @@ public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleT
       if (log.isTraceEnabled()) {
          log.tracef("About to add (K,V): (%s, %s) lifespanSecs:%d, maxIdleSecs:%d", key, value, lifespanSecs, maxIdleSecs);
       }
-      PutOperation op = operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] result = op.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(result);
    }
 
@@ -237,8 +325,10 @@ public V putIfAbsent(K key, V value, long lifespan, TimeUnit lifespanUnit, long
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] bytes = op.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(bytes);
    }
 
@@ -249,8 +339,10 @@ public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxI
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
       applyDefaultExpirationFlags(lifespan, maxIdleTime);
-      ReplaceOperation op = operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] bytes = op.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(bytes);
    }
 
@@ -258,6 +350,15 @@ public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxI
    public NotifyingFuture<V> putAsync(final K key, final V value, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
+      MultiplexedTransportFactory multiplexed = operationsFactory.getMultiplexedTransportFactory();
+      if (multiplexed != null) {
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         byte[] keyBytes = obj2bytes(key, true);
+         invalidateNearCache(keyBytes);
+         PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+         multiplexed.execute(op, new ValueResponseFuture(result, keyBytes));
+         return result;
+      }
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
          public V call() throws Exception {
@@ -290,6 +391,15 @@ public Void call() throws Exception {
    public NotifyingFuture<V> putIfAbsentAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
+      MultiplexedTransportFactory multiplexed = operationsFactory.getMultiplexedTransportFactory();
+      if (multiplexed != null) {
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         byte[] keyBytes = obj2bytes(key, true);
+         invalidateNearCache(keyBytes);
+         PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+         multiplexed.execute(op, new ValueResponseFuture(result, keyBytes));
+         return result;
+      }
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
          public V call() throws Exception {
@@ -306,6 +416,14 @@ public V call() throws Exception {
    public NotifyingFuture<V> removeAsync(final Object key) {
       assertRemoteCacheManagerIsStarted();
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
+      MultiplexedTransportFactory multiplexed = operationsFactory.getMultiplexedTransportFactory();
+      if (multiplexed != null) {
+         byte[] keyBytes = obj2bytes(key, true);
+         invalidateNearCache(keyBytes);
+         RemoveOperation op = operationsFactory.newRemoveOperation(keyBytes);
+         multiplexed.execute(op, new ValueResponseFuture(result, keyBytes));
+         return result;
+      }
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
          public V call() throws Exception {
@@ -322,6 +440,15 @@ public V call() throws Exception {
    public NotifyingFuture<V> replaceAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
+      MultiplexedTransportFactory multiplexed = operationsFactory.getMultiplexedTransportFactory();
+      if (multiplexed != null) {
+         applyDefaultExpirationFlags(lifespan, maxIdle);
+         byte[] keyBytes = obj2bytes(key, true);
+         invalidateNearCache(keyBytes);
+         ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+         multiplexed.execute(op, new ValueResponseFuture(result, keyBytes));
+         return result;
+      }
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
          public V call() throws Exception {
@@ -346,6 +473,9 @@ public boolean containsKey(Object key) {
    public V get(Object key) {
       assertRemoteCacheManagerIsStarted();
       byte[] keyBytes = obj2bytes(key, true);
+      if (nearCache != null) {
+         return getThroughNearCache(keyBytes);
+      }
       GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
       byte[] bytes = gco.execute();
       V result = (V) bytes2obj(bytes);
@@ -375,12 +505,28 @@ public Map<K, V> getBulk(int size) {
       return Collections.unmodifiableMap(toReturn);
    }
 
+   @Override
+   public int getBulkWithMetadata(int size, final MetadataEntryHandler<K, V> handler) {
+      assertRemoteCacheManagerIsStarted();
+      BulkGetWithMetadataOperation op = operationsFactory.newBulkGetWithMetadataOperation(size,
+            new MetadataEntryHandler<byte[], byte[]>() {
+               @Override
+               @SuppressWarnings("unchecked")
+               public void handle(byte[] key, MetadataValue<byte[]> value) {
+                  handler.handle((K) bytes2obj(key), binary2MetadataValue(value));
+               }
+            });
+      return op.execute();
+   }
+
    @Override
    @SuppressWarnings("unchecked")
    public V remove(Object key) {
       assertRemoteCacheManagerIsStarted();
-      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(obj2bytes(key, true));
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(keyBytes);
       byte[] existingValue = removeOperation.execute();
+      invalidateNearCache(keyBytes);
       // TODO: It sucks that you need the prev value to see if it works...
       // We need to find a better API for RemoteCache...
       return (V) bytes2obj(existingValue);
@@ -391,6 +537,9 @@ public void clear() {
       assertRemoteCacheManagerIsStarted();
       ClearOperation op = operationsFactory.newClearOperation() ;
       op.execute();
+      if (nearCache != null) {
+         nearCache.clear();
+      }
    }
 
    @Override
@@ -427,6 +576,13 @@ public RemoteCache<K, V> withFlags(Flag... flags) {
    public NotifyingFuture<V> getAsync(final K key) {
       assertRemoteCacheManagerIsStarted();
       final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
+      MultiplexedTransportFactory multiplexed = operationsFactory.getMultiplexedTransportFactory();
+      // reads through the near cache are not pipelined, as they need to be revalidated with a versioned get
+      if (multiplexed != null && nearCache == null) {
+         GetOperation op = operationsFactory.newGetKeyOperation(obj2bytes(key, true));
+         multiplexed.execute(op, new ValueResponseFuture(result, null));
+         return result;
+      }
       Future<V> future = executorService.submit(new Callable<V>() {
          @Override
          public V call() throws Exception {
@@ -439,6 +595,131 @@ public V call() throws Exception {
       return result;
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Map<K, V> getAll(Set<?> keys) {
+      assertRemoteCacheManagerIsStarted();
+      if (!operationsFactory.isMultiKeySupported()) {
+         Map<K, V> result = new HashMap<K, V>(keys.size());
+         for (Object key : keys) {
+            V value = get(key);
+            if (value != null) {
+               result.put((K) key, value);
+            }
+         }
+         return result;
+      }
+      Map<ByteArrayKey, Object> keysByBytes = new HashMap<ByteArrayKey, Object>(keys.size());
+      List<byte[]> keyBytes = new ArrayList<byte[]>(keys.size());
+      Map<K, V> result = new HashMap<K, V>(keys.size());
+      for (Object key : keys) {
+         byte[] bytes = obj2bytes(key, true);
+         ByteArrayKey bytesKey = new ByteArrayKey(bytes);
+         V cached = nearCache != null ? nearCache.getIfValid(bytesKey) : null;
+         if (cached != null) {
+            result.put((K) key, cached);
+         } else {
+            keysByBytes.put(bytesKey, key);
+            keyBytes.add(bytes);
+         }
+      }
+      List<GetAllOperation> ops = operationsFactory.newGetAllOperations(keyBytes);
+      for (Map<byte[], byte[]> entries : executeAll(ops)) {
+         for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+            result.put((K) keysByBytes.get(new ByteArrayKey(entry.getKey())), (V) bytes2obj(entry.getValue()));
+         }
+      }
+      return result;
+   }
+
+   @Override
+   public NotifyingFuture<Map<K, V>> getAllAsync(final Set<?> keys) {
+      assertRemoteCacheManagerIsStarted();
+      final NotifyingFutureImpl<Map<K, V>> result = new NotifyingFutureImpl<Map<K, V>>();
+      Future<Map<K, V>> future = executorService.submit(new Callable<Map<K, V>>() {
+         @Override
+         public Map<K, V> call() throws Exception {
+            Map<K, V> toReturn = getAll(keys);
+            result.notifyFutureCompletion();
+            return toReturn;
+         }
+      });
+      result.setExecuting(future);
+      return result;
+   }
+
+   /**
+    * Executes operations directed to different servers in parallel. The calling thread runs any operation the executor
+    * has not picked up yet, so this is safe to use from within the executor's own threads.
+    */
+   private <T> List<T> executeAll(List<? extends RetryOnFailureOperation<T>> ops) {
+      if (ops.size() <= 1) {
+         return ops.isEmpty() ? Collections.<T>emptyList() : Collections.singletonList(ops.get(0).execute());
+      }
+      List<Future<T>> futures = new ArrayList<Future<T>>(ops.size() - 1);
+      for (final RetryOnFailureOperation<T> op : ops.subList(1, ops.size())) {
+         futures.add(executorService.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+               return op.execute();
+            }
+         }));
+      }
+      List<T> results = new ArrayList<T>(ops.size());
+      results.add(ops.get(0).execute());
+      try {
+         for (Future<T> future : futures) {
+            if (future instanceof RunnableFuture) {
+               // no-op if the executor already started it
+               ((RunnableFuture<T>) future).run();
+            }
+            results.add(future.get());
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new HotRodClientException(e);
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof HotRodClientException) {
+            throw (HotRodClientException) e.getCause();
+         }
+         throw new HotRodClientException(e.getCause());
+      }
+      return results;
+   }
+
+   @Override
+   public NearCacheStatistics nearCacheStats() {
+      return nearCache;
+   }
+
+   @SuppressWarnings("unchecked")
+   private V getThroughNearCache(byte[] keyBytes) {
+      ByteArrayKey nearKey = new ByteArrayKey(keyBytes);
+      V value = nearCache.getIfValid(nearKey);
+      if (value != null) {
+         return value;
+      }
+      // taken before reading, so that a value invalidated while it is read is not cached
+      long stamp = nearCache.invalidationStamp(nearKey);
+      VersionedValue<byte[]> remote = operationsFactory.newGetWithVersionOperation(keyBytes).execute();
+      if (remote == null) {
+         nearCache.missing(nearKey);
+         return null;
+      }
+      value = nearCache.getIfVersion(nearKey, remote.getVersion());
+      if (value == null) {
+         value = (V) bytes2obj(remote.getValue());
+         nearCache.put(nearKey, value, remote.getVersion(), stamp);
+      }
+      return value;
+   }
+
+   private void invalidateNearCache(byte[] keyBytes) {
+      if (nearCache != null) {
+         nearCache.invalidate(new ByteArrayKey(keyBytes));
+      }
+   }
+
    public PingOperation.PingResult ping() {
       return operationsFactory.newFaultTolerantPingOperation().execute();
    }
@@ -501,6 +782,44 @@ protected void set(K key, V value) {
       put(key, value, defaultLifespan, MILLISECONDS, defaultMaxIdleTime, MILLISECONDS);
    }
 
+   /**
+    * Unmarshalls the value returned by a pipelined operation, invalidating the near cache entry of the key written by
+    * it, if any.
+    */
+   private class ValueResponseFuture extends ResponseFuture<byte[], V> {
+      private final byte[] writtenKey;
+
+      ValueResponseFuture(NotifyingFutureImpl<V> notifyingFuture, byte[] writtenKey) {
+         super(notifyingFuture);
+         this.writtenKey = writtenKey;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      protected V convert(byte[] response) {
+         if (writtenKey != null) invalidateNearCache(writtenKey);
+         return (V) bytes2obj(response);
+      }
+   }
+
+   /**
+    * Tells whether a pipelined versioned operation updated the entry, invalidating its near cache entry.
+    */
+   private class UpdatedResponseFuture extends ResponseFuture<VersionedOperationResponse, Boolean> {
+      private final byte[] writtenKey;
+
+      UpdatedResponseFuture(NotifyingFutureImpl<Boolean> notifyingFuture, byte[] writtenKey) {
+         super(notifyingFuture);
+         this.writtenKey = writtenKey;
+      }
+
+      @Override
+      protected Boolean convert(VersionedOperationResponse response) {
+         invalidateNearCache(writtenKey);
+         return response.getCode().isUpdated();
+      }
+   }
+
    private void applyDefaultExpirationFlags(long lifespan, long maxIdle) {
       if (lifespan == 0) {
          operationsFactory.addFlags(Flag.DEFAULT_LIFESPAN);
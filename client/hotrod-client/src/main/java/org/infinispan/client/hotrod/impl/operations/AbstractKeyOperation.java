@@ -32,18 +32,21 @@
 import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.nio.PipelinedOperation;
 import org.infinispan.util.Util;
 import org.infinispan.util.logging.BasicLogFactory;
 import org.jboss.logging.BasicLogger;
 
 /**
- * Basic class for all hot rod operations that manipulate a key.
+ * Basic class for all hot rod operations that manipulate a key. Requests are split in a write and a read phase so
+ * that they can either be executed on a dedicated pooled transport or be pipelined on a shared connection, see
+ * {@link PipelinedOperation}.
  *
  * @author Mircea.Markus@jboss.com
  * @since 4.1
  */
 @Immutable
-public abstract class AbstractKeyOperation<T> extends RetryOnFailureOperation<T> {
+public abstract class AbstractKeyOperation<T> extends RetryOnFailureOperation<T> implements PipelinedOperation<T> {
 
    private static final BasicLogger log = BasicLogFactory.getLog(AbstractKeyOperation.class);
 
@@ -66,14 +69,28 @@ protected Transport getTransport(int retryCount) {
       }
    }
 
-   protected short sendKeyOperation(byte[] key, Transport transport, byte opCode, byte opRespCode) {
-      // 1) write [header][key length][key]
-      HeaderParams params = writeHeader(transport, opCode);
-      transport.writeArray(key);
+   @Override
+   protected T executeOperation(Transport transport) {
+      HeaderParams params = writeRequest(transport);
       transport.flush();
+      return readResponse(transport, params);
+   }
+
+   @Override
+   public byte[] getKey() {
+      return key;
+   }
+
+   @Override
+   public boolean isWrite() {
+      return isWrite;
+   }
 
-      // 2) now read the header
-      return readHeaderAndValidate(transport, params);
+   protected HeaderParams writeKeyRequest(Transport transport, short opCode) {
+      // [header][key length][key]
+      HeaderParams params = writeHeader(transport, opCode);
+      transport.writeArray(key);
+      return params;
    }
 
    protected byte[] returnPossiblePrevValue(Transport transport) {
@@ -96,10 +113,10 @@ private boolean hasForceReturn(Flag[] flags) {
    }
 
    protected VersionedOperationResponse returnVersionedOperationResponse(Transport transport, HeaderParams params) {
-      //3) ...
+      //1) ...
       short respStatus = readHeaderAndValidate(transport, params);
 
-      //4 ...
+      //2) ...
       VersionedOperationResponse.RspCode code;
       if (respStatus == NO_ERROR_STATUS) {
          code = VersionedOperationResponse.RspCode.SUCCESS;
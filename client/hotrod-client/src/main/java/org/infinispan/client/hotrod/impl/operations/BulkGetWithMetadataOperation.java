@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.operations;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataEntryHandler;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.MetadataValueImpl;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the entries of the remote cache along with their metadata. Entries are passed to the handler as soon as they
+ * are read from the transport, so they are never all held in memory at the same time. The operation is only retried
+ * after a transport failure if no entry has been handled yet, so that no entry is handled twice. If the handler fails,
+ * the remaining entries are read and discarded, so that the connection can be reused, before the failure is rethrown.
+ *
+ * @since 5.2
+ */
+public class BulkGetWithMetadataOperation extends RetryOnFailureOperation<Integer> {
+
+   private final int entryCount;
+   private final MetadataEntryHandler<byte[], byte[]> handler;
+   private int handled;
+
+   public BulkGetWithMetadataOperation(Codec codec, TransportFactory transportFactory, byte[] cacheName,
+                                       AtomicInteger topologyId, Flag[] flags, int entryCount,
+                                       MetadataEntryHandler<byte[], byte[]> handler) {
+      super(codec, transportFactory, cacheName, topologyId, flags);
+      this.entryCount = entryCount;
+      this.handler = handler;
+   }
+
+   @Override
+   protected Transport getTransport(int retryCount) {
+      return transportFactory.getTransport();
+   }
+
+   @Override
+   protected void logErrorAndThrowExceptionIfNeeded(int i, HotRodClientException e) {
+      if (handled > 0) {
+         // retrying would hand the same entries to the handler again
+         throw e;
+      }
+      super.logErrorAndThrowExceptionIfNeeded(i, e);
+   }
+
+   @Override
+   protected Integer executeOperation(Transport transport) {
+      HeaderParams params = writeHeader(transport, BULK_GET_WITH_METADATA_REQUEST);
+      transport.writeVInt(entryCount);
+      transport.flush();
+      readHeaderAndValidate(transport, params);
+      int count = 0;
+      RuntimeException failure = null;
+      while (transport.readByte() == 1) { //there's more!
+         byte[] key = transport.readArray();
+         short flags = transport.readByte();
+         long creation = -1;
+         int lifespan = -1;
+         long lastUsed = -1;
+         int maxIdle = -1;
+         if ((flags & INFINITE_LIFESPAN) != INFINITE_LIFESPAN) {
+            creation = transport.readLong();
+            lifespan = transport.readVInt();
+         }
+         if ((flags & INFINITE_MAXIDLE) != INFINITE_MAXIDLE) {
+            lastUsed = transport.readLong();
+            maxIdle = transport.readVInt();
+         }
+         long version = transport.readLong();
+         byte[] value = transport.readArray();
+         if (failure == null) {
+            try {
+               handled++;
+               handler.handle(key, new MetadataValueImpl<byte[]>(creation, lifespan, lastUsed, maxIdle, version, value));
+               count++;
+            } catch (RuntimeException e) {
+               failure = e;
+            }
+         }
+      }
+      if (failure != null) {
+         throw failure;
+      }
+      return count;
+   }
+}
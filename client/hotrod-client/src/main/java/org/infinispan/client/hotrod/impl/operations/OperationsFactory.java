@@ -26,13 +26,23 @@
 
 import org.infinispan.api.BasicCacheContainer;
 import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.MetadataEntryHandler;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.Codec12;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory;
+import org.infinispan.client.hotrod.impl.transport.nio.MultiplexedTransportFactory;
 
+import java.net.SocketAddress;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -46,10 +56,19 @@ public class OperationsFactory implements HotRodConstants {
 
    private static final Flag[] FORCE_RETURN_VALUE = {Flag.FORCE_RETURN_VALUE};
 
+   /**
+    * Maximum number of entries sent in a single getAll/putAll/removeAll request. The server decodes a request only once
+    * it has been fully received and re-parses it from the start every time more bytes arrive, so very large requests
+    * are split into several smaller ones.
+    */
+   private static final int MAX_ENTRIES_PER_BULK_REQUEST = 512;
+
    private final ThreadLocal<List<Flag>> flagsMap = new ThreadLocal<List<Flag>>();
 
    private final TransportFactory transportFactory;
 
+   private final MultiplexedTransportFactory multiplexedTransportFactory;
+
    private final byte[] cacheNameBytes;
 
    private final AtomicInteger topologyId;
@@ -60,7 +79,13 @@ public class OperationsFactory implements HotRodConstants {
 
    public OperationsFactory(TransportFactory transportFactory, String cacheName,
                             AtomicInteger topologyId, boolean forceReturnValue, Codec codec) {
+      this(transportFactory, null, cacheName, topologyId, forceReturnValue, codec);
+   }
+
+   public OperationsFactory(TransportFactory transportFactory, MultiplexedTransportFactory multiplexedTransportFactory,
+                            String cacheName, AtomicInteger topologyId, boolean forceReturnValue, Codec codec) {
       this.transportFactory = transportFactory;
+      this.multiplexedTransportFactory = multiplexedTransportFactory;
       this.cacheNameBytes = cacheName.equals(BasicCacheContainer.DEFAULT_CACHE_NAME) ?
             DEFAULT_CACHE_NAME_BYTES : cacheName.getBytes(HOTROD_STRING_CHARSET);
       this.topologyId = topologyId;
@@ -141,6 +166,60 @@ public BulkGetOperation newBulkGetOperation(int size) {
             codec, transportFactory, cacheNameBytes, topologyId, flags(), size);
    }
 
+   public BulkGetWithMetadataOperation newBulkGetWithMetadataOperation(int size, MetadataEntryHandler<byte[], byte[]> handler) {
+      return new BulkGetWithMetadataOperation(
+            codec, transportFactory, cacheNameBytes, topologyId, flags(), size, handler);
+   }
+
+   /**
+    * Returns true if the protocol version in use supports the multi-key operations created by
+    * {@link #newGetAllOperations}, {@link #newPutAllOperations} and {@link #newRemoveAllOperations}, which were added in
+    * version 1.2.
+    */
+   public boolean isMultiKeySupported() {
+      return codec instanceof Codec12;
+   }
+
+   /**
+    * Creates the operations retrieving the given keys: the keys are grouped by the server owning them, and each group
+    * is split in batches of bounded size.
+    */
+   public List<GetAllOperation> newGetAllOperations(Collection<byte[]> keys) {
+      Flag[] flags = flags();
+      List<GetAllOperation> ops = new ArrayList<GetAllOperation>();
+      for (List<byte[]> batch : groupByServer(keys, false)) {
+         ops.add(new GetAllOperation(codec, transportFactory, cacheNameBytes, topologyId, flags, batch));
+      }
+      return ops;
+   }
+
+   /**
+    * Creates the operations storing the given entries, grouped and batched like in {@link #newGetAllOperations}.
+    */
+   public List<PutAllOperation> newPutAllOperations(Map<byte[], byte[]> entries, int lifespanSecs, int maxIdleSecs) {
+      Flag[] flags = flags();
+      List<PutAllOperation> ops = new ArrayList<PutAllOperation>();
+      for (List<byte[]> keys : groupByServer(entries.keySet(), true)) {
+         List<byte[]> values = new ArrayList<byte[]>(keys.size());
+         for (byte[] key : keys) values.add(entries.get(key));
+         ops.add(new PutAllOperation(codec, transportFactory, cacheNameBytes, topologyId, flags,
+                                     keys, values, lifespanSecs, maxIdleSecs));
+      }
+      return ops;
+   }
+
+   /**
+    * Creates the operations removing the given keys, grouped and batched like in {@link #newGetAllOperations}.
+    */
+   public List<RemoveAllOperation> newRemoveAllOperations(Collection<byte[]> keys) {
+      Flag[] flags = flags();
+      List<RemoveAllOperation> ops = new ArrayList<RemoveAllOperation>();
+      for (List<byte[]> batch : groupByServer(keys, true)) {
+         ops.add(new RemoveAllOperation(codec, transportFactory, cacheNameBytes, topologyId, flags, batch));
+      }
+      return ops;
+   }
+
    /**
     * Construct a ping request directed to a particular node.
     *
@@ -163,6 +242,44 @@ public FaultTolerantPingOperation newFaultTolerantPingOperation() {
             codec, transportFactory, cacheNameBytes, topologyId, flags());
    }
 
+   /**
+    * Returns the factory pipelining key based operations over shared non-blocking connections, or null if async
+    * pipelining is not enabled.
+    */
+   public MultiplexedTransportFactory getMultiplexedTransportFactory() {
+      return multiplexedTransportFactory;
+   }
+
+   private List<List<byte[]>> groupByServer(Collection<byte[]> keys, boolean isWrite) {
+      Map<SocketAddress, List<byte[]>> groups;
+      if (transportFactory instanceof TcpTransportFactory) {
+         TcpTransportFactory tcpTransportFactory = (TcpTransportFactory) transportFactory;
+         groups = new LinkedHashMap<SocketAddress, List<byte[]>>();
+         for (byte[] key : keys) {
+            SocketAddress server = tcpTransportFactory.getServer(key, isWrite);
+            List<byte[]> group = groups.get(server);
+            if (group == null) {
+               group = new ArrayList<byte[]>();
+               groups.put(server, group);
+            }
+            group.add(key);
+         }
+      } else {
+         groups = new HashMap<SocketAddress, List<byte[]>>(1);
+         groups.put(null, new ArrayList<byte[]>(keys));
+      }
+      List<List<byte[]>> batches = new ArrayList<List<byte[]>>();
+      for (List<byte[]> group : groups.values()) {
+         Iterator<byte[]> it = group.iterator();
+         while (it.hasNext()) {
+            List<byte[]> batch = new ArrayList<byte[]>(Math.min(group.size(), MAX_ENTRIES_PER_BULK_REQUEST));
+            while (it.hasNext() && batch.size() < MAX_ENTRIES_PER_BULK_REQUEST) batch.add(it.next());
+            batches.add(batch);
+         }
+      }
+      return batches;
+   }
+
    private Flag[] flags() {
       List<Flag> flags = this.flagsMap.get();
       this.flagsMap.remove();
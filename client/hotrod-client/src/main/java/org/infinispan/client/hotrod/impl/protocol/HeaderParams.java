@@ -76,6 +76,10 @@ public HeaderParams messageId(long messageId) {
       return this;
    }
 
+   public long getMessageId() {
+      return messageId;
+   }
+
    private short toOpRespCode(short opCode) {
       switch (opCode) {
          case HotRodConstants.PUT_REQUEST:
@@ -106,6 +110,14 @@ private short toOpRespCode(short opCode) {
             return HotRodConstants.BULK_GET_RESPONSE;
          case HotRodConstants.GET_WITH_METADATA:
             return HotRodConstants.GET_WITH_METADATA_RESPONSE;
+         case HotRodConstants.GET_ALL_REQUEST:
+            return HotRodConstants.GET_ALL_RESPONSE;
+         case HotRodConstants.PUT_ALL_REQUEST:
+            return HotRodConstants.PUT_ALL_RESPONSE;
+         case HotRodConstants.REMOVE_ALL_REQUEST:
+            return HotRodConstants.REMOVE_ALL_RESPONSE;
+         case HotRodConstants.BULK_GET_WITH_METADATA_REQUEST:
+            return HotRodConstants.BULK_GET_WITH_METADATA_RESPONSE;
          default:
             throw new IllegalStateException("Unknown operation code: " + opCode);
       }
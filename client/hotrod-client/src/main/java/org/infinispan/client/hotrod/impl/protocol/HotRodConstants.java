@@ -54,6 +54,10 @@ public interface HotRodConstants {
    static final byte PING_REQUEST = 0x17;
    static final byte BULK_GET_REQUEST = 0x19;
    static final byte GET_WITH_METADATA = 0x1B;
+   static final byte GET_ALL_REQUEST = 0x1D;
+   static final byte PUT_ALL_REQUEST = 0x1F;
+   static final byte REMOVE_ALL_REQUEST = 0x21;
+   static final byte BULK_GET_WITH_METADATA_REQUEST = 0x23;
 
 
    //responses
@@ -71,6 +75,10 @@ public interface HotRodConstants {
    static final byte PING_RESPONSE = 0x18;
    static final byte BULK_GET_RESPONSE = 0x1A;
    static final byte GET_WITH_METADATA_RESPONSE = 0x1C;
+   static final byte GET_ALL_RESPONSE = 0x1E;
+   static final byte PUT_ALL_RESPONSE = 0x20;
+   static final byte REMOVE_ALL_RESPONSE = 0x22;
+   static final byte BULK_GET_WITH_METADATA_RESPONSE = 0x24;
    static final byte ERROR_RESPONSE = 0x50;
 
    //response status
@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import static org.infinispan.io.UnsignedNumeric.readUnsignedInt;
+import static org.infinispan.io.UnsignedNumeric.readUnsignedLong;
+import static org.infinispan.io.UnsignedNumeric.writeUnsignedInt;
+import static org.infinispan.io.UnsignedNumeric.writeUnsignedLong;
+
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import org.infinispan.client.hotrod.impl.transport.AbstractTransport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * {@link org.infinispan.client.hotrod.impl.transport.Transport} backed by a {@link ByteBuffer} rather than by a
+ * socket. It is used for encoding a request before it is handed to the selector thread, and for decoding responses out
+ * of the bytes read so far from a non-blocking channel.
+ * <p/>
+ * When decoding, reading past the available bytes throws a {@link BufferUnderflowException}; the caller is expected to
+ * rewind the buffer and retry once more bytes have arrived.
+ *
+ * @since 5.2
+ */
+public class BufferTransport extends AbstractTransport {
+
+   private final SocketAddress remoteAddress;
+   private ByteBuffer buffer;
+
+   public BufferTransport(TransportFactory transportFactory, SocketAddress remoteAddress, ByteBuffer buffer) {
+      super(transportFactory);
+      this.remoteAddress = remoteAddress;
+      this.buffer = buffer;
+   }
+
+   public ByteBuffer getBuffer() {
+      return buffer;
+   }
+
+   public void setBuffer(ByteBuffer buffer) {
+      this.buffer = buffer;
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      ensureCapacity(1);
+      buffer.put((byte) toWrite);
+   }
+
+   @Override
+   public void writeVInt(int vint) {
+      ensureCapacity(5);
+      writeUnsignedInt(buffer, vint);
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      ensureCapacity(10);
+      writeUnsignedLong(buffer, l);
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      ensureCapacity(toAppend.length);
+      buffer.put(toAppend);
+   }
+
+   @Override
+   public void writeLong(long longValue) {
+      ensureCapacity(8);
+      buffer.putLong(longValue);
+   }
+
+   @Override
+   public void flush() {
+      // the buffer is handed to the channel by the owning connection
+   }
+
+   @Override
+   public short readByte() {
+      return (short) (buffer.get() & 0xFF);
+   }
+
+   @Override
+   public int readVInt() {
+      return readUnsignedInt(buffer);
+   }
+
+   @Override
+   public long readVLong() {
+      return readUnsignedLong(buffer);
+   }
+
+   @Override
+   public long readLong() {
+      return buffer.getLong();
+   }
+
+   @Override
+   public int readUnsignedShort() {
+      return buffer.getShort() & 0xFFFF;
+   }
+
+   @Override
+   public int read4ByteInt() {
+      return buffer.getInt();
+   }
+
+   @Override
+   public byte[] readByteArray(int size) {
+      if (size > buffer.remaining())
+         throw new BufferUnderflowException();
+      byte[] result = new byte[size];
+      buffer.get(result);
+      return result;
+   }
+
+   @Override
+   public void release() {
+      // nothing to release, the buffer is owned by the connection
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      ByteBuffer dump = buffer.duplicate();
+      byte[] bytes = new byte[dump.remaining()];
+      dump.get(bytes);
+      return bytes;
+   }
+
+   @Override
+   public SocketAddress getRemoteSocketAddress() {
+      return remoteAddress;
+   }
+
+   private void ensureCapacity(int bytes) {
+      if (buffer.remaining() < bytes) {
+         ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+         buffer.flip();
+         larger.put(buffer);
+         buffer = larger;
+      }
+   }
+}
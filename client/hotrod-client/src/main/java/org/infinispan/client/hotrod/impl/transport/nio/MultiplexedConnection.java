@@ -0,0 +1,275 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import static org.infinispan.io.UnsignedNumeric.readUnsignedLong;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.InvalidResponseException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * A non-blocking connection to a Hot Rod server shared by many concurrent requests. Requests are queued by the caller
+ * threads and written by the selector thread, without waiting for the responses of the requests in front of them.
+ * Responses are matched to requests by message id as they are decoded by the selector thread.
+ * <p/>
+ * Hot Rod responses are not length prefixed, so a response is decoded optimistically from the bytes received so far
+ * and decoding is restarted from the start of the response once more bytes have arrived. Topology updates carried by a
+ * partially received response may hence be applied more than once, which is harmless as they are idempotent.
+ *
+ * @since 5.2
+ */
+class MultiplexedConnection {
+
+   private static final Log log = LogFactory.getLog(MultiplexedConnection.class, Log.class);
+
+   private static final int INITIAL_READ_BUFFER_SIZE = 8 * 1024;
+
+   private final SocketAddress address;
+   private final SocketChannel channel;
+   private final MultiplexedTransportFactory factory;
+
+   // guarded by lock; insertion order is the order requests are written in
+   private final Object lock = new Object();
+   private final LinkedHashMap<Long, PipelinedRequest<?>> inFlight = new LinkedHashMap<Long, PipelinedRequest<?>>();
+   private final LinkedList<ByteBuffer> writeQueue = new LinkedList<ByteBuffer>();
+   private boolean closed;
+
+   final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+   // only accessed by the selector thread
+   private final BufferTransport decoder;
+   private SelectionKey selectionKey;
+
+   MultiplexedConnection(SocketAddress address, MultiplexedTransportFactory factory, TransportFactory transportFactory,
+                         int connectTimeout, boolean tcpNoDelay) throws IOException {
+      this.address = address;
+      this.factory = factory;
+      this.decoder = new BufferTransport(transportFactory, address, ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE));
+      channel = SocketChannel.open();
+      try {
+         channel.socket().setTcpNoDelay(tcpNoDelay);
+         channel.socket().connect(address, connectTimeout);
+         channel.configureBlocking(false);
+      } catch (IOException e) {
+         channel.close();
+         throw e;
+      }
+   }
+
+   SocketAddress getAddress() {
+      return address;
+   }
+
+   boolean isClosed() {
+      synchronized (lock) {
+         return closed;
+      }
+   }
+
+   boolean isIdle() {
+      synchronized (lock) {
+         return inFlight.isEmpty();
+      }
+   }
+
+   /**
+    * Queues the encoded request for writing. Returns false if the connection has been closed in the meantime.
+    */
+   boolean send(PipelinedRequest<?> request, ByteBuffer frame) {
+      synchronized (lock) {
+         if (closed)
+            return false;
+         request.sentNanos = System.nanoTime();
+         inFlight.put(request.getMessageId(), request);
+         writeQueue.add(frame);
+         return true;
+      }
+   }
+
+   void register(Selector selector) throws IOException {
+      selectionKey = channel.register(selector, SelectionKey.OP_READ, this);
+   }
+
+   /**
+    * Writes as many queued requests as the socket accepts, using a single gathering write for all of them.
+    *
+    * @return true if the write queue has been drained, false if the socket is full
+    */
+   boolean write() throws IOException {
+      synchronized (lock) {
+         while (!writeQueue.isEmpty()) {
+            ByteBuffer[] frames = writeQueue.toArray(new ByteBuffer[writeQueue.size()]);
+            long written = channel.write(frames);
+            while (!writeQueue.isEmpty() && !writeQueue.getFirst().hasRemaining())
+               writeQueue.removeFirst();
+            if (written == 0 && !writeQueue.isEmpty())
+               break;
+         }
+         boolean drained = writeQueue.isEmpty();
+         if (selectionKey != null && selectionKey.isValid())
+            selectionKey.interestOps(drained ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+         return drained;
+      }
+   }
+
+   /**
+    * Reads whatever is available on the channel and completes the requests whose responses are complete.
+    */
+   void read() throws IOException {
+      for (;;) {
+         ByteBuffer buffer = decoder.getBuffer();
+         int read = channel.read(buffer);
+         if (read < 0)
+            throw new TransportException("End of stream reached for " + address);
+         if (read == 0 && buffer.hasRemaining())
+            return;
+         decodeResponses();
+         buffer = decoder.getBuffer();
+         if (!buffer.hasRemaining()) {
+            // a single response does not fit in the buffer
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            decoder.setBuffer(larger);
+         }
+      }
+   }
+
+   private void decodeResponses() {
+      ByteBuffer buffer = decoder.getBuffer();
+      buffer.flip();
+      try {
+         while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            PipelinedRequest<?> request = null;
+            try {
+               request = findRequest(buffer);
+               buffer.position(start);
+               request.readResponse(decoder);
+            } catch (BufferUnderflowException e) {
+               // wait for the rest of the response
+               buffer.position(start);
+               return;
+            } catch (InvalidResponseException e) {
+               // the stream can't be trusted anymore
+               throw e;
+            } catch (HotRodClientException e) {
+               // error response from the server, fully consumed by the codec
+               if (removeRequest(request) != null)
+                  factory.retryOrFail(request, e);
+               continue;
+            }
+            removeRequest(request);
+            request.complete();
+         }
+      } finally {
+         buffer.compact();
+      }
+   }
+
+   private PipelinedRequest<?> findRequest(ByteBuffer buffer) {
+      short magic = (short) (buffer.get() & 0xFF);
+      if (magic != HotRodConstants.RESPONSE_MAGIC) {
+         log.invalidMagicNumber(HotRodConstants.RESPONSE_MAGIC, magic);
+         throw new InvalidResponseException(String.format(
+               "Invalid magic number. Expected %#x and received %#x", HotRodConstants.RESPONSE_MAGIC, magic));
+      }
+      long messageId = readUnsignedLong(buffer);
+      synchronized (lock) {
+         // a message id of 0 is sent back when the server failed before parsing the id: requests are processed
+         // in order by the server, so it belongs to the oldest request
+         PipelinedRequest<?> request = messageId == 0 ?
+               (inFlight.isEmpty() ? null : inFlight.values().iterator().next()) : inFlight.get(messageId);
+         if (request == null)
+            throw new InvalidResponseException("Received a response for an unknown message id: " + messageId);
+         return request;
+      }
+   }
+
+   private PipelinedRequest<?> removeRequest(PipelinedRequest<?> request) {
+      synchronized (lock) {
+         return inFlight.remove(request.getMessageId());
+      }
+   }
+
+   /**
+    * Returns true if the oldest in-flight request has been waiting longer than the given timeout.
+    */
+   boolean hasTimedOut(long now, long timeoutNanos) {
+      synchronized (lock) {
+         if (inFlight.isEmpty())
+            return false;
+         PipelinedRequest<?> oldest = inFlight.values().iterator().next();
+         return now - oldest.sentNanos > timeoutNanos;
+      }
+   }
+
+   /**
+    * Closes the channel and hands all in-flight requests back to the factory for a retry on another connection.
+    */
+   void close(HotRodClientException cause) {
+      List<PipelinedRequest<?>> pending;
+      synchronized (lock) {
+         if (closed)
+            return;
+         closed = true;
+         pending = new ArrayList<PipelinedRequest<?>>(inFlight.values());
+         inFlight.clear();
+         writeQueue.clear();
+      }
+      if (selectionKey != null)
+         selectionKey.cancel();
+      try {
+         channel.close();
+      } catch (IOException e) {
+         log.tracef(e, "Error closing connection to %s", address);
+      }
+      factory.connectionClosed(this);
+      for (PipelinedRequest<?> request : pending) {
+         factory.retryOrFail(request, cause);
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "MultiplexedConnection{address=" + address + ", channel=" + channel + "}";
+   }
+}
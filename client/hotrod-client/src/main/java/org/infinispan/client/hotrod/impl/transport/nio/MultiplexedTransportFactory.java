@@ -0,0 +1,339 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.RemoteNodeSuspecException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * Executes {@link PipelinedOperation}s over a small, fixed number of non-blocking connections per server. Many
+ * requests are in flight on each connection at the same time and a single selector thread writes them and decodes
+ * the responses, handing the completion of their {@link ResponseFuture}s to the async executor, so no thread is parked
+ * per outstanding request.
+ * <p/>
+ * Routing and topology are delegated to the {@link TcpTransportFactory} used for the synchronous operations: requests
+ * are sent to the server it picks, and topology updates piggybacked on pipelined responses are applied to it. Requests
+ * failing with a {@link TransportException} or a {@link RemoteNodeSuspecException} are retried on another server, the
+ * same way {@link org.infinispan.client.hotrod.impl.operations.RetryOnFailureOperation} does.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class MultiplexedTransportFactory {
+
+   private static final Log log = LogFactory.getLog(MultiplexedTransportFactory.class, Log.class);
+
+   public static final String THREAD_NAME = "HotRod-client-selector";
+
+   private final TcpTransportFactory transportFactory;
+   private final ExecutorService asyncExecutor;
+   private final int connectionsPerServer;
+   private final int requestSizeEstimate;
+   private final long timeoutNanos;
+   private final long selectTimeoutMillis;
+
+   private final ConcurrentMap<SocketAddress, ConnectionSlots> connections = new ConcurrentHashMap<SocketAddress, ConnectionSlots>();
+   private final Queue<MultiplexedConnection> registrations = new ConcurrentLinkedQueue<MultiplexedConnection>();
+   private final Queue<MultiplexedConnection> pendingWrites = new ConcurrentLinkedQueue<MultiplexedConnection>();
+   private final Selector selector;
+   private final Thread selectorThread;
+   private volatile boolean running = true;
+
+   public MultiplexedTransportFactory(TcpTransportFactory transportFactory, ConfigurationProperties cfg,
+                                      ExecutorService asyncExecutor) {
+      this.transportFactory = transportFactory;
+      this.asyncExecutor = asyncExecutor;
+      this.connectionsPerServer = cfg.getAsyncPipeliningConnectionsPerServer();
+      this.requestSizeEstimate = cfg.getKeySizeEstimate() + cfg.getValueSizeEstimate() + 64;
+      this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(cfg.getSoTimeout());
+      this.selectTimeoutMillis = Math.max(10, Math.min(1000, cfg.getSoTimeout() / 2));
+      try {
+         selector = Selector.open();
+      } catch (IOException e) {
+         throw new TransportException("Unable to open selector", e);
+      }
+      selectorThread = new Thread(new SelectorLoop(), THREAD_NAME);
+      selectorThread.setDaemon(true);
+      selectorThread.start();
+   }
+
+   /**
+    * Sends the operation to the server owning its key. The future is completed, or failed, on the async executor once
+    * the selector thread has decoded the response.
+    */
+   public <R> void execute(PipelinedOperation<R> operation, ResponseFuture<R, ?> future) {
+      dispatch(new PipelinedRequest<R>(operation, future, asyncExecutor));
+   }
+
+   public void destroy() {
+      running = false;
+      selector.wakeup();
+      try {
+         selectorThread.join(TimeUnit.SECONDS.toMillis(10));
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private void dispatch(PipelinedRequest<?> request) {
+      if (!running) {
+         request.fail(new TransportException("Transport has been stopped"));
+         return;
+      }
+      SocketAddress server = request.attempt == 0 ?
+            transportFactory.getServer(request.operation.getKey(), request.operation.isWrite()) :
+            transportFactory.nextServer();
+      MultiplexedConnection connection;
+      try {
+         connection = getConnection(server);
+      } catch (TransportException e) {
+         retryOrFail(request, e);
+         return;
+      }
+      BufferTransport encoder = new BufferTransport(transportFactory, server, ByteBuffer.allocate(requestSizeEstimate));
+      try {
+         request.params = request.operation.writeRequest(encoder);
+      } catch (RuntimeException e) {
+         request.fail(e);
+         return;
+      }
+      ByteBuffer frame = encoder.getBuffer();
+      frame.flip();
+      if (connection.send(request, frame)) {
+         if (connection.writeScheduled.compareAndSet(false, true)) {
+            pendingWrites.add(connection);
+            selector.wakeup();
+         }
+      } else {
+         retryOrFail(request, new TransportException("Connection to " + server + " has been closed"));
+      }
+   }
+
+   /**
+    * Retries the request on another server if it failed for a reason that allows it and retries are left, fails its
+    * future otherwise. Retries are dispatched from the executor so that the selector thread never blocks on connecting.
+    */
+   void retryOrFail(final PipelinedRequest<?> request, HotRodClientException cause) {
+      boolean retriable = cause instanceof TransportException || cause instanceof RemoteNodeSuspecException;
+      if (!retriable || !running || ++request.attempt >= transportFactory.getTransportCount()) {
+         request.fail(cause);
+         return;
+      }
+      log.tracef(cause, "Retrying pipelined request, attempt %d", request.attempt);
+      try {
+         asyncExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+               dispatch(request);
+            }
+         });
+      } catch (RejectedExecutionException e) {
+         request.fail(cause);
+      }
+   }
+
+   void connectionClosed(MultiplexedConnection connection) {
+      ConnectionSlots slots = connections.get(connection.getAddress());
+      if (slots != null)
+         slots.remove(connection);
+   }
+
+   private MultiplexedConnection getConnection(SocketAddress server) {
+      ConnectionSlots slots = connections.get(server);
+      if (slots == null) {
+         slots = new ConnectionSlots(connectionsPerServer);
+         ConnectionSlots existing = connections.putIfAbsent(server, slots);
+         if (existing != null) slots = existing;
+      }
+      int index = (slots.next.getAndIncrement() & Integer.MAX_VALUE) % connectionsPerServer;
+      MultiplexedConnection connection = slots.connections.get(index);
+      if (connection != null && !connection.isClosed())
+         return connection;
+      synchronized (slots) {
+         connection = slots.connections.get(index);
+         if (connection == null || connection.isClosed()) {
+            try {
+               connection = new MultiplexedConnection(server, this, transportFactory,
+                     transportFactory.getConnectTimeout(), transportFactory.isTcpNoDelay());
+            } catch (IOException e) {
+               throw new TransportException("Could not connect to " + server, e);
+            }
+            slots.connections.set(index, connection);
+            registrations.add(connection);
+            selector.wakeup();
+         }
+         return connection;
+      }
+   }
+
+   private static class ConnectionSlots {
+      final AtomicReferenceArray<MultiplexedConnection> connections;
+      final AtomicInteger next = new AtomicInteger();
+
+      ConnectionSlots(int size) {
+         connections = new AtomicReferenceArray<MultiplexedConnection>(size);
+      }
+
+      void remove(MultiplexedConnection connection) {
+         for (int i = 0; i < connections.length(); i++) {
+            connections.compareAndSet(i, connection, null);
+         }
+      }
+   }
+
+   private class SelectorLoop implements Runnable {
+
+      @Override
+      public void run() {
+         long lastCheck = System.nanoTime();
+         while (running) {
+            try {
+               selector.select(selectTimeoutMillis);
+               processRegistrations();
+               processWrites();
+               processSelectedKeys();
+               long now = System.nanoTime();
+               if (now - lastCheck >= TimeUnit.MILLISECONDS.toNanos(selectTimeoutMillis)) {
+                  checkConnections(now);
+                  lastCheck = now;
+               }
+            } catch (Throwable t) {
+               log.unexpectedErrorInSelector(t);
+            }
+         }
+         closeAll();
+      }
+
+      private void processRegistrations() {
+         MultiplexedConnection connection;
+         while ((connection = registrations.poll()) != null) {
+            try {
+               connection.register(selector);
+            } catch (IOException e) {
+               fail(connection, e);
+            }
+         }
+      }
+
+      private void processWrites() {
+         MultiplexedConnection connection;
+         while ((connection = pendingWrites.poll()) != null) {
+            // reset before writing, so that requests queued while writing schedule another round
+            connection.writeScheduled.set(false);
+            write(connection);
+         }
+      }
+
+      private void processSelectedKeys() {
+         Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+         while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            MultiplexedConnection connection = (MultiplexedConnection) key.attachment();
+            if (!key.isValid())
+               continue;
+            if (key.isWritable())
+               write(connection);
+            if (key.isValid() && key.isReadable()) {
+               try {
+                  connection.read();
+               } catch (IOException e) {
+                  fail(connection, e);
+               } catch (HotRodClientException e) {
+                  fail(connection, e);
+               }
+            }
+         }
+      }
+
+      private void write(MultiplexedConnection connection) {
+         try {
+            connection.write();
+         } catch (IOException e) {
+            fail(connection, e);
+         }
+      }
+
+      /**
+       * Closes connections with a request older than the socket timeout, and idle connections to servers that left
+       * the cluster.
+       */
+      private void checkConnections(long now) {
+         Collection<SocketAddress> servers = transportFactory.getServers();
+         for (SelectionKey key : selector.keys()) {
+            MultiplexedConnection connection = (MultiplexedConnection) key.attachment();
+            if (connection.hasTimedOut(now, timeoutNanos)) {
+               fail(connection, new TransportException("Timed out waiting for a response from " + connection.getAddress()));
+            } else if (!servers.contains(connection.getAddress()) && connection.isIdle()) {
+               connection.close(new TransportException("Server left the cluster"));
+            }
+         }
+      }
+
+      private void fail(MultiplexedConnection connection, Throwable t) {
+         log.closingMultiplexedConnection(connection.getAddress(), t);
+         HotRodClientException cause = t instanceof HotRodClientException ?
+               (HotRodClientException) t : new TransportException(t);
+         connection.close(cause);
+      }
+
+      private void closeAll() {
+         for (SelectionKey key : selector.keys()) {
+            ((MultiplexedConnection) key.attachment()).close(new TransportException("Transport has been stopped"));
+         }
+         MultiplexedConnection connection;
+         while ((connection = registrations.poll()) != null) {
+            connection.close(new TransportException("Transport has been stopped"));
+         }
+         try {
+            selector.close();
+         } catch (IOException e) {
+            log.tracef(e, "Error closing selector");
+         }
+      }
+   }
+}
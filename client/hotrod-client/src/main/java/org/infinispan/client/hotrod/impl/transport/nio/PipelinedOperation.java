@@ -0,0 +1,56 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+
+/**
+ * A Hot Rod operation whose request and response can be handled independently, which allows it to be pipelined on a
+ * connection shared with other in-flight requests. The request is correlated with its response through the message
+ * id written in the header.
+ *
+ * @since 5.2
+ */
+public interface PipelinedOperation<T> {
+
+   /**
+    * The key the operation targets, used for routing the request to its owner.
+    */
+   byte[] getKey();
+
+   boolean isWrite();
+
+   /**
+    * Writes the complete request, header included, to the transport without flushing it.
+    *
+    * @return the header parameters, holding the message id of the request
+    */
+   HeaderParams writeRequest(Transport transport);
+
+   /**
+    * Reads the complete response, header included, from the transport.
+    */
+   T readResponse(Transport transport, HeaderParams params);
+
+}
@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+
+/**
+ * An in-flight request: the operation, the future to complete and the header of its latest attempt.
+ * <p/>
+ * The response is decoded by the selector thread, but the future is completed on the executor, so that converting
+ * the response and notifying the listeners never hold up the other connections. The selector thread completes the
+ * future itself only if the executor rejects the task.
+ *
+ * @since 5.2
+ */
+final class PipelinedRequest<R> {
+
+   final PipelinedOperation<R> operation;
+   final ResponseFuture<R, ?> future;
+   private final Executor executor;
+   int attempt;
+   HeaderParams params;
+   long sentNanos;
+   private R response;
+
+   PipelinedRequest(PipelinedOperation<R> operation, ResponseFuture<R, ?> future, Executor executor) {
+      this.operation = operation;
+      this.future = future;
+      this.executor = executor;
+   }
+
+   long getMessageId() {
+      return params.getMessageId();
+   }
+
+   /**
+    * Decodes the response, throwing a {@link java.nio.BufferUnderflowException} if it has not been fully received yet.
+    */
+   void readResponse(Transport transport) {
+      response = operation.readResponse(transport, params);
+   }
+
+   void complete() {
+      final R decoded = response;
+      execute(new Runnable() {
+         @Override
+         public void run() {
+            future.complete(decoded);
+         }
+      });
+   }
+
+   void fail(final Throwable cause) {
+      execute(new Runnable() {
+         @Override
+         public void run() {
+            future.fail(cause);
+         }
+      });
+   }
+
+   private void execute(Runnable completion) {
+      try {
+         executor.execute(completion);
+      } catch (RejectedExecutionException e) {
+         completion.run();
+      }
+   }
+}
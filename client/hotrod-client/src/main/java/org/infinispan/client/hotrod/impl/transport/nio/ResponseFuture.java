@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.nio;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+import org.infinispan.client.hotrod.impl.async.NotifyingFutureImpl;
+
+/**
+ * Future for a pipelined request, completed on the async executor once the selector thread has decoded the response.
+ * The raw response of the operation is converted by {@link #convert(Object)}, e.g. unmarshalled, on the executor as
+ * well. Completion, successful or not, is signalled to the listeners of the wrapping {@link NotifyingFutureImpl}.
+ *
+ * @param <R> the response type of the operation
+ * @param <T> the result type exposed to the user
+ * @since 5.2
+ */
+public abstract class ResponseFuture<R, T> extends FutureTask<T> {
+
+   private static final Callable<Object> NEVER_CALLED = new Callable<Object>() {
+      @Override
+      public Object call() {
+         throw new IllegalStateException("Pipelined responses are completed by the transport");
+      }
+   };
+
+   private final NotifyingFutureImpl<T> notifyingFuture;
+
+   @SuppressWarnings("unchecked")
+   protected ResponseFuture(NotifyingFutureImpl<T> notifyingFuture) {
+      super((Callable<T>) NEVER_CALLED);
+      this.notifyingFuture = notifyingFuture;
+      notifyingFuture.setExecuting(this);
+   }
+
+   protected abstract T convert(R response);
+
+   void complete(R response) {
+      T result;
+      try {
+         result = convert(response);
+      } catch (Throwable t) {
+         setException(t);
+         return;
+      }
+      set(result);
+   }
+
+   void fail(Throwable cause) {
+      setException(cause);
+   }
+
+   @Override
+   public void run() {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   protected void done() {
+      // cancellation is notified by the notifying future itself
+      if (!isCancelled())
+         notifyingFuture.notifyFutureCompletion();
+   }
+}
@@ -138,11 +138,7 @@ public void updateHashFunction(Map<SocketAddress, Set<Integer>> servers2Hash, in
 
    @Override
    public Transport getTransport() {
-      SocketAddress server;
-      synchronized (lock) {
-         server = balancer.nextServer();
-      }
-      return borrowTransportFromPool(server);
+      return borrowTransportFromPool(nextServer());
    }
 
    @Override
@@ -152,6 +148,23 @@ public Transport getTransport(byte[] key) {
 
    @Override
    public Transport getTransport(byte[] key, boolean isWrite) {
+      return borrowTransportFromPool(getServer(key, isWrite));
+   }
+
+   /**
+    * Returns the next server according to the configured {@link RequestBalancingStrategy}.
+    */
+   public SocketAddress nextServer() {
+      synchronized (lock) {
+         return balancer.nextServer();
+      }
+   }
+
+   /**
+    * Returns the server a request for the given key should be sent to: its owner if a consistent hash is known, or
+    * the next server of the balancer otherwise.
+    */
+   public SocketAddress getServer(byte[] key, boolean isWrite) {
       SocketAddress server;
       synchronized (lock) {
          if (consistentHash != null) {
@@ -166,7 +179,7 @@ public Transport getTransport(byte[] key, boolean isWrite) {
             }
          }
       }
-      return borrowTransportFromPool(server);
+      return server;
    }
 
    @Override
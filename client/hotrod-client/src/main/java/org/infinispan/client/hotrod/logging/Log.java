@@ -125,4 +125,16 @@ public interface Log extends BasicLogger {
    @Message(value = "Unable to convert string property [%s] to a boolean! Using default value of %b", id = 4020)
    void unableToConvertStringPropertyToBoolean(String value, boolean defaultValue);
 
+   @LogMessage(level = WARN)
+   @Message(value = "Closing multiplexed connection to %s, in-flight requests will be retried", id = 4021)
+   void closingMultiplexedConnection(SocketAddress server, @Cause Throwable cause);
+
+   @LogMessage(level = ERROR)
+   @Message(value = "Unexpected error in the Hot Rod client selector thread", id = 4022)
+   void unexpectedErrorInSelector(@Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Pipelined async operations require %s, but %s is configured. Async operations will use the executor", id = 4023)
+   void pipeliningNotSupportedByTransportFactory(String required, String configured);
+
 }
@@ -34,6 +34,7 @@
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.*;
 import static org.infinispan.test.TestingUtil.killCacheManagers;
@@ -99,6 +100,45 @@ public void testBulkGetWithSize() {
       }
    }
 
+   public void testBulkGetWithMetadata() {
+      populateCacheManager();
+      remoteCache.put("expiring", "value", 60, TimeUnit.SECONDS, 30, TimeUnit.SECONDS);
+      final Map<Object, MetadataValue<Object>> entries = new HashMap<Object, MetadataValue<Object>>();
+      int count = remoteCache.getBulkWithMetadata(0, new MetadataEntryHandler<Object, Object>() {
+         @Override
+         public void handle(Object key, MetadataValue<Object> value) {
+            entries.put(key, value);
+         }
+      });
+      assertEquals(101, count);
+      assertEquals(101, entries.size());
+      for (int i = 0; i < 100; i++) {
+         MetadataValue<Object> value = entries.get(i);
+         assertEquals(i, value.getValue());
+         assertEquals(-1, value.getLifespan());
+         assertEquals(-1, value.getMaxIdle());
+      }
+      MetadataValue<Object> expiring = entries.get("expiring");
+      assertEquals("value", expiring.getValue());
+      assertEquals(60, expiring.getLifespan());
+      assertEquals(30, expiring.getMaxIdle());
+      assertEquals(remoteCache.getVersioned("expiring").getVersion(), expiring.getVersion());
+   }
+
+   public void testBulkGetWithMetadataWithSize() {
+      populateCacheManager();
+      final AtomicInteger handled = new AtomicInteger();
+      int count = remoteCache.getBulkWithMetadata(50, new MetadataEntryHandler<Object, Object>() {
+         @Override
+         public void handle(Object key, MetadataValue<Object> value) {
+            assertEquals(key, value.getValue());
+            handled.incrementAndGet();
+         }
+      });
+      assertEquals(50, count);
+      assertEquals(50, handled.get());
+   }
+
    public void testBulkGetAfterLifespanExpire() throws InterruptedException {
       Map dataIn = new HashMap();
       dataIn.put("aKey", "aValue");
@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the multi-key getAll, putAll and removeAll operations against a distributed cluster, using more keys than
+ * fit in a single request.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.BulkOperationsTest")
+public class BulkOperationsTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 2000;
+
+   private HotRodServer hotRodServer1;
+   private HotRodServer hotRodServer2;
+   private HotRodServer hotRodServer3;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, String> remoteCache;
+   private RemoteCacheManager remoteCacheManager11;
+   private RemoteCache<String, String> remoteCache11;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(1);
+      createCluster(builder, 3);
+
+      hotRodServer1 = TestHelper.startHotRodServer(manager(0));
+      hotRodServer2 = TestHelper.startHotRodServer(manager(1));
+      hotRodServer3 = TestHelper.startHotRodServer(manager(2));
+
+      waitForClusterToForm();
+
+      Properties clientConfig = new Properties();
+      clientConfig.put("infinispan.client.hotrod.server_list", "localhost:" + hotRodServer1.getPort());
+      remoteCacheManager = new RemoteCacheManager(clientConfig);
+      remoteCache = remoteCacheManager.getCache();
+
+      // the multi-key operations were added in 1.2, older clients must perform them key by key
+      Properties clientConfig11 = new Properties();
+      clientConfig11.putAll(clientConfig);
+      clientConfig11.put("infinispan.client.hotrod.protocol_version", "1.1");
+      remoteCacheManager11 = new RemoteCacheManager(clientConfig11);
+      remoteCache11 = remoteCacheManager11.getCache();
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      killRemoteCacheManager(remoteCacheManager);
+      killRemoteCacheManager(remoteCacheManager11);
+      killServers(hotRodServer1, hotRodServer2, hotRodServer3);
+      super.destroy();
+   }
+
+   public void testPutAllGetAllRemoveAll() {
+      putAllGetAllRemoveAll(remoteCache, "k");
+   }
+
+   public void testPutAllGetAllRemoveAllWithProtocol11() {
+      putAllGetAllRemoveAll(remoteCache11, "k11-");
+   }
+
+   private void putAllGetAllRemoveAll(RemoteCache<String, String> remoteCache, String prefix) {
+      Map<String, String> data = new HashMap<String, String>();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         data.put(prefix + i, "v" + i);
+      }
+      remoteCache.putAll(data);
+      for (int i = 0; i < 3; i++) {
+         assertTrue(cache(i).size() > 0);
+      }
+      assertEquals("v7", remoteCache.get(prefix + 7));
+
+      Set<String> keys = new HashSet<String>(data.keySet());
+      keys.add("missing");
+      Map<String, String> loaded = remoteCache.getAll(keys);
+      assertEquals(data, loaded);
+
+      Set<String> toRemove = new HashSet<String>();
+      for (int i = 0; i < NUM_KEYS / 2; i++) {
+         toRemove.add(prefix + i);
+      }
+      remoteCache.removeAll(toRemove);
+      assertNull(remoteCache.get(prefix + 0));
+      assertEquals(NUM_KEYS - toRemove.size(), remoteCache.getAll(keys).size());
+   }
+
+   public void testEmptyKeySet() {
+      assertTrue(remoteCache.getAll(new HashSet<String>()).isEmpty());
+      remoteCache.putAll(new HashMap<String, String>());
+      remoteCache.removeAll(new HashSet<String>());
+      assertTrue(remoteCache11.getAll(new HashSet<String>()).isEmpty());
+   }
+}
@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.NearCache;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.ByteArrayKey;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killRemoteCacheManager;
+import static org.infinispan.client.hotrod.test.HotRodClientTestingUtil.killServers;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests the client side near cache: reads are served locally, local writes invalidate the near cache, and
+ * modifications made by other clients are picked up when the entries are revalidated.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.NearCacheTest")
+public class NearCacheTest extends SingleCacheManagerTest {
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager nearRcm;
+   private RemoteCacheManager revalidatingRcm;
+   private RemoteCacheManager plainRcm;
+   private RemoteCache<String, String> near;
+   private RemoteCache<String, String> revalidating;
+   private RemoteCache<String, String> plain;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createLocalCacheManager(false);
+      cache = cm.getCache();
+      hotrodServer = TestHelper.startHotRodServer(cm);
+      nearRcm = new RemoteCacheManager(clientProperties(100, -1));
+      near = nearRcm.getCache();
+      revalidatingRcm = new RemoteCacheManager(clientProperties(100, 0));
+      revalidating = revalidatingRcm.getCache();
+      plainRcm = new RemoteCacheManager(clientProperties(0, 0));
+      plain = plainRcm.getCache();
+      return cm;
+   }
+
+   private Properties clientProperties(int maxEntries, long revalidationInterval) {
+      Properties props = new Properties();
+      props.put("infinispan.client.hotrod.server_list", "127.0.0.1:" + hotrodServer.getPort());
+      props.put("infinispan.client.hotrod.near_cache.max_entries", String.valueOf(maxEntries));
+      props.put("infinispan.client.hotrod.near_cache.revalidation_interval", String.valueOf(revalidationInterval));
+      return props;
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      killRemoteCacheManager(nearRcm);
+      killRemoteCacheManager(revalidatingRcm);
+      killRemoteCacheManager(plainRcm);
+      killServers(hotrodServer);
+   }
+
+   public void testNearCacheDisabled() {
+      assertNull(plain.nearCacheStats());
+   }
+
+   public void testReadsServedLocally() {
+      near.put("k1", "v1");
+      long hits = near.nearCacheStats().getHits();
+      assertEquals("v1", near.get("k1"));
+      assertEquals("v1", near.get("k1"));
+      assertEquals("v1", near.get("k1"));
+      assertEquals(hits + 2, near.nearCacheStats().getHits());
+   }
+
+   public void testLocalWritesInvalidate() {
+      near.put("k2", "v1");
+      assertEquals("v1", near.get("k2"));
+      near.put("k2", "v2");
+      assertEquals("v2", near.get("k2"));
+      near.remove("k2");
+      assertNull(near.get("k2"));
+      near.put("k2", "v3");
+      assertEquals("v3", near.get("k2"));
+      near.clear();
+      assertNull(near.get("k2"));
+   }
+
+   public void testRemoteWritesPickedUpOnRevalidation() {
+      plain.put("k3", "v1");
+      assertEquals("v1", revalidating.get("k3"));
+      long revalidations = revalidating.nearCacheStats().getRevalidations();
+      assertEquals("v1", revalidating.get("k3"));
+      assertEquals(revalidations + 1, revalidating.nearCacheStats().getRevalidations());
+
+      plain.put("k3", "v2");
+      long misses = revalidating.nearCacheStats().getMisses();
+      assertEquals("v2", revalidating.get("k3"));
+      assertEquals(misses + 1, revalidating.nearCacheStats().getMisses());
+
+      plain.remove("k3");
+      assertNull(revalidating.get("k3"));
+   }
+
+   public void testBoundedSize() {
+      for (int i = 0; i < 500; i++) {
+         near.put("bounded" + i, "v" + i);
+         near.get("bounded" + i);
+      }
+      assert near.nearCacheStats().getNumberOfEntries() <= 100;
+   }
+
+   public void testValueInvalidatedWhileReadIsNotCached() {
+      NearCache<String> nearCache = new NearCache<String>(10, Eviction.LRU, -1, TimeUnit.MILLISECONDS);
+      ByteArrayKey key = new ByteArrayKey(new byte[] { 1, 2, 3 });
+      long stamp = nearCache.invalidationStamp(key);
+      // a write invalidates the key while its old value is being read from the server
+      nearCache.invalidate(key);
+      nearCache.put(key, "stale", 1, stamp);
+      assertNull(nearCache.getIfValid(key));
+
+      stamp = nearCache.invalidationStamp(key);
+      nearCache.put(key, "fresh", 2, stamp);
+      assertEquals("fresh", nearCache.getIfValid(key));
+
+      stamp = nearCache.invalidationStamp(key);
+      nearCache.clear();
+      nearCache.put(key, "stale", 2, stamp);
+      assertNull(nearCache.getIfValid(key));
+   }
+}
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.transport.nio.MultiplexedTransportFactory;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the async API tests with the async operations pipelined over non-blocking connections.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.PipelinedRemoteAsyncAPITest")
+public class PipelinedRemoteAsyncAPITest extends RemoteAsyncAPITest {
+
+   @Override
+   protected void configureClient(Properties props) {
+      props.put(ConfigurationProperties.ASYNC_PIPELINING, "true");
+      props.put(ConfigurationProperties.ASYNC_PIPELINING_CONNECTIONS_PER_SERVER, "1");
+   }
+
+   public void testManyConcurrentRequests() throws Exception {
+      List<Future<String>> puts = new ArrayList<Future<String>>();
+      for (int i = 0; i < 1000; i++) {
+         puts.add(c.putAsync("key" + i, "value" + i));
+      }
+      for (Future<String> put : puts) {
+         put.get();
+      }
+      List<Future<String>> gets = new ArrayList<Future<String>>();
+      for (int i = 0; i < 1000; i++) {
+         gets.add(c.getAsync("key" + i));
+      }
+      for (int i = 0; i < 1000; i++) {
+         assertEquals(gets.get(i).get(), "value" + i);
+      }
+   }
+
+   public void testListenersDoNotRunOnSelectorThread() throws Exception {
+      c.put("listened", "value");
+      final CountDownLatch notified = new CountDownLatch(1);
+      final AtomicReference<String> listenerThread = new AtomicReference<String>();
+      NotifyingFuture<String> get = c.getAsync("listened");
+      get.attachListener(new FutureListener<String>() {
+         @Override
+         public void futureDone(Future<String> future) {
+            listenerThread.set(Thread.currentThread().getName());
+            notified.countDown();
+         }
+      });
+      assertEquals(get.get(), "value");
+      assertTrue(notified.await(10, TimeUnit.SECONDS));
+      assertFalse(listenerThread.get().startsWith(MultiplexedTransportFactory.THREAD_NAME), listenerThread.get());
+   }
+}
@@ -29,6 +29,7 @@
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.EntrySetCommand;
 import org.infinispan.commands.read.GetCacheEntryCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.SizeCommand;
@@ -93,6 +94,7 @@
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
 import javax.transaction.xa.XAResource;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
@@ -285,6 +287,19 @@ final V get(Object key, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLo
       return (V) invoker.invoke(ctx, command);
    }
 
+   @Override
+   public final Map<K, V> getAll(Set<?> keys) {
+      return getAll(keys, null, null);
+   }
+
+   @SuppressWarnings("unchecked")
+   final Map<K, V> getAll(Set<?> keys, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
+      for (Object key : keys) assertKeyNotNull(key);
+      InvocationContext ctx = getInvocationContextForRead(null, explicitClassLoader, keys.size());
+      GetAllCommand command = commandsFactory.buildGetAllCommand(new ArrayList<Object>(keys), explicitFlags, false);
+      return (Map<K, V>) invoker.invoke(ctx, command);
+   }
+
    @Override
    public final CacheEntry getCacheEntry(Object key, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
       assertKeyNotNull(key);
@@ -1066,6 +1081,49 @@ public V call() throws Exception {
       }
    }
 
+   @Override
+   public NotifyingFuture<Map<K, V>> getAllAsync(Set<?> keys) {
+      return getAllAsync(keys, null, null);
+   }
+
+   NotifyingFuture<Map<K, V>> getAllAsync(final Set<?> keys, final EnumSet<Flag> explicitFlags, final ClassLoader explicitClassLoader) {
+      // Optimization to not start a new thread only when the operation is cheap:
+      if (asyncSkipsThread(explicitFlags, keys)) {
+         return wrapInFuture(getAll(keys, explicitFlags, explicitClassLoader));
+      } else {
+         // Make sure the flags are cleared
+         final EnumSet<Flag> appliedFlags;
+         if (explicitFlags == null) {
+            appliedFlags = null;
+         } else {
+            appliedFlags = explicitFlags.clone();
+            explicitFlags.clear();
+         }
+         final NotifyingFutureAdaptor<Map<K, V>> f = new NotifyingFutureAdaptor<Map<K, V>>();
+
+         Callable<Map<K, V>> c = new Callable<Map<K, V>>() {
+            @Override
+            public Map<K, V> call() throws Exception {
+               try {
+                  return getAll(keys, appliedFlags, explicitClassLoader);
+               } finally {
+                  f.notifyDone();
+               }
+            }
+         };
+         f.setActual(asyncExecutor.submit(c));
+         return f;
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private boolean asyncSkipsThread(EnumSet<Flag> flags, Set<?> keys) {
+      for (Object key : keys) {
+         if (!asyncSkipsThread(flags, (K) key)) return false;
+      }
+      return true;
+   }
+
    /**
     * Encodes the cases for an asyncGet operation in which it makes sense to actually perform the operation in sync.
     *
@@ -294,6 +294,16 @@ public NotifyingFuture<V> getAsync(K key) {
       return cacheImplementation.getAsync(key, flags, classLoader);
    }
 
+   @Override
+   public Map<K, V> getAll(Set<?> keys) {
+      return cacheImplementation.getAll(keys, flags, classLoader);
+   }
+
+   @Override
+   public NotifyingFuture<Map<K, V>> getAllAsync(Set<?> keys) {
+      return cacheImplementation.getAllAsync(keys, flags, classLoader);
+   }
+
    @Override
    public int size() {
       return cacheImplementation.size(flags, classLoader);
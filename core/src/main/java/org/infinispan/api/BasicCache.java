@@ -26,6 +26,7 @@
 import org.infinispan.util.concurrent.NotifyingFuture;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
@@ -485,4 +486,27 @@
     * follows the same rules as {@link #get(Object)}
     */
    NotifyingFuture<V> getAsync(K key);
+
+   /**
+    * Retrieves the values associated with several keys at once. Compared to calling {@link #get(Object)} for each of
+    * the keys, this saves the per-call overhead and, in a clustered cache, sends a single request to each node owning
+    * some of the keys rather than one request per key.
+    *
+    * @param keys keys to retrieve
+    * @return a map of the keys which have a value associated to that value. Keys with no value associated are not
+    * present in the returned map.
+    * @since 5.2
+    */
+   Map<K, V> getAll(Set<?> keys);
+
+   /**
+    * Asynchronous version of {@link #getAll(java.util.Set)}. Same as {@link #getAsync(Object)}, the call is performed
+    * in the calling thread if none of the keys requires contacting a remote entity or a cache loader.
+    *
+    * @param keys keys to retrieve
+    * @return a future that can be used to retrieve the values associated with the keys when these are available. The
+    * actual map returned by the future follows the same rules as {@link #getAll(java.util.Set)}
+    * @since 5.2
+    */
+   NotifyingFuture<Map<K, V>> getAllAsync(Set<?> keys);
 }
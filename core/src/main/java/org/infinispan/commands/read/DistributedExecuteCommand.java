@@ -22,12 +22,16 @@
  */
 package org.infinispan.commands.read;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import org.infinispan.Cache;
 import org.infinispan.commands.VisitableCommand;
@@ -36,9 +40,16 @@
 import org.infinispan.commands.remote.BaseRpcCommand;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.distexec.DistributedCallable;
+import org.infinispan.distexec.DistributedTaskResultMerger;
+import org.infinispan.distexec.LocalParallelismPool;
 import org.infinispan.distexec.spi.DistributedTaskLifecycleService;
+import org.infinispan.factories.KnownComponentNames;
 import org.infinispan.lifecycle.ComponentStatus;
+import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.util.InfinispanCollections;
+import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinPool;
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinTask;
 
 /**
  * DistributedExecuteCommand is used to migrate Callable and execute it in remote JVM.
@@ -62,6 +73,10 @@
 
    private UUID uuid;
 
+   private int localParallelism = 1;
+
+   private DistributedTaskResultMerger<V> resultMerger;
+
    public DistributedExecuteCommand(String cacheName) {
       this(cacheName, null, null);
    }
@@ -84,6 +99,19 @@ public void init(Cache<Object, Object> cache) {
       this.cache = cache;
    }
 
+   /**
+    * Splits the input keys into <code>parallelism</code> subsets, invoked concurrently on this node.
+    *
+    * @param parallelism
+    *           the number of subsets, 0 meaning the number of processors of the executing node
+    * @param merger
+    *           merges the results of the subsets
+    */
+   public void setLocalParallelism(int parallelism, DistributedTaskResultMerger<V> merger) {
+      this.localParallelism = parallelism;
+      this.resultMerger = merger;
+   }
+
    @Override
    public Object acceptVisitor(InvocationContext ctx, Visitor visitor) throws Throwable {
       return visitor.visitDistributedExecuteCommand(ctx, this);
@@ -111,6 +139,8 @@ public Object perform(InvocationContext context) throws Throwable {
       // hook into lifecycle
       DistributedTaskLifecycleService taskLifecycleService = DistributedTaskLifecycleService.getInstance();
       Callable<V> callable = getCallable();
+      if (isSplit(callable))
+         return performSplit(callable);
       V result = null;
       try {
          taskLifecycleService.onPreExecute(callable, cache);
@@ -125,6 +155,63 @@ public Object perform(InvocationContext context) throws Throwable {
       return result;
    }
 
+   private boolean isSplit(Callable<V> callable) {
+      return localParallelism != 1 && resultMerger != null && keys.size() > 1
+            && callable instanceof DistributedCallable<?, ?, ?>;
+   }
+
+   /**
+    * Invokes a copy of the callable on each subset of the keys in the local pool, and merges their results.
+    */
+   private V performSplit(Callable<V> callable) throws Throwable {
+      int parallelism = localParallelism > 0 ? localParallelism : Runtime.getRuntime().availableProcessors();
+      List<Set<Object>> subsets = split(Math.min(parallelism, keys.size()));
+      // the callables are stateful: copy the one received before setting its environment
+      StreamingMarshaller marshaller = cache.getAdvancedCache().getComponentRegistry()
+            .getComponent(StreamingMarshaller.class, KnownComponentNames.CACHE_MARSHALLER);
+      List<Callable<V>> callables = new ArrayList<Callable<V>>(subsets.size());
+      callables.add(callable);
+      for (int i = 1; i < subsets.size(); i++) {
+         callables.add(Util.cloneWithMarshaller(marshaller, callable));
+      }
+      List<KeySubsetCallable> subsetCallables = new ArrayList<KeySubsetCallable>(subsets.size());
+      List<ForkJoinTask<V>> tasks = new ArrayList<ForkJoinTask<V>>(subsets.size());
+      ForkJoinPool pool = LocalParallelismPool.acquire();
+      try {
+         for (int i = 0; i < subsets.size(); i++) {
+            KeySubsetCallable subsetCallable = new KeySubsetCallable(callables.get(i), subsets.get(i));
+            subsetCallables.add(subsetCallable);
+            tasks.add(pool.submit(subsetCallable));
+         }
+         List<V> partialResults = new ArrayList<V>(tasks.size());
+         for (ForkJoinTask<V> task : tasks) {
+            partialResults.add(task.get());
+         }
+         return resultMerger.merge(partialResults);
+      } catch (ExecutionException e) {
+         throw e.getCause();
+      } finally {
+         // a no-op for the subsets that completed; cancelling the fork/join tasks does not stop the running ones
+         for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).cancel(false);
+            subsetCallables.get(i).cancel();
+         }
+         LocalParallelismPool.release();
+      }
+   }
+
+   private List<Set<Object>> split(int numSubsets) {
+      List<Set<Object>> subsets = new ArrayList<Set<Object>>(numSubsets);
+      for (int i = 0; i < numSubsets; i++) {
+         subsets.add(new HashSet<Object>(keys.size() / numSubsets + 1));
+      }
+      int i = 0;
+      for (Object key : keys) {
+         subsets.get(i++ % numSubsets).add(key);
+      }
+      return subsets;
+   }
+
    public Callable<V> getCallable() {
       return callable;
    }
@@ -149,7 +236,7 @@ public UUID getUUID() {
 
    @Override
    public Object[] getParameters() {
-      return new Object[] { keys, callable, uuid};
+      return new Object[] { keys, callable, uuid, localParallelism, resultMerger};
    }
 
    @Override
@@ -160,6 +247,8 @@ public void setParameters(int commandId, Object[] args) {
       this.keys = (Set<Object>) args[i++];
       this.callable = (Callable<V>) args[i++];
       this.uuid = (UUID) args[i++];
+      this.localParallelism = (Integer) args[i++];
+      this.resultMerger = (DistributedTaskResultMerger<V>) args[i++];
    }
 
    @Override
@@ -203,4 +292,51 @@ public boolean isReturnValueExpected() {
       return true;
    }
 
+   private class KeySubsetCallable implements Callable<V> {
+
+      private final Callable<V> callable;
+      private final Set<Object> subset;
+      private Thread runner;
+      private boolean cancelled;
+
+      KeySubsetCallable(Callable<V> callable, Set<Object> subset) {
+         this.callable = callable;
+         this.subset = subset;
+      }
+
+      @Override
+      public V call() throws Exception {
+         synchronized (this) {
+            if (cancelled)
+               throw new CancellationException();
+            runner = Thread.currentThread();
+         }
+         DistributedTaskLifecycleService taskLifecycleService = DistributedTaskLifecycleService.getInstance();
+         try {
+            taskLifecycleService.onPreExecute(callable, cache);
+            ((DistributedCallable<Object, Object, Object>) callable).setEnvironment(cache, subset);
+            return callable.call();
+         } finally {
+            taskLifecycleService.onPostExecute(callable);
+            synchronized (this) {
+               runner = null;
+               if (cancelled) {
+                  // do not leave the pool thread interrupted
+                  Thread.interrupted();
+               }
+            }
+         }
+      }
+
+      /**
+       * Interrupts the callable if it is running, as the cancellation of an unsplit task does, or prevents it from
+       * starting otherwise.
+       */
+      synchronized void cancel() {
+         cancelled = true;
+         if (runner != null)
+            runner.interrupt();
+      }
+   }
+
 }
@@ -0,0 +1,159 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.read;
+
+import org.infinispan.commands.AbstractFlagAffectedCommand;
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.Visitor;
+import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.lifecycle.ComponentStatus;
+import org.infinispan.util.InfinispanCollections;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implements functionality defined by {@link org.infinispan.api.BasicCache#getAll(java.util.Set)}: retrieves the
+ * values mapped to several keys, visiting the interceptor chain once for all of them.
+ * <p/>
+ * The result maps each key which has a value to that value, keys with no value are not part of it. If
+ * {@link #isReturnEntries()} is set, the result maps keys to {@link CacheEntry} instances instead, which is what
+ * {@link org.infinispan.commands.remote.ClusteredGetAllCommand} relies upon.
+ *
+ * @since 5.2
+ */
+public class GetAllCommand extends AbstractFlagAffectedCommand implements VisitableCommand {
+   public static final byte COMMAND_ID = 35;
+   private static final Log log = LogFactory.getLog(GetAllCommand.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private Collection<Object> keys;
+   private boolean returnEntries;
+   private Map<Object, InternalCacheEntry> remotelyFetchedValues = InfinispanCollections.emptyMap();
+
+   public GetAllCommand(Collection<Object> keys, Set<Flag> flags, boolean returnEntries) {
+      this.keys = keys;
+      this.flags = flags;
+      this.returnEntries = returnEntries;
+   }
+
+   public GetAllCommand() {
+   }
+
+   @Override
+   public Object acceptVisitor(InvocationContext ctx, Visitor visitor) throws Throwable {
+      return visitor.visitGetAllCommand(ctx, this);
+   }
+
+   @Override
+   public Map<Object, Object> perform(InvocationContext ctx) throws Throwable {
+      Map<Object, Object> result = new HashMap<Object, Object>(keys.size());
+      for (Object key : keys) {
+         CacheEntry entry = ctx.lookupEntry(key);
+         if (entry == null || entry.isNull() || entry.isRemoved() || entry.getValue() == null) {
+            if (trace) log.tracef("Entry for key %s not found", key);
+            continue;
+         }
+         result.put(key, returnEntries ? entry : entry.getValue());
+      }
+      return result;
+   }
+
+   public Collection<Object> getKeys() {
+      return keys;
+   }
+
+   public void setKeys(Collection<Object> keys) {
+      this.keys = keys;
+   }
+
+   public boolean isReturnEntries() {
+      return returnEntries;
+   }
+
+   /**
+    * @see #getRemotelyFetchedValues()
+    */
+   public void setRemotelyFetchedValues(Map<Object, InternalCacheEntry> remotelyFetchedValues) {
+      this.remotelyFetchedValues = remotelyFetchedValues;
+   }
+
+   /**
+    * If the cache needs to go remotely in order to obtain the values associated to some of the keys, then the remote
+    * entries are stored in this map.
+    */
+   public Map<Object, InternalCacheEntry> getRemotelyFetchedValues() {
+      return remotelyFetchedValues;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void setParameters(int commandId, Object[] parameters) {
+      if (commandId != COMMAND_ID) throw new IllegalStateException("Invalid method id");
+      keys = (Collection<Object>) parameters[0];
+      flags = (Set<Flag>) parameters[1];
+      returnEntries = (Boolean) parameters[2];
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return new Object[]{keys, Flag.copyWithoutRemotableFlags(flags), returnEntries};
+   }
+
+   @Override
+   public boolean shouldInvoke(InvocationContext ctx) {
+      return true;
+   }
+
+   @Override
+   public boolean ignoreCommandOnStatus(ComponentStatus status) {
+      return false;
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return true;
+   }
+
+   @Override
+   public String toString() {
+      return new StringBuilder("GetAllCommand{keys=")
+         .append(keys)
+         .append(", returnEntries=").append(returnEntries)
+         .append(", flags=").append(flags)
+         .append("}")
+         .toString();
+   }
+}
@@ -53,6 +53,8 @@
    private String taskId;
    private boolean reducePhaseDistributed;
    private boolean emitCompositeIntermediateKeys;
+   private int maxCollectedValues;
+   private int shuffleBatchSize;
    private MapReduceManager mrManager;
    private UUID uuid;
 
@@ -89,6 +91,12 @@ public void init(MapReduceManager mrManager) {
     */
    @Override
    public Object perform(InvocationContext context) throws Throwable {
+      if (isStreaming()) {
+         if (isReducePhaseDistributed())
+            return mrManager.mapAndStreamForDistributedReduction(this);
+         else
+            return mrManager.mapAndStreamForLocalReduction(this);
+      }
       if (isReducePhaseDistributed())
          return mrManager.mapAndCombineForDistributedReduction(this);
       else
@@ -111,6 +119,30 @@ public void setReducePhaseDistributed(boolean reducePhaseDistributed) {
       this.reducePhaseDistributed = reducePhaseDistributed;
    }
 
+   /**
+    * Returns true if intermediate values are collected with bounded memory, see
+    * {@link #getMaxCollectedValues()}
+    */
+   public boolean isStreaming() {
+      return maxCollectedValues > 0;
+   }
+
+   public int getMaxCollectedValues() {
+      return maxCollectedValues;
+   }
+
+   public void setMaxCollectedValues(int maxCollectedValues) {
+      this.maxCollectedValues = maxCollectedValues;
+   }
+
+   public int getShuffleBatchSize() {
+      return shuffleBatchSize;
+   }
+
+   public void setShuffleBatchSize(int shuffleBatchSize) {
+      this.shuffleBatchSize = shuffleBatchSize;
+   }
+
    public Set<KIn> getKeys() {
       return keys;
    }
@@ -140,7 +172,7 @@ public UUID getUUID() {
    @Override
    public Object[] getParameters() {
       return new Object[] { taskId, keys, mapper, combiner, reducePhaseDistributed,
-               emitCompositeIntermediateKeys, uuid };
+               emitCompositeIntermediateKeys, maxCollectedValues, shuffleBatchSize, uuid };
    }
 
    @SuppressWarnings("unchecked")
@@ -155,6 +187,8 @@ public void setParameters(int commandId, Object[] args) {
       combiner = (Reducer<KOut,VOut>) args[i++];
       reducePhaseDistributed = (Boolean) args[i++];
       emitCompositeIntermediateKeys = (Boolean) args[i++];
+      maxCollectedValues = (Integer) args[i++];
+      shuffleBatchSize = (Integer) args[i++];
       uuid = (UUID) args[i++];
    }
 
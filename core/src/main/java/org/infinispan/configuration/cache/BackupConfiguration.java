@@ -32,9 +32,19 @@ public class BackupConfiguration {
    private final String failurePolicyClass;
    private final boolean useTwoPhaseCommit;
    private final TakeOfflineConfiguration takeOfflineConfiguration;
+   private final long batchFlushInterval;
+   private final int batchMaxElements;
+   private final int batchQueueCapacity;
 
    public BackupConfiguration(String site, BackupStrategy strategy, long timeout, BackupFailurePolicy backupFailurePolicy,
                               String failurePolicyClass, boolean useTwoPhaseCommit, TakeOfflineConfiguration takeOfflineConfiguration) {
+      this(site, strategy, timeout, backupFailurePolicy, failurePolicyClass, useTwoPhaseCommit, takeOfflineConfiguration,
+           0, BackupConfigurationBuilder.DEFAULT_BATCH_MAX_ELEMENTS, BackupConfigurationBuilder.DEFAULT_BATCH_QUEUE_CAPACITY);
+   }
+
+   public BackupConfiguration(String site, BackupStrategy strategy, long timeout, BackupFailurePolicy backupFailurePolicy,
+                              String failurePolicyClass, boolean useTwoPhaseCommit, TakeOfflineConfiguration takeOfflineConfiguration,
+                              long batchFlushInterval, int batchMaxElements, int batchQueueCapacity) {
       this.site = site;
       this.strategy = strategy;
       this.timeout = timeout;
@@ -42,6 +52,9 @@ public BackupConfiguration(String site, BackupStrategy strategy, long timeout, B
       this.failurePolicyClass = failurePolicyClass;
       this.useTwoPhaseCommit = useTwoPhaseCommit;
       this.takeOfflineConfiguration = takeOfflineConfiguration;
+      this.batchFlushInterval = batchFlushInterval;
+      this.batchMaxElements = batchMaxElements;
+      this.batchQueueCapacity = batchQueueCapacity;
    }
 
    /**
@@ -89,6 +102,34 @@ public enum BackupStrategy {
    public boolean isTwoPhaseCommit() {
       return useTwoPhaseCommit;
    }
+
+   /**
+    * @see BackupConfigurationBuilder#batchFlushInterval(long)
+    */
+   public long batchFlushInterval() {
+      return batchFlushInterval;
+   }
+
+   /**
+    * @see BackupConfigurationBuilder#batchMaxElements(int)
+    */
+   public int batchMaxElements() {
+      return batchMaxElements;
+   }
+
+   /**
+    * @see BackupConfigurationBuilder#batchQueueCapacity(int)
+    */
+   public int batchQueueCapacity() {
+      return batchQueueCapacity;
+   }
+
+   /**
+    * Whether the updates for this async backup are queued, coalesced and sent in batches.
+    */
+   public boolean isBatching() {
+      return isAsyncBackup() && batchFlushInterval > 0;
+   }
    
    @Override
    public boolean equals(Object o) {
@@ -104,6 +145,9 @@ public boolean equals(Object o) {
       if (site != null ? !site.equals(that.site) : that.site != null) return false;
       if( useTwoPhaseCommit != that.useTwoPhaseCommit ) return false;
       if (strategy != that.strategy) return false;
+      if (batchFlushInterval != that.batchFlushInterval) return false;
+      if (batchMaxElements != that.batchMaxElements) return false;
+      if (batchQueueCapacity != that.batchQueueCapacity) return false;
 
       return true;
    }
@@ -116,6 +160,9 @@ public int hashCode() {
       result = 31 * result + (backupFailurePolicy != null ? backupFailurePolicy.hashCode() : 0);
       result = 31 * result + (failurePolicyClass != null ? failurePolicyClass.hashCode() : 0);
       result = 31 * result + (useTwoPhaseCommit ? 1 : 0);
+      result = 31 * result + (int) (batchFlushInterval ^ (batchFlushInterval >>> 32));
+      result = 31 * result + batchMaxElements;
+      result = 31 * result + batchQueueCapacity;
       return result;
    }
 
@@ -128,6 +175,9 @@ public String toString() {
             ", useTwoPhaseCommit=" + useTwoPhaseCommit +
             ", backupFailurePolicy=" + backupFailurePolicy +
             ", failurePolicyClass='" + failurePolicyClass + '\'' +
+            ", batchFlushInterval=" + batchFlushInterval +
+            ", batchMaxElements=" + batchMaxElements +
+            ", batchQueueCapacity=" + batchQueueCapacity +
             '}';
    }
 }
@@ -28,6 +28,9 @@
  */
 public class BackupConfigurationBuilder extends AbstractConfigurationChildBuilder implements Builder<BackupConfiguration> {
 
+   static final int DEFAULT_BATCH_MAX_ELEMENTS = 500;
+   static final int DEFAULT_BATCH_QUEUE_CAPACITY = 10000;
+
    private String site;
 
    private BackupConfiguration.BackupStrategy strategy = BackupConfiguration.BackupStrategy.ASYNC;
@@ -42,6 +45,12 @@ public class BackupConfigurationBuilder extends AbstractConfigurationChildBuilde
    
    private TakeOfflineConfigurationBuilder takeOfflineBuilder;
 
+   private long batchFlushInterval = 0;
+
+   private int batchMaxElements = DEFAULT_BATCH_MAX_ELEMENTS;
+
+   private int batchQueueCapacity = DEFAULT_BATCH_QUEUE_CAPACITY;
+
    public BackupConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
       takeOfflineBuilder = new TakeOfflineConfigurationBuilder(builder, this);
@@ -139,6 +148,34 @@ public BackupConfigurationBuilder useTwoPhaseCommit(boolean useTwoPhaseCommit) {
       return this;
    }
 
+   /**
+    * For async backups, if greater than 0 the updates are not sent to the backup site one by one: they are queued,
+    * several updates of the same key are coalesced into the last one, and the queue is sent as a single message every
+    * batchFlushInterval millis, or as soon as it holds {@link #batchMaxElements(int)} updates. Defaults to 0, i.e.
+    * every update is sent on its own.
+    */
+   public BackupConfigurationBuilder batchFlushInterval(long batchFlushInterval) {
+      this.batchFlushInterval = batchFlushInterval;
+      return this;
+   }
+
+   /**
+    * The number of queued updates that triggers sending a batch before the flush interval elapses. Defaults to 500.
+    */
+   public BackupConfigurationBuilder batchMaxElements(int batchMaxElements) {
+      this.batchMaxElements = batchMaxElements;
+      return this;
+   }
+
+   /**
+    * The number of updates the batching queue can hold. When it is full, the writers are blocked until a batch is sent,
+    * for up to the {@link #replicationTimeout(long)}, after which their update is not backed up. Defaults to 10000.
+    */
+   public BackupConfigurationBuilder batchQueueCapacity(int batchQueueCapacity) {
+      this.batchQueueCapacity = batchQueueCapacity;
+      return this;
+   }
+
    @Override
    public void validate() {
       takeOfflineBuilder.validate();
@@ -148,12 +185,23 @@ public void validate() {
          throw new ConfigurationException("It is required to specify a 'failurePolicyClass' when using a " +
                                                 "custom backup failure policy!");
       }
+      if (batchFlushInterval > 0) {
+         if (strategy != BackupConfiguration.BackupStrategy.ASYNC)
+            throw new ConfigurationException("Batching ('batchFlushInterval') is only supported for ASYNC backups, " +
+                                                   "but the backup to site '" + site + "' is " + strategy);
+         if (batchMaxElements < 1)
+            throw new ConfigurationException("'batchMaxElements' must be at least 1, was " + batchMaxElements);
+         if (batchQueueCapacity < batchMaxElements)
+            throw new ConfigurationException("'batchQueueCapacity' (" + batchQueueCapacity +
+                                                   ") must not be smaller than 'batchMaxElements' (" + batchMaxElements + ")");
+      }
    }
 
    @Override
    public BackupConfiguration create() {
       return new BackupConfiguration(site, strategy, replicationTimeout, backupFailurePolicy, failurePolicyClass,
-                                     useTwoPhaseCommit, takeOfflineBuilder.create());
+                                     useTwoPhaseCommit, takeOfflineBuilder.create(), batchFlushInterval, batchMaxElements,
+                                     batchQueueCapacity);
    }
 
    @Override
@@ -165,6 +213,9 @@ public Builder read(BackupConfiguration template) {
       this.replicationTimeout = template.replicationTimeout();
       this.failurePolicyClass = template.failurePolicyClass();
       this.useTwoPhaseCommit = template.isTwoPhaseCommit();
+      this.batchFlushInterval = template.batchFlushInterval();
+      this.batchMaxElements = template.batchMaxElements();
+      this.batchQueueCapacity = template.batchQueueCapacity();
       return this;
    }
 
@@ -184,6 +235,9 @@ public boolean equals(Object o) {
       if (takeOfflineBuilder != null ? !takeOfflineBuilder.equals(that.takeOfflineBuilder) : that.takeOfflineBuilder != null)
          return false;
       if( useTwoPhaseCommit != that.useTwoPhaseCommit ) return false;
+      if (batchFlushInterval != that.batchFlushInterval) return false;
+      if (batchMaxElements != that.batchMaxElements) return false;
+      if (batchQueueCapacity != that.batchQueueCapacity) return false;
 
       return true;
    }
@@ -197,6 +251,9 @@ public int hashCode() {
       result = 31 * result + (failurePolicyClass != null ? failurePolicyClass.hashCode() : 0);
       result = 31 * result + (takeOfflineBuilder != null ? takeOfflineBuilder.hashCode() : 0);
       result = 31 * result + (useTwoPhaseCommit ? 1 : 0);
+      result = 31 * result + (int) (batchFlushInterval ^ (batchFlushInterval >>> 32));
+      result = 31 * result + batchMaxElements;
+      result = 31 * result + batchQueueCapacity;
       return result;
    }
 
@@ -210,6 +267,9 @@ public String toString() {
             ", backupFailurePolicy=" + backupFailurePolicy +
             ", failurePolicyClass='" + failurePolicyClass + '\'' +
             ", takeOfflineBuilder=" + takeOfflineBuilder +
+            ", batchFlushInterval=" + batchFlushInterval +
+            ", batchMaxElements=" + batchMaxElements +
+            ", batchQueueCapacity=" + batchQueueCapacity +
             '}';
    }
 }
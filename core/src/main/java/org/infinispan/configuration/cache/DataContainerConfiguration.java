@@ -31,10 +31,14 @@
 public class DataContainerConfiguration extends AbstractTypedPropertiesConfiguration {
 
    private final DataContainer dataContainer;
+   private final boolean offHeap;
+   private final int slabSize;
 
-   DataContainerConfiguration(DataContainer dataContainer, TypedProperties properties) {
+   DataContainerConfiguration(DataContainer dataContainer, boolean offHeap, int slabSize, TypedProperties properties) {
       super(properties);
       this.dataContainer = dataContainer;
+      this.offHeap = offHeap;
+      this.slabSize = slabSize;
    }
    
    /**
@@ -45,10 +49,27 @@ public DataContainer dataContainer() {
       return dataContainer;
    }
 
+   /**
+    * Whether entries are stored serialized in off-heap memory, in which case the data container is an
+    * {@link org.infinispan.container.offheap.OffHeapDataContainer}
+    */
+   public boolean offHeap() {
+      return offHeap;
+   }
+
+   /**
+    * Size in bytes of the direct memory slabs off-heap entries are allocated from
+    */
+   public int slabSize() {
+      return slabSize;
+   }
+
    @Override
    public String toString() {
       return "DataContainerConfiguration{" +
             "dataContainer=" + dataContainer +
+            ", offHeap=" + offHeap +
+            ", slabSize=" + slabSize +
             '}';
    }
 
@@ -59,6 +80,8 @@ public boolean equals(Object o) {
 
       DataContainerConfiguration that = (DataContainerConfiguration) o;
 
+      if (offHeap != that.offHeap) return false;
+      if (slabSize != that.slabSize) return false;
       if (dataContainer != null ? !dataContainer.equals(that.dataContainer) : that.dataContainer != null)
          return false;
 
@@ -67,7 +90,10 @@ public boolean equals(Object o) {
 
    @Override
    public int hashCode() {
-      return dataContainer != null ? dataContainer.hashCode() : 0;
+      int result = dataContainer != null ? dataContainer.hashCode() : 0;
+      result = 31 * result + (offHeap ? 1 : 0);
+      result = 31 * result + slabSize;
+      return result;
    }
 
 }
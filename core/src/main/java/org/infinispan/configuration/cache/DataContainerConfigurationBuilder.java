@@ -20,8 +20,10 @@
 
 import java.util.Properties;
 
+import org.infinispan.config.ConfigurationException;
 import org.infinispan.configuration.Builder;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.offheap.OffHeapDataContainer;
 import org.infinispan.util.TypedProperties;
 
 /**
@@ -34,6 +36,8 @@ public class DataContainerConfigurationBuilder extends AbstractConfigurationChil
 
    // No default here. DataContainerFactory figures out default.
    private DataContainer dataContainer;
+   private boolean offHeap = false;
+   private int slabSize = OffHeapDataContainer.DEFAULT_SLAB_SIZE;
    private Properties properties = new Properties();
 
    DataContainerConfigurationBuilder(ConfigurationBuilder builder) {
@@ -50,6 +54,38 @@ public DataContainerConfigurationBuilder dataContainer(DataContainer dataContain
       return this;
    }
 
+   /**
+    * Store entries serialized in direct memory, outside of the Java heap. Keys and values must be marshallable, and
+    * reads return copies of the stored entries. When eviction is enabled, entries are always evicted in LRU order
+    * and the limit may be expressed in bytes with {@link EvictionConfigurationBuilder#maxMemory(long)}.
+    */
+   public DataContainerConfigurationBuilder offHeap(boolean offHeap) {
+      this.offHeap = offHeap;
+      return this;
+   }
+
+   /**
+    * Store entries serialized in direct memory, outside of the Java heap.
+    *
+    * @see #offHeap(boolean)
+    */
+   public DataContainerConfigurationBuilder offHeap() {
+      return offHeap(true);
+   }
+
+   /**
+    * Size in bytes of the direct memory slabs off-heap entries are allocated from. Entries bigger than a slab get
+    * their own buffer. Defaults to 4MB.
+    */
+   public DataContainerConfigurationBuilder slabSize(int slabSize) {
+      this.slabSize = slabSize;
+      return this;
+   }
+
+   boolean offHeapEnabled() {
+      return offHeap;
+   }
+
    /**
     * Add key/value property pair to this data container configuration
     *
@@ -76,17 +112,23 @@ public DataContainerConfigurationBuilder withProperties(Properties props) {
    @Override
    public
    void validate() {
+      if (offHeap && dataContainer != null)
+         throw new ConfigurationException("Cannot use a custom data container when storing entries off-heap");
+      if (offHeap && slabSize < 1024)
+         throw new ConfigurationException("The off-heap slab size must be at least 1024 bytes, was " + slabSize);
    }
 
    @Override
    public
    DataContainerConfiguration create() {
-      return new DataContainerConfiguration(dataContainer, TypedProperties.toTypedProperties(properties));
+      return new DataContainerConfiguration(dataContainer, offHeap, slabSize, TypedProperties.toTypedProperties(properties));
    }
 
    @Override
    public DataContainerConfigurationBuilder read(DataContainerConfiguration template) {
       this.dataContainer = template.dataContainer();
+      this.offHeap = template.offHeap();
+      this.slabSize = template.slabSize();
       this.properties = template.properties();
 
       return this;
@@ -96,6 +138,8 @@ public DataContainerConfigurationBuilder read(DataContainerConfiguration templat
    public String toString() {
       return "DataContainerConfigurationBuilder{" +
             "dataContainer=" + dataContainer +
+            ", offHeap=" + offHeap +
+            ", slabSize=" + slabSize +
             ", properties=" + properties +
             '}';
    }
@@ -20,6 +20,8 @@
 
 import org.infinispan.config.ConfigurationException;
 import org.infinispan.configuration.Builder;
+import org.infinispan.eviction.DefaultEntrySizeCalculator;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.util.logging.Log;
@@ -35,6 +37,8 @@ public class EvictionConfigurationBuilder extends AbstractConfigurationChildBuil
    private int maxEntries = -1;
    private EvictionStrategy strategy = EvictionStrategy.NONE;
    private EvictionThreadPolicy threadPolicy = EvictionThreadPolicy.DEFAULT;
+   private long maxMemory = -1;
+   private EntrySizeCalculator<Object, Object> sizeCalculator;
 
    EvictionConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -74,23 +78,56 @@ public EvictionConfigurationBuilder maxEntries(int maxEntries) {
       return this;
    }
 
+   /**
+    * Maximum estimated amount of memory, in bytes, held by the entries of a cache instance. Entries are evicted as
+    * soon as either this limit or {@link #maxEntries(int)} is exceeded, so maxEntries must be configured as well: it
+    * caps the number of entries and sizes the container. The only exception is an
+    * {@link DataContainerConfigurationBuilder#offHeap() off-heap} data container, which accounts for the exact amount
+    * of direct memory held by entries and can be bounded by memory alone. A value less than or equal to zero disables
+    * memory based eviction.
+    *
+    * @param maxMemory
+    */
+   public EvictionConfigurationBuilder maxMemory(long maxMemory) {
+      this.maxMemory = maxMemory;
+      return this;
+   }
+
+   /**
+    * Estimates the memory held by each entry's key and value when {@link #maxMemory(long)} is configured. Defaults to
+    * {@link DefaultEntrySizeCalculator}.
+    *
+    * @param sizeCalculator
+    */
+   public EvictionConfigurationBuilder sizeCalculator(EntrySizeCalculator<Object, Object> sizeCalculator) {
+      this.sizeCalculator = sizeCalculator;
+      return this;
+   }
+
    @Override
    public void validate() {
       if (!strategy.isEnabled() && getBuilder().loaders().passivation())
          log.passivationWithoutEviction();
       if(strategy == EvictionStrategy.FIFO)
          log.warn("FIFO strategy is deprecated, LRU will be used instead");
-      if (strategy.isEnabled() && maxEntries <= 0)
+      boolean offHeap = getBuilder().dataContainer().offHeapEnabled();
+      if (offHeap && maxMemory > 0 && maxEntries <= 0 && !strategy.isEnabled())
+         strategy = EvictionStrategy.LRU;
+      if (strategy.isEnabled() && maxEntries <= 0 && !(offHeap && maxMemory > 0))
          throw new ConfigurationException("Eviction maxEntries value cannot be less than or equal to zero if eviction is enabled");
       if (maxEntries > 0 && !strategy.isEnabled()) {
          strategy = EvictionStrategy.LIRS;
          log.debugf("Max entries configured (%d) without eviction strategy. Eviction strategy overriden to %s", maxEntries, strategy);
       }
+      if (maxMemory > 0 && maxEntries <= 0 && !offHeap)
+         throw new ConfigurationException("Eviction maxEntries must be configured when maxMemory is set, as it caps the number of entries and sizes the data container");
+      if (maxMemory > 0 && sizeCalculator == null)
+         sizeCalculator = new DefaultEntrySizeCalculator();
    }
 
    @Override
    public EvictionConfiguration create() {
-      return new EvictionConfiguration(maxEntries, strategy, threadPolicy);
+      return new EvictionConfiguration(maxEntries, strategy, threadPolicy, maxMemory, sizeCalculator);
    }
 
    @Override
@@ -98,6 +135,8 @@ public EvictionConfigurationBuilder read(EvictionConfiguration template) {
       this.maxEntries = template.maxEntries();
       this.strategy = template.strategy();
       this.threadPolicy = template.threadPolicy();
+      this.maxMemory = template.maxMemory();
+      this.sizeCalculator = template.sizeCalculator();
 
       return this;
    }
@@ -108,6 +147,8 @@ public String toString() {
             "maxEntries=" + maxEntries +
             ", strategy=" + strategy +
             ", threadPolicy=" + threadPolicy +
+            ", maxMemory=" + maxMemory +
+            ", sizeCalculator=" + sizeCalculator +
             '}';
    }
 
@@ -32,15 +32,20 @@ public class StateTransferConfiguration {
    private int chunkSize;
    private boolean waitForInitialStateTransferToComplete;
    private Boolean originalWaitForInitialStateTransferToComplete;
+   private final int maxInFlightChunks;
+   private final boolean compressChunks;
 
    StateTransferConfiguration(boolean fetchInMemoryState, Boolean originalFetchInMemoryState, long timeout, int chunkSize,
-                              boolean waitForInitialStateTransferToComplete, Boolean originalWaitForInitialStateTransferToComplete) {
+                              boolean waitForInitialStateTransferToComplete, Boolean originalWaitForInitialStateTransferToComplete,
+                              int maxInFlightChunks, boolean compressChunks) {
       this.fetchInMemoryState = fetchInMemoryState;
       this.originalFetchInMemoryState = originalFetchInMemoryState;
       this.timeout = timeout;
       this.chunkSize = chunkSize;
       this.waitForInitialStateTransferToComplete = waitForInitialStateTransferToComplete;
       this.originalWaitForInitialStateTransferToComplete = originalWaitForInitialStateTransferToComplete;
+      this.maxInFlightChunks = maxInFlightChunks;
+      this.compressChunks = compressChunks;
    }
 
    /**
@@ -103,6 +108,21 @@ protected Boolean originalWaitForInitialStateTransferToComplete() {
       return originalWaitForInitialStateTransferToComplete;
    }
 
+   /**
+    * The maximum number of state chunks a node sends to another node without waiting for them to be applied.
+    * With the default of 1 every chunk is sent synchronously, so the sender never runs ahead of the receiver.
+    */
+   public int maxInFlightChunks() {
+      return maxInFlightChunks;
+   }
+
+   /**
+    * If {@code true}, the entries of each state chunk are compressed before being sent to the new owner.
+    */
+   public boolean compressChunks() {
+      return compressChunks;
+   }
+
    @Override
    public String toString() {
       return "StateTransferConfiguration{" +
@@ -112,6 +132,8 @@ public String toString() {
             ", timeout=" + timeout +
             ", waitForInitialStateTransferToComplete=" + waitForInitialStateTransferToComplete +
             ", originalWaitForInitialStateTransferToComplete=" + originalWaitForInitialStateTransferToComplete +
+            ", maxInFlightChunks=" + maxInFlightChunks +
+            ", compressChunks=" + compressChunks +
             '}';
    }
 
@@ -130,6 +152,8 @@ public boolean equals(Object o) {
       if (waitForInitialStateTransferToComplete != that.waitForInitialStateTransferToComplete) return false;
       if (originalWaitForInitialStateTransferToComplete != null ? !originalWaitForInitialStateTransferToComplete.equals(that.originalWaitForInitialStateTransferToComplete) : that.originalWaitForInitialStateTransferToComplete != null)
          return false;
+      if (maxInFlightChunks != that.maxInFlightChunks) return false;
+      if (compressChunks != that.compressChunks) return false;
 
       return true;
    }
@@ -142,6 +166,8 @@ public int hashCode() {
       result = 31 * result + chunkSize;
       result = 31 * result + (waitForInitialStateTransferToComplete ? 1 : 0);
       result = 31 * result + (originalWaitForInitialStateTransferToComplete != null ? originalWaitForInitialStateTransferToComplete.hashCode() : 0);
+      result = 31 * result + maxInFlightChunks;
+      result = 31 * result + (compressChunks ? 1 : 0);
       return result;
    }
 
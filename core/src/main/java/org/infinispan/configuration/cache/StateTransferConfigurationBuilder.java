@@ -41,6 +41,8 @@ public class StateTransferConfigurationBuilder extends
    private Boolean waitForInitialStateTransferToComplete = null;
    private int chunkSize = 10000;
    private long timeout = TimeUnit.MINUTES.toMillis(4);
+   private int maxInFlightChunks = 1;
+   private boolean compressChunks = false;
 
    StateTransferConfigurationBuilder(ClusteringConfigurationBuilder builder) {
       super(builder);
@@ -95,6 +97,25 @@ public StateTransferConfigurationBuilder timeout(long l, TimeUnit unit) {
       return timeout(unit.toMillis(l));
    }
 
+   /**
+    * The maximum number of state chunks a node sends to another node without waiting for them to be applied.
+    * With the default of 1 every chunk is sent synchronously, so the sender never runs ahead of the receiver.
+    * Higher values overlap the transfer of a chunk with the application of the previous ones.
+    */
+   public StateTransferConfigurationBuilder maxInFlightChunks(int i) {
+      this.maxInFlightChunks = i;
+      return this;
+   }
+
+   /**
+    * If {@code true}, the entries of each state chunk are compressed before being sent to the new owner. This trades
+    * CPU on both nodes for less network traffic and is worthwhile for large, compressible values.
+    */
+   public StateTransferConfigurationBuilder compressChunks(boolean b) {
+      this.compressChunks = b;
+      return this;
+   }
+
    @Override
    public void validate() {
       // certain combinations are illegal, such as state transfer + invalidation
@@ -105,6 +126,8 @@ public void validate() {
             && !getClusteringBuilder().cacheMode().isReplicated() && !getClusteringBuilder().cacheMode().isDistributed())
          throw new ConfigurationException(
                "waitForInitialStateTransferToComplete can be enabled only if cache mode is distributed or replicated.");
+      if (maxInFlightChunks < 1)
+         throw new ConfigurationException("maxInFlightChunks must be at least 1, was " + maxInFlightChunks);
    }
 
    @Override
@@ -134,7 +157,8 @@ public  StateTransferConfiguration create() {
          _waitForInitialStateTransferToComplete = false;
       }
       return new StateTransferConfiguration(_fetchInMemoryState, fetchInMemoryState,
-            timeout, chunkSize, _waitForInitialStateTransferToComplete, waitForInitialStateTransferToComplete);
+            timeout, chunkSize, _waitForInitialStateTransferToComplete, waitForInitialStateTransferToComplete,
+            maxInFlightChunks, compressChunks);
    }
 
    @Override
@@ -143,6 +167,8 @@ public StateTransferConfigurationBuilder read(StateTransferConfiguration templat
       this.waitForInitialStateTransferToComplete = template.originalWaitForInitialStateTransferToComplete();
       this.timeout = template.timeout();
       this.chunkSize = template.chunkSize();
+      this.maxInFlightChunks = template.maxInFlightChunks();
+      this.compressChunks = template.compressChunks();
       return this;
    }
 
@@ -153,6 +179,8 @@ public String toString() {
             ", fetchInMemoryState=" + fetchInMemoryState +
             ", waitForInitialStateTransferToComplete=" + waitForInitialStateTransferToComplete +
             ", timeout=" + timeout +
+            ", maxInFlightChunks=" + maxInFlightChunks +
+            ", compressChunks=" + compressChunks +
             '}';
    }
 
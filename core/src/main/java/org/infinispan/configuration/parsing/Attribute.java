@@ -45,6 +45,7 @@ public enum Attribute {
     CHUNK_SIZE("chunkSize"),
     CLASS("class"),
     CLUSTER_NAME("clusterName"),
+    COMPRESS_CHUNKS("compressChunks"),
     CONCURRENCY_LEVEL("concurrencyLevel"),
     DISTRIBUTED_SYNC_TIMEOUT("distributedSyncTimeout"),
     EAGER_LOCK_SINGLE_NODE("eagerLockSingleNode"),
@@ -78,6 +79,8 @@ public enum Attribute {
     MARSHALLER_CLASS("marshallerClass"),
     MAX_ENTRIES("maxEntries"),
     MAX_IDLE("maxIdle"),
+    MAX_IN_FLIGHT_CHUNKS("maxInFlightChunks"),
+    MAX_MEMORY("maxMemory"),
     MAX_NON_PROGRESSING_LOG_WRITES("maxProgressingLogWrites"),
     MBEAN_SERVER_LOOKUP("mBeanServerLookup"),
     MODE("mode"),
@@ -88,6 +91,7 @@ public enum Attribute {
     NUM_SEGMENTS("numSegments"),
     NUM_RETRIES("numRetries"),
     NUM_VIRTUAL_NODES("numVirtualNodes"),
+    OFF_HEAP("offHeap"),
     ON_REHASH("onRehash"),
     PASSIVATION("passivation"),
     POSITION("position"),
@@ -112,6 +116,8 @@ public enum Attribute {
     SHARED("shared"),
     SHUTDOWN_TIMEOUT("shutdownTimeout"),
     SITE_ID("siteId"),
+    SIZE_CALCULATOR("sizeCalculator"),
+    SLAB_SIZE("slabSize"),
     SPIN_DURATION("spinDuration"),
     STORE_KEYS_AS_BINARY("storeKeysAsBinary"),
     STORE_VALUES_AS_BINARY("storeValuesAsBinary"),
@@ -147,6 +153,9 @@ public enum Attribute {
     AFTER_FAILURES("afterFailures"),
     MIN_TIME_TO_WAIT("minTimeToWait"),
     USE_TWO_PHASE_COMMIT("useTwoPhaseCommit"),
+    BATCH_FLUSH_INTERVAL("batchFlushInterval"),
+    BATCH_MAX_ELEMENTS("batchMaxElements"),
+    BATCH_QUEUE_CAPACITY("batchQueueCapacity"),
     REAPER_WAKE_UP_INTERVAL("reaperWakeUpInterval"),
     COMPLETED_TX_TIMEOUT("completedTxTimeout");
 
@@ -41,6 +41,7 @@
 import org.infinispan.container.DataContainer;
 import org.infinispan.distribution.ch.ConsistentHashFactory;
 import org.infinispan.distribution.group.Grouper;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.executors.ExecutorFactory;
@@ -349,6 +350,15 @@ private void parseBackup(XMLExtendedStreamReader reader, ConfigurationBuilder cc
             case FAILURE_POLICY_CLASS:
                backup.failurePolicyClass(value);
                break;
+            case BATCH_FLUSH_INTERVAL:
+               backup.batchFlushInterval(Long.parseLong(value));
+               break;
+            case BATCH_MAX_ELEMENTS:
+               backup.batchMaxElements(Integer.parseInt(value));
+               break;
+            case BATCH_QUEUE_CAPACITY:
+               backup.batchQueueCapacity(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedElement(reader);
          }
@@ -1084,6 +1094,13 @@ private void parseEviction(final XMLExtendedStreamReader reader, final Configura
             case MAX_ENTRIES:
                builder.eviction().maxEntries(Integer.parseInt(value));
                break;
+            case MAX_MEMORY:
+               builder.eviction().maxMemory(Long.parseLong(value));
+               break;
+            case SIZE_CALCULATOR:
+               EntrySizeCalculator<Object, Object> sizeCalculator = Util.getInstance(value, holder.getClassLoader());
+               builder.eviction().sizeCalculator(sizeCalculator);
+               break;
             case STRATEGY:
                builder.eviction().strategy(EvictionStrategy.valueOf(value));
                break;
@@ -1135,6 +1152,12 @@ private void parseDataContainer(final XMLExtendedStreamReader reader, final Conf
             case CLASS:
                builder.dataContainer().dataContainer(Util.<DataContainer>getInstance(value, holder.getClassLoader()));
                break;
+            case OFF_HEAP:
+               builder.dataContainer().offHeap(Boolean.parseBoolean(value));
+               break;
+            case SLAB_SIZE:
+               builder.dataContainer().slabSize(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1332,6 +1355,12 @@ private void parseStateTransfer(final XMLExtendedStreamReader reader, final Conf
             case CHUNK_SIZE:
                builder.clustering().stateTransfer().chunkSize(Integer.parseInt(value));
                break;
+            case MAX_IN_FLIGHT_CHUNKS:
+               builder.clustering().stateTransfer().maxInFlightChunks(Integer.parseInt(value));
+               break;
+            case COMPRESS_CHUNKS:
+               builder.clustering().stateTransfer().compressChunks(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -27,11 +27,15 @@
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.eviction.PassivationManager;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
@@ -40,18 +44,30 @@
 import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
 import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EvictionListener;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.rhq.helpers.pluginAnnotations.agent.DataType;
+import org.rhq.helpers.pluginAnnotations.agent.DisplayType;
+import org.rhq.helpers.pluginAnnotations.agent.MeasurementType;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
+import org.rhq.helpers.pluginAnnotations.agent.Operation;
+import org.rhq.helpers.pluginAnnotations.agent.Units;
 
 import java.util.AbstractCollection;
 import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * DefaultDataContainer is both eviction and non-eviction based data container.
+ * <p/>
+ * Entries which can expire are also kept in an {@link ExpirationIndex}, so that {@link #purgeExpired()} only visits
+ * the entries which are due to expire.
  *
  *
  * @author Manik Surtani
@@ -62,6 +78,7 @@
  * @since 4.0
  */
 @ThreadSafe
+@MBean(objectName = "DataContainer", description = "Internal data structure which stores the cache entries")
 public class DefaultDataContainer implements DataContainer {
 
    final protected ConcurrentMap<Object, InternalCacheEntry> entries;
@@ -71,14 +88,36 @@ public class DefaultDataContainer implements DataContainer {
    private PassivationManager passivator;
    private ActivationManager activator;
    private CacheLoaderManager clm;
+   private final ExpirationIndex expirationIndex;
+
+   private final AtomicLong purgedEntries = new AtomicLong();
+   private final AtomicLong purges = new AtomicLong();
+   private final AtomicLong purgeTime = new AtomicLong();
+   private volatile long lastPurgeTime;
 
 
    public DefaultDataContainer(int concurrencyLevel) {
       entries = ConcurrentMapFactory.makeConcurrentMap(128, concurrencyLevel);
       evictionListener = null;
+      expirationIndex = new ExpirationIndex(concurrencyLevel);
+   }
+
+   /**
+    * Creates an unbounded container backed by the given map, for subclasses which need control over how entries are
+    * laid out.
+    */
+   protected DefaultDataContainer(ConcurrentMap<Object, InternalCacheEntry> entries, int concurrencyLevel) {
+      this.entries = entries;
+      evictionListener = null;
+      expirationIndex = new ExpirationIndex(concurrencyLevel);
    }
 
    protected DefaultDataContainer(int concurrencyLevel, int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy policy) {
+      this(concurrencyLevel, maxEntries, -1, null, strategy, policy);
+   }
+
+   protected DefaultDataContainer(int concurrencyLevel, int maxEntries, long maxMemory,
+         EntrySizeCalculator<Object, Object> sizeCalculator, EvictionStrategy strategy, EvictionThreadPolicy policy) {
       // translate eviction policy and strategy
       switch (policy) {
          case PIGGYBACK:
@@ -102,7 +141,13 @@ protected DefaultDataContainer(int concurrencyLevel, int maxEntries, EvictionStr
          default:
             throw new IllegalArgumentException("No such eviction strategy " + strategy);
       }
-      entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(maxEntries, concurrencyLevel, eviction, evictionListener);
+      if (maxMemory > 0) {
+         entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(maxEntries, maxMemory, concurrencyLevel,
+               eviction, evictionListener, new InternalEntrySizeCalculator(sizeCalculator));
+      } else {
+         entries = new BoundedConcurrentHashMap<Object, InternalCacheEntry>(maxEntries, concurrencyLevel, eviction, evictionListener);
+      }
+      expirationIndex = new ExpirationIndex(concurrencyLevel);
    }
 
    @Inject
@@ -120,6 +165,15 @@ public static DataContainer boundedDataContainer(int concurrencyLevel, int maxEn
       return new DefaultDataContainer(concurrencyLevel, maxEntries, strategy, policy);
    }
 
+   /**
+    * Creates a data container bounded both by number of entries and by the estimated memory held by its entries,
+    * as computed by the given size calculator plus the container's own per entry overhead.
+    */
+   public static DataContainer memoryBoundedDataContainer(int concurrencyLevel, int maxEntries, long maxMemory,
+         EntrySizeCalculator<Object, Object> sizeCalculator, EvictionStrategy strategy, EvictionThreadPolicy policy) {
+      return new DefaultDataContainer(concurrencyLevel, maxEntries, maxMemory, sizeCalculator, strategy, policy);
+   }
+
    public static DataContainer unBoundedDataContainer(int concurrencyLevel) {
       return new DefaultDataContainer(concurrencyLevel);
    }
@@ -136,6 +190,7 @@ public InternalCacheEntry get(Object k) {
          long currentTimeMillis = System.currentTimeMillis();
          if (e.isExpired(currentTimeMillis)) {
             entries.remove(k);
+            expirationIndex.unschedule(k, e);
             e = null;
          } else {
             e.touch(currentTimeMillis);
@@ -147,6 +202,7 @@ public InternalCacheEntry get(Object k) {
    @Override
    public void put(Object k, Object v, EntryVersion version, long lifespan, long maxIdle) {
       InternalCacheEntry e = entries.get(k);
+      boolean wasExpirable = e != null && e.canExpire();
       if (e != null) {
          e.setValue(v);
          InternalCacheEntry original = e;
@@ -161,6 +217,9 @@ public void put(Object k, Object v, EntryVersion version, long lifespan, long ma
          e = entryFactory.create(k, v, version, lifespan, maxIdle);
       }
       entries.put(k, e);
+      // immortal entries are never indexed, don't pay for the index if one replaces another
+      if (wasExpirable || e.canExpire())
+         expirationIndex.schedule(k, e);
    }
 
    @Override
@@ -168,6 +227,7 @@ public boolean containsKey(Object k) {
       InternalCacheEntry ice = peek(k);
       if (ice != null && ice.canExpire() && ice.isExpired(System.currentTimeMillis())) {
          entries.remove(k);
+         expirationIndex.unschedule(k, ice);
          ice = null;
       }
       return ice != null;
@@ -176,6 +236,8 @@ public boolean containsKey(Object k) {
    @Override
    public InternalCacheEntry remove(Object k) {
       InternalCacheEntry e = entries.remove(k);
+      if (e != null && e.canExpire())
+         expirationIndex.unschedule(k, e);
       return e == null || (e.canExpire() && e.isExpired(System.currentTimeMillis())) ? null : e;
    }
 
@@ -187,6 +249,7 @@ public int size() {
    @Override
    public void clear() {
       entries.clear();
+      expirationIndex.clear();
    }
 
    @Override
@@ -206,13 +269,14 @@ public Set<InternalCacheEntry> entrySet() {
 
    @Override
    public void purgeExpired() {
-      long currentTimeMillis = System.currentTimeMillis();
-      for (Iterator<InternalCacheEntry> purgeCandidates = entries.values().iterator(); purgeCandidates.hasNext();) {
-         InternalCacheEntry e = purgeCandidates.next();
-         if (e.isExpired(currentTimeMillis)) {
-            purgeCandidates.remove();
-         }
-      }
+      long start = System.nanoTime();
+      // only visits the entries due to expire, instead of every entry in the container
+      int purged = expirationIndex.purgeExpired(entries, System.currentTimeMillis());
+      long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      purgedEntries.addAndGet(purged);
+      purges.incrementAndGet();
+      purgeTime.addAndGet(duration);
+      lastPurgeTime = duration;
    }
 
    @Override
@@ -220,10 +284,109 @@ public Iterator<InternalCacheEntry> iterator() {
       return new EntryIterator(entries.values().iterator());
    }
 
+   @ManagedAttribute(description = "Estimated memory, in bytes, held by the entries of a memory bounded container")
+   @Metric(displayName = "Estimated memory used", displayType = DisplayType.SUMMARY)
+   public long getMemoryUsed() {
+      return isMemoryBounded() ? ((BoundedConcurrentHashMap<Object, InternalCacheEntry>) entries).getMemoryUsed() : -1;
+   }
+
+   @ManagedAttribute(description = "Maximum estimated memory, in bytes, the entries of the container may hold")
+   @Metric(displayName = "Maximum memory", dataType = DataType.TRAIT)
+   public long getMaxMemory() {
+      return isMemoryBounded() ? ((BoundedConcurrentHashMap<Object, InternalCacheEntry>) entries).getMaxMemory() : -1;
+   }
+
+   @ManagedAttribute(description = "Estimated memory, in bytes, held by the entries of each segment of a memory bounded container")
+   @Metric(displayName = "Estimated memory used per segment", dataType = DataType.TRAIT)
+   public String getSegmentMemoryUsed() {
+      if (!isMemoryBounded())
+         return "N/A";
+      return Arrays.toString(((BoundedConcurrentHashMap<Object, InternalCacheEntry>) entries).getSegmentMemoryUsed());
+   }
+
+   @ManagedAttribute(description = "Number of expired entries removed by purges of the data container")
+   @Metric(displayName = "Number of purged expired entries", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getPurgedEntries() {
+      return purgedEntries.get();
+   }
+
+   @ManagedAttribute(description = "Number of purges of expired entries of the data container")
+   @Metric(displayName = "Number of purges", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getPurges() {
+      return purges.get();
+   }
+
+   @ManagedAttribute(description = "Duration of the last purge of expired entries (in milliseconds)")
+   @Metric(displayName = "Last purge duration", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   public long getLastPurgeTime() {
+      return lastPurgeTime;
+   }
+
+   @ManagedAttribute(description = "Average duration of purges of expired entries (in milliseconds)")
+   @Metric(displayName = "Average purge duration", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   public long getAveragePurgeTime() {
+      long count = purges.get();
+      return count == 0 ? 0 : purgeTime.get() / count;
+   }
+
+   @ManagedAttribute(description = "Number of entries which can expire, and are indexed by expiry time for purging")
+   @Metric(displayName = "Number of expirable entries", displayType = DisplayType.SUMMARY)
+   public int getExpirableEntries() {
+      return expirationIndex.size();
+   }
+
+   @ManagedOperation(description = "Resets the purge statistics")
+   @Operation(displayName = "Reset purge statistics")
+   public void resetStatistics() {
+      purgedEntries.set(0);
+      purges.set(0);
+      purgeTime.set(0);
+      lastPurgeTime = 0;
+   }
+
+   private boolean isMemoryBounded() {
+      return entries instanceof BoundedConcurrentHashMap
+            && ((BoundedConcurrentHashMap<Object, InternalCacheEntry>) entries).isMemoryBounded();
+   }
+
+   /**
+    * Adds the overhead of the container's own structures to the estimate of the configured calculator: the bounded
+    * map's node and eviction bookkeeping, the {@link InternalCacheEntry} and its internal value holder, plus the
+    * expiration timestamps and version carried by the entry, if any.
+    */
+   private static final class InternalEntrySizeCalculator implements EntrySizeCalculator<Object, InternalCacheEntry> {
+
+      static final int ENTRY_OVERHEAD = 96;
+      static final int EXPIRATION_OVERHEAD = 16;
+      static final int VERSION_OVERHEAD = 24;
+
+      private final EntrySizeCalculator<Object, Object> calculator;
+
+      InternalEntrySizeCalculator(EntrySizeCalculator<Object, Object> calculator) {
+         this.calculator = calculator;
+      }
+
+      @Override
+      public long calculateSize(Object key, InternalCacheEntry entry) {
+         long size = ENTRY_OVERHEAD + calculator.calculateSize(key, entry.getValue());
+         if (entry.getLifespan() > -1)
+            size += EXPIRATION_OVERHEAD;
+         if (entry.getMaxIdle() > -1)
+            size += EXPIRATION_OVERHEAD;
+         if (entry.getVersion() != null)
+            size += VERSION_OVERHEAD;
+         return size;
+      }
+   }
+
    private final class DefaultEvictionListener implements EvictionListener<Object, InternalCacheEntry> {
 
       @Override
       public void onEntryEviction(Map<Object, InternalCacheEntry> evicted) {
+         for (Map.Entry<Object, InternalCacheEntry> e : evicted.entrySet()) {
+            if (e.getValue().canExpire())
+               expirationIndex.unschedule(e.getKey(), e.getValue());
+         }
          evictionManager.onEntryEviction(evicted);
       }
 
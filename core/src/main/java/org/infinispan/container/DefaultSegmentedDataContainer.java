@@ -0,0 +1,248 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.hash.Hash;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.group.GroupManager;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An unbounded {@link SegmentedDataContainer}, with one map per segment.
+ * <p/>
+ * All the regular {@link DataContainer} operations, including expiration, behave as in {@link DefaultDataContainer};
+ * only operations on the whole container ({@link #size()}, iteration) have to visit every segment map.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class DefaultSegmentedDataContainer extends DefaultDataContainer implements SegmentedDataContainer {
+
+   private final SegmentedMap segmentedEntries;
+
+   public DefaultSegmentedDataContainer(int concurrencyLevel, int numSegments, Hash hashFunction) {
+      this(new SegmentedMap(concurrencyLevel, numSegments, hashFunction), concurrencyLevel);
+   }
+
+   private DefaultSegmentedDataContainer(SegmentedMap segmentedEntries, int concurrencyLevel) {
+      super(segmentedEntries, concurrencyLevel);
+      this.segmentedEntries = segmentedEntries;
+   }
+
+   @Inject
+   public void injectGroupManager(GroupManager groupManager) {
+      segmentedEntries.groupManager = groupManager;
+   }
+
+   @Override
+   public int getNumSegments() {
+      return segmentedEntries.segments.length;
+   }
+
+   @Override
+   public int getSegment(Object key) {
+      return segmentedEntries.getSegment(key);
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> segmentIterator(int segment) {
+      return new EntryIterator(segmentedEntries.segments[segment].values().iterator());
+   }
+
+   @Override
+   public int segmentSize(int segment) {
+      return segmentedEntries.segments[segment].size();
+   }
+
+   @Override
+   public void clearSegment(int segment) {
+      // remove() keeps the expiration index up to date
+      for (Object key : segmentedEntries.segments[segment].keySet()) {
+         remove(key);
+      }
+   }
+
+   /**
+    * Routes each key to the map of its segment. Segments are computed as in
+    * {@link org.infinispan.distribution.ch.DefaultConsistentHash#getSegment(Object)}, with the group of the key taking
+    * the place of the key when grouping is enabled, as in
+    * {@link org.infinispan.distribution.group.GroupingConsistentHash}.
+    */
+   private static final class SegmentedMap extends AbstractMap<Object, InternalCacheEntry>
+         implements ConcurrentMap<Object, InternalCacheEntry> {
+
+      final ConcurrentMap<Object, InternalCacheEntry>[] segments;
+      final Hash hashFunction;
+      final int segmentSize;
+      volatile GroupManager groupManager;
+
+      @SuppressWarnings("unchecked")
+      SegmentedMap(int concurrencyLevel, int numSegments, Hash hashFunction) {
+         if (numSegments <= 0)
+            throw new IllegalArgumentException("The number of segments must be strictly positive");
+         this.hashFunction = hashFunction;
+         this.segmentSize = (int) Math.ceil((double) Integer.MAX_VALUE / numSegments);
+         // the concurrency of the container is shared among its segments
+         int segmentConcurrency = Math.max(1, concurrencyLevel / numSegments);
+         segments = new ConcurrentMap[numSegments];
+         for (int i = 0; i < numSegments; i++) {
+            segments[i] = ConcurrentMapFactory.makeConcurrentMap(16, segmentConcurrency);
+         }
+      }
+
+      int getSegment(Object key) {
+         GroupManager gm = groupManager;
+         if (gm != null) {
+            String group = gm.getGroup(key);
+            if (group != null)
+               key = group;
+         }
+         return (hashFunction.hash(key) & Integer.MAX_VALUE) / segmentSize;
+      }
+
+      private ConcurrentMap<Object, InternalCacheEntry> segmentFor(Object key) {
+         return segments[getSegment(key)];
+      }
+
+      @Override
+      public InternalCacheEntry get(Object key) {
+         return segmentFor(key).get(key);
+      }
+
+      @Override
+      public boolean containsKey(Object key) {
+         return segmentFor(key).containsKey(key);
+      }
+
+      @Override
+      public InternalCacheEntry put(Object key, InternalCacheEntry value) {
+         return segmentFor(key).put(key, value);
+      }
+
+      @Override
+      public InternalCacheEntry remove(Object key) {
+         return segmentFor(key).remove(key);
+      }
+
+      @Override
+      public InternalCacheEntry putIfAbsent(Object key, InternalCacheEntry value) {
+         return segmentFor(key).putIfAbsent(key, value);
+      }
+
+      @Override
+      public boolean remove(Object key, Object value) {
+         return segmentFor(key).remove(key, value);
+      }
+
+      @Override
+      public boolean replace(Object key, InternalCacheEntry oldValue, InternalCacheEntry newValue) {
+         return segmentFor(key).replace(key, oldValue, newValue);
+      }
+
+      @Override
+      public InternalCacheEntry replace(Object key, InternalCacheEntry value) {
+         return segmentFor(key).replace(key, value);
+      }
+
+      @Override
+      public int size() {
+         long size = 0;
+         for (ConcurrentMap<Object, InternalCacheEntry> segment : segments) {
+            size += segment.size();
+         }
+         return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+      }
+
+      @Override
+      public boolean isEmpty() {
+         for (ConcurrentMap<Object, InternalCacheEntry> segment : segments) {
+            if (!segment.isEmpty())
+               return false;
+         }
+         return true;
+      }
+
+      @Override
+      public void clear() {
+         for (ConcurrentMap<Object, InternalCacheEntry> segment : segments) {
+            segment.clear();
+         }
+      }
+
+      @Override
+      public Set<Entry<Object, InternalCacheEntry>> entrySet() {
+         return new AbstractSet<Entry<Object, InternalCacheEntry>>() {
+            @Override
+            public Iterator<Entry<Object, InternalCacheEntry>> iterator() {
+               return new SegmentsIterator();
+            }
+
+            @Override
+            public int size() {
+               return SegmentedMap.this.size();
+            }
+         };
+      }
+
+      /**
+       * Chains the entry set iterators of all the segments.
+       */
+      private final class SegmentsIterator implements Iterator<Entry<Object, InternalCacheEntry>> {
+         int nextSegment;
+         Iterator<Entry<Object, InternalCacheEntry>> current;
+
+         @Override
+         public boolean hasNext() {
+            while (current == null || !current.hasNext()) {
+               if (nextSegment == segments.length)
+                  return false;
+               current = segments[nextSegment++].entrySet().iterator();
+            }
+            return true;
+         }
+
+         @Override
+         public Entry<Object, InternalCacheEntry> next() {
+            if (!hasNext())
+               throw new NoSuchElementException();
+            return current.next();
+         }
+
+         @Override
+         public void remove() {
+            if (current == null)
+               throw new IllegalStateException();
+            current.remove();
+         }
+      }
+   }
+}
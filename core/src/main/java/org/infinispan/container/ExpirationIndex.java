@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.container.entries.InternalCacheEntry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Index of the entries of a {@link DefaultDataContainer} which can expire, ordered by expiry time, so that purging
+ * expired entries only visits entries which are due instead of scanning the whole container.
+ * <p/>
+ * The index is split in segments by key hash, each holding a queue of entries ordered by the time they were
+ * scheduled for, plus a key lookup so that an entry can be rescheduled or unscheduled when it is updated or removed.
+ * Only the expiry time at the time an entry is written is indexed: transient entries which are touched after that
+ * are found due too early, and are simply rescheduled by {@link #purgeExpired(Map, long)} at their current expiry
+ * time. Writes to a given key are expected to be serialized by the caller, like the rest of the data container
+ * expects.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+final class ExpirationIndex {
+
+   private final Segment[] segments;
+   private final int segmentMask;
+
+   ExpirationIndex(int concurrencyLevel) {
+      int size = 1;
+      while (size < concurrencyLevel)
+         size <<= 1;
+      segments = new Segment[size];
+      for (int i = 0; i < size; i++)
+         segments[i] = new Segment();
+      segmentMask = size - 1;
+   }
+
+   /**
+    * Indexes an entry just written to the container, replacing any previous entry indexed for the same key.
+    */
+   void schedule(Object key, InternalCacheEntry entry) {
+      Segment s = segmentFor(key);
+      s.lock();
+      try {
+         s.unschedule(key, null);
+         if (entry.canExpire())
+            s.schedule(key, entry);
+      } finally {
+         s.unlock();
+      }
+   }
+
+   /**
+    * Removes an entry from the index, provided that it is still the one indexed for its key.
+    */
+   void unschedule(Object key, InternalCacheEntry entry) {
+      Segment s = segmentFor(key);
+      s.lock();
+      try {
+         s.unschedule(key, entry);
+      } finally {
+         s.unlock();
+      }
+   }
+
+   /**
+    * Removes from the given entries the indexed ones which are expired at the given time, visiting only the entries
+    * scheduled to expire by then.
+    *
+    * @return the number of entries removed
+    */
+   int purgeExpired(Map<Object, InternalCacheEntry> entries, long currentTimeMillis) {
+      int purged = 0;
+      List<Node> due = new ArrayList<Node>();
+      for (Segment s : segments) {
+         // only hold the segment lock while collecting due entries, the container is updated outside of it
+         s.lock();
+         try {
+            s.pollDue(currentTimeMillis, due);
+         } finally {
+            s.unlock();
+         }
+         for (Node n : due) {
+            InternalCacheEntry current = entries.get(n.key);
+            if (current != n.entry) {
+               // updated or removed in the meantime, any new entry has been indexed on its own
+               continue;
+            }
+            if (current.isExpired(currentTimeMillis)) {
+               if (entries.remove(n.key, current))
+                  purged++;
+            } else {
+               // touched since it was scheduled
+               s.lock();
+               try {
+                  if (!s.nodes.containsKey(n.key) && current.canExpire())
+                     s.schedule(n.key, current);
+               } finally {
+                  s.unlock();
+               }
+            }
+         }
+         due.clear();
+      }
+      return purged;
+   }
+
+   int size() {
+      int size = 0;
+      for (Segment s : segments) {
+         s.lock();
+         try {
+            size += s.nodes.size();
+         } finally {
+            s.unlock();
+         }
+      }
+      return size;
+   }
+
+   void clear() {
+      for (Segment s : segments) {
+         s.lock();
+         try {
+            s.nodes.clear();
+            s.queue.clear();
+         } finally {
+            s.unlock();
+         }
+      }
+   }
+
+   private Segment segmentFor(Object key) {
+      int h = key.hashCode();
+      // spread the high bits, as the segment is picked with the low ones
+      h ^= (h >>> 20) ^ (h >>> 12);
+      h ^= (h >>> 7) ^ (h >>> 4);
+      return segments[h & segmentMask];
+   }
+
+   private static final class Node implements Comparable<Node> {
+      final Object key;
+      final InternalCacheEntry entry;
+      final long expiryTime;
+      final long sequence;
+
+      Node(Object key, InternalCacheEntry entry, long expiryTime, long sequence) {
+         this.key = key;
+         this.entry = entry;
+         this.expiryTime = expiryTime;
+         this.sequence = sequence;
+      }
+
+      @Override
+      public int compareTo(Node other) {
+         if (expiryTime != other.expiryTime)
+            return expiryTime < other.expiryTime ? -1 : 1;
+         return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+      }
+   }
+
+   /**
+    * Entries scheduled for expiry, ordered by expiry time and then by insertion order. All methods must be called
+    * holding the lock.
+    */
+   private static final class Segment extends ReentrantLock {
+
+      private static final long serialVersionUID = 6093786472869519839L;
+
+      final TreeSet<Node> queue = new TreeSet<Node>();
+      final Map<Object, Node> nodes = new HashMap<Object, Node>();
+      long sequence;
+
+      void schedule(Object key, InternalCacheEntry entry) {
+         Node n = new Node(key, entry, entry.getExpiryTime(), sequence++);
+         nodes.put(key, n);
+         queue.add(n);
+      }
+
+      /**
+       * @param entry only unschedule the key if it is indexed for this entry, or null to unschedule it anyway
+       */
+      void unschedule(Object key, InternalCacheEntry entry) {
+         Node n = nodes.get(key);
+         if (n != null && (entry == null || n.entry == entry)) {
+            nodes.remove(key);
+            queue.remove(n);
+         }
+      }
+
+      void pollDue(long currentTimeMillis, List<Node> due) {
+         while (!queue.isEmpty() && queue.first().expiryTime <= currentTimeMillis) {
+            Node n = queue.pollFirst();
+            nodes.remove(n.key);
+            due.add(n);
+         }
+      }
+   }
+}
@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+
+import java.util.Iterator;
+
+/**
+ * A {@link DataContainer} which keeps the entries of each consistent hash segment apart, so that the entries of a
+ * single segment can be iterated, counted or removed in time proportional to the size of that segment instead of the
+ * size of the whole container.
+ * <p/>
+ * Segments are numbered as in {@link org.infinispan.distribution.ch.DefaultConsistentHash}, using the cache's
+ * configured hash function, number of segments and key grouping.  Callers should only rely on the segment methods when
+ * {@link #getNumSegments()} matches the number of segments of the consistent hash they work with.
+ *
+ * @since 5.2
+ */
+public interface SegmentedDataContainer extends DataContainer {
+
+   /**
+    * @return the number of segments the entries are spread over
+    */
+   int getNumSegments();
+
+   /**
+    * @return the segment to which the entry mapped to this key belongs
+    */
+   int getSegment(Object key);
+
+   /**
+    * Iterates over the entries of a single segment. Like {@link #iterator()}, the iterator is weakly consistent and
+    * does not support removal.
+    */
+   Iterator<InternalCacheEntry> segmentIterator(int segment);
+
+   /**
+    * @return the number of entries in the given segment
+    */
+   int segmentSize(int segment);
+
+   /**
+    * Removes all the entries of the given segment from the container. Nothing is passivated, written to or removed from
+    * a cache store, and no notifications are sent.
+    */
+   void clearSegment(int segment);
+}
@@ -0,0 +1,861 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.CacheException;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.io.ByteBuffer;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.loaders.CacheStore;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.util.Immutables;
+import org.rhq.helpers.pluginAnnotations.agent.DataType;
+import org.rhq.helpers.pluginAnnotations.agent.DisplayType;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+
+/**
+ * A {@link DataContainer} which keeps keys, values, versions and expiration metadata serialized in direct memory,
+ * outside of the Java heap.
+ * <p/>
+ * The container is split into segments, each guarded by a lock and owning a {@link SlabAllocator} and an off-heap
+ * hash index: a table of entry addresses, with colliding entries chained through a pointer stored in each entry.
+ * Apart from the segments themselves, nothing is kept on the heap for a stored entry. Entries are marshalled with
+ * the cache's {@link StreamingMarshaller} on write and unmarshalled into a fresh {@link InternalCacheEntry} on every
+ * read, so values handed out by this container are copies: they must be written back to the cache to be updated.
+ * Keys are looked up by their {@link Object#hashCode()}, comparing serialized forms first and falling back to
+ * {@link Object#equals(Object)} on the unmarshalled stored key, so they must be marshallable but need not have a
+ * canonical serialized form.
+ * <p/>
+ * When bounded, either by number of entries or by the amount of direct memory held by entries, each segment keeps
+ * its entries on an off-heap LRU list and evicts from its tail, passivating evicted entries if needed. The eviction
+ * strategy configured for the cache is not taken into account.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+@MBean(objectName = "DataContainer", description = "Internal data structure which stores the cache entries in off-heap memory")
+public class OffHeapDataContainer implements DataContainer {
+
+   public static final int DEFAULT_SLAB_SIZE = 4 * 1024 * 1024;
+
+   static final long NULL = SlabAllocator.NULL;
+
+   /*
+    * Entry layout. Addresses are those handed out by SlabAllocator, timestamps and durations are in milliseconds
+    * with -1 meaning not set, and the version length is 0 for unversioned entries.
+    */
+   private static final int NEXT = 0;
+   private static final int LRU_PREVIOUS = 8;
+   private static final int LRU_NEXT = 16;
+   private static final int HASH = 24;
+   private static final int KEY_LENGTH = 28;
+   private static final int VERSION_LENGTH = 32;
+   private static final int VALUE_LENGTH = 36;
+   private static final int CREATED = 40;
+   private static final int LIFESPAN = 48;
+   private static final int LAST_USED = 56;
+   private static final int MAX_IDLE = 64;
+   private static final int HEADER_SIZE = 72;
+
+   private static final int INITIAL_BUCKETS = 64;
+   private static final int MAX_BUCKETS = 1 << 27;
+   private static final float LOAD_FACTOR = 0.75f;
+   private static final int MAX_SEGMENTS = 1 << 16;
+   private static final int ITERATION_BATCH_SIZE = 128;
+
+   private final Segment[] segments;
+   private final int segmentShift;
+   private final int segmentMask;
+   private final int maxEntriesPerSegment;
+   private final long maxMemoryPerSegment;
+   private final boolean bounded;
+
+   private StreamingMarshaller marshaller;
+   private InternalEntryFactory entryFactory;
+   private EvictionManager evictionManager;
+   private PassivationManager passivator;
+   private ActivationManager activator;
+   private CacheLoaderManager clm;
+
+   /**
+    * Creates an unbounded off-heap container.
+    */
+   public OffHeapDataContainer(int concurrencyLevel) {
+      this(concurrencyLevel, -1, -1, DEFAULT_SLAB_SIZE);
+   }
+
+   /**
+    * Creates an off-heap container.
+    *
+    * @param concurrencyLevel expected number of concurrently updating threads, used to size the number of segments
+    * @param maxEntries       maximum number of entries, or a value less than or equal to zero for no limit
+    * @param maxMemory        maximum number of bytes of direct memory held by entries, including allocation
+    *                         rounding, or a value less than or equal to zero for no limit
+    * @param slabSize         size of the direct buffers memory is allocated from
+    */
+   public OffHeapDataContainer(int concurrencyLevel, int maxEntries, long maxMemory, int slabSize) {
+      if (concurrencyLevel <= 0)
+         throw new IllegalArgumentException("Concurrency level must be positive");
+      int level = Math.min(concurrencyLevel, MAX_SEGMENTS);
+      if (maxEntries > 0)
+         level = Math.max(1, Math.min(level, maxEntries / 2));
+      int shift = 0;
+      int size = 1;
+      while (size < level) {
+         ++shift;
+         size <<= 1;
+      }
+      segmentShift = 32 - shift;
+      segmentMask = size - 1;
+      segments = new Segment[size];
+      for (int i = 0; i < size; i++)
+         segments[i] = new Segment(slabSize);
+
+      maxEntriesPerSegment = maxEntries > 0 ? Math.max(1, maxEntries / size) : -1;
+      maxMemoryPerSegment = maxMemory > 0 ? Math.max(1, maxMemory / size) : -1;
+      bounded = maxEntriesPerSegment > 0 || maxMemoryPerSegment > 0;
+   }
+
+   @Inject
+   public void initialize(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller,
+         InternalEntryFactory entryFactory, EvictionManager evictionManager, PassivationManager passivator,
+         ActivationManager activator, CacheLoaderManager clm) {
+      this.marshaller = marshaller;
+      this.entryFactory = entryFactory;
+      this.evictionManager = evictionManager;
+      this.passivator = passivator;
+      this.activator = activator;
+      this.clm = clm;
+   }
+
+   @Override
+   public InternalCacheEntry get(Object k) {
+      return lookup(k, true);
+   }
+
+   @Override
+   public InternalCacheEntry peek(Object k) {
+      return lookup(k, false);
+   }
+
+   private InternalCacheEntry lookup(Object k, boolean touch) {
+      ByteBuffer key = marshall(k);
+      int hash = hash(k.hashCode());
+      Segment s = segmentFor(hash);
+      byte[] entry;
+      s.lock();
+      try {
+         long address = s.find(hash, key, k);
+         if (address == NULL)
+            return null;
+         if (touch) {
+            long now = System.currentTimeMillis();
+            if (s.isExpired(address, now)) {
+               s.removeEntry(address);
+               return null;
+            }
+            if (s.getLong(address, MAX_IDLE) > -1)
+               s.putLong(address, LAST_USED, now);
+            if (bounded)
+               s.moveToLruHead(address);
+         }
+         entry = s.copyEntry(address, false);
+      } finally {
+         s.unlock();
+      }
+      return toInternalCacheEntry(entry, k);
+   }
+
+   @Override
+   public void put(Object k, Object v, EntryVersion version, long lifespan, long maxIdle) {
+      ByteBuffer key = marshall(k);
+      ByteBuffer value = marshall(v);
+      ByteBuffer ver = version == null ? null : marshall(version);
+      int hash = hash(k.hashCode());
+      Segment s = segmentFor(hash);
+      Map<Object, InternalCacheEntry> evicted = null;
+      long now = System.currentTimeMillis();
+      s.lock();
+      try {
+         long address = s.find(hash, key, k);
+         int size = HEADER_SIZE + key.getLength() + (ver == null ? 0 : ver.getLength()) + value.getLength();
+         if (address != NULL && s.memory.fits(s.entrySize(address), size)) {
+            // same size class, so overwrite the block in place keeping its hash chain link
+            s.writeEntry(address, hash, key, ver, value, now, lifespan, now, maxIdle);
+            if (bounded)
+               s.moveToLruHead(address);
+         } else {
+            if (address != NULL) {
+               s.removeEntry(address);
+            } else if (bounded) {
+               // same as the bounded DefaultDataContainer, an entry absent from memory may have been passivated
+               activator.activate(k);
+            }
+            address = s.memory.allocate(size);
+            s.writeEntry(address, hash, key, ver, value, now, lifespan, now, maxIdle);
+            s.link(address, hash);
+         }
+         if (bounded)
+            evicted = s.evictIfNeeded(address);
+      } finally {
+         s.unlock();
+      }
+      if (evicted != null)
+         evictionManager.onEntryEviction(evicted);
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      ByteBuffer key = marshall(k);
+      int hash = hash(k.hashCode());
+      Segment s = segmentFor(hash);
+      s.lock();
+      try {
+         long address = s.find(hash, key, k);
+         if (address != NULL && s.isExpired(address, System.currentTimeMillis())) {
+            s.removeEntry(address);
+            address = NULL;
+         }
+         return address != NULL;
+      } finally {
+         s.unlock();
+      }
+   }
+
+   @Override
+   public InternalCacheEntry remove(Object k) {
+      ByteBuffer key = marshall(k);
+      int hash = hash(k.hashCode());
+      Segment s = segmentFor(hash);
+      byte[] entry = null;
+      s.lock();
+      try {
+         long address = s.find(hash, key, k);
+         if (address != NULL) {
+            if (!s.isExpired(address, System.currentTimeMillis()))
+               entry = s.copyEntry(address, false);
+            s.removeEntry(address);
+         }
+         if (bounded) {
+            // same as the bounded DefaultDataContainer, removing an entry removes it from the cache store as well
+            removeFromCacheStore(k);
+         }
+      } finally {
+         s.unlock();
+      }
+      return entry == null ? null : toInternalCacheEntry(entry, k);
+   }
+
+   @Override
+   public int size() {
+      int size = 0;
+      for (Segment s : segments)
+         size += s.count;
+      return size;
+   }
+
+   @Override
+   public void clear() {
+      for (Segment s : segments) {
+         s.lock();
+         try {
+            s.clear();
+         } finally {
+            s.unlock();
+         }
+      }
+   }
+
+   @Override
+   public Set<Object> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<Object> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void purgeExpired() {
+      long now = System.currentTimeMillis();
+      for (Segment s : segments) {
+         int bucket = 0;
+         boolean more = true;
+         while (more) {
+            // scan in batches of buckets so that writers are not locked out for the whole segment scan
+            s.lock();
+            try {
+               int end = Math.min(bucket + ITERATION_BATCH_SIZE, s.bucketCount);
+               for (; bucket < end; bucket++) {
+                  long address = s.bucket(bucket);
+                  while (address != NULL) {
+                     long next = s.getLong(address, NEXT);
+                     if (s.isExpired(address, now))
+                        s.removeEntry(address);
+                     address = next;
+                  }
+               }
+               more = bucket < s.bucketCount;
+            } finally {
+               s.unlock();
+            }
+         }
+      }
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry> iterator() {
+      return new EntryIterator(false);
+   }
+
+   @ManagedAttribute(description = "Number of bytes of off-heap memory held by entries, including allocation rounding")
+   @Metric(displayName = "Off-heap memory used", displayType = DisplayType.SUMMARY)
+   public long getMemoryUsed() {
+      long used = 0;
+      for (Segment s : segments)
+         used += s.memoryUsed;
+      return used;
+   }
+
+   @ManagedAttribute(description = "Number of bytes of off-heap memory reserved by the container, including free space")
+   @Metric(displayName = "Off-heap memory reserved", displayType = DisplayType.SUMMARY)
+   public long getMemoryReserved() {
+      long reserved = 0;
+      for (Segment s : segments)
+         reserved += s.memoryReserved;
+      return reserved;
+   }
+
+   @ManagedAttribute(description = "Maximum number of bytes of off-heap memory entries may hold")
+   @Metric(displayName = "Maximum off-heap memory", dataType = DataType.TRAIT)
+   public long getMaxMemory() {
+      return maxMemoryPerSegment > 0 ? maxMemoryPerSegment * segments.length : -1;
+   }
+
+   private Segment segmentFor(int hash) {
+      return segments[(hash >>> segmentShift) & segmentMask];
+   }
+
+   /**
+    * Same supplemental hash function as {@link org.infinispan.util.concurrent.BoundedConcurrentHashMap}.
+    */
+   private static int hash(int h) {
+      h += h <<  15 ^ 0xffffcd7d;
+      h ^= h >>> 10;
+      h += h <<   3;
+      h ^= h >>>  6;
+      h += (h <<   2) + (h << 14);
+      return h ^ h >>> 16;
+   }
+
+   private ByteBuffer marshall(Object o) {
+      try {
+         return marshaller.objectToBuffer(o);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while marshalling " + o, e);
+      } catch (Exception e) {
+         throw new CacheException("Unable to marshall " + o + " for off-heap storage", e);
+      }
+   }
+
+   private Object unmarshall(byte[] buf, int offset, int length) {
+      try {
+         return marshaller.objectFromByteBuffer(buf, offset, length);
+      } catch (Exception e) {
+         throw new CacheException("Unable to unmarshall entry stored off-heap", e);
+      }
+   }
+
+   /**
+    * Builds an entry out of a copy obtained through {@link Segment#copyEntry(long, boolean)}.
+    *
+    * @param key the key of the entry if known, otherwise it is unmarshalled from the copy
+    */
+   private InternalCacheEntry toInternalCacheEntry(byte[] entry, Object key) {
+      int keyLength = readInt(entry, KEY_LENGTH);
+      int versionLength = readInt(entry, VERSION_LENGTH);
+      int valueLength = readInt(entry, VALUE_LENGTH);
+      if (key == null)
+         key = unmarshall(entry, HEADER_SIZE, keyLength);
+      EntryVersion version = versionLength == 0 ? null
+            : (EntryVersion) unmarshall(entry, HEADER_SIZE + keyLength, versionLength);
+      Object value = unmarshall(entry, HEADER_SIZE + keyLength + versionLength, valueLength);
+      return entryFactory.create(key, value, version, readLong(entry, CREATED), readLong(entry, LIFESPAN),
+            readLong(entry, LAST_USED), readLong(entry, MAX_IDLE));
+   }
+
+   private void removeFromCacheStore(Object key) {
+      try {
+         CacheStore cacheStore = clm.getCacheStore();
+         if (cacheStore != null)
+            cacheStore.remove(key);
+      } catch (CacheLoaderException e) {
+         throw new CacheException(e);
+      }
+   }
+
+   private static int readInt(byte[] b, int offset) {
+      return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16) | ((b[offset + 2] & 0xFF) << 8)
+            | (b[offset + 3] & 0xFF);
+   }
+
+   private static long readLong(byte[] b, int offset) {
+      return ((long) readInt(b, offset) << 32) | (readInt(b, offset + 4) & 0xFFFFFFFFL);
+   }
+
+   private static boolean isExpired(long created, long lifespan, long lastUsed, long maxIdle, long now) {
+      return (lifespan > -1 && created > -1 && now > created + lifespan)
+            || (maxIdle > -1 && lastUsed > -1 && now > maxIdle + lastUsed);
+   }
+
+   /**
+    * A lock protecting an allocator, an off-heap hash index over the entries allocated from it and, when the
+    * container is bounded, an off-heap LRU list of those entries. All methods must be called holding the lock.
+    */
+   private final class Segment extends ReentrantLock {
+
+      private static final long serialVersionUID = -1574423262962227395L;
+
+      final SlabAllocator memory;
+      java.nio.ByteBuffer buckets;
+      int bucketCount;
+      volatile int count;
+      volatile long memoryUsed;
+      volatile long memoryReserved;
+      long lruHead = NULL;
+      long lruTail = NULL;
+
+      Segment(int slabSize) {
+         memory = new SlabAllocator(slabSize);
+         bucketCount = INITIAL_BUCKETS;
+         buckets = java.nio.ByteBuffer.allocateDirect(INITIAL_BUCKETS * 8);
+      }
+
+      long bucket(int index) {
+         return buckets.getLong(index * 8);
+      }
+
+      long getLong(long address, int field) {
+         return memory.buffer(address).getLong(SlabAllocator.offset(address) + field);
+      }
+
+      void putLong(long address, int field, long value) {
+         memory.buffer(address).putLong(SlabAllocator.offset(address) + field, value);
+      }
+
+      int getInt(long address, int field) {
+         return memory.buffer(address).getInt(SlabAllocator.offset(address) + field);
+      }
+
+      int entrySize(long address) {
+         return HEADER_SIZE + getInt(address, KEY_LENGTH) + getInt(address, VERSION_LENGTH)
+               + getInt(address, VALUE_LENGTH);
+      }
+
+      boolean isExpired(long address, long now) {
+         return OffHeapDataContainer.isExpired(getLong(address, CREATED), getLong(address, LIFESPAN),
+               getLong(address, LAST_USED), getLong(address, MAX_IDLE), now);
+      }
+
+      long find(int hash, ByteBuffer key, Object k) {
+         long address = bucket(hash & (bucketCount - 1));
+         while (address != NULL) {
+            if (getInt(address, HASH) == hash && keyEquals(address, key, k))
+               return address;
+            address = getLong(address, NEXT);
+         }
+         return NULL;
+      }
+
+      private boolean keyEquals(long address, ByteBuffer key, Object k) {
+         int length = getInt(address, KEY_LENGTH);
+         java.nio.ByteBuffer b = memory.buffer(address);
+         int offset = SlabAllocator.offset(address) + HEADER_SIZE;
+         if (length == key.getLength()) {
+            byte[] buf = key.getBuf();
+            int keyOffset = key.getOffset();
+            boolean same = true;
+            for (int i = 0; i < length && same; i++)
+               same = b.get(offset + i) == buf[keyOffset + i];
+            if (same)
+               return true;
+         }
+         // same hash code, different serialized form: let the key decide
+         byte[] stored = new byte[length];
+         b.position(offset);
+         b.get(stored);
+         return k.equals(unmarshall(stored, 0, length));
+      }
+
+      void writeEntry(long address, int hash, ByteBuffer key, ByteBuffer version, ByteBuffer value, long created,
+            long lifespan, long lastUsed, long maxIdle) {
+         java.nio.ByteBuffer b = memory.buffer(address);
+         int offset = SlabAllocator.offset(address);
+         b.putInt(offset + HASH, hash);
+         b.putInt(offset + KEY_LENGTH, key.getLength());
+         b.putInt(offset + VERSION_LENGTH, version == null ? 0 : version.getLength());
+         b.putInt(offset + VALUE_LENGTH, value.getLength());
+         b.putLong(offset + CREATED, created);
+         b.putLong(offset + LIFESPAN, lifespan);
+         b.putLong(offset + LAST_USED, lastUsed);
+         b.putLong(offset + MAX_IDLE, maxIdle);
+         b.position(offset + HEADER_SIZE);
+         b.put(key.getBuf(), key.getOffset(), key.getLength());
+         if (version != null)
+            b.put(version.getBuf(), version.getOffset(), version.getLength());
+         b.put(value.getBuf(), value.getOffset(), value.getLength());
+         memoryUsed = memory.getAllocatedBytes();
+      }
+
+      /**
+       * Copies an entry, or only its header and key, to the heap.
+       */
+      byte[] copyEntry(long address, boolean keyOnly) {
+         int size = keyOnly ? HEADER_SIZE + getInt(address, KEY_LENGTH) : entrySize(address);
+         byte[] copy = new byte[size];
+         java.nio.ByteBuffer b = memory.buffer(address);
+         b.position(SlabAllocator.offset(address));
+         b.get(copy);
+         return copy;
+      }
+
+      /**
+       * Adds a freshly written entry to the hash index, and to the head of the LRU list if bounded.
+       */
+      void link(long address, int hash) {
+         int index = hash & (bucketCount - 1);
+         putLong(address, NEXT, bucket(index));
+         buckets.putLong(index * 8, address);
+         if (bounded) {
+            putLong(address, LRU_PREVIOUS, NULL);
+            putLong(address, LRU_NEXT, NULL);
+            linkAtLruHead(address);
+         }
+         count++;
+         memoryUsed = memory.getAllocatedBytes();
+         memoryReserved = memory.getReservedBytes();
+         if (count > bucketCount * LOAD_FACTOR && bucketCount < MAX_BUCKETS)
+            rehash();
+      }
+
+      /**
+       * Unlinks an entry from the hash index and the LRU list, and frees its memory.
+       */
+      void removeEntry(long address) {
+         int index = getInt(address, HASH) & (bucketCount - 1);
+         long next = getLong(address, NEXT);
+         long current = bucket(index);
+         if (current == address) {
+            buckets.putLong(index * 8, next);
+         } else {
+            while (current != NULL) {
+               long following = getLong(current, NEXT);
+               if (following == address) {
+                  putLong(current, NEXT, next);
+                  break;
+               }
+               current = following;
+            }
+         }
+         if (bounded)
+            unlinkFromLru(address);
+         memory.free(address, entrySize(address));
+         count--;
+         memoryUsed = memory.getAllocatedBytes();
+         memoryReserved = memory.getReservedBytes();
+      }
+
+      void moveToLruHead(long address) {
+         if (lruHead != address) {
+            unlinkFromLru(address);
+            linkAtLruHead(address);
+         }
+      }
+
+      /**
+       * Evicts least recently used entries, other than the given one, while the segment is over its limits.
+       *
+       * @return evicted entries, or null if none was evicted
+       */
+      Map<Object, InternalCacheEntry> evictIfNeeded(long keep) {
+         Map<Object, InternalCacheEntry> evicted = null;
+         while (count > 1 && isOverLimit()) {
+            long victim = lruTail;
+            if (victim == NULL || victim == keep)
+               break;
+            InternalCacheEntry entry = toInternalCacheEntry(copyEntry(victim, false), null);
+            // passivate before removing, so that a concurrent read either finds the entry in memory or in the store
+            passivator.passivate(entry);
+            removeEntry(victim);
+            if (evicted == null)
+               evicted = new HashMap<Object, InternalCacheEntry>();
+            evicted.put(entry.getKey(), entry);
+         }
+         return evicted;
+      }
+
+      void clear() {
+         memory.clear();
+         for (int i = 0; i < bucketCount; i++)
+            buckets.putLong(i * 8, NULL);
+         lruHead = lruTail = NULL;
+         count = 0;
+         memoryUsed = memory.getAllocatedBytes();
+         memoryReserved = memory.getReservedBytes();
+      }
+
+      private boolean isOverLimit() {
+         return (maxEntriesPerSegment > 0 && count > maxEntriesPerSegment)
+               || (maxMemoryPerSegment > 0 && memory.getAllocatedBytes() > maxMemoryPerSegment);
+      }
+
+      private void linkAtLruHead(long address) {
+         putLong(address, LRU_PREVIOUS, NULL);
+         putLong(address, LRU_NEXT, lruHead);
+         if (lruHead != NULL)
+            putLong(lruHead, LRU_PREVIOUS, address);
+         else
+            lruTail = address;
+         lruHead = address;
+      }
+
+      private void unlinkFromLru(long address) {
+         long previous = getLong(address, LRU_PREVIOUS);
+         long next = getLong(address, LRU_NEXT);
+         if (previous != NULL)
+            putLong(previous, LRU_NEXT, next);
+         else
+            lruHead = next;
+         if (next != NULL)
+            putLong(next, LRU_PREVIOUS, previous);
+         else
+            lruTail = previous;
+      }
+
+      /**
+       * Doubles the size of the hash index. Entries of bucket i end up either in bucket i or i + old bucket count,
+       * which iterators rely on.
+       */
+      private void rehash() {
+         int newCount = bucketCount << 1;
+         java.nio.ByteBuffer newBuckets = java.nio.ByteBuffer.allocateDirect(newCount * 8);
+         for (int i = 0; i < bucketCount; i++) {
+            long address = bucket(i);
+            while (address != NULL) {
+               long next = getLong(address, NEXT);
+               int index = getInt(address, HASH) & (newCount - 1);
+               putLong(address, NEXT, newBuckets.getLong(index * 8));
+               newBuckets.putLong(index * 8, address);
+               address = next;
+            }
+         }
+         buckets = newBuckets;
+         bucketCount = newCount;
+      }
+   }
+
+   /**
+    * Iterates over the container one segment at a time, copying entries to the heap in small batches of buckets.
+    * Since the hash index of a segment only ever grows by doubling, walking the buckets congruent to each bucket of
+    * the index as it was when the segment was first visited covers every entry exactly once, even if the index is
+    * resized in between batches. Like the iterators of concurrent collections, it may or may not reflect updates
+    * made after it was created.
+    */
+   private abstract class OffHeapIterator<T> implements Iterator<T> {
+      private final boolean keysOnly;
+      private final List<byte[]> batch = new ArrayList<byte[]>(ITERATION_BATCH_SIZE);
+      private int batchPosition;
+      private int segment = -1;
+      private int initialBucketCount;
+      private int nextBucket;
+
+      OffHeapIterator(boolean keysOnly) {
+         this.keysOnly = keysOnly;
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (batchPosition == batch.size()) {
+            if (!fetch())
+               return false;
+         }
+         return true;
+      }
+
+      @Override
+      public T next() {
+         if (!hasNext())
+            throw new NoSuchElementException();
+         return convert(batch.get(batchPosition++));
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+
+      abstract T convert(byte[] entry);
+
+      private boolean fetch() {
+         batch.clear();
+         batchPosition = 0;
+         if (segment < 0 || nextBucket == initialBucketCount) {
+            if (++segment == segments.length)
+               return false;
+            initialBucketCount = -1;
+            nextBucket = 0;
+         }
+         Segment s = segments[segment];
+         s.lock();
+         try {
+            if (initialBucketCount < 0)
+               initialBucketCount = s.bucketCount;
+            long now = System.currentTimeMillis();
+            while (nextBucket < initialBucketCount && batch.size() < ITERATION_BATCH_SIZE) {
+               for (int i = nextBucket; i < s.bucketCount; i += initialBucketCount) {
+                  long address = s.bucket(i);
+                  while (address != NULL) {
+                     if (!s.isExpired(address, now))
+                        batch.add(s.copyEntry(address, keysOnly));
+                     address = s.getLong(address, NEXT);
+                  }
+               }
+               nextBucket++;
+            }
+         } finally {
+            s.unlock();
+         }
+         return true;
+      }
+   }
+
+   private class EntryIterator extends OffHeapIterator<InternalCacheEntry> {
+      private final boolean immutable;
+
+      EntryIterator(boolean immutable) {
+         super(false);
+         this.immutable = immutable;
+      }
+
+      @Override
+      InternalCacheEntry convert(byte[] entry) {
+         InternalCacheEntry ice = toInternalCacheEntry(entry, null);
+         return immutable ? Immutables.immutableInternalCacheEntry(ice) : ice;
+      }
+   }
+
+   private class KeySet extends AbstractSet<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         return new OffHeapIterator<Object>(true) {
+            @Override
+            Object convert(byte[] entry) {
+               return unmarshall(entry, HEADER_SIZE, readInt(entry, KEY_LENGTH));
+            }
+         };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         return containsKey(o);
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   private class Values extends AbstractCollection<Object> {
+      @Override
+      public Iterator<Object> iterator() {
+         return new OffHeapIterator<Object>(false) {
+            @Override
+            Object convert(byte[] entry) {
+               int valueOffset = HEADER_SIZE + readInt(entry, KEY_LENGTH) + readInt(entry, VERSION_LENGTH);
+               return unmarshall(entry, valueOffset, readInt(entry, VALUE_LENGTH));
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   private class EntrySet extends AbstractSet<InternalCacheEntry> {
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry))
+            return false;
+         @SuppressWarnings("rawtypes")
+         Map.Entry e = (Map.Entry) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         return ice != null && ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry> iterator() {
+         return new EntryIterator(true);
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+}
@@ -0,0 +1,205 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hands out blocks of direct memory carved out of fixed size slabs, each slab being a direct {@link ByteBuffer}.
+ * <p/>
+ * Block sizes are rounded up to a size class, with four classes per power of two, and freed blocks are kept in per
+ * class free lists for reuse. Free list links are stored in the freed blocks themselves, so that tracking memory
+ * requires no heap allocation per block. Requests bigger than a slab get a dedicated buffer which is released as
+ * soon as the block is freed. Memory held by regular slabs is never handed back, only recycled.
+ * <p/>
+ * A block is identified by an address packing the slab index (plus one, so that 0 can be used as a null address) in
+ * the upper 32 bits and the offset within the slab in the lower 32 bits.
+ * <p/>
+ * This class is not thread safe: each {@link OffHeapDataContainer} segment owns an allocator and only accesses it
+ * while holding the segment lock.
+ *
+ * @since 5.2
+ */
+final class SlabAllocator {
+
+   static final long NULL = 0;
+
+   private static final int MIN_BLOCK_SIZE = 64;
+   private static final int STEPS_PER_POWER_OF_TWO = 4;
+
+   private final int slabSize;
+   private final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+   private final List<Integer> releasedSlabs = new ArrayList<Integer>();
+   private final List<ByteBuffer> spareSlabs = new ArrayList<ByteBuffer>();
+   private final long[] freeLists;
+   private int currentSlab = -1;
+   private int currentOffset;
+   private long allocated;
+   private long reserved;
+
+   SlabAllocator(int slabSize) {
+      if (slabSize < MIN_BLOCK_SIZE)
+         throw new IllegalArgumentException("Slab size must be at least " + MIN_BLOCK_SIZE + " bytes");
+      this.slabSize = slabSize;
+      this.freeLists = new long[sizeClass(slabSize) + 1];
+   }
+
+   /**
+    * Allocates a block able to hold at least the given number of bytes.
+    *
+    * @return address of the block
+    */
+   long allocate(int size) {
+      int sizeClass = sizeClass(size);
+      int blockSize = classSize(sizeClass);
+      if (blockSize > slabSize)
+         return allocateDedicated(blockSize);
+
+      allocated += blockSize;
+      long address = freeLists[sizeClass];
+      if (address != NULL) {
+         freeLists[sizeClass] = buffer(address).getLong(offset(address));
+         return address;
+      }
+      if (currentSlab < 0 || currentOffset + blockSize > slabSize) {
+         ByteBuffer slab;
+         if (spareSlabs.isEmpty()) {
+            slab = ByteBuffer.allocateDirect(slabSize);
+            reserved += slabSize;
+         } else {
+            slab = spareSlabs.remove(spareSlabs.size() - 1);
+         }
+         currentSlab = addSlab(slab);
+         currentOffset = 0;
+      }
+      address = address(currentSlab, currentOffset);
+      currentOffset += blockSize;
+      return address;
+   }
+
+   /**
+    * Releases a block previously obtained from {@link #allocate(int)} with the same size.
+    */
+   void free(long address, int size) {
+      int sizeClass = sizeClass(size);
+      int blockSize = classSize(sizeClass);
+      allocated -= blockSize;
+      if (blockSize > slabSize) {
+         int slab = slab(address);
+         slabs.set(slab, null);
+         releasedSlabs.add(slab);
+         reserved -= blockSize;
+      } else {
+         buffer(address).putLong(offset(address), freeLists[sizeClass]);
+         freeLists[sizeClass] = address;
+      }
+   }
+
+   /**
+    * Returns whether a block of <tt>oldSize</tt> bytes can be reused in place to hold <tt>newSize</tt> bytes.
+    */
+   boolean fits(int oldSize, int newSize) {
+      return sizeClass(oldSize) == sizeClass(newSize);
+   }
+
+   /**
+    * Forgets about all blocks. Regular slabs are kept aside and handed out again before any new slab is allocated,
+    * dedicated ones are released.
+    */
+   void clear() {
+      Arrays.fill(freeLists, NULL);
+      for (ByteBuffer slab : slabs) {
+         if (slab != null && slab.capacity() == slabSize)
+            spareSlabs.add(slab);
+      }
+      slabs.clear();
+      releasedSlabs.clear();
+      currentSlab = -1;
+      allocated = 0;
+      reserved = (long) spareSlabs.size() * slabSize;
+   }
+
+   /**
+    * @return number of bytes held by blocks currently in use, including size class rounding
+    */
+   long getAllocatedBytes() {
+      return allocated;
+   }
+
+   /**
+    * @return number of bytes of direct memory reserved by this allocator
+    */
+   long getReservedBytes() {
+      return reserved;
+   }
+
+   ByteBuffer buffer(long address) {
+      return slabs.get(slab(address));
+   }
+
+   static int offset(long address) {
+      return (int) address;
+   }
+
+   private static int slab(long address) {
+      return (int) (address >>> 32) - 1;
+   }
+
+   private static long address(int slab, int offset) {
+      return ((long) (slab + 1) << 32) | (offset & 0xFFFFFFFFL);
+   }
+
+   private long allocateDedicated(int blockSize) {
+      allocated += blockSize;
+      reserved += blockSize;
+      return address(addSlab(ByteBuffer.allocateDirect(blockSize)), 0);
+   }
+
+   private int addSlab(ByteBuffer slab) {
+      if (!releasedSlabs.isEmpty()) {
+         int index = releasedSlabs.remove(releasedSlabs.size() - 1);
+         slabs.set(index, slab);
+         return index;
+      }
+      slabs.add(slab);
+      return slabs.size() - 1;
+   }
+
+   static int sizeClass(int size) {
+      if (size <= MIN_BLOCK_SIZE)
+         return 0;
+      int powerOfTwo = 31 - Integer.numberOfLeadingZeros((size - 1) / MIN_BLOCK_SIZE);
+      int base = MIN_BLOCK_SIZE << powerOfTwo;
+      int step = base / STEPS_PER_POWER_OF_TWO;
+      return powerOfTwo * STEPS_PER_POWER_OF_TWO + (size - base + step - 1) / step;
+   }
+
+   static int classSize(int sizeClass) {
+      int powerOfTwo = sizeClass / STEPS_PER_POWER_OF_TWO;
+      int base = MIN_BLOCK_SIZE << powerOfTwo;
+      return base + (sizeClass % STEPS_PER_POWER_OF_TWO) * (base / STEPS_PER_POWER_OF_TWO);
+   }
+}
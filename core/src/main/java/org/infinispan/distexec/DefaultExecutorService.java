@@ -223,6 +223,8 @@ else if (localExecutorService.isShutdown())
       this.cancellationService = registry.getComponent(CancellationService.class);
       this.localExecutorService = localExecutorService;
       this.takeExecutorOwnership = takeExecutorOwnership;
+      // keeps the pool of split tasks alive until this executor is shut down
+      LocalParallelismPool.acquire();
    }
 
    @Override
@@ -269,7 +271,9 @@ private Address getAddress() {
    }
 
    private List<Runnable> realShutdown(boolean interrupt) {
-      isShutdown.set(true);
+      if (!isShutdown.getAndSet(true)) {
+         LocalParallelismPool.release();
+      }
       // TODO cancel all tasks
       if (takeExecutorOwnership) {
          if (interrupt)
@@ -456,9 +460,9 @@ public <T> Future<T> submit(Address target, DistributedTask<T> task) {
       Address me = getAddress();
       DistributedExecuteCommand<T> c = null;
       if (target.equals(me)) {
-         c = factory.buildDistributedExecuteCommand(clone(task.getCallable()), me, null);
+         c = buildDistributedExecuteCommand(task, clone(task.getCallable()), me, null);
       } else {
-         c = factory.buildDistributedExecuteCommand(task.getCallable(), me, null);
+         c = buildDistributedExecuteCommand(task, task.getCallable(), me, null);
       }
       DistributedTaskPart<T> part = createDistributedTaskPart(task, c, target, 0);
       part.execute();
@@ -480,7 +484,7 @@ public <T, K> Future<T> submit(DistributedTask<T> task, K... input) {
          Map<Address, List<K>> nodesKeysMap = keysToExecutionNodes(task.getTaskExecutionPolicy(), input);
          checkExecutionPolicy(task, nodesKeysMap, input);
          Address me = getAddress();
-         DistributedExecuteCommand<T> c = factory.buildDistributedExecuteCommand(task.getCallable(), me, Arrays.asList(input));
+         DistributedExecuteCommand<T> c = buildDistributedExecuteCommand(task, task.getCallable(), me, Arrays.asList(input));
          ArrayList<Address> nodes = new ArrayList<Address>(nodesKeysMap.keySet());
          DistributedTaskPart<T> part = createDistributedTaskPart(task, c, Arrays.asList(input), selectExecutionNode(nodes), 0);
          part.execute();
@@ -507,9 +511,9 @@ public <T> List<Future<T>> submitEverywhere(DistributedTask<T> task) {
       for (Address target : members) {
          DistributedExecuteCommand<T> c = null;
          if (target.equals(me)) {
-            c = factory.buildDistributedExecuteCommand(clone(task.getCallable()), me, null);
+            c = buildDistributedExecuteCommand(task, clone(task.getCallable()), me, null);
          } else {
-            c = factory.buildDistributedExecuteCommand(task.getCallable(), me, null);
+            c = buildDistributedExecuteCommand(task, task.getCallable(), me, null);
          }
          DistributedTaskPart<T> part = createDistributedTaskPart(task, c, target, 0);
          futures.add(part);
@@ -537,9 +541,9 @@ public <T, K> List<Future<T>> submitEverywhere(DistributedTask<T> task, K... inp
             Address target = e.getKey();
             DistributedExecuteCommand<T> c = null;
             if (target.equals(me)) {
-               c = factory.buildDistributedExecuteCommand(clone(task.getCallable()), me, e.getValue());
+               c = buildDistributedExecuteCommand(task, clone(task.getCallable()), me, e.getValue());
             } else {
-               c = factory.buildDistributedExecuteCommand(task.getCallable(), me, e.getValue());
+               c = buildDistributedExecuteCommand(task, task.getCallable(), me, e.getValue());
             }            
             DistributedTaskPart<T> part = createDistributedTaskPart(task, c, e.getValue(), target, 0);
             futures.add(part);
@@ -555,6 +559,13 @@ protected <T> Callable<T> clone(Callable<T> task){
      return Util.cloneWithMarshaller(marshaller, task);
    }
 
+   private <T> DistributedExecuteCommand<T> buildDistributedExecuteCommand(DistributedTask<T> task,
+            Callable<T> callable, Address me, Collection<?> keys) {
+      DistributedExecuteCommand<T> c = factory.buildDistributedExecuteCommand(callable, me, keys);
+      c.setLocalParallelism(task.getLocalParallelism(), task.getResultMerger());
+      return c;
+   }
+
    protected <T, K> DistributedTaskPart<T> createDistributedTaskPart(DistributedTask<T> task,
             DistributedExecuteCommand<T> c, List<K> inputKeys, Address target,
             int failoverCount) {
@@ -738,7 +749,8 @@ interface NodeFilter {
       private long timeout;
       private DistributedTaskExecutionPolicy executionPolicy = DistributedTaskExecutionPolicy.ALL;
       private DistributedTaskFailoverPolicy failoverPolicy = NO_FAILOVER;
-
+      private int localParallelism = 1;
+      private DistributedTaskResultMerger<T> resultMerger;
 
       public DefaultDistributedTaskBuilder(long taskTimeout) {
          this.timeout = taskTimeout;
@@ -777,12 +789,24 @@ public DistributedTaskBuilder<T> failoverPolicy(DistributedTaskFailoverPolicy po
          return this;
       }
 
+      @Override
+      public DistributedTaskBuilder<T> localParallelism(int parallelism, DistributedTaskResultMerger<T> merger) {
+         if (parallelism < 0)
+            throw new IllegalArgumentException("Local parallelism cannot be negative");
+         if (parallelism != 1 && merger == null)
+            throw new IllegalArgumentException("DistributedTaskResultMerger cannot be null when splitting the task");
+         this.localParallelism = parallelism;
+         this.resultMerger = merger;
+         return this;
+      }
+
       @Override
       public DistributedTask<T> build() {
          DefaultDistributedTaskBuilder<T> task = new DefaultDistributedTaskBuilder<T>(timeout);
          task.callable(callable);
          task.executionPolicy(executionPolicy);
          task.failoverPolicy(failoverPolicy);
+         task.localParallelism(localParallelism, resultMerger);
          return task;
       }
 
@@ -805,6 +829,16 @@ public DistributedTaskFailoverPolicy getTaskFailoverPolicy() {
       public Callable<T> getCallable() {
          return callable;
       }
+
+      @Override
+      public int getLocalParallelism() {
+         return localParallelism;
+      }
+
+      @Override
+      public DistributedTaskResultMerger<T> getResultMerger() {
+         return resultMerger;
+      }
    }
 
    /**
@@ -58,4 +58,19 @@
     */
    Callable<T> getCallable();
 
+   /**
+    * Returns the number of subsets the input keys of each node are split into, 0 meaning the number of processors of
+    * the node
+    * 
+    * @return task local parallelism
+    */
+   int getLocalParallelism();
+
+   /**
+    * Returns the {@link DistributedTaskResultMerger} merging the partial results of a node, if the task is split
+    * 
+    * @return task DistributedTaskResultMerger
+    */
+   DistributedTaskResultMerger<T> getResultMerger();
+
 }
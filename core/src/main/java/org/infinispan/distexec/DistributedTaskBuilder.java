@@ -68,6 +68,20 @@
     */
    DistributedTaskBuilder<T> failoverPolicy(DistributedTaskFailoverPolicy policy);
 
+   /**
+    * Splits the input keys of each node across several threads of that node: the {@link DistributedCallable} is
+    * invoked concurrently on each subset of the keys, and the partial results are merged before being returned. Only
+    * tasks submitted with input keys are split.
+    * 
+    * @param parallelism
+    *           the number of subsets the keys of each node are split into, or 0 to use the number of processors of
+    *           the node; 1 disables the splitting
+    * @param merger
+    *           merges the partial results of a node
+    * @return this DistributedTaskBuilder
+    */
+   DistributedTaskBuilder<T> localParallelism(int parallelism, DistributedTaskResultMerger<T> merger);
+
    /**
     * Completes creation of DistributedTask with the currently provided attributes of this
     * DistributedTaskBuilder
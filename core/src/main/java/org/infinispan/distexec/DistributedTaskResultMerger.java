@@ -0,0 +1,48 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Merges the partial results of a {@link DistributedCallable} whose input keys were split across several threads of
+ * the node executing it, into the single result returned to the node that submitted the task.
+ * <p>
+ * The merger is migrated along with the callable, and is invoked on the executing node.
+ * 
+ * @see DistributedTaskBuilder#localParallelism(int, DistributedTaskResultMerger)
+ * 
+ * @since 5.2
+ */
+public interface DistributedTaskResultMerger<T> extends Serializable {
+
+   /**
+    * Merges the partial results of one node into its result.
+    * 
+    * @param partialResults
+    *           the results of the callable invoked on each subset of the input keys of the node
+    * @return the result of the task on this node
+    */
+   T merge(List<T> partialResults);
+}
@@ -0,0 +1,72 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec;
+
+import org.infinispan.util.concurrent.jdk8backported.ForkJoinPool;
+
+/**
+ * The pool invoking the key subsets of tasks split with
+ * {@link DistributedTaskBuilder#localParallelism(int, DistributedTaskResultMerger)}, shared by all the caches of the
+ * JVM.
+ * <p>
+ * The pool is reference counted: it is created by the first {@link #acquire()} and shut down once every acquirer has
+ * {@link #release() released} it. Each {@link DefaultExecutorService} holds a reference until it is shut down, and
+ * split commands hold one while they run, so that nodes executing tasks without a local executor service do not leak
+ * the pool either.
+ * <p>
+ * This is an internal class, not intended to be used by clients.
+ *
+ * @since 5.2
+ */
+public final class LocalParallelismPool {
+
+   private static ForkJoinPool pool;
+   private static int references;
+
+   private LocalParallelismPool() {
+   }
+
+   /**
+    * Returns the shared pool, creating it if needed. Each call must be matched by a call to {@link #release()}.
+    */
+   public static synchronized ForkJoinPool acquire() {
+      if (pool == null) {
+         pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+      }
+      references++;
+      return pool;
+   }
+
+   /**
+    * Releases a reference acquired with {@link #acquire()}, shutting the pool down if it was the last one.
+    */
+   public static synchronized void release() {
+      if (references == 0) {
+         throw new IllegalStateException("LocalParallelismPool released more times than acquired");
+      }
+      if (--references == 0) {
+         pool.shutdown();
+         pool = null;
+      }
+   }
+}
@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of the map phase of a streaming {@link MapReduceTask} on a single node, along with
+ * the volume of intermediate data the node produced.
+ * <p>
+ * This is an internal class, not intended to be used by clients.
+ * 
+ * @see MapReduceTask#spillToDiskAfter(int)
+ * @since 5.2
+ */
+public class MapPhaseResult<T> implements Serializable {
+
+   /** The serialVersionUID */
+   private static final long serialVersionUID = -3437021497302446357L;
+
+   private final T result;
+   private final long valuesShuffled;
+   private final long bytesSpilled;
+   private final int spillCount;
+
+   public MapPhaseResult(T result, long valuesShuffled, long bytesSpilled, int spillCount) {
+      this.result = result;
+      this.valuesShuffled = valuesShuffled;
+      this.bytesSpilled = bytesSpilled;
+      this.spillCount = spillCount;
+   }
+
+   /**
+    * @return the intermediate keys stored in the temporary cache if the reduce phase is
+    *         distributed, the intermediate keys and values to reduce on the master node otherwise
+    */
+   public T getResult() {
+      return result;
+   }
+
+   /**
+    * @return the number of intermediate values, after combining, sent to reducers
+    */
+   public long getValuesShuffled() {
+      return valuesShuffled;
+   }
+
+   /**
+    * @return the number of compressed bytes written to spill files
+    */
+   public long getBytesSpilled() {
+      return bytesSpilled;
+   }
+
+   /**
+    * @return the number of times intermediate values were spilled to disk
+    */
+   public int getSpillCount() {
+      return spillCount;
+   }
+
+   @Override
+   public String toString() {
+      return "MapPhaseResult [valuesShuffled=" + valuesShuffled + ", bytesSpilled=" + bytesSpilled
+               + ", spillCount=" + spillCount + ", result=" + result + "]";
+   }
+}
@@ -68,6 +68,31 @@ <KIn, VIn, KOut, VOut> Set<KOut> mapAndCombineForDistributedReduction(
    <KIn, VIn, KOut, VOut> Map<KOut, List<VOut>> mapAndCombineForLocalReduction(
             MapCombineCommand<KIn, VIn, KOut, VOut> mcc) throws InterruptedException;
 
+   /**
+    * Streaming counterpart of {@link #mapAndCombineForDistributedReduction(MapCombineCommand)}
+    * invoked when {@link MapCombineCommand#isStreaming()} is true. Intermediate values are
+    * collected with bounded memory, spilled to disk if needed, and moved to the temporary cache
+    * in batches.
+    * 
+    * @param mcc MapCombineCommand sent from MapReduceTask
+    * @return a set of intermediate keys to be reduced distributively, along with map phase statistics
+    */
+   <KIn, VIn, KOut, VOut> MapPhaseResult<Set<KOut>> mapAndStreamForDistributedReduction(
+            MapCombineCommand<KIn, VIn, KOut, VOut> mcc) throws InterruptedException;
+
+   /**
+    * Streaming counterpart of {@link #mapAndCombineForLocalReduction(MapCombineCommand)} invoked
+    * when {@link MapCombineCommand#isStreaming()} is true. Intermediate values are collected with
+    * bounded memory and spilled to disk if needed, but the merged values are returned in a single
+    * map, so only the memory used while mapping is bounded.
+    * 
+    * @param mcc MapCombineCommand sent from MapReduceTask
+    * @return a map Map<KOut, List<VOut>> which should be ready for reduction at master Infinispan
+    *         node, along with map phase statistics
+    */
+   <KIn, VIn, KOut, VOut> MapPhaseResult<Map<KOut, List<VOut>>> mapAndStreamForLocalReduction(
+            MapCombineCommand<KIn, VIn, KOut, VOut> mcc) throws InterruptedException;
+
    /**
     * Invoked when ReduceCommand arrives to a target Infinispan node. Implementations should return
     * a map of reduced output keys and values to be returned to invoker of MapReduceTask
@@ -20,6 +20,7 @@
 
 import static org.infinispan.distexec.mapreduce.MapReduceTask.DEFAULT_TMP_CACHE_CONFIGURATION_NAME;
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -53,6 +54,7 @@
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.marshall.MarshalledValue;
+import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
@@ -76,14 +78,17 @@ public class MapReduceManagerImpl implements MapReduceManager {
    private EmbeddedCacheManager cacheManager;
    private CacheLoaderManager cacheLoaderManager;
    private ExecutorService executorService;
+   private StreamingMarshaller marshaller;
    
    MapReduceManagerImpl() {
    }
    
    @Inject
    public void init(EmbeddedCacheManager cacheManager, CacheLoaderManager cacheLoaderManager,
-            @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor) {
+            @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncTransportExecutor,
+            @ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller) {
       this.cacheManager = cacheManager;
+      this.marshaller = marshaller;
       this.cacheLoaderManager = cacheLoaderManager;
       this.localAddress = cacheManager.getAddress();
       this.executorService = asyncTransportExecutor;
@@ -112,6 +117,63 @@ public <KIn, VIn, KOut, VOut> Set<KOut> mapAndCombineForDistributedReduction(
       }
    }
 
+   @Override
+   public <KIn, VIn, KOut, VOut> MapPhaseResult<Set<KOut>> mapAndStreamForDistributedReduction(
+            MapCombineCommand<KIn, VIn, KOut, VOut> mcc) throws InterruptedException {
+      SpillingCollector<KOut, VOut> collector = newSpillingCollector(mcc);
+      Reducer<KOut, VOut> combiner = mcc.getCombiner();
+      MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
+      try {
+         if (combiner != null) {
+            taskLifecycleService.onPreExecute(combiner, cacheManager.getCache(mcc.getCacheName()));
+         }
+         map(mcc, collector);
+         return shuffle(mcc, collector);
+      } catch (InterruptedException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new CacheException(e);
+      } finally {
+         if (combiner != null) {
+            taskLifecycleService.onPostExecute(combiner);
+         }
+         collector.close();
+      }
+   }
+
+   @Override
+   public <KIn, VIn, KOut, VOut> MapPhaseResult<Map<KOut, List<VOut>>> mapAndStreamForLocalReduction(
+            MapCombineCommand<KIn, VIn, KOut, VOut> mcc) throws InterruptedException {
+      SpillingCollector<KOut, VOut> collector = newSpillingCollector(mcc);
+      Reducer<KOut, VOut> combiner = mcc.getCombiner();
+      MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();
+      try {
+         if (combiner != null) {
+            taskLifecycleService.onPreExecute(combiner, cacheManager.getCache(mcc.getCacheName()));
+         }
+         map(mcc, collector);
+         // The master reduces the values of all nodes, so the merged groups are sent back in one piece:
+         // spilling bounds the memory used while mapping, not the size of this result
+         Map<KOut, List<VOut>> result = new HashMap<KOut, List<VOut>>();
+         long valuesShuffled = 0;
+         int interruptCount = 0;
+         Entry<KOut, List<VOut>> group;
+         while ((group = collector.nextGroup()) != null) {
+            if (checkInterrupt(interruptCount++) && Thread.currentThread().isInterrupted())
+               throw new InterruptedException();
+            result.put(group.getKey(), group.getValue());
+            valuesShuffled += group.getValue().size();
+         }
+         return new MapPhaseResult<Map<KOut, List<VOut>>>(result, valuesShuffled,
+                  collector.getBytesSpilled(), collector.getSpillCount());
+      } finally {
+         if (combiner != null) {
+            taskLifecycleService.onPostExecute(combiner);
+         }
+         collector.close();
+      }
+   }
+
    @Override
    public <KOut, VOut> Map<KOut, VOut> reduce(ReduceCommand<KOut, VOut> reduceCommand)
             throws InterruptedException {
@@ -159,6 +221,13 @@ public <KOut, VOut> Map<KOut, VOut> reduce(ReduceCommand<KOut, VOut> reduceComma
    
    protected <KIn, VIn, KOut, VOut> CollectableCollector<KOut, VOut> map(
             MapCombineCommand<KIn, VIn, KOut, VOut> mcc) throws InterruptedException {
+      DefaultCollector<KOut, VOut> collector = new DefaultCollector<KOut, VOut>();
+      map(mcc, collector);
+      return collector;
+   }
+
+   protected <KIn, VIn, KOut, VOut> void map(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
+            Collector<KOut, VOut> collector) throws InterruptedException {
       Cache<KIn, VIn> cache = cacheManager.getCache(mcc.getCacheName());
       Set<KIn> keys = mcc.getKeys();
       Set<KIn> inputKeysCopy = null;
@@ -173,7 +242,6 @@ protected <KIn, VIn, KOut, VOut> CollectableCollector<KOut, VOut> map(
       }
       // hook map function into lifecycle and execute it
       MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService.getInstance();     
-      DefaultCollector<KOut, VOut> collector = new DefaultCollector<KOut, VOut>();
       log.tracef("For m/r task %s invoking %s with input keys %s",  mcc.getTaskId(), mcc, inputKeys);
       int interruptCount = 0;
       try {
@@ -210,7 +278,6 @@ protected <KIn, VIn, KOut, VOut> CollectableCollector<KOut, VOut> map(
       } finally {
          taskLifecycleService.onPostExecute(mapper);
       }
-      return collector;            
    }
    
    protected <KIn, VIn, KOut, VOut> Set<KOut> combine(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
@@ -220,16 +287,7 @@ protected <KIn, VIn, KOut, VOut> Set<KOut> combine(MapCombineCommand<KIn, VIn, K
       boolean emitCompositeIntermediateKeys = mcc.isEmitCompositeIntermediateKeys();                  
       Reducer <KOut,VOut> combiner = mcc.getCombiner();
       Set<KOut> mapPhaseKeys = new HashSet<KOut>();
-      Cache<Object, DeltaAwareList<VOut>> tmpCache = null;
-      if (emitCompositeIntermediateKeys) {
-         tmpCache = cacheManager.getCache(DEFAULT_TMP_CACHE_CONFIGURATION_NAME);         
-      } else {
-         tmpCache = cacheManager.getCache(taskId);
-      }
-      if (tmpCache == null) {
-         throw new IllegalStateException("Temporary cache for MapReduceTask " + taskId
-                  + " not found on " + localAddress);
-      }
+      Cache<Object, DeltaAwareList<VOut>> tmpCache = getTemporaryCache(taskId, emitCompositeIntermediateKeys);
       DistributionManager dm = tmpCache.getAdvancedCache().getDistributionManager();
 
       if (combiner != null) {
@@ -313,6 +371,97 @@ protected <KIn, VIn, KOut, VOut> Set<KOut> combine(MapCombineCommand<KIn, VIn, K
       return mapPhaseKeys;
    }
    
+   /**
+    * Moves the collected intermediate keys/values to the temporary cache, one transaction per
+    * batch of at most {@link MapCombineCommand#getShuffleBatchSize()} keys owned by the same node.
+    */
+   private <KIn, VIn, KOut, VOut> MapPhaseResult<Set<KOut>> shuffle(MapCombineCommand<KIn, VIn, KOut, VOut> mcc,
+            SpillingCollector<KOut, VOut> collector) throws Exception {
+      String taskId = mcc.getTaskId();
+      boolean emitCompositeIntermediateKeys = mcc.isEmitCompositeIntermediateKeys();
+      int batchSize = mcc.getShuffleBatchSize();
+      Cache<Object, DeltaAwareList<VOut>> tmpCache = getTemporaryCache(taskId, emitCompositeIntermediateKeys);
+      DistributionManager dm = tmpCache.getAdvancedCache().getDistributionManager();
+      Set<KOut> mapPhaseKeys = new HashSet<KOut>();
+      Map<Address, Map<KOut, List<VOut>>> batches = new HashMap<Address, Map<KOut, List<VOut>>>();
+      long valuesShuffled = 0;
+      int interruptCount = 0;
+      Entry<KOut, List<VOut>> group;
+      while ((group = collector.nextGroup()) != null) {
+         if (checkInterrupt(interruptCount++) && Thread.currentThread().isInterrupted())
+            throw new InterruptedException();
+         KOut key = group.getKey();
+         Address owner;
+         if (emitCompositeIntermediateKeys) {
+            owner = dm.getPrimaryLocation(new IntermediateCompositeKey<KOut>(taskId, key));
+         } else {
+            owner = dm.getPrimaryLocation(key);
+         }
+         Map<KOut, List<VOut>> batch = batches.get(owner);
+         if (batch == null) {
+            batch = new HashMap<KOut, List<VOut>>();
+            batches.put(owner, batch);
+         }
+         batch.put(key, group.getValue());
+         valuesShuffled += group.getValue().size();
+         if (batch.size() >= batchSize) {
+            migrate(tmpCache, taskId, emitCompositeIntermediateKeys, owner, batch);
+            mapPhaseKeys.addAll(batch.keySet());
+            batch.clear();
+         }
+      }
+      for (Entry<Address, Map<KOut, List<VOut>>> e : batches.entrySet()) {
+         Map<KOut, List<VOut>> batch = e.getValue();
+         if (!batch.isEmpty()) {
+            migrate(tmpCache, taskId, emitCompositeIntermediateKeys, e.getKey(), batch);
+            mapPhaseKeys.addAll(batch.keySet());
+         }
+      }
+      return new MapPhaseResult<Set<KOut>>(mapPhaseKeys, valuesShuffled, collector.getBytesSpilled(),
+               collector.getSpillCount());
+   }
+
+   private <KOut, VOut> void migrate(Cache<Object, DeltaAwareList<VOut>> tmpCache, String taskId,
+            boolean emitCompositeIntermediateKeys, Address owner, Map<KOut, List<VOut>> batch) throws Exception {
+      TransactionManager tm = tmpCache.getAdvancedCache().getTransactionManager();
+      try {
+         tm.begin();
+         log.tracef("For m/r task %s migrating %s intermediate keys to %s", taskId, batch.size(), owner);
+         for (Entry<KOut, List<VOut>> e : batch.entrySet()) {
+            DeltaAwareList<VOut> delta = new DeltaAwareList<VOut>(e.getValue());
+            if (emitCompositeIntermediateKeys) {
+               tmpCache.put(new IntermediateCompositeKey<KOut>(taskId, e.getKey()), delta);
+            } else {
+               tmpCache.put(e.getKey(), delta);
+            }
+         }
+         tm.commit();
+      } catch (Exception e) {
+         tm.rollback();
+         throw new CacheException("Could not move intermediate keys/values for M/R task " + taskId, e);
+      }
+   }
+
+   private <V> Cache<Object, V> getTemporaryCache(String taskId, boolean emitCompositeIntermediateKeys) {
+      Cache<Object, V> tmpCache = null;
+      if (emitCompositeIntermediateKeys) {
+         tmpCache = cacheManager.getCache(DEFAULT_TMP_CACHE_CONFIGURATION_NAME);
+      } else {
+         tmpCache = cacheManager.getCache(taskId);
+      }
+      if (tmpCache == null) {
+         throw new IllegalStateException("Temporary cache for MapReduceTask " + taskId
+                  + " not found on " + localAddress);
+      }
+      return tmpCache;
+   }
+
+   private <KIn, VIn, KOut, VOut> SpillingCollector<KOut, VOut> newSpillingCollector(
+            MapCombineCommand<KIn, VIn, KOut, VOut> mcc) {
+      return new SpillingCollector<KOut, VOut>(mcc.getTaskId(), mcc.getCombiner(),
+               mcc.getMaxCollectedValues(), marshaller);
+   }
+
    private <KIn, VIn, KOut, VOut> Map<KOut, List<VOut>> combineForLocalReduction(
             MapCombineCommand<KIn, VIn, KOut, VOut> mcc, 
             CollectableCollector<KOut, VOut> collector) {
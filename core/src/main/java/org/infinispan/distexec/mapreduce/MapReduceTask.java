@@ -68,6 +68,7 @@
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 
@@ -159,6 +160,7 @@
 
    private static final Log log = LogFactory.getLog(MapReduceTask.class);
    public static final String DEFAULT_TMP_CACHE_CONFIGURATION_NAME= "__tmpMapReduce";
+   public static final int DEFAULT_SHUFFLE_BATCH_SIZE = 1000;
 
    protected Mapper<KIn, VIn, KOut, VOut> mapper;
    protected Reducer<KOut, VOut> reducer;
@@ -173,6 +175,14 @@
    protected final CancellationService cancellationService;
    protected final List<CancellableTaskPart> cancellableTasks;
    protected final UUID taskId;
+   protected int maxCollectedValues;
+   protected int shuffleBatchSize = DEFAULT_SHUFFLE_BATCH_SIZE;
+
+   private final AtomicLong mapPhaseNanos = new AtomicLong();
+   private final AtomicLong reducePhaseNanos = new AtomicLong();
+   private final AtomicLong intermediateValuesShuffled = new AtomicLong();
+   private final AtomicLong intermediateBytesSpilled = new AtomicLong();
+   private final AtomicLong spillCount = new AtomicLong();
 
    /**
     * Create a new MapReduceTask given a master cache node. All distributed task executions will be
@@ -305,6 +315,95 @@ public MapReduceTask<KIn, VIn, KOut, VOut> combinedWith(Reducer<KOut, VOut> comb
       return this;
    }
 
+   /**
+    * Bounds the memory used by the map phase of this task on each node. Rather than keeping all
+    * intermediate values in memory until the map phase completes, at most
+    * <code>maxCollectedValues</code> intermediate values are held by each node: values of the same
+    * key are combined while the mapper runs, if a combiner is specified, and once the limit is
+    * exceeded the collected values are sorted and spilled to compressed temporary files. The spilled
+    * values are merged back once the map phase completes, and moved to the reducers in batches of
+    * {@link #shuffleBatchSize(int)} keys.
+    * <p>
+    * Only the map phase is bounded when the reduce phase is not distributed: each node then returns
+    * all its merged intermediate values to the master node in a single response, which holds them in
+    * memory, along with the responses of the other nodes, until they are reduced. Use a distributed
+    * reduce phase to bound the memory used by large tasks end to end.
+    * 
+    * @param maxCollectedValues
+    *           maximum number of intermediate values held in memory by each node, or 0 to keep all
+    *           of them in memory
+    * @return this MapReduceTask itself
+    * @since 5.2
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> spillToDiskAfter(int maxCollectedValues) {
+      if (maxCollectedValues < 0)
+         throw new IllegalArgumentException("maxCollectedValues cannot be negative");
+      this.maxCollectedValues = maxCollectedValues;
+      return this;
+   }
+
+   /**
+    * Specifies the number of intermediate keys moved to a reducer node within a single transaction
+    * when the map phase is bounded by {@link #spillToDiskAfter(int)} and the reduce phase is
+    * distributed. Defaults to {@link #DEFAULT_SHUFFLE_BATCH_SIZE}.
+    * 
+    * @param shuffleBatchSize
+    *           maximum number of intermediate keys per batch
+    * @return this MapReduceTask itself
+    * @since 5.2
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> shuffleBatchSize(int shuffleBatchSize) {
+      if (shuffleBatchSize <= 0)
+         throw new IllegalArgumentException("shuffleBatchSize must be positive");
+      this.shuffleBatchSize = shuffleBatchSize;
+      return this;
+   }
+
+   /**
+    * @return the time, in milliseconds, spent by the last execution of this task in its map phase,
+    *         including combining and moving intermediate values to reducers
+    * @since 5.2
+    */
+   public long getMapPhaseTime() {
+      return TimeUnit.NANOSECONDS.toMillis(mapPhaseNanos.get());
+   }
+
+   /**
+    * @return the time, in milliseconds, spent by the last execution of this task in its reduce
+    *         phase
+    * @since 5.2
+    */
+   public long getReducePhaseTime() {
+      return TimeUnit.NANOSECONDS.toMillis(reducePhaseNanos.get());
+   }
+
+   /**
+    * @return the number of intermediate values, after combining, moved to reducers by the last
+    *         execution of this task. Only available if {@link #spillToDiskAfter(int)} is set.
+    * @since 5.2
+    */
+   public long getIntermediateValuesShuffled() {
+      return intermediateValuesShuffled.get();
+   }
+
+   /**
+    * @return the number of compressed bytes of intermediate values spilled to disk, across all
+    *         nodes, by the last execution of this task
+    * @since 5.2
+    */
+   public long getIntermediateBytesSpilled() {
+      return intermediateBytesSpilled.get();
+   }
+
+   /**
+    * @return the number of times intermediate values were spilled to disk, across all nodes, by the
+    *         last execution of this task
+    * @since 5.2
+    */
+   public long getSpillCount() {
+      return spillCount.get();
+   }
+
    /**
     * Executes this task across Infinispan cluster nodes.
     * 
@@ -317,6 +416,7 @@ public Map<KOut, VOut> execute() throws CacheException {
       if (reducer == null)
          throw new NullPointerException("A valid reference of Reducer is not set " + reducer);
       
+      resetStatistics();
       
       if(distributeReducePhase()){
          boolean useCompositeKeys = useIntermediateSharedCache();
@@ -330,10 +430,17 @@ public Map<KOut, VOut> execute() throws CacheException {
             executeTaskInit(intermediateCacheName);
 
             // map
+            long start = System.nanoTime();
             Set<KOut> allMapPhasesResponses = executeMapPhase(useCompositeKeys);
+            long mapped = System.nanoTime();
+            mapPhaseNanos.set(mapped - start);
 
             // reduce
-            return executeReducePhase(allMapPhasesResponses, useCompositeKeys);
+            try {
+               return executeReducePhase(allMapPhasesResponses, useCompositeKeys);
+            } finally {
+               reducePhaseNanos.set(System.nanoTime() - mapped);
+            }
          }
          catch (Exception cause){
             throw new CacheException(cause);
@@ -354,6 +461,20 @@ public Map<KOut, VOut> execute() throws CacheException {
       }     
    }
    
+   private void resetStatistics() {
+      mapPhaseNanos.set(0);
+      reducePhaseNanos.set(0);
+      intermediateValuesShuffled.set(0);
+      intermediateBytesSpilled.set(0);
+      spillCount.set(0);
+   }
+
+   private void recordMapPhaseResult(MapPhaseResult<?> result) {
+      intermediateValuesShuffled.addAndGet(result.getValuesShuffled());
+      intermediateBytesSpilled.addAndGet(result.getBytesSpilled());
+      spillCount.addAndGet(result.getSpillCount());
+   }
+
    protected boolean distributeReducePhase(){
       return distributeReducePhase;
    }
@@ -435,6 +556,7 @@ protected Set<KOut> executeMapPhase(boolean useCompositeKeys) throws Interrupted
 
    protected Map<KOut, VOut> executeMapPhaseWithLocalReduction() throws InterruptedException,
             ExecutionException {
+      long start = System.nanoTime();
       RpcManager rpc = cache.getRpcManager();
       MapCombineCommand<KIn, VIn, KOut, VOut> cmd = null;
       Map<KOut, List<VOut>> mapPhasesResult = new HashMap<KOut, List<VOut>>();
@@ -476,6 +598,8 @@ protected Map<KOut, VOut> executeMapPhaseWithLocalReduction() throws Interrupted
       } finally {
          cancellableTasks.clear();
       }
+      long mapped = System.nanoTime();
+      mapPhaseNanos.set(mapped - start);
 
       // hook into lifecycle
       MapReduceTaskLifecycleService taskLifecycleService = MapReduceTaskLifecycleService
@@ -489,6 +613,7 @@ protected Map<KOut, VOut> executeMapPhaseWithLocalReduction() throws Interrupted
          }
       } finally {
          taskLifecycleService.onPostExecute(reducer);
+         reducePhaseNanos.set(System.nanoTime() - mapped);
       }
       return reducedResult;
    }
@@ -569,6 +694,8 @@ private MapCombineCommand<KIn, VIn, KOut, VOut> buildMapCombineCommand(
       MapCombineCommand<KIn, VIn, KOut, VOut> c = factory.buildMapCombineCommand(taskId, m, r, keys);
       c.setReducePhaseDistributed(reducePhaseDistributed);
       c.setEmitCompositeIntermediateKeys(emitCompositeIntermediateKeys);
+      c.setMaxCollectedValues(maxCollectedValues);
+      c.setShuffleBatchSize(shuffleBatchSize);
       return c;
    }
 
@@ -853,7 +980,13 @@ private V retrieveResult(Object response) throws ExecutionException {
          assert mapResult.size() == 1;
          for (Entry<Address, Response> e : mapResult.entrySet()) {
             if (e.getValue() instanceof SuccessfulResponse) {
-               return (V) ((SuccessfulResponse) e.getValue()).getResponseValue();
+               Object value = ((SuccessfulResponse) e.getValue()).getResponseValue();
+               if (value instanceof MapPhaseResult) {
+                  MapPhaseResult<?> mapPhaseResult = (MapPhaseResult<?>) value;
+                  recordMapPhaseResult(mapPhaseResult);
+                  return (V) mapPhaseResult.getResult();
+               }
+               return (V) value;
             }
          }
          throw new ExecutionException(new IllegalStateException("Invalid response " + response));
@@ -897,7 +1030,7 @@ public void execute() {
 
                   @Override
                   public Map<Address, ? extends Response> call() throws Exception {
-                     Set<KOut> result = invokeMapCombineLocally();
+                     Object result = invokeMapCombineLocally();
                      return Collections.singletonMap(getAddress(),
                               SuccessfulResponse.create(result));
                   }
@@ -907,7 +1040,7 @@ public void execute() {
 
                   @Override
                   public Map<Address, ? extends Response> call() throws Exception {
-                     Map<KOut, List<VOut>> result = invokeMapCombineLocallyForLocalReduction();
+                     Object result = invokeMapCombineLocallyForLocalReduction();
                      return Collections.singletonMap(getAddress(),
                               SuccessfulResponse.create(result));
                   }
@@ -931,11 +1064,13 @@ public void execute() {
          }
       }
 
-      private Map<KOut, List<VOut>> invokeMapCombineLocallyForLocalReduction() throws InterruptedException {
+      private Object invokeMapCombineLocallyForLocalReduction() throws InterruptedException {
          log.debugf("Invoking %s locally", mcc);
          try {
             cancellationService.register(Thread.currentThread(), mcc.getUUID());
             mcc.init(mapReduceManager);
+            if (mcc.isStreaming())
+               return mapReduceManager.mapAndStreamForLocalReduction(mcc);
             return mapReduceManager.mapAndCombineForLocalReduction(mcc);
          } finally {
             cancellationService.unregister(mcc.getUUID());
@@ -943,11 +1078,13 @@ private Map<KOut, List<VOut>> invokeMapCombineLocallyForLocalReduction() throws
          }
       }
 
-      private Set<KOut> invokeMapCombineLocally() throws InterruptedException {
+      private Object invokeMapCombineLocally() throws InterruptedException {
          log.debugf("Invoking %s locally", mcc);
          try {
             cancellationService.register(Thread.currentThread(), mcc.getUUID());
             mcc.init(mapReduceManager);
+            if (mcc.isStreaming())
+               return mapReduceManager.mapAndStreamForDistributedReduction(mcc);
             return mapReduceManager.mapAndCombineForDistributedReduction(mcc);
          } finally {
             cancellationService.unregister(mcc.getUUID());
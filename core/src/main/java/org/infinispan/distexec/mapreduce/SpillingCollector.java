@@ -0,0 +1,384 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.OutputStream;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.infinispan.CacheException;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * A {@link Collector} holding a bounded number of intermediate values in memory.
+ * <p>
+ * Values emitted for the same key are combined as they arrive whenever a combiner is available.
+ * Once more than <code>maxCollectedValues</code> values are held, the collected values are sorted
+ * by key hash code and spilled to a compressed temporary file. {@link #nextGroup()} then merges the
+ * spilled runs with the values still in memory, returning each intermediate key exactly once
+ * together with all its (combined) values, so that consumers never need to hold more than a
+ * single group in memory.
+ * <p>
+ * Instances are used by a single map thread and must be {@link #close() closed} to delete the
+ * spill files.
+ * <p>
+ * This is an internal class, not intended to be used by clients.
+ * 
+ * @since 5.2
+ */
+class SpillingCollector<KOut, VOut> implements Collector<KOut, VOut> {
+
+   private static final Log log = LogFactory.getLog(SpillingCollector.class);
+
+   /**
+    * Number of values of a single key collected before they are combined.
+    */
+   static final int COMBINE_THRESHOLD = 32;
+
+   private final String taskId;
+   private final Reducer<KOut, VOut> combiner;
+   private final int maxCollectedValues;
+   private final StreamingMarshaller marshaller;
+   private final List<File> spillFiles = new ArrayList<File>();
+   private final List<SpillRun<KOut, VOut>> openRuns = new ArrayList<SpillRun<KOut, VOut>>();
+   private Map<KOut, List<VOut>> store = new HashMap<KOut, List<VOut>>();
+   private int collectedValues;
+   private long bytesSpilled;
+
+   // state of the merge, initialized by the first call to nextGroup()
+   private Iterator<Entry<KOut, List<VOut>>> inMemoryGroups;
+   private PriorityQueue<Run<KOut, VOut>> runs;
+   private Iterator<Entry<KOut, List<VOut>>> pendingGroups;
+
+   SpillingCollector(String taskId, Reducer<KOut, VOut> combiner, int maxCollectedValues,
+            StreamingMarshaller marshaller) {
+      if (maxCollectedValues <= 0)
+         throw new IllegalArgumentException("maxCollectedValues must be positive");
+      this.taskId = taskId;
+      this.combiner = combiner;
+      this.maxCollectedValues = maxCollectedValues;
+      this.marshaller = marshaller;
+   }
+
+   @Override
+   public void emit(KOut key, VOut value) {
+      if (runs != null || inMemoryGroups != null)
+         throw new IllegalStateException("Values cannot be emitted once collected values are being read");
+      List<VOut> list = store.get(key);
+      if (list == null) {
+         list = new ArrayList<VOut>(2);
+         store.put(key, list);
+      }
+      list.add(value);
+      collectedValues++;
+      if (combiner != null && list.size() >= COMBINE_THRESHOLD) {
+         combine(key, list);
+      }
+      if (collectedValues > maxCollectedValues) {
+         spill();
+      }
+   }
+
+   /**
+    * Returns the next intermediate key and all the values collected for it, or <code>null</code>
+    * once all keys have been returned. Values are combined first if a combiner is available.
+    */
+   public Entry<KOut, List<VOut>> nextGroup() {
+      if (spillFiles.isEmpty()) {
+         if (inMemoryGroups == null) {
+            inMemoryGroups = store.entrySet().iterator();
+         }
+         if (!inMemoryGroups.hasNext()) {
+            return null;
+         }
+         Entry<KOut, List<VOut>> e = inMemoryGroups.next();
+         return group(e.getKey(), e.getValue());
+      }
+      if (runs == null) {
+         openRuns();
+      }
+      if (pendingGroups == null || !pendingGroups.hasNext()) {
+         if (runs.isEmpty()) {
+            return null;
+         }
+         // gather every entry with the lowest hash code; equal keys have equal hash codes
+         int hash = runs.peek().hash();
+         Map<KOut, List<VOut>> groups = new LinkedHashMap<KOut, List<VOut>>();
+         while (!runs.isEmpty() && runs.peek().hash() == hash) {
+            Run<KOut, VOut> run = runs.poll();
+            Entry<KOut, List<VOut>> e = run.current();
+            List<VOut> values = groups.get(e.getKey());
+            if (values == null) {
+               groups.put(e.getKey(), e.getValue());
+            } else {
+               values.addAll(e.getValue());
+            }
+            if (run.advance()) {
+               runs.add(run);
+            }
+         }
+         pendingGroups = groups.entrySet().iterator();
+      }
+      Entry<KOut, List<VOut>> e = pendingGroups.next();
+      return group(e.getKey(), e.getValue());
+   }
+
+   /**
+    * Closes the spill files, in the reverse order they were opened in, and deletes them.
+    */
+   public void close() {
+      for (int i = openRuns.size() - 1; i >= 0; i--) {
+         openRuns.get(i).close();
+      }
+      openRuns.clear();
+      for (File f : spillFiles) {
+         if (!f.delete()) {
+            log.tracef("For m/r task %s could not delete spill file %s", taskId, f);
+         }
+      }
+      spillFiles.clear();
+      store = new HashMap<KOut, List<VOut>>();
+   }
+
+   /**
+    * @return the number of bytes written to spill files, after compression
+    */
+   public long getBytesSpilled() {
+      return bytesSpilled;
+   }
+
+   /**
+    * @return the number of times the collected values were spilled to disk
+    */
+   public int getSpillCount() {
+      return spillFiles.size();
+   }
+
+   private Entry<KOut, List<VOut>> group(KOut key, List<VOut> values) {
+      if (combiner != null && values.size() > 1) {
+         VOut combined = combiner.reduce(key, values.iterator());
+         values = new ArrayList<VOut>(1);
+         values.add(combined);
+      }
+      return new SimpleImmutableEntry<KOut, List<VOut>>(key, values);
+   }
+
+   private void combine(KOut key, List<VOut> list) {
+      VOut combined = combiner.reduce(key, list.iterator());
+      collectedValues -= list.size() - 1;
+      list.clear();
+      list.add(combined);
+   }
+
+   private void spill() {
+      File file;
+      try {
+         file = File.createTempFile("infinispan-mapreduce-", ".spill");
+      } catch (IOException e) {
+         throw new CacheException("Could not create spill file for M/R task " + taskId, e);
+      }
+      spillFiles.add(file);
+      List<Entry<KOut, List<VOut>>> entries = sortedEntries();
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+         OutputStream os = new DeflaterOutputStream(new BufferedOutputStream(new FileOutputStream(file)), deflater);
+         try {
+            ObjectOutput out = marshaller.startObjectOutput(os, false);
+            try {
+               out.writeInt(entries.size());
+               for (Entry<KOut, List<VOut>> e : entries) {
+                  out.writeObject(e.getKey());
+                  out.writeObject(e.getValue());
+               }
+            } finally {
+               marshaller.finishObjectOutput(out);
+            }
+         } finally {
+            os.close();
+         }
+      } catch (IOException e) {
+         throw new CacheException("Could not spill intermediate values of M/R task " + taskId + " to " + file, e);
+      } finally {
+         deflater.end();
+      }
+      bytesSpilled += file.length();
+      log.tracef("For m/r task %s spilled %s values of %s keys to %s", taskId, collectedValues, entries.size(), file);
+      store = new HashMap<KOut, List<VOut>>();
+      collectedValues = 0;
+   }
+
+   private List<Entry<KOut, List<VOut>>> sortedEntries() {
+      List<Entry<KOut, List<VOut>>> entries = new ArrayList<Entry<KOut, List<VOut>>>(store.entrySet());
+      Collections.sort(entries, new Comparator<Entry<KOut, List<VOut>>>() {
+         @Override
+         public int compare(Entry<KOut, List<VOut>> e1, Entry<KOut, List<VOut>> e2) {
+            return compareHashes(hash(e1.getKey()), hash(e2.getKey()));
+         }
+      });
+      return entries;
+   }
+
+   private void openRuns() {
+      runs = new PriorityQueue<Run<KOut, VOut>>(spillFiles.size() + 1, new Comparator<Run<KOut, VOut>>() {
+         @Override
+         public int compare(Run<KOut, VOut> r1, Run<KOut, VOut> r2) {
+            return compareHashes(r1.hash(), r2.hash());
+         }
+      });
+      for (File f : spillFiles) {
+         SpillRun<KOut, VOut> run = new SpillRun<KOut, VOut>(f);
+         openRuns.add(run);
+         if (run.advance()) {
+            runs.add(run);
+         }
+      }
+      Run<KOut, VOut> inMemoryRun = new InMemoryRun<KOut, VOut>(sortedEntries().iterator());
+      if (inMemoryRun.advance()) {
+         runs.add(inMemoryRun);
+      }
+      store = new HashMap<KOut, List<VOut>>();
+   }
+
+   private static int hash(Object key) {
+      return key == null ? 0 : key.hashCode();
+   }
+
+   private static int compareHashes(int h1, int h2) {
+      return h1 < h2 ? -1 : (h1 == h2 ? 0 : 1);
+   }
+
+   /**
+    * A sequence of key/values entries sorted by key hash code.
+    */
+   private static abstract class Run<K, V> {
+      private Entry<K, List<V>> current;
+
+      Entry<K, List<V>> current() {
+         return current;
+      }
+
+      int hash() {
+         return SpillingCollector.hash(current.getKey());
+      }
+
+      boolean advance() {
+         current = next();
+         return current != null;
+      }
+
+      abstract Entry<K, List<V>> next();
+   }
+
+   private static class InMemoryRun<K, V> extends Run<K, V> {
+      private final Iterator<Entry<K, List<V>>> it;
+
+      InMemoryRun(Iterator<Entry<K, List<V>>> it) {
+         this.it = it;
+      }
+
+      @Override
+      Entry<K, List<V>> next() {
+         return it.hasNext() ? it.next() : null;
+      }
+   }
+
+   private class SpillRun<K, V> extends Run<K, V> {
+      private final File file;
+      private InputStream is;
+      private Inflater inflater;
+      private ObjectInput in;
+      private int remaining;
+      private boolean exhausted;
+
+      SpillRun(File file) {
+         this.file = file;
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      Entry<K, List<V>> next() {
+         if (exhausted) {
+            return null;
+         }
+         try {
+            if (in == null) {
+               inflater = new Inflater();
+               is = new InflaterInputStream(new BufferedInputStream(new FileInputStream(file)), inflater);
+               in = marshaller.startObjectInput(is, false);
+               remaining = in.readInt();
+            }
+            if (remaining == 0) {
+               // not closed yet: unmarshallers are pooled per thread and must be finished in reverse order
+               exhausted = true;
+               return null;
+            }
+            remaining--;
+            K key = (K) in.readObject();
+            List<V> values = (List<V>) in.readObject();
+            return new SimpleImmutableEntry<K, List<V>>(key, values);
+         } catch (IOException e) {
+            throw new CacheException("Could not read spill file " + file + " of M/R task " + taskId, e);
+         } catch (ClassNotFoundException e) {
+            throw new CacheException("Could not read spill file " + file + " of M/R task " + taskId, e);
+         }
+      }
+
+      void close() {
+         if (in != null) {
+            marshaller.finishObjectInput(in);
+            try {
+               is.close();
+            } catch (IOException e) {
+               log.tracef(e, "For m/r task %s could not close spill file %s", taskId, file);
+            } finally {
+               inflater.end();
+            }
+            in = null;
+         }
+      }
+   }
+}
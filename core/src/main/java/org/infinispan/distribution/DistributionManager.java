@@ -33,6 +33,7 @@
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -113,6 +114,17 @@ public interface DistributionManager {
     */
    InternalCacheEntry retrieveFromRemoteSource(Object key, InvocationContext ctx, boolean acquireRemoteLock, FlagAffectedCommand command) throws Exception;
 
+   /**
+    * Retrieves several cache entries from remote sources. Keys are grouped by their primary owner and a single
+    * {@link org.infinispan.commands.remote.ClusteredGetAllCommand} is sent to each owner, all of them in parallel. Keys
+    * an owner could not answer for are retrieved one by one, as per {@link #retrieveFromRemoteSource(Object,
+    * org.infinispan.context.InvocationContext, boolean, org.infinispan.commands.FlagAffectedCommand)}.
+    *
+    * @param keys keys to look up
+    * @return a map of the keys which could be located to their internal cache entries, never null
+    */
+   Map<Object, InternalCacheEntry> retrieveFromRemoteSources(Collection<Object> keys, InvocationContext ctx, FlagAffectedCommand command) throws Exception;
+
    /**
     * Retrieves the consistent hash instance currently in use, an instance of the configured ConsistentHash
     * class (which defaults to {@link org.infinispan.distribution.ch.DefaultConsistentHash}.
@@ -24,6 +24,7 @@
 
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.remote.ClusteredGetAllCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.entries.CacheEntry;
@@ -47,12 +48,15 @@
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.util.Immutables;
 import org.infinispan.util.InfinispanCollections;
+import org.infinispan.util.concurrent.NotifyingFutureImpl;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 import org.rhq.helpers.pluginAnnotations.agent.Operation;
 import org.rhq.helpers.pluginAnnotations.agent.Parameter;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * The default distribution manager implementation
@@ -175,6 +179,127 @@ public InternalCacheEntry retrieveFromRemoteSource(Object key, InvocationContext
       return null;
    }
 
+   @Override
+   public Map<Object, InternalCacheEntry> retrieveFromRemoteSources(Collection<Object> keys, InvocationContext ctx, FlagAffectedCommand command) throws Exception {
+      Map<Object, InternalCacheEntry> result = new HashMap<Object, InternalCacheEntry>(keys.size());
+      List<Object> unresolved = new ArrayList<Object>();
+      Map<Address, List<Object>> keysByOwner = groupByOwner(keys, unresolved);
+
+      // send one command per owner, all but the last one in parallel with the last one, which runs in this thread
+      Map<Address, RemoteGetAllFuture> futures = new HashMap<Address, RemoteGetAllFuture>(keysByOwner.size());
+      Address last = null;
+      for (Address owner : keysByOwner.keySet()) {
+         if (last != null) {
+            RemoteGetAllFuture future = new RemoteGetAllFuture();
+            rpcManager.invokeRemotelyInFuture(Collections.singleton(last), buildClusteredGetAll(keysByOwner.get(last), command),
+                                              true, future, configuration.clustering().sync().replTimeout(), true);
+            futures.put(last, future);
+         }
+         last = owner;
+      }
+      if (last != null) {
+         Map<Address, Response> responses = null;
+         try {
+            responses = rpcManager.invokeRemotely(Collections.singleton(last), buildClusteredGetAll(keysByOwner.get(last), command),
+                                                  ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS, configuration.clustering().sync().replTimeout(), true);
+         } catch (Exception e) {
+            if (trace) log.tracef(e, "Failed to retrieve keys %s from %s, retrying them one by one", keysByOwner.get(last), last);
+         }
+         collectResponse(responses == null ? null : responses.get(last), keysByOwner.get(last), result, unresolved);
+      }
+      for (Map.Entry<Address, RemoteGetAllFuture> e : futures.entrySet()) {
+         Map<Address, Response> responses = null;
+         try {
+            responses = e.getValue().getResponses();
+         } catch (ExecutionException ee) {
+            if (trace) log.tracef(ee, "Failed to retrieve keys %s from %s, retrying them one by one", keysByOwner.get(e.getKey()), e.getKey());
+         }
+         collectResponse(responses == null ? null : responses.get(e.getKey()), keysByOwner.get(e.getKey()), result, unresolved);
+      }
+
+      for (Object key : unresolved) {
+         InternalCacheEntry ice = retrieveFromRemoteSource(key, ctx, false, command);
+         if (ice != null) result.put(key, ice);
+      }
+      return result;
+   }
+
+   /**
+    * Groups the keys by their primary owner, or by the first other owner if this node is the primary owner. Keys
+    * whose owners are all gone are added to <tt>unresolved</tt>.
+    */
+   private Map<Address, List<Object>> groupByOwner(Collection<Object> keys, List<Object> unresolved) {
+      ConsistentHash readCh = getReadConsistentHash();
+      List<Address> members = rpcManager.getTransport().getMembers();
+      Address self = getAddress();
+      Map<Address, List<Object>> keysByOwner = new HashMap<Address, List<Object>>();
+      for (Object key : keys) {
+         Address target = null;
+         for (Address owner : readCh.locateOwners(key)) {
+            if (!owner.equals(self) && members.contains(owner)) {
+               target = owner;
+               break;
+            }
+         }
+         if (target == null) {
+            unresolved.add(key);
+            continue;
+         }
+         List<Object> ownerKeys = keysByOwner.get(target);
+         if (ownerKeys == null) {
+            ownerKeys = new ArrayList<Object>();
+            keysByOwner.put(target, ownerKeys);
+         }
+         ownerKeys.add(key);
+      }
+      return keysByOwner;
+   }
+
+   private ClusteredGetAllCommand buildClusteredGetAll(List<Object> keys, FlagAffectedCommand command) {
+      return cf.buildClusteredGetAllCommand(keys, command.getFlags());
+   }
+
+   @SuppressWarnings("unchecked")
+   private void collectResponse(Response response, List<Object> keys, Map<Object, InternalCacheEntry> result, List<Object> unresolved) {
+      if (!(response instanceof SuccessfulResponse)) {
+         unresolved.addAll(keys);
+         return;
+      }
+      Map<Object, InternalCacheValue> values = (Map<Object, InternalCacheValue>) ((SuccessfulResponse) response).getResponseValue();
+      for (Object key : keys) {
+         if (!values.containsKey(key)) {
+            // the owner was affected by a rehash, ask all the owners of this key
+            unresolved.add(key);
+         } else {
+            InternalCacheValue value = values.get(key);
+            if (value != null) result.put(key, value.toInternalCacheEntry(key));
+         }
+      }
+   }
+
+   /**
+    * Gives access to the responses of an RPC invoked with {@link RpcManager#invokeRemotelyInFuture}, which
+    * {@link NotifyingFutureImpl} itself hides behind its predefined return value.
+    */
+   private static class RemoteGetAllFuture extends NotifyingFutureImpl<Object> {
+      private volatile Future<Object> networkFuture;
+
+      RemoteGetAllFuture() {
+         super(null);
+      }
+
+      @Override
+      public void setNetworkFuture(Future<Object> future) {
+         networkFuture = future;
+         super.setNetworkFuture(future);
+      }
+
+      @SuppressWarnings("unchecked")
+      Map<Address, Response> getResponses() throws ExecutionException, InterruptedException {
+         return (Map<Address, Response>) networkFuture.get();
+      }
+   }
+
    @Override
    public ConsistentHash getConsistentHash() {
       return getWriteConsistentHash();
@@ -0,0 +1,85 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.eviction;
+
+import org.infinispan.marshall.MarshalledValue;
+import org.infinispan.util.ByteArrayKey;
+
+/**
+ * Default {@link EntrySizeCalculator} which knows about the types most commonly stored by Infinispan's remote
+ * endpoints and by caches using lazy deserialization: <tt>byte[]</tt>, {@link String}, {@link ByteArrayKey} and
+ * {@link MarshalledValue}. Boxed primitives are sized as well. Any other object is assumed to occupy
+ * {@link #DEFAULT_OBJECT_SIZE} bytes; caches storing large custom types should plug in their own calculator.
+ * <p/>
+ * Estimates assume a 64-bit JVM with compressed object pointers, i.e. 12 byte object headers, 4 byte references and
+ * 8 byte object alignment.
+ *
+ * @since 5.2
+ */
+public class DefaultEntrySizeCalculator implements EntrySizeCalculator<Object, Object> {
+
+   /**
+    * Estimate used for objects whose type is not known to this calculator.
+    */
+   public static final int DEFAULT_OBJECT_SIZE = 64;
+
+   static final int OBJECT_HEADER = 12;
+   static final int ARRAY_HEADER = 16;
+   static final int REFERENCE = 4;
+
+   @Override
+   public long calculateSize(Object key, Object value) {
+      return sizeOf(key) + sizeOf(value);
+   }
+
+   /**
+    * Estimates the retained size of a single object.
+    */
+   public long sizeOf(Object o) {
+      if (o == null)
+         return 0;
+      if (o instanceof byte[])
+         return byteArraySize(((byte[]) o).length);
+      if (o instanceof String)
+         // value reference, offset, count and hash fields plus the backing char array
+         return align(OBJECT_HEADER + REFERENCE + 12) + align(ARRAY_HEADER + 2L * ((String) o).length());
+      if (o instanceof ByteArrayKey)
+         return align(OBJECT_HEADER + REFERENCE + 4) + byteArraySize(((ByteArrayKey) o).getData().length);
+      if (o instanceof MarshalledValue)
+         // instance, raw, serialisedSize, cachedHashCode, equality preference and marshaller fields
+         return align(OBJECT_HEADER + 3 * REFERENCE + 9) + byteArraySize(((MarshalledValue) o).getSerialisedSize());
+      if (o instanceof Long || o instanceof Double)
+         return align(OBJECT_HEADER + 8);
+      if (o instanceof Number || o instanceof Boolean || o instanceof Character)
+         return align(OBJECT_HEADER + 4);
+      return DEFAULT_OBJECT_SIZE;
+   }
+
+   static long byteArraySize(int length) {
+      return align(ARRAY_HEADER + length);
+   }
+
+   static long align(long size) {
+      return (size + 7) & ~7L;
+   }
+}
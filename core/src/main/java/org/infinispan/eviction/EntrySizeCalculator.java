@@ -0,0 +1,46 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.eviction;
+
+/**
+ * Estimates the amount of heap memory occupied by a key/value pair stored in a memory bounded data container.
+ * <p/>
+ * Implementations are invoked on the write path while the owning container segment is locked, so they are expected
+ * to be cheap and must not block. Exact figures are not required: the estimate is only used to decide when entries
+ * should be evicted in order to keep the container within its configured
+ * {@link org.infinispan.configuration.cache.EvictionConfiguration#maxMemory()}.
+ *
+ * @see DefaultEntrySizeCalculator
+ * @since 5.2
+ */
+public interface EntrySizeCalculator<K, V> {
+
+   /**
+    * Estimates the number of bytes retained by the given key and value.
+    *
+    * @param key   the key of the entry, never null
+    * @param value the value of the entry, never null
+    * @return an estimate, in bytes, of the memory held by the key and value
+    */
+   long calculateSize(K key, V value);
+}
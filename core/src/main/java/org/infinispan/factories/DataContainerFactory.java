@@ -25,6 +25,11 @@
 import org.infinispan.config.ConfigurationException;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.DefaultSegmentedDataContainer;
+import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.distribution.ch.ConsistentHashFactory;
+import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
+import org.infinispan.distribution.ch.SyncConsistentHashFactory;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
@@ -45,13 +50,21 @@ public class DataContainerFactory extends AbstractNamedCacheComponentFactory imp
    public <T> T construct(Class<T> componentType) {
       if (configuration.dataContainer().dataContainer() != null) {
          return (T) configuration.dataContainer().dataContainer();
+      } else if (configuration.dataContainer().offHeap()) {
+         int level = configuration.locking().concurrencyLevel();
+         int slabSize = configuration.dataContainer().slabSize();
+         if (!configuration.eviction().strategy().isEnabled())
+            return (T) new OffHeapDataContainer(level, -1, -1, slabSize);
+         // the off-heap container only evicts in LRU order, whatever the configured strategy
+         return (T) new OffHeapDataContainer(level, configuration.eviction().maxEntries(),
+               configuration.eviction().maxMemory(), slabSize);
       } else {
          EvictionStrategy st = configuration.eviction().strategy();
          int level = configuration.locking().concurrencyLevel();
         
          switch (st) {
             case NONE:         
-               return (T) DefaultDataContainer.unBoundedDataContainer(level);
+               return (T) unBoundedDataContainer(level);
             case UNORDERED:   
             case LRU:
             case FIFO:
@@ -59,9 +72,14 @@ public <T> T construct(Class<T> componentType) {
                int maxEntries = configuration.eviction().maxEntries();
                //handle case when < 0 value signifies unbounded container 
                if(maxEntries < 0) {
-                   return (T) DefaultDataContainer.unBoundedDataContainer(level);
+                   return (T) unBoundedDataContainer(level);
                }
                EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
+               long maxMemory = configuration.eviction().maxMemory();
+               if (maxMemory > 0) {
+                  return (T) DefaultDataContainer.memoryBoundedDataContainer(level, maxEntries, maxMemory,
+                        configuration.eviction().sizeCalculator(), st, policy);
+               }
                return (T) DefaultDataContainer.boundedDataContainer(level, maxEntries, st, policy);
             default:
                throw new ConfigurationException("Unknown eviction strategy "
@@ -69,4 +87,20 @@ public <T> T construct(Class<T> componentType) {
          }
       }
    }
+
+   /**
+    * Distributed caches get a container segmented like their consistent hash, so that state transfer and the removal
+    * of segments no longer owned don't have to scan the whole container. This requires the consistent hash to number
+    * segments as {@link org.infinispan.distribution.ch.DefaultConsistentHash} does.
+    */
+   private DataContainer unBoundedDataContainer(int level) {
+      if (configuration.clustering().cacheMode().isDistributed()) {
+         ConsistentHashFactory chf = configuration.clustering().hash().consistentHashFactory();
+         if (chf == null || chf instanceof DefaultConsistentHashFactory || chf instanceof SyncConsistentHashFactory) {
+            return new DefaultSegmentedDataContainer(level, configuration.clustering().hash().numSegments(),
+                  configuration.clustering().hash().hash());
+         }
+      }
+      return DefaultDataContainer.unBoundedDataContainer(level);
+   }
 }
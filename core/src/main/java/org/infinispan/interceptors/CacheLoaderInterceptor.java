@@ -23,6 +23,7 @@
 package org.infinispan.interceptors;
 
 import org.infinispan.commands.FlagAffectedCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.InvalidateCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -114,6 +115,30 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return invokeNextInterceptor(ctx, command);
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      if (enabled && !command.hasFlag(Flag.SKIP_CACHE_STORE) && !command.hasFlag(Flag.SKIP_CACHE_LOAD)
+            && !command.hasFlag(Flag.IGNORE_RETURN_VALUES)) {
+         // fetch all the keys missing from the context with a single bulk load
+         Set<Object> missing = new HashSet<Object>();
+         for (Object key : command.getKeys()) {
+            CacheEntry e = ctx.lookupEntry(key);
+            if (e == null || e.isNull() || e.getValue() == null) missing.add(key);
+         }
+         if (!missing.isEmpty()) {
+            for (InternalCacheEntry loaded : loader.loadAll(missing)) {
+               Object key = loaded.getKey();
+               if (missing.remove(key)) {
+                  MVCCEntry mvccEntry = entryFactory.wrapEntryForPut(ctx, key, loaded, false, command);
+                  recordLoadedEntry(ctx, key, mvccEntry, loaded);
+               }
+            }
+            if (getStatisticsEnabled()) cacheMisses.addAndGet(missing.size());
+         }
+      }
+      return invokeNextInterceptor(ctx, command);
+   }
+
    @Override
    public Object visitInvalidateCommand(InvocationContext ctx, InvalidateCommand command) throws Throwable {
       if (enabled) {
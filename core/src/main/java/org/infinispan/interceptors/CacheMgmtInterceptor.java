@@ -22,6 +22,7 @@
  */
 package org.infinispan.interceptors;
 
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.EvictCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -34,12 +35,16 @@
 import org.infinispan.jmx.annotations.MBean;
 import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.util.concurrent.LatencyHistogram;
+import org.infinispan.util.concurrent.jdk8backported.LongAdder;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.rhq.helpers.pluginAnnotations.agent.DataType;
 import org.rhq.helpers.pluginAnnotations.agent.DisplayType;
 import org.rhq.helpers.pluginAnnotations.agent.MeasurementType;
 import org.rhq.helpers.pluginAnnotations.agent.Metric;
 import org.rhq.helpers.pluginAnnotations.agent.Operation;
+import org.rhq.helpers.pluginAnnotations.agent.Parameter;
 import org.rhq.helpers.pluginAnnotations.agent.Units;
 
 import java.util.Map;
@@ -48,23 +53,32 @@
 
 /**
  * Captures cache management statistics
+ * <p/>
+ * The counters are {@link LongAdder}s rather than shared atomic longs, so that threads updating them concurrently
+ * don't contend on the same cache line. Times are accumulated in nanoseconds and only converted when read, and the
+ * latencies of reads, writes and removals are also recorded in {@link LatencyHistogram}s to expose percentiles.
+ * Nothing is measured for remote invocations, or when statistics were disabled at runtime.
  *
  * @author Jerry Gauthier
  * @since 4.0
  */
 @MBean(objectName = "Statistics", description = "General statistics such as timings, hit/miss ratio, etc.")
 public class CacheMgmtInterceptor extends JmxStatsCommandInterceptor {
-   private final AtomicLong hitTimes = new AtomicLong(0);
-   private final AtomicLong missTimes = new AtomicLong(0);
-   private final AtomicLong storeTimes = new AtomicLong(0);
-   private final AtomicLong hits = new AtomicLong(0);
-   private final AtomicLong misses = new AtomicLong(0);
-   private final AtomicLong stores = new AtomicLong(0);
-   private final AtomicLong evictions = new AtomicLong(0);
+   private final LongAdder hitTimes = new LongAdder();
+   private final LongAdder missTimes = new LongAdder();
+   private final LongAdder storeTimes = new LongAdder();
+   private final LongAdder removeTimes = new LongAdder();
+   private final LongAdder hits = new LongAdder();
+   private final LongAdder misses = new LongAdder();
+   private final LongAdder stores = new LongAdder();
+   private final LongAdder evictions = new LongAdder();
    private final AtomicLong startNanoseconds = new AtomicLong(System.nanoTime());
    private final AtomicLong resetNanoseconds = new AtomicLong(startNanoseconds.get());
-   private final AtomicLong removeHits = new AtomicLong(0);
-   private final AtomicLong removeMisses = new AtomicLong(0);
+   private final LongAdder removeHits = new LongAdder();
+   private final LongAdder removeMisses = new LongAdder();
+   private final LatencyHistogram readLatencies = new LatencyHistogram();
+   private final LatencyHistogram writeLatencies = new LatencyHistogram();
+   private final LatencyHistogram removeLatencies = new LatencyHistogram();
 
    private DataContainer dataContainer;
 
@@ -84,111 +98,146 @@ public void setDependencies(DataContainer dataContainer) {
    @Override
    public Object visitEvictCommand(InvocationContext ctx, EvictCommand command) throws Throwable {
       Object returnValue = invokeNextInterceptor(ctx, command);
-      evictions.incrementAndGet();
+      if (getStatisticsEnabled())
+         evictions.increment();
       return returnValue;
    }
 
    @Override
    public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+      if (!isMeasured(ctx))
+         return invokeNextInterceptor(ctx, command);
+
       long t1 = System.nanoTime();
       Object retval = invokeNextInterceptor(ctx, command);
-      long t2 = System.nanoTime();
-      long intervalMilliseconds = nanosecondsIntervalToMilliseconds(t1, t2);
-      if (ctx.isOriginLocal()) {
-         if (retval == null) {
-            missTimes.getAndAdd(intervalMilliseconds);
-            misses.incrementAndGet();
-         } else {
-            hitTimes.getAndAdd(intervalMilliseconds);
-            hits.incrementAndGet();
-         }
+      long intervalNanoseconds = System.nanoTime() - t1;
+      if (retval == null) {
+         missTimes.add(intervalNanoseconds);
+         misses.increment();
+      } else {
+         hitTimes.add(intervalNanoseconds);
+         hits.increment();
+      }
+      readLatencies.record(intervalNanoseconds);
+      return retval;
+   }
+
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      int requests = command.getKeys().size();
+      if (!isMeasured(ctx) || requests == 0)
+         return invokeNextInterceptor(ctx, command);
+
+      long t1 = System.nanoTime();
+      Map<?, ?> retval = (Map<?, ?>) invokeNextInterceptor(ctx, command);
+      long intervalNanoseconds = System.nanoTime() - t1;
+      // the time of the single invocation is shared among the hits and misses it accounts for
+      int hitCount = retval == null ? 0 : retval.size();
+      int missCount = requests - hitCount;
+      if (hitCount > 0) {
+         hitTimes.add(intervalNanoseconds * hitCount / requests);
+         hits.add(hitCount);
       }
+      if (missCount > 0) {
+         missTimes.add(intervalNanoseconds * missCount / requests);
+         misses.add(missCount);
+      }
+      readLatencies.record(intervalNanoseconds);
       return retval;
    }
 
    @Override
    public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) throws Throwable {
       final Map<Object, Object> data = command.getMap();
+      if (!isMeasured(ctx) || data == null || data.isEmpty())
+         return invokeNextInterceptor(ctx, command);
+
       final long t1 = System.nanoTime();
       final Object retval = invokeNextInterceptor(ctx, command);
-      final long t2 = System.nanoTime();
-      final long intervalMilliseconds = nanosecondsIntervalToMilliseconds(t1, t2);
-      if (data != null && ctx.isOriginLocal() && !data.isEmpty()) {
-         storeTimes.getAndAdd(intervalMilliseconds);
-         stores.getAndAdd(data.size());
-      }
+      final long intervalNanoseconds = System.nanoTime() - t1;
+      storeTimes.add(intervalNanoseconds);
+      stores.add(data.size());
+      writeLatencies.record(intervalNanoseconds);
       return retval;
    }
 
    @Override
    //Map.put(key,value) :: oldValue
    public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+      if (!isMeasured(ctx))
+         return invokeNextInterceptor(ctx, command);
+
       long t1 = System.nanoTime();
       Object retval = invokeNextInterceptor(ctx, command);
-      if (ctx.isOriginLocal() && command.isSuccessful()) {
-         long t2 = System.nanoTime();
-         long intervalMilliseconds = nanosecondsIntervalToMilliseconds(t1, t2);
-         storeTimes.getAndAdd(intervalMilliseconds);
-         stores.incrementAndGet();
+      if (command.isSuccessful()) {
+         long intervalNanoseconds = System.nanoTime() - t1;
+         storeTimes.add(intervalNanoseconds);
+         stores.increment();
+         writeLatencies.record(intervalNanoseconds);
       }
       return retval;
    }
 
    @Override
    public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) throws Throwable {
+      if (!isMeasured(ctx))
+         return invokeNextInterceptor(ctx, command);
+
+      long t1 = System.nanoTime();
       Object retval = invokeNextInterceptor(ctx, command);
-      if (ctx.isOriginLocal()) {
-         if (retval == null) {
-            removeMisses.incrementAndGet();
-         } else {
-            removeHits.incrementAndGet();
-         }
+      long intervalNanoseconds = System.nanoTime() - t1;
+      if (retval == null) {
+         removeMisses.increment();
+      } else {
+         removeHits.increment();
       }
+      removeTimes.add(intervalNanoseconds);
+      removeLatencies.record(intervalNanoseconds);
       return retval;
    }
 
    @ManagedAttribute(description = "Number of cache attribute hits")
    @Metric(displayName = "Number of cache hits", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
    public long getHits() {
-      return hits.get();
+      return hits.sum();
    }
 
    @ManagedAttribute(description = "Number of cache attribute misses")
    @Metric(displayName = "Number of cache misses", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
    public long getMisses() {
-      return misses.get();
+      return misses.sum();
    }
 
    @ManagedAttribute(description = "Number of cache removal hits")
    @Metric(displayName = "Number of cache removal hits", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
    public long getRemoveHits() {
-      return removeHits.get();
+      return removeHits.sum();
    }
 
    @ManagedAttribute(description = "Number of cache removals where keys were not found")
    @Metric(displayName = "Number of cache removal misses", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
    public long getRemoveMisses() {
-      return removeMisses.get();
+      return removeMisses.sum();
    }
 
    @ManagedAttribute(description = "number of cache attribute put operations")
    @Metric(displayName = "Number of cache puts" , measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
    public long getStores() {
-      return stores.get();
+      return stores.sum();
    }
 
    @ManagedAttribute(description = "Number of cache eviction operations")
    @Metric(displayName = "Number of cache evictions", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
    public long getEvictions() {
-      return evictions.get();
+      return evictions.sum();
    }
 
    @ManagedAttribute(description = "Percentage hit/(hit+miss) ratio for the cache")
    @Metric(displayName = "Hit ratio", units = Units.PERCENTAGE, displayType = DisplayType.SUMMARY)
    @SuppressWarnings("unused")
    public double getHitRatio() {
-      long hitsL = hits.get();
-      double total = hitsL + misses.get();
+      long hitsL = hits.sum();
+      double total = hitsL + misses.sum();
       // The reason for <= is that equality checks
       // should be avoided for floating point numbers.
       if (total <= 0)
@@ -200,28 +249,78 @@ public double getHitRatio() {
    @Metric(displayName = "Read/write ratio", units = Units.PERCENTAGE, displayType = DisplayType.SUMMARY)
    @SuppressWarnings("unused")
    public double getReadWriteRatio() {
-      if (stores.get() == 0)
+      long storesL = stores.sum();
+      if (storesL == 0)
          return 0;
-      return (((double) (hits.get() + misses.get()) / (double) stores.get()));
+      return (((double) (hits.sum() + misses.sum()) / (double) storesL));
    }
 
    @ManagedAttribute(description = "Average number of milliseconds for a read operation on the cache")
    @Metric(displayName = "Average read time", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
    @SuppressWarnings("unused")
    public long getAverageReadTime() {
-      long total = hits.get() + misses.get();
+      long total = hits.sum() + misses.sum();
       if (total == 0)
          return 0;
-      return (hitTimes.get() + missTimes.get()) / total;
+      return TimeUnit.NANOSECONDS.toMillis((hitTimes.sum() + missTimes.sum()) / total);
    }
 
    @ManagedAttribute(description = "Average number of milliseconds for a write operation in the cache")
    @Metric(displayName = "Average write time", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
    @SuppressWarnings("unused")
    public long getAverageWriteTime() {
-      if (stores.get() == 0)
+      long storesL = stores.sum();
+      if (storesL == 0)
+         return 0;
+      return TimeUnit.NANOSECONDS.toMillis(storeTimes.sum() / storesL);
+   }
+
+   @ManagedAttribute(description = "Average number of milliseconds for a remove operation in the cache")
+   @Metric(displayName = "Average remove time", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   @SuppressWarnings("unused")
+   public long getAverageRemoveTime() {
+      long total = removeHits.sum() + removeMisses.sum();
+      if (total == 0)
          return 0;
-      return (storeTimes.get()) / stores.get();
+      return TimeUnit.NANOSECONDS.toMillis(removeTimes.sum() / total);
+   }
+
+   @ManagedAttribute(description = "Percentiles of the latency of read operations, in microseconds")
+   @Metric(displayName = "Read latency percentiles", dataType = DataType.TRAIT, displayType = DisplayType.SUMMARY)
+   @SuppressWarnings("unused")
+   public String getReadLatencyHistogram() {
+      return readLatencies.toString();
+   }
+
+   @ManagedAttribute(description = "Percentiles of the latency of write operations, in microseconds")
+   @Metric(displayName = "Write latency percentiles", dataType = DataType.TRAIT, displayType = DisplayType.SUMMARY)
+   @SuppressWarnings("unused")
+   public String getWriteLatencyHistogram() {
+      return writeLatencies.toString();
+   }
+
+   @ManagedAttribute(description = "Percentiles of the latency of remove operations, in microseconds")
+   @Metric(displayName = "Remove latency percentiles", dataType = DataType.TRAIT, displayType = DisplayType.SUMMARY)
+   @SuppressWarnings("unused")
+   public String getRemoveLatencyHistogram() {
+      return removeLatencies.toString();
+   }
+
+   @ManagedOperation(description = "Returns the latency, in microseconds, below which the given percentage of the operations of a type completed")
+   @Operation(displayName = "Latency percentile")
+   public long getLatencyPercentile(@Parameter(name = "operation", description = "Type of operation (read/write/remove)") String operation,
+                                    @Parameter(name = "percentile", description = "Percentile, between 0 and 100") double percentile) {
+      LatencyHistogram histogram;
+      if ("read".equalsIgnoreCase(operation)) {
+         histogram = readLatencies;
+      } else if ("write".equalsIgnoreCase(operation)) {
+         histogram = writeLatencies;
+      } else if ("remove".equalsIgnoreCase(operation)) {
+         histogram = removeLatencies;
+      } else {
+         throw new IllegalArgumentException("Unknown operation type " + operation + ", expected read, write or remove");
+      }
+      return TimeUnit.NANOSECONDS.toMicros(histogram.getPercentileNanos(percentile));
    }
 
    @ManagedAttribute(description = "Number of entries currently in the cache")
@@ -247,25 +346,23 @@ public long getTimeSinceReset() {
    @ManagedOperation(description = "Resets statistics gathered by this component")
    @Operation(displayName = "Reset Statistics (Statistics)")
    public void resetStatistics() {
-      hits.set(0);
-      misses.set(0);
-      stores.set(0);
-      evictions.set(0);
-      hitTimes.set(0);
-      missTimes.set(0);
-      storeTimes.set(0);
-      removeHits.set(0);
-      removeMisses.set(0);
+      hits.reset();
+      misses.reset();
+      stores.reset();
+      evictions.reset();
+      hitTimes.reset();
+      missTimes.reset();
+      storeTimes.reset();
+      removeTimes.reset();
+      removeHits.reset();
+      removeMisses.reset();
+      readLatencies.reset();
+      writeLatencies.reset();
+      removeLatencies.reset();
       resetNanoseconds.set(System.nanoTime());
    }
 
-   /**
-    * @param nanoStart start time
-    * @param nanoEnd end time
-    * @return the interval rounded in milliseconds
-    */
-   private long nanosecondsIntervalToMilliseconds(final long nanoStart, final long nanoEnd) {
-      return TimeUnit.MILLISECONDS.convert(nanoEnd - nanoStart, TimeUnit.NANOSECONDS);
+   private boolean isMeasured(InvocationContext ctx) {
+      return ctx.isOriginLocal() && getStatisticsEnabled();
    }
 }
-
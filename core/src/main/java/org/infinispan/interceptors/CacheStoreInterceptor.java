@@ -271,11 +271,10 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
       if (skip(ctx, command) || ctx.isInTxScope()) return returnValue;
 
       Map<Object, Object> map = command.getMap();
-      for (Object key : map.keySet()) {
-         InternalCacheEntry se = getStoredEntry(key, ctx);
-         store.store(se);
-         if (getLog().isTraceEnabled()) getLog().tracef("Stored entry %s under key %s", se, key);
-      }
+      List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>(map.size());
+      for (Object key : map.keySet()) entries.add(getStoredEntry(key, ctx));
+      store.storeAll(entries);
+      if (getLog().isTraceEnabled()) getLog().tracef("Stored entries %s", entries);
       if (getStatisticsEnabled()) cacheStores.getAndAdd(map.size());
       return returnValue;
    }
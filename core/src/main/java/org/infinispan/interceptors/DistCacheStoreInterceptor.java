@@ -42,6 +42,7 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -113,12 +114,13 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
 
       Map<Object, Object> map = command.getMap();
       if (!(command.isForwarded() && loaderConfig.shared())) {
+         List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>(map.size());
          for (Object key : map.keySet()) {
-            if (!skipKey(key)) {
-               InternalCacheEntry se = getStoredEntry(key, ctx);
-               store.store(se);
-               log.tracef("Stored entry %s under key %s", se, key);
-            }
+            if (!skipKey(key)) entries.add(getStoredEntry(key, ctx));
+         }
+         if (!entries.isEmpty()) {
+            store.storeAll(entries);
+            log.tracef("Stored entries %s", entries);
          }
       }
       if (getStatisticsEnabled()) cacheStores.getAndAdd(map.size());
@@ -24,6 +24,7 @@
 
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.ValuesCommand;
@@ -52,6 +53,7 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -206,6 +208,36 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       return processRetVal(retVal, ctx);
    }
 
+   @Override
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      Map<Object, Object> marshalledKeyToKeyMapping = null;
+      if (wrapKeys) {
+         Collection<Object> keys = command.getKeys();
+         List<Object> wrappedKeys = new ArrayList<Object>(keys.size());
+         marshalledKeyToKeyMapping = new HashMap<Object, Object>(keys.size());
+         for (Object key : keys) {
+            if (!isTypeExcluded(key.getClass())) {
+               MarshalledValue mv = createMarshalledValue(key, ctx);
+               compact(mv);
+               marshalledKeyToKeyMapping.put(mv, key);
+               key = mv;
+            }
+            wrappedKeys.add(key);
+         }
+         command.setKeys(wrappedKeys);
+      }
+      Map<?, ?> retVal = (Map<?, ?>) invokeNextInterceptor(ctx, command);
+      if (retVal == null) return null;
+      Map<Object, Object> result = new HashMap<Object, Object>(retVal.size());
+      for (Map.Entry<?, ?> e : retVal.entrySet()) {
+         Object key = e.getKey();
+         if (key instanceof MarshalledValue) compact((MarshalledValue) key);
+         Object originalKey = marshalledKeyToKeyMapping == null ? null : marshalledKeyToKeyMapping.get(key);
+         result.put(originalKey == null ? key : originalKey, processRetVal(e.getValue(), ctx));
+      }
+      return result;
+   }
+
    @Override
    @SuppressWarnings("unchecked")
    public Object visitKeySetCommand(InvocationContext ctx, KeySetCommand command) throws Throwable {
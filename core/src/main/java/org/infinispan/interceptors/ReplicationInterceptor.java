@@ -23,8 +23,10 @@
 package org.infinispan.interceptors;
 
 import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.read.AbstractDataCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.tx.CommitCommand;
@@ -148,7 +150,7 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
          // available.  It could just have been removed in the same tx beforehand.  Also don't bother with a remote get if
          // the entry is mapped to the local node.
          if (returnValue == null && ctx.isOriginLocal()) {
-            if (needsRemoteGet(ctx, command)) {
+            if (needsRemoteGet(ctx, command.getKey(), command)) {
                returnValue = remoteGet(ctx, command, false);
             }
          }
@@ -171,8 +173,29 @@ public Object visitLockControlCommand(TxInvocationContext ctx, LockControlComman
       return retVal;
    }
 
-   private boolean needsRemoteGet(InvocationContext ctx, AbstractDataCommand command) {
-      Object key = command.getKey();
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         Map<Object, Object> returnValue = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+         if (ctx.isOriginLocal()) {
+            // keys not found locally are only looked up remotely while this node is not an owner of them yet
+            for (Object key : command.getKeys()) {
+               if (!returnValue.containsKey(key) && needsRemoteGet(ctx, key, command)) {
+                  InternalCacheEntry ice = retrieveFromRemoteSource(key, ctx, false, command.getFlags());
+                  if (ice != null && ice.getValue() != null)
+                     returnValue.put(key, command.isReturnEntries() ? ice : ice.getValue());
+               }
+            }
+         }
+         return returnValue;
+      } catch (SuspectException e) {
+         // retry
+         return visitGetAllCommand(ctx, command);
+      }
+   }
+
+   private boolean needsRemoteGet(InvocationContext ctx, Object key, FlagAffectedCommand command) {
       final CacheEntry entry;
       return !command.hasFlag(Flag.CACHE_MODE_LOCAL)
             && !command.hasFlag(Flag.SKIP_REMOTE_LOOKUP)   //todo [anistor] do we need this? it should normally be used only in distributed mode, never in replicated mode
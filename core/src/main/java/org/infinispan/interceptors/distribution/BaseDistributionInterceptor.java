@@ -24,6 +24,7 @@
 
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.read.AbstractDataCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.write.PutMapCommand;
 import org.infinispan.commands.write.RemoveCommand;
 import org.infinispan.commands.write.ReplaceCommand;
@@ -40,13 +41,16 @@
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.util.Immutables;
+import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.concurrent.locks.LockManager;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -95,6 +99,26 @@ protected boolean needsRemoteGet(InvocationContext ctx, AbstractDataCommand comm
             && ((entry = ctx.lookupEntry(command.getKey())) == null || entry.isNull() || entry.isLockPlaceholder());   //todo [anistor] this condition seems wrong
    }
 
+   /**
+    * Returns the keys of a {@link GetAllCommand} which have no local value and should be looked up remotely.
+    */
+   protected List<Object> keysNeedingRemoteGet(InvocationContext ctx, GetAllCommand command, Map<?, ?> localResult) {
+      if (command.hasFlag(Flag.CACHE_MODE_LOCAL) || command.hasFlag(Flag.SKIP_REMOTE_LOOKUP)
+            || command.hasFlag(Flag.IGNORE_RETURN_VALUES)) {
+         return InfinispanCollections.emptyList();
+      }
+      List<Object> keys = new ArrayList<Object>();
+      for (Object key : command.getKeys()) {
+         CacheEntry entry;
+         if (!localResult.containsKey(key)
+               && ((entry = ctx.lookupEntry(key)) == null || entry.isNull() || entry.isLockPlaceholder())
+               && shouldFetchFromRemote(ctx, key)) {
+            keys.add(key);
+         }
+      }
+      return keys;
+   }
+
    @Override
    public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) throws Throwable {
       // don't bother with a remote get for the PutMapCommand!
@@ -20,6 +20,7 @@
 package org.infinispan.interceptors.distribution;
 
 import org.infinispan.CacheException;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.write.ClearCommand;
 import org.infinispan.commands.write.PutKeyValueCommand;
@@ -62,6 +63,27 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
       }
    }
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         Map<Object, Object> returnValue = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+         List<Object> remoteKeys = keysNeedingRemoteGet(ctx, command, returnValue);
+         if (!remoteKeys.isEmpty()) {
+            if (trace) log.tracef("Doing a remote get for keys %s", remoteKeys);
+            Map<Object, InternalCacheEntry> remoteEntries = dm.retrieveFromRemoteSources(remoteKeys, ctx, command);
+            command.setRemotelyFetchedValues(remoteEntries);
+            for (Map.Entry<Object, InternalCacheEntry> e : remoteEntries.entrySet()) {
+               returnValue.put(e.getKey(), command.isReturnEntries() ? e.getValue() : e.getValue().getValue());
+            }
+         }
+         return returnValue;
+      } catch (SuspectException e) {
+         // retry
+         return visitGetAllCommand(ctx, command);
+      }
+   }
+
    @Override
    public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
       SingleKeyRecipientGenerator skrg = new SingleKeyRecipientGenerator(command.getKey());
@@ -21,6 +21,7 @@
 
 import org.infinispan.commands.FlagAffectedCommand;
 import org.infinispan.commands.control.LockControlCommand;
+import org.infinispan.commands.read.GetAllCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
@@ -49,6 +50,7 @@
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
 
@@ -135,6 +137,33 @@ public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand
    }
 
 
+   @Override
+   @SuppressWarnings("unchecked")
+   public Object visitGetAllCommand(InvocationContext ctx, GetAllCommand command) throws Throwable {
+      try {
+         Map<Object, Object> returnValue = (Map<Object, Object>) invokeNextInterceptor(ctx, command);
+         // same as for the single key get, remember the requestor of the values we found
+         if (isL1CacheEnabled && !ctx.isOriginLocal()) {
+            for (Object key : returnValue.keySet()) l1Manager.addRequestor(key, ctx.getOrigin());
+         }
+
+         List<Object> remoteKeys = keysNeedingRemoteGet(ctx, command, returnValue);
+         if (!remoteKeys.isEmpty()) {
+            if (trace) log.tracef("Doing a remote get for keys %s", remoteKeys);
+            Map<Object, InternalCacheEntry> remoteEntries = dm.retrieveFromRemoteSources(remoteKeys, ctx, command);
+            for (Map.Entry<Object, InternalCacheEntry> e : remoteEntries.entrySet()) {
+               InternalCacheEntry ice = e.getValue();
+               storeRemoteEntry(ctx, e.getKey(), ice, false, command);
+               returnValue.put(e.getKey(), command.isReturnEntries() ? ice : ice.getValue());
+            }
+         }
+         return returnValue;
+      } catch (SuspectException e) {
+         // retry
+         return visitGetAllCommand(ctx, command);
+      }
+   }
+
    private void lockAndWrap(InvocationContext ctx, Object key, InternalCacheEntry ice, FlagAffectedCommand command) throws InterruptedException {
       boolean skipLocking = hasSkipLocking(command);
       long lockTimeout = getLockAcquisitionTimeout(command, skipLocking);
@@ -303,50 +332,7 @@ protected Object remoteGetAndStoreInL1(InvocationContext ctx, Object key, boolea
          }
 
          if (ice != null) {
-            if (useClusteredWriteSkewCheck && ctx.isInTxScope()) {
-               ((TxInvocationContext)ctx).getCacheTransaction().putLookedUpRemoteVersion(key, ice.getVersion());
-            }
-
-            if (isL1CacheEnabled) {
-               // We've requested the key only from the owners current (read) CH.
-               // If the intersection of owners in the current and pending CHs is empty,
-               // the requestor information might be lost, so we shouldn't store the entry in L1.
-               // TODO We don't have access to the pending CH here, so we just check if the owners list changed.
-               List<Address> readOwners = dm.getReadConsistentHash().locateOwners(key);
-               List<Address> writeOwners = dm.getWriteConsistentHash().locateOwners(key);
-               if (!readOwners.equals(writeOwners)) {
-                  // todo [anistor] this check is not optimal and can yield false positives. here we should use StateTransferManager.isStateTransferInProgressForKey(key) after ISPN-2401 is fixed
-                  if (trace) log.tracef("State transfer in progress for key %s, not storing to L1");
-                  return ice.getValue();
-               }
-
-
-               if (trace) log.tracef("Caching remotely retrieved entry for key %s in L1", key);
-               // This should be fail-safe
-               try {
-                  long l1Lifespan = cacheConfiguration.clustering().l1().lifespan();
-                  long lifespan = ice.getLifespan() < 0 ? l1Lifespan : Math.min(ice.getLifespan(), l1Lifespan);
-                  PutKeyValueCommand put = cf.buildPutKeyValueCommand(ice.getKey(), ice.getValue(), lifespan, -1, command.getFlags());
-                  lockAndWrap(ctx, key, ice, command);
-                  invokeNextInterceptor(ctx, put);
-               } catch (Exception e) {
-                  // Couldn't store in L1 for some reason.  But don't fail the transaction!
-                  log.infof("Unable to store entry %s in L1 cache", key);
-                  log.debug("Inability to store in L1 caused by", e);
-               }
-            } else {
-               CacheEntry ce = ctx.lookupEntry(key);
-               if (ce == null || ce.isNull() || ce.isLockPlaceholder() || ce.getValue() == null) {
-                  if (ce != null && ce.isChanged()) {
-                     ce.setValue(ice.getValue());
-                  } else {
-                     if (isWrite)
-                        lockAndWrap(ctx, key, ice, command);
-                     else
-                        ctx.putLookedUpEntry(key, ice);
-                  }
-               }
-            }
+            storeRemoteEntry(ctx, key, ice, isWrite, command);
             return ice.getValue();
          }
       } else {
@@ -355,6 +341,56 @@ protected Object remoteGetAndStoreInL1(InvocationContext ctx, Object key, boolea
       return null;
    }
 
+   /**
+    * Records a remotely retrieved entry, either in L1 or in the invocation context.
+    */
+   private void storeRemoteEntry(InvocationContext ctx, Object key, InternalCacheEntry ice, boolean isWrite, FlagAffectedCommand command) throws Throwable {
+      if (useClusteredWriteSkewCheck && ctx.isInTxScope()) {
+         ((TxInvocationContext)ctx).getCacheTransaction().putLookedUpRemoteVersion(key, ice.getVersion());
+      }
+
+      if (isL1CacheEnabled) {
+         // We've requested the key only from the owners current (read) CH.
+         // If the intersection of owners in the current and pending CHs is empty,
+         // the requestor information might be lost, so we shouldn't store the entry in L1.
+         // TODO We don't have access to the pending CH here, so we just check if the owners list changed.
+         List<Address> readOwners = dm.getReadConsistentHash().locateOwners(key);
+         List<Address> writeOwners = dm.getWriteConsistentHash().locateOwners(key);
+         if (!readOwners.equals(writeOwners)) {
+            // todo [anistor] this check is not optimal and can yield false positives. here we should use StateTransferManager.isStateTransferInProgressForKey(key) after ISPN-2401 is fixed
+            if (trace) log.tracef("State transfer in progress for key %s, not storing to L1");
+            return;
+         }
+
+
+         if (trace) log.tracef("Caching remotely retrieved entry for key %s in L1", key);
+         // This should be fail-safe
+         try {
+            long l1Lifespan = cacheConfiguration.clustering().l1().lifespan();
+            long lifespan = ice.getLifespan() < 0 ? l1Lifespan : Math.min(ice.getLifespan(), l1Lifespan);
+            PutKeyValueCommand put = cf.buildPutKeyValueCommand(ice.getKey(), ice.getValue(), lifespan, -1, command.getFlags());
+            lockAndWrap(ctx, key, ice, command);
+            invokeNextInterceptor(ctx, put);
+         } catch (Exception e) {
+            // Couldn't store in L1 for some reason.  But don't fail the transaction!
+            log.infof("Unable to store entry %s in L1 cache", key);
+            log.debug("Inability to store in L1 caused by", e);
+         }
+      } else {
+         CacheEntry ce = ctx.lookupEntry(key);
+         if (ce == null || ce.isNull() || ce.isLockPlaceholder() || ce.getValue() == null) {
+            if (ce != null && ce.isChanged()) {
+               ce.setValue(ice.getValue());
+            } else {
+               if (isWrite)
+                  lockAndWrap(ctx, key, ice, command);
+               else
+                  ctx.putLookedUpEntry(key, ice);
+            }
+         }
+      }
+   }
+
    private boolean isNeedReliableReturnValues(FlagAffectedCommand command) {
       return !command.hasFlag(Flag.SKIP_REMOTE_LOOKUP)
             && !command.hasFlag(Flag.IGNORE_RETURN_VALUES) && needReliableReturnValues;
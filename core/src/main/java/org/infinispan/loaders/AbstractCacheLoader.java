@@ -23,8 +23,12 @@
 package org.infinispan.loaders;
 
 import org.infinispan.Cache;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.marshall.StreamingMarshaller;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * An abstract {@link org.infinispan.loaders.CacheLoader} that holds common implementations for some methods
  *
@@ -46,6 +50,22 @@ public boolean containsKey(Object key) throws CacheLoaderException {
       return load(key) != null;
    }
 
+   /**
+    * {@inheritDoc} This implementation delegates to {@link CacheLoader#load(Object)} for each key.  Implementations
+    * able to fetch several entries in a single round trip should override it.
+    */
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      if (keys != null) {
+         for (Object key : keys) {
+            InternalCacheEntry se = load(key);
+            if (se != null) result.add(se);
+         }
+      }
+      return result;
+   }
+
    @Override
    public void init(CacheLoaderConfig config, Cache<?, ?> cache, StreamingMarshaller m) throws CacheLoaderException {
       this.marshaller = m;
@@ -23,6 +23,7 @@
 package org.infinispan.loaders;
 
 import org.infinispan.Cache;
+import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.loaders.modifications.Modification;
 import org.infinispan.loaders.modifications.Remove;
 import org.infinispan.loaders.modifications.Store;
@@ -35,6 +36,9 @@
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -118,24 +122,51 @@ public void run() {
 
    protected abstract void purgeInternal() throws CacheLoaderException;
 
+   /**
+    * Applies a list of modifications in order.  Consecutive runs of {@link Store} and {@link Remove} modifications are
+    * handed to {@link #storeAll(java.util.Collection)} and {@link #removeAll(java.util.Set)} respectively, so that
+    * stores with native bulk support write each run in one go.
+    */
    protected void applyModifications(List<? extends Modification> mods) throws CacheLoaderException {
+      List<InternalCacheEntry> toStore = new ArrayList<InternalCacheEntry>();
+      Set<Object> toRemove = new HashSet<Object>();
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
                Store s = (Store) m;
-               store(s.getStoredEntry());
+               if (!toRemove.isEmpty()) flushRemoves(toRemove);
+               toStore.add(s.getStoredEntry());
                break;
             case CLEAR:
+               flushStores(toStore);
+               flushRemoves(toRemove);
                clear();
                break;
             case REMOVE:
                Remove r = (Remove) m;
-               remove(r.getKey());
+               if (!toStore.isEmpty()) flushStores(toStore);
+               toRemove.add(r.getKey());
                break;
             default:
                throw new IllegalArgumentException("Unknown modification type " + m.getType());
          }
       }
+      flushStores(toStore);
+      flushRemoves(toRemove);
+   }
+
+   private void flushStores(List<InternalCacheEntry> toStore) throws CacheLoaderException {
+      if (toStore.isEmpty()) return;
+      if (toStore.size() == 1) store(toStore.get(0));
+      else storeAll(toStore);
+      toStore.clear();
+   }
+
+   private void flushRemoves(Set<Object> toRemove) throws CacheLoaderException {
+      if (toRemove.isEmpty()) return;
+      if (toRemove.size() == 1) remove(toRemove.iterator().next());
+      else removeAll(toRemove);
+      toRemove.clear();
    }
 
    @Override
@@ -163,6 +194,13 @@ public void commit(GlobalTransaction tx) throws CacheLoaderException {
       if (list != null && !list.isEmpty()) applyModifications(list);
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (entries != null && !entries.isEmpty()) {
+         for (InternalCacheEntry entry : entries) store(entry);
+      }
+   }
+
    @Override
    public void removeAll(Set<Object> keys) throws CacheLoaderException {
       if (keys != null && !keys.isEmpty()) {
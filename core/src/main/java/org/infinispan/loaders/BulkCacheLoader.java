@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.loaders;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+
+/**
+ * A {@link CacheLoader} able to hand its stored entries to a visitor in a single pass, without first building a set of
+ * all keys (as {@link CacheLoader#loadAllKeys(java.util.Set)} does) and then loading each of them with
+ * {@link CacheLoader#load(Object)}.
+ * <p />
+ * Used by state transfer to stream the contents of the store to the new owners with memory bounded by the chunk size
+ * rather than by the number of stored keys.  Visitors may block, e.g. on remote calls, so implementations must not
+ * hold locks that exclude writers to the store while the visitor runs.
+ *
+ * @since 5.2
+ */
+public interface BulkCacheLoader extends CacheLoader {
+
+   /**
+    * Visits the stored entries whose keys are accepted by the filter, in no particular order.  Expired entries are not
+    * visited.
+    *
+    * @param filter  decides, before the entry is handed out, whether a key is of interest; may be null to visit all
+    *                entries
+    * @param visitor receives the entries; visiting stops as soon as it returns <tt>true</tt>
+    * @throws CacheLoaderException in the event of problems reading from source, or if thrown by the visitor
+    */
+   void visitEntries(KeyFilter filter, EntryVisitor visitor) throws CacheLoaderException;
+
+   interface KeyFilter {
+      /**
+       * @return <tt>true</tt> if the entry mapped to this key should be handed to the visitor
+       */
+      boolean accept(Object key);
+   }
+
+   interface EntryVisitor {
+      /**
+       * @param entry a stored, non expired entry
+       * @return <tt>true</tt> if no more entries should be visited, <tt>false</tt> otherwise
+       */
+      boolean visit(InternalCacheEntry entry) throws CacheLoaderException;
+   }
+}
@@ -65,6 +65,16 @@ public interface CacheLoader {
     */
    Set<InternalCacheEntry> loadAll() throws CacheLoaderException;
 
+   /**
+    * Loads the entries mapped to the given keys.  Expired entries and keys with no mapping in the loader are not
+    * returned.
+    *
+    * @param keys keys to load
+    * @return a set of the entries found, or an empty set if none of the keys are mapped in the loader.
+    * @throws CacheLoaderException in the event of problems reading from source
+    */
+   Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException;
+
    /**
     * Loads up to a specific number of entries.  There is no guarantee as to order of entries loaded.  The set returned
     * would contain up to a maximum of <tt>numEntries</tt> entries, and no more.
@@ -24,6 +24,12 @@
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.infinispan.Cache;
@@ -219,6 +225,96 @@ public final void store(InternalCacheEntry ed) throws CacheLoaderException {
       }
    }
 
+   @Override
+   public final void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (trace) {
+         log.tracef("storeAll(%s)", entries);
+      }
+      if (entries == null || entries.isEmpty()) {
+         return;
+      }
+      Map<L, List<InternalCacheEntry>> batch = new LinkedHashMap<L, List<InternalCacheEntry>>();
+      for (InternalCacheEntry ed : entries) {
+         if (ed == null) {
+            continue;
+         }
+         if (ed.canExpire() && ed.isExpired(System.currentTimeMillis())) {
+            // expired entries are rare, let store() deal with them
+            store(ed);
+            continue;
+         }
+         L lockingKey = getLockFromKey(ed.getKey());
+         List<InternalCacheEntry> forLock = batch.get(lockingKey);
+         if (forLock == null) {
+            forLock = new ArrayList<InternalCacheEntry>();
+            batch.put(lockingKey, forLock);
+         }
+         forLock.add(ed);
+      }
+      if (batch.isEmpty()) {
+         return;
+      }
+      Set<L> lockingKeys = batch.keySet();
+      locks.acquireAllLocks(lockingKeys, true);
+      try {
+         storeAllLockSafe(batch);
+      } finally {
+         locks.releaseAllLocks(lockingKeys);
+      }
+      if (trace) {
+         log.tracef("exit storeAll(%s)", entries);
+      }
+   }
+
+   @Override
+   public final Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Map<L, List<Object>> batch = groupByLockingKey(keys);
+      if (batch.isEmpty()) {
+         return new HashSet<InternalCacheEntry>();
+      }
+      Set<L> lockingKeys = batch.keySet();
+      locks.acquireAllLocks(lockingKeys, false);
+      try {
+         return loadAllLockSafe(batch);
+      } finally {
+         locks.releaseAllLocks(lockingKeys);
+      }
+   }
+
+   @Override
+   public final void removeAll(Set<Object> keys) throws CacheLoaderException {
+      if (trace) {
+         log.tracef("removeAll(%s)", keys);
+      }
+      Map<L, List<Object>> batch = groupByLockingKey(keys);
+      if (batch.isEmpty()) {
+         return;
+      }
+      Set<L> lockingKeys = batch.keySet();
+      locks.acquireAllLocks(lockingKeys, true);
+      try {
+         removeAllLockSafe(batch);
+      } finally {
+         locks.releaseAllLocks(lockingKeys);
+      }
+   }
+
+   private Map<L, List<Object>> groupByLockingKey(Set<Object> keys) throws CacheLoaderException {
+      Map<L, List<Object>> batch = new LinkedHashMap<L, List<Object>>();
+      if (keys != null) {
+         for (Object key : keys) {
+            L lockingKey = getLockFromKey(key);
+            List<Object> forLock = batch.get(lockingKey);
+            if (forLock == null) {
+               forLock = new ArrayList<Object>();
+               batch.put(lockingKey, forLock);
+            }
+            forLock.add(key);
+         }
+      }
+      return batch;
+   }
+
    @Override
    public final boolean remove(Object key) throws CacheLoaderException {
       if (trace) {
@@ -297,5 +393,55 @@ public int getTotalLockCount() {
 
    protected abstract InternalCacheEntry loadLockSafe(Object key, L lockingKey) throws CacheLoaderException;
 
+   /**
+    * Stores a batch of entries while holding the write locks of all their locking keys.  This implementation calls
+    * {@link #storeLockSafe(InternalCacheEntry, Object)} for each entry; stores able to write several entries in a
+    * single round trip should override it.
+    *
+    * @param entries entries to store, grouped by locking key, in the order they were passed to {@link
+    *                #storeAll(java.util.Collection)}
+    */
+   protected void storeAllLockSafe(Map<L, List<InternalCacheEntry>> entries) throws CacheLoaderException {
+      for (Map.Entry<L, List<InternalCacheEntry>> e : entries.entrySet()) {
+         for (InternalCacheEntry ed : e.getValue()) {
+            storeLockSafe(ed, e.getKey());
+         }
+      }
+   }
+
+   /**
+    * Loads a batch of keys while holding the read locks of all their locking keys.  This implementation calls {@link
+    * #loadLockSafe(Object, Object)} for each key.
+    *
+    * @param keys keys to load, grouped by locking key
+    * @return the non-expired entries found
+    */
+   protected Set<InternalCacheEntry> loadAllLockSafe(Map<L, List<Object>> keys) throws CacheLoaderException {
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      for (Map.Entry<L, List<Object>> e : keys.entrySet()) {
+         for (Object key : e.getValue()) {
+            InternalCacheEntry se = loadLockSafe(key, e.getKey());
+            if (se != null) {
+               result.add(se);
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Removes a batch of keys while holding the write locks of all their locking keys.  This implementation calls {@link
+    * #removeLockSafe(Object, Object)} for each key.
+    *
+    * @param keys keys to remove, grouped by locking key
+    */
+   protected void removeAllLockSafe(Map<L, List<Object>> keys) throws CacheLoaderException {
+      for (Map.Entry<L, List<Object>> e : keys.entrySet()) {
+         for (Object key : e.getValue()) {
+            removeLockSafe(key, e.getKey());
+         }
+      }
+   }
+
    protected abstract L getLockFromKey(Object key) throws CacheLoaderException;
 }
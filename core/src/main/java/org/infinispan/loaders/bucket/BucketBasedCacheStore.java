@@ -23,12 +23,16 @@
 package org.infinispan.loaders.bucket;
 
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.loaders.BulkCacheLoader;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.LockSupportCacheStore;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -46,7 +50,7 @@
  * @author <a href="http://gleamynode.net/">Trustin Lee</a>
  * @since 4.0
  */
-public abstract class BucketBasedCacheStore extends LockSupportCacheStore<Integer> {
+public abstract class BucketBasedCacheStore extends LockSupportCacheStore<Integer> implements BulkCacheLoader {
 
    /**
     * Loads an entry from a Bucket, locating the relevant Bucket using the key's hash code.
@@ -115,6 +119,83 @@ protected boolean removeLockSafe(Object key, Integer lockingKey) throws CacheLoa
       }
    }
 
+   /**
+    * Stores a batch of entries, loading and writing each affected Bucket only once.  New and existing buckets are
+    * handed to {@link #insertBuckets(java.util.Collection)} and {@link #updateBuckets(java.util.Collection)}
+    * respectively.
+    */
+   @Override
+   protected void storeAllLockSafe(Map<Integer, List<InternalCacheEntry>> entries) throws CacheLoaderException {
+      List<Bucket> toInsert = new ArrayList<Bucket>();
+      List<Bucket> toUpdate = new ArrayList<Bucket>();
+      for (Map.Entry<Integer, List<InternalCacheEntry>> e : entries.entrySet()) {
+         Bucket bucket = loadBucket(e.getKey());
+         if (bucket != null) {
+            toUpdate.add(bucket);
+         } else {
+            bucket = new Bucket();
+            bucket.setBucketId(e.getKey());
+            toInsert.add(bucket);
+         }
+         for (InternalCacheEntry entry : e.getValue()) {
+            bucket.addEntry(entry);
+         }
+      }
+      if (!toInsert.isEmpty()) {
+         insertBuckets(toInsert);
+      }
+      if (!toUpdate.isEmpty()) {
+         updateBuckets(toUpdate);
+      }
+   }
+
+   /**
+    * Loads a batch of keys, reading each affected Bucket only once.
+    */
+   @Override
+   protected Set<InternalCacheEntry> loadAllLockSafe(Map<Integer, List<Object>> keys) throws CacheLoaderException {
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      long now = System.currentTimeMillis();
+      for (Map.Entry<Integer, List<Object>> e : keys.entrySet()) {
+         Bucket bucket = loadBucket(e.getKey());
+         if (bucket == null) {
+            continue;
+         }
+         for (Object key : e.getValue()) {
+            InternalCacheEntry se = bucket.getEntry(key);
+            // as in loadLockSafe(), expired entries are left to the purging thread
+            if (se != null && !(se.canExpire() && se.isExpired(now))) {
+               result.add(se);
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Removes a batch of keys, reading and writing each affected Bucket only once.
+    */
+   @Override
+   protected void removeAllLockSafe(Map<Integer, List<Object>> keys) throws CacheLoaderException {
+      List<Bucket> toUpdate = new ArrayList<Bucket>();
+      for (Map.Entry<Integer, List<Object>> e : keys.entrySet()) {
+         Bucket bucket = loadBucket(e.getKey());
+         if (bucket == null) {
+            continue;
+         }
+         boolean modified = false;
+         for (Object key : e.getValue()) {
+            modified |= bucket.removeEntry(key);
+         }
+         if (modified) {
+            toUpdate.add(bucket);
+         }
+      }
+      if (!toUpdate.isEmpty()) {
+         updateBuckets(toUpdate);
+      }
+   }
+
    /**
     * For {@link BucketBasedCacheStore}s the lock should be acquired at bucket level. So we're locking based on the
     * hash code of the key, as all keys having same hash code will be mapped to same bucket.
@@ -137,6 +218,32 @@ protected void insertBucket(Bucket bucket) throws CacheLoaderException {
       updateBucket(bucket);
    }
 
+   /**
+    * Inserts several new Buckets in the storage system.  The default behavior is to call {@link #insertBucket(Bucket)}
+    * for each bucket; implementations able to write several buckets in a single round trip should override it.
+    *
+    * @param buckets buckets to insert
+    * @throws CacheLoaderException in case of problems with the store.
+    */
+   protected void insertBuckets(Collection<Bucket> buckets) throws CacheLoaderException {
+      for (Bucket bucket : buckets) {
+         insertBucket(bucket);
+      }
+   }
+
+   /**
+    * Updates several Buckets in the storage system.  The default behavior is to call {@link #updateBucket(Bucket)} for
+    * each bucket; implementations able to write several buckets in a single round trip should override it.
+    *
+    * @param buckets buckets to update
+    * @throws CacheLoaderException in case of problems with the store.
+    */
+   protected void updateBuckets(Collection<Bucket> buckets) throws CacheLoaderException {
+      for (Bucket bucket : buckets) {
+         updateBucket(bucket);
+      }
+   }
+
    protected static interface BucketHandler {
       /**
        * Handles a bucket that is passed in.
@@ -220,6 +327,51 @@ public boolean consider(Collection<? extends InternalCacheEntry> entries) {
       return g.generate();
    }
 
+   /**
+    * Visits the entries of each bucket as it is read.  The global read lock is only held while a bucket is loaded and
+    * copied: it is released before the copied entries are handed to the visitor, so that a visitor which blocks (e.g.
+    * on a remote call) never stalls writers to the store.  Unlike {@link CollectionGeneratingBucketHandler}, expired
+    * entries are skipped rather than purged, so that visiting never writes to the store.
+    */
+   @Override
+   public void visitEntries(final KeyFilter filter, final EntryVisitor visitor) throws CacheLoaderException {
+      final long now = System.currentTimeMillis();
+      final boolean[] locked = {acquireGlobalLock(false)};
+      try {
+         loopOverBuckets(new BucketHandler() {
+            @Override
+            public boolean handle(Bucket bucket) throws CacheLoaderException {
+               if (bucket == null) {
+                  return false;
+               }
+               List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>(bucket.getStoredEntries());
+               if (locked[0]) {
+                  releaseGlobalLock(false);
+                  locked[0] = false;
+               }
+               try {
+                  for (InternalCacheEntry se : entries) {
+                     if (se.canExpire() && se.isExpired(now)) {
+                        continue;
+                     }
+                     if ((filter == null || filter.accept(se.getKey())) && visitor.visit(se)) {
+                        return true;
+                     }
+                  }
+                  return false;
+               } finally {
+                  // the next bucket is loaded under the lock again
+                  locked[0] = acquireGlobalLock(false);
+               }
+            }
+         });
+      } finally {
+         if (locked[0]) {
+            releaseGlobalLock(false);
+         }
+      }
+   }
+
    /**
     * A mechanism to loop over all buckets in the cache store.  Implementations should, very simply, loop over all
     * available buckets, and for each deserialized bucket, pass it to the handler.
@@ -34,6 +34,7 @@
 
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -70,6 +71,11 @@ public void store(InternalCacheEntry ed) throws CacheLoaderException {
       delegate.store(ed);
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      delegate.storeAll(entries);
+   }
+
    @Override
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
       delegate.fromStream(inputStream);
@@ -125,6 +131,11 @@ public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       return delegate.loadAll();
    }
 
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      return delegate.loadAll(keys);
+   }
+
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
       return delegate.load(numEntries);
@@ -37,12 +37,12 @@
 import org.infinispan.loaders.modifications.Store;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.transaction.xa.GlobalTransaction;
-import org.infinispan.transaction.xa.TransactionFactory;
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -88,7 +88,6 @@ public class AsyncStore extends AbstractDelegatingStore {
    private static final AtomicInteger threadId = new AtomicInteger(0);
 
    private final AsyncStoreConfig asyncStoreConfig;
-   private final TransactionFactory txFactory;
    private Map<GlobalTransaction, List<? extends Modification>> transactions;
 
    private ExecutorService executor;
@@ -104,8 +103,6 @@ public class AsyncStore extends AbstractDelegatingStore {
    public AsyncStore(CacheStore delegate, AsyncStoreConfig asyncStoreConfig) {
       super(delegate);
       this.asyncStoreConfig = asyncStoreConfig;
-      txFactory = new TransactionFactory();
-      txFactory.init(false, false, false, false);
    }
 
    @Override
@@ -208,6 +205,25 @@ public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       return load(Integer.MAX_VALUE);
    }
 
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
+      Set<Object> notBuffered = new HashSet<Object>();
+      for (Object key : keys) {
+         Modification mod = state.get(key);
+         if (mod == null) {
+            notBuffered.add(key);
+         } else if (mod.getType() == Modification.Type.STORE) {
+            InternalCacheEntry ice = ((Store) mod).getStoredEntry();
+            if (!ice.isExpired())
+               result.add(ice);
+         }
+      }
+      if (!notBuffered.isEmpty())
+         result.addAll(super.loadAll(notBuffered));
+      return result;
+   }
+
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
       Set<InternalCacheEntry> result = new HashSet<InternalCacheEntry>();
@@ -227,6 +243,16 @@ public void store(InternalCacheEntry entry) {
       put(new Store(entry), 1);
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) {
+      if (entries != null && !entries.isEmpty()) {
+         List<Modification> mods = new ArrayList<Modification>(entries.size());
+         for (InternalCacheEntry entry : entries)
+            mods.add(new Store(entry));
+         put(new ModificationsList(mods), mods.size());
+      }
+   }
+
    @Override
    public void clear() {
       stateLock.writeLock(1);
@@ -329,8 +355,31 @@ public void stop() throws CacheLoaderException {
       super.stop();
    }
 
+   /**
+    * Writes a batch of coalesced modifications to the delegate store.  Each batch holds at most one modification per
+    * key, so all the stores are handed to the delegate in a single {@link CacheStore#storeAll(Collection)} call and
+    * all the removals in a single {@link CacheStore#removeAll(Set)} call.
+    */
    protected void applyModificationsSync(List<Modification> mods) throws CacheLoaderException {
-      getDelegate().prepare(mods, txFactory.newGlobalTransaction(null, false), true);
+      List<InternalCacheEntry> toStore = new ArrayList<InternalCacheEntry>(mods.size());
+      Set<Object> toRemove = new HashSet<Object>();
+      for (Modification mod : mods) {
+         switch (mod.getType()) {
+            case STORE:
+               toStore.add(((Store) mod).getStoredEntry());
+               break;
+            case REMOVE:
+               toRemove.add(((Remove) mod).getKey());
+               break;
+            default:
+               throw new IllegalArgumentException("Unexpected modification type " + mod.getType());
+         }
+      }
+      CacheStore delegate = getDelegate();
+      if (!toStore.isEmpty())
+         delegate.storeAll(toStore);
+      if (!toRemove.isEmpty())
+         delegate.removeAll(toRemove);
    }
 
    private static class State {
@@ -42,6 +42,8 @@
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -81,6 +83,16 @@ public void store(InternalCacheEntry ed) throws CacheLoaderException {
       }
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      loadersAndStoresMutex.readLock().lock();
+      try {
+         for (CacheStore s : stores.keySet()) s.storeAll(entries);
+      } finally {
+         loadersAndStoresMutex.readLock().unlock();
+      }
+   }
+
    @Override
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
       loadersAndStoresMutex.readLock().lock();
@@ -227,6 +239,23 @@ public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       return set;
    }
 
+   @Override
+   public Set<InternalCacheEntry> loadAll(Set<Object> keys) throws CacheLoaderException {
+      Map<Object, InternalCacheEntry> found = new HashMap<Object, InternalCacheEntry>();
+      Set<Object> remaining = new HashSet<Object>(keys);
+      loadersAndStoresMutex.readLock().lock();
+      try {
+         for (CacheLoader l : loaders.keySet()) {
+            if (remaining.isEmpty()) break;
+            for (InternalCacheEntry se : l.loadAll(remaining)) found.put(se.getKey(), se);
+            remaining.removeAll(found.keySet());
+         }
+      } finally {
+         loadersAndStoresMutex.readLock().unlock();
+      }
+      return new HashSet<InternalCacheEntry>(found.values());
+   }
+
    @Override
    public Set<InternalCacheEntry> load(int numEntries) throws CacheLoaderException {
       if (numEntries < 0) return loadAll();
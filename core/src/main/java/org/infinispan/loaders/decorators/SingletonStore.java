@@ -40,6 +40,7 @@
 import org.infinispan.util.logging.LogFactory;
 
 import java.io.ObjectInput;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -134,6 +135,14 @@ public void store(InternalCacheEntry ed) throws CacheLoaderException {
       } else if (trace) log.tracef("Not storing key %s.  Instance: %s", ed.getKey(), this);
    }
 
+   @Override
+   public void storeAll(Collection<InternalCacheEntry> entries) throws CacheLoaderException {
+      if (active) {
+         if (trace) log.tracef("Storing %s entries.  Instance: %s", entries.size(), this);
+         super.storeAll(entries);
+      } else if (trace) log.tracef("Not storing %s entries.  Instance: %s", entries.size(), this);
+   }
+
    @Override
    public void fromStream(ObjectInput inputStream) throws CacheLoaderException {
       if (active) super.fromStream(inputStream);
@@ -149,6 +158,11 @@ public boolean remove(Object key) throws CacheLoaderException {
       return active && super.remove(key);
    }
 
+   @Override
+   public void removeAll(Set<Object> keys) throws CacheLoaderException {
+      if (active) super.removeAll(keys);
+   }
+
    @Override
    public void purgeExpired() throws CacheLoaderException {
       if (active) super.purgeExpired();
@@ -198,6 +198,13 @@ else if (!preferSerializedRepresentation && thisInstance == null){
       }
    }
 
+   /**
+    * Returns the size of the serialized representation, or an estimate of it if this value has never been serialized.
+    */
+   public int getSerialisedSize() {
+      return serialisedSize;
+   }
+
    public MarshalledValueByteStream getRaw() {
       MarshalledValueByteStream rawValue = raw;
       if (rawValue == null){
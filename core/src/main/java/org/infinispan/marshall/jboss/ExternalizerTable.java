@@ -295,7 +295,7 @@ private void loadInternalMarshallables() {
       addInternalExternalizer(new CacheTopology.Externalizer());
       addInternalExternalizer(new CacheJoinInfo.Externalizer());
       addInternalExternalizer(new TransactionInfo.Externalizer());
-      addInternalExternalizer(new StateChunk.Externalizer());
+      addInternalExternalizer(new StateChunk.Externalizer(globalMarshaller));
 
       addInternalExternalizer(new Flag.Externalizer());
 
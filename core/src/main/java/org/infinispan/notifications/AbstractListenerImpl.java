@@ -29,6 +29,7 @@
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.util.ReflectionUtil;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
 import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 
@@ -36,13 +37,20 @@
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Functionality common to both {@link org.infinispan.notifications.cachemanagerlistener.CacheManagerNotifierImpl} and
@@ -54,6 +62,18 @@ public abstract class AbstractListenerImpl {
 
    protected final Map<Class<? extends Annotation>, List<ListenerInvocation>> listenersMap = new HashMap<Class<? extends Annotation>, List<ListenerInvocation>>(16, 0.99f);
 
+   /**
+    * Maximum number of events delivered by a single task submitted to the async processor before yielding the thread to
+    * other listeners' queues.
+    */
+   private static final int ASYNC_BATCH_SIZE = 64;
+
+   // one queue per asynchronous listener instance, shared by all its annotated methods so that ordering is preserved
+   private final ConcurrentMap<Object, AsyncListenerQueue> asyncQueues = ConcurrentMapFactory.makeConcurrentMap();
+   private final AtomicLong asyncEventsDelivered = new AtomicLong();
+   private final AtomicLong asyncEventsDiscarded = new AtomicLong();
+   private final AtomicLong asyncDispatchLatency = new AtomicLong();
+
 
    // two separate executor services, one for sync and one for async listeners
    protected ExecutorService syncProcessor;
@@ -78,6 +98,8 @@ void stop() {
       for (List<ListenerInvocation> list : listenersMap.values()) {
          if (list != null) list.clear();
       }
+      for (AsyncListenerQueue queue : asyncQueues.values()) queue.events.clear();
+      asyncQueues.clear();
 
       if (syncProcessor != null) syncProcessor.shutdownNow();
    }
@@ -95,6 +117,7 @@ protected List<ListenerInvocation> getListenerCollectionForAnnotation(Class<? ex
    public void removeListener(Object listener) {
       for (Class<? extends Annotation> annotation : getAllowedMethodAnnotations().keySet())
          removeListenerInvocation(annotation, listener);
+      if (listener != null) asyncQueues.remove(listener);
    }
 
    private void removeListenerInvocation(Class<? extends Annotation> annotation, Object listener) {
@@ -128,6 +151,13 @@ public Set<Object> getListeners() {
    @SuppressWarnings("unchecked")
    private void validateAndAddListenerInvocation(Object listener) {
       boolean sync = testListenerClassValidity(listener.getClass());
+      AsyncListenerQueue queue = null;
+      if (!sync) {
+         Listener l = ReflectionUtil.getAnnotation(listener.getClass(), Listener.class);
+         if (l.queueSize() <= 0)
+            throw new IncorrectListenerException(String.format("Cache listener class %s must have a positive queueSize", listener.getClass().getName()));
+         queue = new AsyncListenerQueue(l.queueSize(), l.overflowPolicy());
+      }
       boolean foundMethods = false;
       Map<Class<? extends Annotation>, Class<?>> allowedListeners = getAllowedMethodAnnotations();
       // now try all methods on the listener for anything that we like.  Note that only PUBLIC methods are scanned.
@@ -138,7 +168,7 @@ private void validateAndAddListenerInvocation(Object listener) {
             Class<?> value = annotationEntry.getValue();
             if (m.isAnnotationPresent(key)) {
                testListenerMethodValidity(m, value, key.getName());
-               addListenerInvocation(key, new ListenerInvocation(listener, m, sync));
+               addListenerInvocation(key, new ListenerInvocation(listener, m, sync, queue));
                foundMethods = true;
             }
          }
@@ -146,6 +176,8 @@ private void validateAndAddListenerInvocation(Object listener) {
 
       if (!foundMethods)
          getLog().noAnnotateMethodsFoundInListener(listener.getClass());
+      else if (queue != null)
+         asyncQueues.put(listener, queue);
    }
 
    private void addListenerInvocation(Class<? extends Annotation> annotation, ListenerInvocation li) {
@@ -176,6 +208,36 @@ protected static void testListenerMethodValidity(Method m, Class<?> allowedParam
          throw new IncorrectListenerException("Methods annotated with " + annotationName + " should have a return type of void.");
    }
 
+   /**
+    * @return the number of events waiting to be delivered to asynchronous listeners
+    */
+   protected int getAsyncQueueDepth() {
+      int depth = 0;
+      for (AsyncListenerQueue queue : asyncQueues.values()) depth += queue.events.size();
+      return depth;
+   }
+
+   /**
+    * @return the average time, in nanoseconds, that events spent queued before being delivered to asynchronous listeners
+    */
+   protected long getAverageAsyncDispatchLatency() {
+      long delivered = asyncEventsDelivered.get();
+      return delivered == 0 ? 0 : asyncDispatchLatency.get() / delivered;
+   }
+
+   /**
+    * @return the number of events dropped because the queue of an asynchronous listener was full
+    */
+   protected long getAsyncEventsDiscarded() {
+      return asyncEventsDiscarded.get();
+   }
+
+   protected void resetAsyncStatistics() {
+      asyncEventsDelivered.set(0);
+      asyncEventsDiscarded.set(0);
+      asyncDispatchLatency.set(0);
+   }
+
    /**
     * Class that encapsulates a valid invocation for a given registered listener - containing a reference to the method
     * to be invoked as well as the target object.
@@ -184,43 +246,140 @@ protected class ListenerInvocation {
       public final Object target;
       public final Method method;
       public final boolean sync;
+      private final AsyncListenerQueue queue;
 
       public ListenerInvocation(Object target, Method method, boolean sync) {
+         this(target, method, sync, null);
+      }
+
+      private ListenerInvocation(Object target, Method method, boolean sync, AsyncListenerQueue queue) {
          this.target = target;
          this.method = method;
          this.sync = sync;
+         this.queue = queue;
       }
 
       public void invoke(final Object event) {
-         Runnable r = new Runnable() {
-
-            @Override
-            public void run() {
-               try {
-                  method.invoke(target, event);
+         if (sync) {
+            syncProcessor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  doInvoke(event);
                }
-               catch (InvocationTargetException exception) {
-                  Throwable cause = getRealException(exception);
-                  if (sync) {
-                     throw new CacheException(String.format(
-                        "Caught exception [%s] while invoking method [%s] on listener instance: %s"
-                        , cause.getClass().getName(), method, target
-                     ), cause);
-                  } else {
-                     getLog().unableToInvokeListenerMethod(method, target, cause);
-                  }
+            });
+         } else if (queue != null) {
+            queue.enqueue(this, event);
+         } else {
+            asyncProcessor.execute(new Runnable() {
+               @Override
+               public void run() {
+                  doInvoke(event);
                }
-               catch (IllegalAccessException exception) {
-                  getLog().unableToInvokeListenerMethod(method, target, exception);
-                  removeListener(target);
+            });
+         }
+      }
+
+      void doInvoke(Object event) {
+         try {
+            method.invoke(target, event);
+         }
+         catch (InvocationTargetException exception) {
+            Throwable cause = getRealException(exception);
+            if (sync) {
+               throw new CacheException(String.format(
+                  "Caught exception [%s] while invoking method [%s] on listener instance: %s"
+                  , cause.getClass().getName(), method, target
+               ), cause);
+            } else {
+               getLog().unableToInvokeListenerMethod(method, target, cause);
+            }
+         }
+         catch (IllegalAccessException exception) {
+            getLog().unableToInvokeListenerMethod(method, target, exception);
+            removeListener(target);
+         }
+      }
+   }
+
+   /**
+    * Bounded queue of the events pending delivery to an asynchronous listener. At most one task draining the queue is
+    * submitted to the async processor at any time, which delivers the events in the order they were raised.
+    */
+   private class AsyncListenerQueue implements Runnable {
+      final BlockingQueue<PendingEvent> events;
+      final Listener.OverflowPolicy overflowPolicy;
+      final AtomicBoolean scheduled = new AtomicBoolean();
+      volatile Thread drainer;
+
+      AsyncListenerQueue(int capacity, Listener.OverflowPolicy overflowPolicy) {
+         this.events = new LinkedBlockingQueue<PendingEvent>(capacity);
+         this.overflowPolicy = overflowPolicy;
+      }
+
+      void enqueue(ListenerInvocation invocation, Object event) {
+         PendingEvent pending = new PendingEvent(invocation, event);
+         if (!events.offer(pending)) {
+            // a listener raising events from its own callback would wait for itself forever
+            if (overflowPolicy == Listener.OverflowPolicy.DISCARD || drainer == Thread.currentThread()) {
+               asyncEventsDiscarded.incrementAndGet();
+               getLog().tracef("Queue of listener %s is full, discarding %s", invocation.target, event);
+               return;
+            }
+            try {
+               events.put(pending);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new CacheException("Interrupted while waiting to notify listener " + invocation.target, e);
+            }
+         }
+         schedule();
+      }
+
+      private void schedule() {
+         if (scheduled.compareAndSet(false, true)) {
+            try {
+               asyncProcessor.execute(this);
+            } catch (RejectedExecutionException e) {
+               scheduled.set(false);
+               throw e;
+            }
+         }
+      }
+
+      @Override
+      public void run() {
+         drainer = Thread.currentThread();
+         try {
+            List<PendingEvent> batch = new ArrayList<PendingEvent>(Math.min(events.size(), ASYNC_BATCH_SIZE));
+            events.drainTo(batch, ASYNC_BATCH_SIZE);
+            for (PendingEvent pending : batch) {
+               asyncDispatchLatency.addAndGet(System.nanoTime() - pending.enqueued);
+               asyncEventsDelivered.incrementAndGet();
+               pending.invocation.doInvoke(pending.event);
+            }
+         } finally {
+            drainer = null;
+            scheduled.set(false);
+            // events offered while this batch was being delivered would otherwise be stranded
+            if (!events.isEmpty()) {
+               try {
+                  schedule();
+               } catch (RejectedExecutionException e) {
+                  getLog().tracef("Async processor shut down, %d events not delivered", events.size());
                }
             }
-         };
+         }
+      }
+   }
+
+   private static class PendingEvent {
+      final ListenerInvocation invocation;
+      final Object event;
+      final long enqueued = System.nanoTime();
 
-         if (sync)
-            syncProcessor.execute(r);
-         else
-            asyncProcessor.execute(r);
+      PendingEvent(ListenerInvocation invocation, Object event) {
+         this.invocation = invocation;
+         this.event = event;
       }
    }
 
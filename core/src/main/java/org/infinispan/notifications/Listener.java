@@ -58,6 +58,16 @@
  * thread is taken from a pool, which can be configured using {@link org.infinispan.config.GlobalConfiguration#setAsyncListenerExecutorProperties(java.util.Properties)}
  * and {@link org.infinispan.config.GlobalConfiguration#setAsyncListenerExecutorFactoryClass(String)}.
  * <p/>
+ * Each asynchronous listener has its own bounded queue of pending events, of {@link #queueSize()} capacity, which is
+ * drained in batches by a single pool thread at a time.  Events are therefore delivered to an asynchronous listener in
+ * the same order they were raised, so notifications about the same key are never reordered, while different listeners
+ * are still served concurrently.  What happens when the queue is full is governed by {@link #overflowPolicy()}.
+ * <p/>
+ * <b>Note</b>: with the default {@link OverflowPolicy#BLOCK} overflow policy, an asynchronous listener that cannot keep
+ * up with the events raised <i>does</i> block the caller or network thread once its queue is full, until the listener
+ * catches up.  Set <tt>overflowPolicy</tt> to {@link OverflowPolicy#DISCARD} if writers must never wait for a listener,
+ * at the cost of losing events, or raise <tt>queueSize</tt> to absorb longer bursts.
+ * <p/>
  * <b>Summary of Notification Annotations</b> <table border="1" cellpadding="1" cellspacing="1" summary="Summary of
  * notification annotations"> <tr> <th bgcolor="#CCCCFF" align="left">Annotation</th> <th bgcolor="#CCCCFF"
  * align="left">Event</th> <th bgcolor="#CCCCFF" align="left">Description</th> </tr> <tr> <td valign="top">{@link
@@ -224,4 +234,38 @@
     * @since 4.0
     */
    boolean sync() default true;
+
+   /**
+    * The maximum number of events waiting to be delivered to an asynchronous listener.  Ignored for synchronous
+    * listeners.  Defaults to <tt>1024</tt>.
+    *
+    * @since 5.2
+    */
+   int queueSize() default 1024;
+
+   /**
+    * What to do with an event raised for an asynchronous listener whose queue is full.  Ignored for synchronous
+    * listeners.  Defaults to {@link OverflowPolicy#BLOCK}, which makes the thread raising the event wait: a slow
+    * asynchronous listener then slows cache writers down, so use {@link OverflowPolicy#DISCARD} if they must never wait.
+    *
+    * @since 5.2
+    */
+   OverflowPolicy overflowPolicy() default OverflowPolicy.BLOCK;
+
+   /**
+    * Policies applied when the queue of an asynchronous listener is full.
+    *
+    * @since 5.2
+    */
+   enum OverflowPolicy {
+      /**
+       * The thread raising the event waits until there is space in the queue, slowing writers down to the pace of the
+       * listener.
+       */
+      BLOCK,
+      /**
+       * The event is dropped and accounted for in the notifier's statistics.
+       */
+      DISCARD
+   }
 }
@@ -28,6 +28,9 @@
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.notifications.AbstractListenerImpl;
 import org.infinispan.notifications.cachelistener.annotation.*;
 import org.infinispan.notifications.cachelistener.event.*;
@@ -36,6 +39,10 @@
 import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.rhq.helpers.pluginAnnotations.agent.DisplayType;
+import org.rhq.helpers.pluginAnnotations.agent.MeasurementType;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
+import org.rhq.helpers.pluginAnnotations.agent.Operation;
 
 import java.lang.annotation.Annotation;
 import java.util.Collection;
@@ -55,6 +62,7 @@
  * @author Mircea.Markus@jboss.com
  * @since 4.0
  */
+@MBean(objectName = "Notifier", description = "Component that delivers cache events to registered listeners.")
 public final class CacheNotifierImpl extends AbstractListenerImpl implements CacheNotifier {
 
    private static final Log log = LogFactory.getLog(CacheNotifierImpl.class);
@@ -134,6 +142,30 @@ protected Map<Class<? extends Annotation>, Class<?>> getAllowedMethodAnnotations
       return allowedListeners;
    }
 
+   @ManagedAttribute(description = "Number of events waiting to be delivered to asynchronous listeners")
+   @Metric(displayName = "Asynchronous listener queue depth", displayType = DisplayType.SUMMARY)
+   public int getAsyncQueueDepth() {
+      return super.getAsyncQueueDepth();
+   }
+
+   @ManagedAttribute(description = "Average time (in nanoseconds) events spend queued before being delivered to asynchronous listeners")
+   @Metric(displayName = "Average asynchronous listener dispatch latency (ns)", displayType = DisplayType.SUMMARY)
+   public long getAverageAsyncDispatchLatency() {
+      return super.getAverageAsyncDispatchLatency();
+   }
+
+   @ManagedAttribute(description = "Number of events dropped because the queue of an asynchronous listener was full")
+   @Metric(displayName = "Discarded asynchronous listener events", measurementType = MeasurementType.TRENDSUP)
+   public long getAsyncEventsDiscarded() {
+      return super.getAsyncEventsDiscarded();
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component")
+   @Operation(displayName = "Reset statistics")
+   public void resetStatistics() {
+      resetAsyncStatistics();
+   }
+
    @Override
    public void notifyCacheEntryCreated(Object key, boolean pre, InvocationContext ctx) {
       if (!cacheEntryCreatedListeners.isEmpty()) {
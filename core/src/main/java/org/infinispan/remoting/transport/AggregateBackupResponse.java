@@ -78,6 +78,15 @@ public long getSendTimeMillis() {
       return min;
    }
 
+   @Override
+   public long getMessageSize() {
+      long size = 0;
+      for (BackupResponse br : responses) {
+         size += br.getMessageSize();
+      }
+      return size;
+   }
+
    @Override
    public String toString() {
       return "AggregateBackupResponse{" +
@@ -44,4 +44,9 @@ public interface BackupResponse {
     * Return the time in millis when this operation was initiated.
     */
    long getSendTimeMillis();
+
+   /**
+    * Returns the size in bytes of the marshalled command sent to each of the backup sites.
+    */
+   long getMessageSize();
 }
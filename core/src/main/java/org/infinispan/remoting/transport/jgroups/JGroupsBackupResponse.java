@@ -55,8 +55,15 @@ public class JGroupsBackupResponse implements BackupResponse {
    // happens. Track that and adjust the timeouts accordingly.
    private long sendTimeNanos;
 
+   private final long messageSize;
+
    public JGroupsBackupResponse(Map<XSiteBackup, Future<Object>> syncBackupCalls) {
+      this(syncBackupCalls, 0);
+   }
+
+   public JGroupsBackupResponse(Map<XSiteBackup, Future<Object>> syncBackupCalls, long messageSize) {
       this.syncBackupCalls = syncBackupCalls;
+      this.messageSize = messageSize;
       sendTimeNanos = System.nanoTime();
    }
 
@@ -117,6 +124,11 @@ public long getSendTimeMillis() {
       return NANOSECONDS.toMillis(sendTimeNanos);
    }
 
+   @Override
+   public long getMessageSize() {
+      return messageSize;
+   }
+
    @Override
    public Map<String, Throwable> getFailedBackups() {
       return errors;
@@ -564,7 +564,7 @@ public BackupResponse backupRemotely(Collection<XSiteBackup> backups, Replicable
             dispatcher.sendMessageWithFuture(dispatcher.constructMessage(buf, recipient, false, org.jgroups.blocks.ResponseMode.GET_NONE, false), async);
          }
       }
-      return new JGroupsBackupResponse(syncBackupCalls);
+      return new JGroupsBackupResponse(syncBackupCalls, buf.getLength());
    }
 
    private static org.jgroups.blocks.ResponseMode toJGroupsMode(ResponseMode mode) {
@@ -29,11 +29,14 @@
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Inbound state transfer task. Fetches transactions and data segments from a remote source and applies it to local
@@ -52,6 +55,11 @@ public class InboundTransferTask {
 
    private final Set<Integer> finishedSegments = new CopyOnWriteArraySet<Integer>();
 
+   /**
+    * The number of entries of each segment that were received and applied.
+    */
+   private final ConcurrentMap<Integer, AtomicLong> receivedEntriesBySegment = ConcurrentMapFactory.makeConcurrentMap();
+
    private final Address source;
 
    private volatile boolean isCancelled = false;
@@ -159,7 +167,20 @@ public void cancel() {
       }
    }
 
-   public void onStateReceived(int segmentId, boolean isLastChunk) {
+   public long getReceivedEntries(int segmentId) {
+      AtomicLong received = receivedEntriesBySegment.get(segmentId);
+      return received != null ? received.get() : 0;
+   }
+
+   public void onStateReceived(int segmentId, int numEntries, boolean isLastChunk) {
+      if (numEntries > 0) {
+         AtomicLong received = receivedEntriesBySegment.get(segmentId);
+         if (received == null) {
+            AtomicLong existing = receivedEntriesBySegment.putIfAbsent(segmentId, received = new AtomicLong());
+            if (existing != null) received = existing;
+         }
+         received.addAndGet(numEntries);
+      }
       if (!isCancelled && isLastChunk && segments.contains(segmentId)) {
          finishedSegments.add(segmentId);
          if (finishedSegments.containsAll(segments)) {
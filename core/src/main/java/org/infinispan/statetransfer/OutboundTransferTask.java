@@ -25,8 +25,10 @@
 
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.loaders.BulkCacheLoader;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderManager;
 import org.infinispan.loaders.CacheStore;
@@ -41,14 +43,23 @@
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Outbound state transfer task. Pushes data segments to another cluster member on request. Instances of
  * OutboundTransferTask are created and managed by StateTransferManagerImpl. There should be at most
  * one such task per destination at any time.
+ * <p/>
+ * Entries are streamed: at most {@code stateTransferChunkSize} of them are held in memory before being sent, and the
+ * stored entries are read in a single pass if the cache store is a {@link BulkCacheLoader}. At most
+ * {@code maxInFlightChunks} chunks are sent without having been applied by the destination; the last chunk is only
+ * sent once all the others have been applied.
  *
  * @author anistor@redhat.com
  * @since 5.2
@@ -83,8 +94,27 @@ public class OutboundTransferTask implements Runnable {
 
    private final String cacheName;
 
+   private final int maxInFlightChunks;
+
+   /**
+    * Executor for sending chunks while the next ones are being collected, or null if chunks are sent synchronously.
+    */
+   private final ExecutorService chunkSender;
+
+   /**
+    * One permit per chunk that may be in flight.
+    */
+   private final Semaphore inFlightChunks;
+
+   private final boolean compressChunks;
+
    private final Map<Integer, List<InternalCacheEntry>> entriesBySegment = ConcurrentMapFactory.makeConcurrentMap();
 
+   /**
+    * The number of entries of each segment that were applied by the destination.
+    */
+   private final ConcurrentMap<Integer, AtomicLong> sentEntriesBySegment = ConcurrentMapFactory.makeConcurrentMap();
+
    /**
     * The total number of entries from all segments accumulated in entriesBySegment.
     */
@@ -98,7 +128,8 @@ public class OutboundTransferTask implements Runnable {
    public OutboundTransferTask(Address destination, Set<Integer> segments, int stateTransferChunkSize,
                                int topologyId, ConsistentHash readCh, StateProviderImpl stateProvider, DataContainer dataContainer,
                                CacheLoaderManager cacheLoaderManager, RpcManager rpcManager,
-                               CommandsFactory commandsFactory, long timeout, String cacheName) {
+                               CommandsFactory commandsFactory, long timeout, String cacheName,
+                               int maxInFlightChunks, ExecutorService chunkSender, boolean compressChunks) {
       if (segments == null || segments.isEmpty()) {
          throw new IllegalArgumentException("Segments must not be null or empty");
       }
@@ -120,6 +151,10 @@ public OutboundTransferTask(Address destination, Set<Integer> segments, int stat
       this.commandsFactory = commandsFactory;
       this.timeout = timeout;
       this.cacheName = cacheName;
+      this.maxInFlightChunks = maxInFlightChunks;
+      this.chunkSender = maxInFlightChunks > 1 ? chunkSender : null;
+      this.inFlightChunks = new Semaphore(maxInFlightChunks);
+      this.compressChunks = compressChunks;
    }
 
    public void execute(ExecutorService executorService) {
@@ -143,21 +178,48 @@ public Set<Integer> getSegments() {
       return segments;
    }
 
+   /**
+    * @return the number of entries of each segment that were sent to, and applied by, the destination so far
+    */
+   public Map<Integer, Long> getSentEntriesBySegment() {
+      Map<Integer, Long> progress = new HashMap<Integer, Long>();
+      for (Map.Entry<Integer, AtomicLong> e : sentEntriesBySegment.entrySet()) {
+         progress.put(e.getKey(), e.getValue().get());
+      }
+      return progress;
+   }
+
    //todo [anistor] check thread interrupt status in loops to implement faster cancellation
    public void run() {
       try {
          // send data container entries
-         for (InternalCacheEntry ice : dataContainer) {
-            Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
-            int segmentId = readCh.getSegment(key);
-            if (segments.contains(segmentId)) {
-               sendEntry(ice, segmentId);
+         if (isSegmented(dataContainer, readCh)) {
+            // only visit the entries of the requested segments
+            SegmentedDataContainer segmentedDataContainer = (SegmentedDataContainer) dataContainer;
+            for (int segmentId : segments) {
+               for (Iterator<InternalCacheEntry> it = segmentedDataContainer.segmentIterator(segmentId); it.hasNext() && segments.contains(segmentId); ) {
+                  sendEntry(it.next(), segmentId);
+               }
+            }
+         } else {
+            for (InternalCacheEntry ice : dataContainer) {
+               Object key = ice.getKey();  //todo [anistor] should we check for expired entries?
+               int segmentId = readCh.getSegment(key);
+               if (segments.contains(segmentId)) {
+                  sendEntry(ice, segmentId);
+               }
             }
          }
 
          // send cache store entries if needed
          CacheStore cacheStore = getCacheStore();
-         if (cacheStore != null) {
+         if (cacheStore instanceof BulkCacheLoader) {
+            try {
+               sendStoredEntries((BulkCacheLoader) cacheStore);
+            } catch (CacheLoaderException e) {
+               log.failedLoadingKeysFromCacheStore(e);
+            }
+         } else if (cacheStore != null) {
             try {
                //todo [anistor] need to extend CacheStore interface to be able to specify a filter when loading keys (ie. keys should belong to desired segments)
                Set<Object> storedKeys = cacheStore.loadAllKeys(new ReadOnlyDataContainerBackedKeySet(dataContainer));
@@ -196,6 +258,14 @@ public void run() {
       }
    }
 
+   /**
+    * Whether the data container keeps its entries apart by the segments of the given consistent hash.
+    */
+   static boolean isSegmented(DataContainer dataContainer, ConsistentHash ch) {
+      return dataContainer instanceof SegmentedDataContainer
+            && ((SegmentedDataContainer) dataContainer).getNumSegments() == ch.getNumSegments();
+   }
+
    /**
     * Obtains the CacheStore that will be used for pulling segments that will be sent to other new owners on request.
     * The CacheStore is ignored if it is disabled or if it is shared or if fetchPersistentState is disabled.
@@ -207,7 +277,33 @@ private CacheStore getCacheStore() {
       return null;
    }
 
-   private void sendEntry(InternalCacheEntry ice, int segmentId) {
+   /**
+    * Sends the stored entries of our segments that are not in the data container (and thus were sent already), without
+    * first collecting their keys.
+    */
+   private void sendStoredEntries(BulkCacheLoader cacheStore) throws CacheLoaderException, InterruptedException {
+      cacheStore.visitEntries(new BulkCacheLoader.KeyFilter() {
+         @Override
+         public boolean accept(Object key) {
+            return segments.contains(readCh.getSegment(key)) && !dataContainer.containsKey(key);
+         }
+      }, new BulkCacheLoader.EntryVisitor() {
+         @Override
+         public boolean visit(InternalCacheEntry ice) {
+            try {
+               sendEntry(ice, readCh.getSegment(ice.getKey()));
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            return Thread.currentThread().isInterrupted();
+         }
+      });
+      if (Thread.interrupted()) {
+         throw new InterruptedException();
+      }
+   }
+
+   private void sendEntry(InternalCacheEntry ice, int segmentId) throws InterruptedException {
       // send if we have a full chunk
       if (accumulatedEntries >= stateTransferChunkSize) {
          sendEntries(false);
@@ -223,12 +319,12 @@ private void sendEntry(InternalCacheEntry ice, int segmentId) {
       accumulatedEntries++;
    }
 
-   private void sendEntries(boolean isLast) {
-      List<StateChunk> chunks = new ArrayList<StateChunk>();
+   private void sendEntries(boolean isLast) throws InterruptedException {
+      final List<StateChunk> chunks = new ArrayList<StateChunk>();
       for (Map.Entry<Integer, List<InternalCacheEntry>> e : entriesBySegment.entrySet()) {
          List<InternalCacheEntry> entries = e.getValue();
          if (!entries.isEmpty() || isLast) {
-            chunks.add(new StateChunk(e.getKey(), new ArrayList<InternalCacheEntry>(entries), isLast));
+            chunks.add(new StateChunk(e.getKey(), new ArrayList<InternalCacheEntry>(entries), isLast, compressChunks));
             entries.clear();
          }
       }
@@ -251,16 +347,60 @@ private void sendEntries(boolean isLast) {
             }
          }
 
-         StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(rpcManager.getAddress(), topologyId, chunks);
-         // send synchronously, in order. it is important that the last chunk is received last in order to correctly detect completion of the stream of chunks
-         try {
-            rpcManager.invokeRemotely(Collections.singleton(destination), cmd, ResponseMode.SYNCHRONOUS, timeout, false);
-         } catch (SuspectException e) {
-            log.errorf(e, "Node %s left cache %s: %s", destination, cacheName, e.getMessage());
-            cancel();
-         } catch (Exception e) {
-            log.errorf(e, "Failed to send entries to node %s : %s", destination, e.getMessage());
+         final StateResponseCommand cmd = commandsFactory.buildStateResponseCommand(rpcManager.getAddress(), topologyId, chunks);
+         // wait for a free slot in the window; this is what keeps us from running ahead of the destination
+         inFlightChunks.acquire();
+         if (isLast) {
+            // it is important that the last chunk is received last in order to correctly detect completion of the stream of chunks
+            inFlightChunks.acquire(maxInFlightChunks - 1);
+            try {
+               sendChunks(cmd, chunks);
+            } finally {
+               inFlightChunks.release(maxInFlightChunks);
+            }
+         } else if (chunkSender == null) {
+            try {
+               sendChunks(cmd, chunks);
+            } finally {
+               inFlightChunks.release();
+            }
+         } else {
+            try {
+               chunkSender.execute(new Runnable() {
+                  @Override
+                  public void run() {
+                     try {
+                        sendChunks(cmd, chunks);
+                     } finally {
+                        inFlightChunks.release();
+                     }
+                  }
+               });
+            } catch (RejectedExecutionException e) {
+               // the provider is shutting down
+               inFlightChunks.release();
+               cancel();
+            }
+         }
+      }
+   }
+
+   private void sendChunks(StateResponseCommand cmd, List<StateChunk> chunks) {
+      try {
+         rpcManager.invokeRemotely(Collections.singleton(destination), cmd, ResponseMode.SYNCHRONOUS, timeout, false);
+         for (StateChunk chunk : chunks) {
+            AtomicLong sent = sentEntriesBySegment.get(chunk.getSegmentId());
+            if (sent == null) {
+               AtomicLong existing = sentEntriesBySegment.putIfAbsent(chunk.getSegmentId(), sent = new AtomicLong());
+               if (existing != null) sent = existing;
+            }
+            sent.addAndGet(chunk.getCacheEntries().size());
          }
+      } catch (SuspectException e) {
+         log.errorf(e, "Node %s left cache %s: %s", destination, cacheName, e.getMessage());
+         cancel();
+      } catch (Exception e) {
+         log.errorf(e, "Failed to send entries to node %s : %s", destination, e.getMessage());
       }
    }
 
@@ -302,6 +442,8 @@ public String toString() {
             ", segments=" + segments +
             ", stateTransferChunkSize=" + stateTransferChunkSize +
             ", timeout=" + timeout +
+            ", maxInFlightChunks=" + maxInFlightChunks +
+            ", compressChunks=" + compressChunks +
             ", cacheName='" + cacheName + '\'' +
             '}';
    }
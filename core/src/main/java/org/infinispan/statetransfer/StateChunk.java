@@ -24,15 +24,24 @@
 package org.infinispan.statetransfer;
 
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.io.ExposedByteArrayOutputStream;
+import org.infinispan.io.UnsignedNumeric;
 import org.infinispan.marshall.AbstractExternalizer;
 import org.infinispan.marshall.Ids;
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.marshall.jboss.ExtendedRiverUnmarshaller;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Encapsulates a chunk of cache entries that belong to the same segment. This representation is suitable for sending it
@@ -58,10 +67,20 @@ public class StateChunk {
     */
    private final boolean isLastChunk;
 
+   /**
+    * Whether the cache entries are compressed when this chunk is marshalled.
+    */
+   private final boolean compressed;
+
    public StateChunk(int segmentId, Collection<InternalCacheEntry> cacheEntries, boolean isLastChunk) {
+      this(segmentId, cacheEntries, isLastChunk, false);
+   }
+
+   public StateChunk(int segmentId, Collection<InternalCacheEntry> cacheEntries, boolean isLastChunk, boolean compressed) {
       this.segmentId = segmentId;
       this.cacheEntries = cacheEntries;
       this.isLastChunk = isLastChunk;
+      this.compressed = compressed;
    }
 
    public int getSegmentId() {
@@ -76,16 +95,30 @@ public boolean isLastChunk() {
       return isLastChunk;
    }
 
+   public boolean isCompressed() {
+      return compressed;
+   }
+
    @Override
    public String toString() {
       return "StateChunk{" +
             "segmentId=" + segmentId +
             ", cacheEntries=" + cacheEntries +
             ", isLastChunk=" + isLastChunk +
+            ", compressed=" + compressed +
             '}';
    }
 
+   /**
+    * Compressed chunks carry their entries as a deflated byte array, marshalled with a nested (reentrant) stream of the
+    * global marshaller, so that only the entries are compressed and not the rest of the command.
+    */
    public static class Externalizer extends AbstractExternalizer<StateChunk> {
+      private final StreamingMarshaller globalMarshaller;
+
+      public Externalizer(StreamingMarshaller globalMarshaller) {
+         this.globalMarshaller = globalMarshaller;
+      }
 
       @Override
       public Integer getId() {
@@ -100,17 +133,74 @@ public Set<Class<? extends StateChunk>> getTypeClasses() {
       @Override
       public void writeObject(ObjectOutput output, StateChunk object) throws IOException {
          output.writeInt(object.segmentId);
-         output.writeObject(object.cacheEntries);
          output.writeBoolean(object.isLastChunk);
+         output.writeBoolean(object.compressed);
+         if (object.compressed) {
+            byte[] bytes = compress(object.cacheEntries);
+            UnsignedNumeric.writeUnsignedInt(output, bytes.length);
+            output.write(bytes);
+         } else {
+            output.writeObject(object.cacheEntries);
+         }
       }
 
       @Override
       @SuppressWarnings("unchecked")
       public StateChunk readObject(ObjectInput input) throws IOException, ClassNotFoundException {
          int segmentId = input.readInt();
-         Collection<InternalCacheEntry> cacheEntries = (Collection<InternalCacheEntry>) input.readObject();
          boolean isLastChunk = input.readBoolean();
-         return new StateChunk(segmentId, cacheEntries, isLastChunk);
+         boolean compressed = input.readBoolean();
+         Collection<InternalCacheEntry> cacheEntries;
+         if (compressed) {
+            byte[] bytes = new byte[UnsignedNumeric.readUnsignedInt(input)];
+            input.readFully(bytes);
+            cacheEntries = (Collection<InternalCacheEntry>) decompress(bytes, getMarshaller(input));
+         } else {
+            cacheEntries = (Collection<InternalCacheEntry>) input.readObject();
+         }
+         return new StateChunk(segmentId, cacheEntries, isLastChunk, compressed);
+      }
+
+      private byte[] compress(Collection<InternalCacheEntry> cacheEntries) throws IOException {
+         ExposedByteArrayOutputStream baos = new ExposedByteArrayOutputStream();
+         Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+         try {
+            DeflaterOutputStream dos = new DeflaterOutputStream(baos, deflater);
+            ObjectOutput out = globalMarshaller.startObjectOutput(dos, true);
+            try {
+               globalMarshaller.objectToObjectStream(cacheEntries, out);
+            } finally {
+               globalMarshaller.finishObjectOutput(out);
+            }
+            dos.finish();
+         } finally {
+            deflater.end();
+         }
+         return baos.toByteArray();
+      }
+
+      private Object decompress(byte[] bytes, StreamingMarshaller marshaller) throws IOException, ClassNotFoundException {
+         Inflater inflater = new Inflater();
+         try {
+            ObjectInput in = marshaller.startObjectInput(new InflaterInputStream(new ByteArrayInputStream(bytes), inflater), true);
+            try {
+               return in.readObject();
+            } finally {
+               marshaller.finishObjectInput(in);
+            }
+         } finally {
+            inflater.end();
+         }
+      }
+
+      private StreamingMarshaller getMarshaller(ObjectInput input) {
+         // use the cache's marshaller, if known, so that entries are resolved with the cache's class loader
+         if (input instanceof ExtendedRiverUnmarshaller) {
+            StreamingMarshaller ispnMarshaller = ((ExtendedRiverUnmarshaller) input).getInfinispanMarshaller();
+            if (ispnMarshaller != null)
+               return ispnMarshaller;
+         }
+         return globalMarshaller;
       }
    }
 }
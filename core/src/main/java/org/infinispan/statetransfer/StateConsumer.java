@@ -30,6 +30,7 @@
 import org.infinispan.topology.CacheTopology;
 
 import java.util.Collection;
+import java.util.Map;
 
 /**
  * Handles inbound state transfers.
@@ -59,6 +60,13 @@ public interface StateConsumer {
 
    void applyState(Address sender, int topologyId, int segmentId, Collection<InternalCacheEntry> cacheEntries, boolean isLastChunk);
 
+   /**
+    * Returns, for each segment this node is currently receiving, the number of its cache entries applied so far.
+    *
+    * @return a map from segment id to number of entries received
+    */
+   Map<Integer, Long> getInboundSegmentProgress();
+
    /**
     * Cancels all incoming state transfers. The already received data is not discarded.
     * This is executed when the cache is shutting down.
@@ -30,6 +30,7 @@
 import org.infinispan.commands.write.PutKeyValueCommand;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.SegmentedDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
@@ -203,6 +204,17 @@ public boolean isStateTransferInProgress() {
       }
    }
 
+   @Override
+   public Map<Integer, Long> getInboundSegmentProgress() {
+      Map<Integer, Long> progress = new TreeMap<Integer, Long>();
+      synchronized (this) {
+         for (Map.Entry<Integer, InboundTransferTask> e : transfersBySegment.entrySet()) {
+            progress.put(e.getKey(), e.getValue().getReceivedEntries(e.getKey()));
+         }
+      }
+      return progress;
+   }
+
    @Override
    public boolean isStateTransferInProgressForKey(Object key) {
       if (configuration.clustering().cacheMode().isInvalidation()) {
@@ -345,7 +357,7 @@ public void applyState(Address sender, int topologyId, int segmentId, Collection
             doApplyState(sender, segmentId, cacheEntries);
          }
 
-         inboundTransfer.onStateReceived(segmentId, isLastChunk);
+         inboundTransfer.onStateReceived(segmentId, cacheEntries != null ? cacheEntries.size() : 0, isLastChunk);
 
          if (trace) {
             log.tracef("After applying the received state the data container of cache %s has %d keys", cacheName, dataContainer.size());
@@ -611,13 +623,31 @@ private void invalidateSegments(Set<Integer> newSegments, Set<Integer> segmentsT
       Set<Object> keysToRemove = new HashSet<Object>();
 
       // gather all keys from cache store that belong to the segments that are being removed/moved to L1
-      for (InternalCacheEntry ice : dataContainer) {
-         Object key = ice.getKey();
-         int keySegment = getSegment(key);
-         if (segmentsToL1.contains(keySegment)) {
-            keysToL1.add(key);
-         } else if (!newSegments.contains(keySegment)) {
-            keysToRemove.add(key);
+      if (OutboundTransferTask.isSegmented(dataContainer, cacheTopology.getReadConsistentHash())) {
+         // the segments we still own are skipped without visiting their entries
+         SegmentedDataContainer segmentedDataContainer = (SegmentedDataContainer) dataContainer;
+         for (int segmentId = 0; segmentId < segmentedDataContainer.getNumSegments(); segmentId++) {
+            Set<Object> keys;
+            if (segmentsToL1.contains(segmentId)) {
+               keys = keysToL1;
+            } else if (!newSegments.contains(segmentId)) {
+               keys = keysToRemove;
+            } else {
+               continue;
+            }
+            for (Iterator<InternalCacheEntry> it = segmentedDataContainer.segmentIterator(segmentId); it.hasNext(); ) {
+               keys.add(it.next().getKey());
+            }
+         }
+      } else {
+         for (InternalCacheEntry ice : dataContainer) {
+            Object key = ice.getKey();
+            int keySegment = getSegment(key);
+            if (segmentsToL1.contains(keySegment)) {
+               keysToL1.add(key);
+            } else if (!newSegments.contains(keySegment)) {
+               keysToRemove.add(key);
+            }
          }
       }
 
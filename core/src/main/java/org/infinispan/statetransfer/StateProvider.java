@@ -29,6 +29,7 @@
 import org.infinispan.topology.CacheTopology;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -82,6 +83,14 @@ public interface StateProvider {
     */
    void cancelOutboundTransfer(Address destination, int topologyId, Set<Integer> segments);
 
+   /**
+    * Returns, for each segment currently being sent to other nodes, the number of its cache entries that were applied
+    * by the destination so far. Segments sent to several destinations at once report the sum.
+    *
+    * @return a map from segment id to number of entries transferred
+    */
+   Map<Integer, Long> getOutboundSegmentProgress();
+
    void start();
 
    /**
@@ -48,6 +48,8 @@
 
 import java.util.*;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import static org.infinispan.factories.KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR;
 
@@ -75,6 +77,15 @@ public class StateProviderImpl implements StateProvider {
    private StateTransferLock stateTransferLock;
    private long timeout;
    private int chunkSize;
+   private int maxInFlightChunks;
+   private boolean compressChunks;
+
+   /**
+    * Sends the chunks that are allowed to be in flight while the outbound tasks collect the next ones. This is not the
+    * executor the tasks themselves run on, so a task waiting for its window to open never waits for a thread that
+    * another waiting task holds.
+    */
+   private ExecutorService chunkSender;
 
    private StateConsumer stateConsumer;
 
@@ -116,6 +127,8 @@ public void init(Cache cache,
       // ignore chunk sizes <= 0
       int chunkSize = configuration.clustering().stateTransfer().chunkSize();
       this.chunkSize = chunkSize > 0 ? chunkSize : Integer.MAX_VALUE;
+      maxInFlightChunks = configuration.clustering().stateTransfer().maxInFlightChunks();
+      compressChunks = configuration.clustering().stateTransfer().compressChunks();
    }
 
    public boolean isStateTransferInProgress() {
@@ -156,6 +169,16 @@ public void onTopologyUpdate(CacheTopology cacheTopology, boolean isRebalance) {
    @Override
    public void start() {
       cacheNotifier.addListener(this);
+      if (maxInFlightChunks > 1) {
+         chunkSender = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+               Thread th = new Thread(r, "StateTransferChunkSender," + cacheName + "," + rpcManager.getAddress());
+               th.setDaemon(true);
+               return th;
+            }
+         });
+      }
    }
 
    @Stop(priority = 20)
@@ -178,6 +201,28 @@ public void stop() {
       } catch (Throwable t) {
          log.errorf(t, "Failed to stop StateProvider of cache %s on node %s", cacheName, rpcManager.getAddress());
       }
+      if (chunkSender != null) {
+         chunkSender.shutdownNow();
+         chunkSender = null;
+      }
+   }
+
+   @Override
+   public Map<Integer, Long> getOutboundSegmentProgress() {
+      Map<Integer, Long> progress = new TreeMap<Integer, Long>();
+      synchronized (transfersByDestination) {
+         for (List<OutboundTransferTask> transfers : transfersByDestination.values()) {
+            for (OutboundTransferTask transfer : transfers) {
+               Map<Integer, Long> sent = transfer.getSentEntriesBySegment();
+               for (Integer segmentId : transfer.getSegments()) {
+                  Long count = sent.get(segmentId);
+                  Long previous = progress.get(segmentId);
+                  progress.put(segmentId, (count != null ? count : 0L) + (previous != null ? previous : 0L));
+               }
+            }
+         }
+      }
+      return progress;
    }
 
    public List<TransactionInfo> getTransactionsForSegments(Address destination, int requestTopologyId, Set<Integer> segments) throws InterruptedException {
@@ -269,7 +314,8 @@ public void startOutboundTransfer(Address destination, int requestTopologyId, Se
 
       // the destination node must already have an InboundTransferTask waiting for these segments
       OutboundTransferTask outboundTransfer = new OutboundTransferTask(destination, segments, chunkSize, cacheTopology.getTopologyId(),
-            cacheTopology.getReadConsistentHash(), this, dataContainer, cacheLoaderManager, rpcManager, commandsFactory, timeout, cacheName);
+            cacheTopology.getReadConsistentHash(), this, dataContainer, cacheLoaderManager, rpcManager, commandsFactory, timeout, cacheName,
+            maxInFlightChunks, chunkSender, compressChunks);
       addTransfer(outboundTransfer);
       outboundTransfer.execute(executorService);
    }
@@ -40,6 +40,7 @@
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
@@ -49,6 +50,8 @@
 import org.infinispan.topology.LocalTopologyManager;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
+import org.rhq.helpers.pluginAnnotations.agent.DataType;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
 
 /**
  * {@link StateTransferManager} implementation.
@@ -237,6 +240,18 @@ public boolean isStateTransferInProgress() {
       return stateConsumer.isStateTransferInProgress();
    }
 
+   @ManagedAttribute(description = "Number of cache entries sent so far, for each segment being sent to other nodes")
+   @Metric(displayName = "Outbound segment progress", dataType = DataType.TRAIT)
+   public String getOutboundSegmentProgress() {
+      return stateProvider.getOutboundSegmentProgress().toString();
+   }
+
+   @ManagedAttribute(description = "Number of cache entries received so far, for each segment being received from other nodes")
+   @Metric(displayName = "Inbound segment progress", dataType = DataType.TRAIT)
+   public String getInboundSegmentProgress() {
+      return stateConsumer.getInboundSegmentProgress().toString();
+   }
+
    @Override
    public boolean isStateTransferInProgressForKey(Object key) {
       // todo [anistor] this returns false until we receive the first rebalance and should actually return true if the cluster has > 1 member
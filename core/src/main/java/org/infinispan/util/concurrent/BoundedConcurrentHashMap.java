@@ -31,6 +31,7 @@
  */
 
 package org.infinispan.util.concurrent;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.util.InfinispanCollections;
 import org.infinispan.util.Util;
 import java.io.IOException;
@@ -226,6 +227,10 @@ final Segment<K,V> segmentFor(int hash) {
       final int hash;
       volatile V value;
       final HashEntry<K, V> next;
+      /**
+       * Estimated memory held by this entry, only maintained (under the segment lock) by memory bounded maps.
+       */
+      int estimatedSize;
 
       HashEntry(K key, int hash, HashEntry<K, V> next, V value) {
          this.key = key;
@@ -394,6 +399,16 @@ public void onEntryRemoved(Object key) {
        * @return true if batching threshold has expired, false otherwise.
        */
       boolean thresholdExpired();
+
+      /**
+       * Returns the entry this policy would evict next, without evicting it. Used by memory bounded maps, where
+       * the number of entries that need to go is only known once their estimated sizes have been released.
+       * <p>
+       * Invoked while holding a lock on Segment.
+       *
+       * @return next entry to evict, or null if the policy does not track any entries
+       */
+      HashEntry<K, V> evictionCandidate();
    }
 
    static class NullEvictionPolicy<K, V> implements EvictionPolicy<K, V> {
@@ -432,6 +447,11 @@ public boolean thresholdExpired() {
       public Eviction strategy() {
          return Eviction.NONE;
       }
+
+      @Override
+      public HashEntry<K, V> evictionCandidate() {
+         return null;
+      }
       
       @Override
       public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value) {
@@ -531,6 +551,13 @@ protected boolean isAboveThreshold(){
          return size() > trimDownSize;
       }
 
+      @Override
+      public HashEntry<K, V> evictionCandidate() {
+         // iteration order of an access ordered LinkedHashMap starts with the least recently used entry
+         Iterator<HashEntry<K, V>> it = keySet().iterator();
+         return it.hasNext() ? it.next() : null;
+      }
+
       @Override
       protected boolean removeEldestEntry(Map.Entry<HashEntry<K,V>,V> eldest){
          boolean aboveThreshold = isAboveThreshold();
@@ -664,6 +691,12 @@ protected boolean isAboveThreshold(){
          return size() > trimDownSize;
       }
 
+      @Override
+      public HashEntry<K, V> evictionCandidate() {
+         LRUHashEntry<K, V> eldest = head.nextEntry;
+         return eldest == head ? null : eldest;
+      }
+
       public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value) {
          return new LRUHashEntry<K, V>(key, hash, next, value);
       }
@@ -1281,6 +1314,13 @@ public Eviction strategy() {
          return Eviction.LIRS;
       }
 
+      @Override
+      public HashEntry<K, V> evictionCandidate() {
+         // cold resident entries go first; only when there are none left do we give up the coldest hot entry
+         LIRSHashEntry<K, V> candidate = queueFront();
+         return candidate != null ? candidate : stackBottom();
+      }
+
       /**
        * Returns the entry at the bottom of the stack.
        */
@@ -1398,9 +1438,29 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
 
       transient final EvictionListener<K, V> evictionListener;
 
+      /**
+       * Upper bound for the estimated memory held by this segment's entries, or -1 if the segment is only bounded
+       * by the number of entries.
+       */
+      final long maxMemory;
+
+      transient final EntrySizeCalculator<? super K, ? super V> sizeCalculator;
+
+      /**
+       * Estimated memory held by this segment's entries. Only maintained when a size calculator is present.
+       */
+      transient volatile long memoryUsed;
+
       Segment(int cap, int evictCap, float lf, Eviction es, EvictionListener<K, V> listener) {
+         this(cap, evictCap, -1, lf, es, listener, null);
+      }
+
+      Segment(int cap, int evictCap, long maxMemory, float lf, Eviction es, EvictionListener<K, V> listener,
+            EntrySizeCalculator<? super K, ? super V> sizeCalculator) {
          loadFactor = lf;
          this.evictCap = evictCap;
+         this.maxMemory = maxMemory;
+         this.sizeCalculator = sizeCalculator;
          eviction = es.make(this, evictCap, lf);
          evictionListener = listener;
          setTable(HashEntry.<K, V> newArray(cap));
@@ -1525,9 +1585,11 @@ boolean replace(K key, int hash, V oldValue, V newValue) {
             if (e != null && oldValue.equals(e.value)) {
                replaced = true;
                e.value = newValue;
+               updateEstimatedSize(e);
                if (eviction.onEntryHit(e)) {
                   evicted = attemptEviction(true);
                }
+               evicted = evictIfAboveMemoryLimit(evicted);
             }
             return replaced;
          } finally {
@@ -1549,9 +1611,11 @@ V replace(K key, int hash, V newValue) {
             if (e != null) {
                oldValue = e.value;
                e.value = newValue;
+               updateEstimatedSize(e);
                if (eviction.onEntryHit(e)) {
                   evicted = attemptEviction(true);
                }
+               evicted = evictIfAboveMemoryLimit(evicted);
             }
             return oldValue;
          } finally {
@@ -1581,6 +1645,7 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                oldValue = e.value;
                if (!onlyIfAbsent) {
                   e.value = value;
+                  updateEstimatedSize(e);
                   eviction.onEntryHit(e);
                }
             } else {
@@ -1596,6 +1661,7 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                   }
                   // add a new entry
                   tab[index] = eviction.createNewEntry(key, hash, first, value);
+                  updateEstimatedSize(tab[index]);
                   // notify a miss
                   Set<HashEntry<K, V>> newlyEvicted = eviction.onEntryMiss(tab[index]);
                   if (!newlyEvicted.isEmpty()) {
@@ -1611,6 +1677,7 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                // When entry not present, attempt to activate if necessary
                evictionListener.onEntryActivated(key);
             }
+            evicted = evictIfAboveMemoryLimit(evicted);
             return oldValue;
          } finally {
             unlock();
@@ -1674,6 +1741,7 @@ void rehash() {
                      int k = p.hash & sizeMask;
                      HashEntry<K,V> n = newTable[k];
                      newTable[k] = eviction.createNewEntry(p.key, p.hash, n, p.value);
+                     newTable[k].estimatedSize = p.estimatedSize;
                   }
                }
             }
@@ -1714,6 +1782,9 @@ V remove(Object key, int hash, Object value, boolean isEvict) {
 
                   // e was removed
                   eviction.onEntryRemove(e);
+                  if (sizeCalculator != null) {
+                     memoryUsed -= e.estimatedSize;
+                  }
 
                   HashEntry<K, V> newFirst = e.next;
                   for (HashEntry<K, V> p = first; p != e; p = p.next) {
@@ -1721,6 +1792,7 @@ V remove(Object key, int hash, Object value, boolean isEvict) {
                      // allow p to be GC-ed
                      eviction.onEntryRemove(p);
                      newFirst = eviction.createNewEntry(p.key, p.hash, newFirst, p.value);
+                     newFirst.estimatedSize = p.estimatedSize;
                      // and notify eviction algorithm about new hash entries
                      eviction.onEntryMiss(newFirst);
                   }
@@ -1751,6 +1823,7 @@ void clear() {
                }
                ++modCount;
                eviction.clear();
+               memoryUsed = 0;
                count = 0; // write-volatile
             } finally {
                unlock();
@@ -1758,6 +1831,47 @@ void clear() {
          }
       }
 
+      /**
+       * Re-estimates the memory held by the given entry and adjusts the segment's total accordingly.
+       * Call only while holding lock.
+       */
+      private void updateEstimatedSize(HashEntry<K, V> e) {
+         if (sizeCalculator != null) {
+            long size = sizeCalculator.calculateSize(e.key, e.value);
+            int estimate = size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+            memoryUsed += estimate - e.estimatedSize;
+            e.estimatedSize = estimate;
+         }
+      }
+
+      /**
+       * Evicts the entries chosen by the eviction policy until the estimated memory held by this segment is back
+       * under its limit. The most recently written entry is always kept, even if it exceeds the limit on its own.
+       * Call only while holding lock.
+       *
+       * @param evicted entries already evicted by the current operation, possibly null
+       * @return all entries evicted by the current operation, possibly null
+       */
+      private Set<HashEntry<K, V>> evictIfAboveMemoryLimit(Set<HashEntry<K, V>> evicted) {
+         if (sizeCalculator == null || memoryUsed <= maxMemory) {
+            return evicted;
+         }
+         Set<HashEntry<K, V>> evictedByMemory = new HashSet<HashEntry<K, V>>();
+         if (evicted != null) {
+            evictedByMemory.addAll(evicted);
+         }
+         // apply pending accesses first so that the policy picks an accurate candidate
+         evictedByMemory.addAll(eviction.execute());
+         while (memoryUsed > maxMemory && count > 1) {
+            HashEntry<K, V> candidate = eviction.evictionCandidate();
+            if (candidate == null || remove(candidate.key, candidate.hash, null, true) == null) {
+               break;
+            }
+            evictedByMemory.add(candidate);
+         }
+         return evictedByMemory.isEmpty() ? null : evictedByMemory;
+      }
+
       private Set<HashEntry<K, V>> attemptEviction(boolean lockedAlready) {
          boolean shouldAttemptEvict = lockedAlready || tryLock();
 
@@ -1832,10 +1946,49 @@ private void notifyEvictionListener(Set<HashEntry<K, V>> evicted) {
     */
    public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
          Eviction evictionStrategy, EvictionListener<K, V> evictionListener) {
+      this(capacity, -1, concurrencyLevel, evictionStrategy, evictionListener, null);
+   }
+
+   /**
+    * Creates a new, empty map bounded both by the number of elements and by the estimated amount of memory held
+    * by them, with the specified concurrency level and eviction strategy. Whichever bound is reached first triggers
+    * eviction.
+    *
+    * @param capacity
+    *            is the upper bound capacity for the number of elements in this map
+    *
+    * @param maxMemory
+    *            is the upper bound for the memory, as estimated by sizeCalculator, held by the elements in this map.
+    *            A value less than or equal to zero disables memory based eviction.
+    *
+    * @param concurrencyLevel
+    *            the estimated number of concurrently updating threads. The implementation performs
+    *            internal sizing to try to accommodate this many threads.
+    *
+    * @param evictionStrategy
+    *            the algorithm used to evict elements from this map
+    *
+    * @param evictionListener
+    *            the evicton listener callback to be notified about evicted elements
+    *
+    * @param sizeCalculator
+    *            estimates the memory held by each element; required if maxMemory is positive
+    *
+    * @throws IllegalArgumentException
+    *             if the initial capacity is negative or the load factor or concurrencyLevel are
+    *             nonpositive, or if memory based eviction is requested without a size calculator or
+    *             without an eviction strategy.
+    */
+   public BoundedConcurrentHashMap(int capacity, long maxMemory, int concurrencyLevel, Eviction evictionStrategy,
+         EvictionListener<K, V> evictionListener, EntrySizeCalculator<? super K, ? super V> sizeCalculator) {
       if (capacity < 0 || concurrencyLevel <= 0) {
          throw new IllegalArgumentException();
       }
 
+      if (maxMemory > 0 && (sizeCalculator == null || evictionStrategy == Eviction.NONE)) {
+         throw new IllegalArgumentException("Memory based eviction requires a size calculator and an eviction strategy");
+      }
+
       concurrencyLevel = Math.min(capacity / 2, concurrencyLevel); // concurrencyLevel cannot be > capacity/2
       concurrencyLevel = Math.max(concurrencyLevel, 1); // concurrencyLevel cannot be less than 1
 
@@ -1872,8 +2025,16 @@ public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
          cap <<= 1;
       }
 
-      for (int i = 0; i < this.segments.length; ++i) {
-         this.segments[i] = new Segment<K, V>(cap, c, DEFAULT_LOAD_FACTOR, evictionStrategy, evictionListener);
+      if (maxMemory > 0) {
+         long segmentMaxMemory = Math.max(maxMemory / ssize, 1);
+         for (int i = 0; i < this.segments.length; ++i) {
+            this.segments[i] = new Segment<K, V>(cap, c, segmentMaxMemory, DEFAULT_LOAD_FACTOR, evictionStrategy,
+                  evictionListener, sizeCalculator);
+         }
+      } else {
+         for (int i = 0; i < this.segments.length; ++i) {
+            this.segments[i] = new Segment<K, V>(cap, c, DEFAULT_LOAD_FACTOR, evictionStrategy, evictionListener);
+         }
       }
    }
 
@@ -1942,6 +2103,54 @@ public BoundedConcurrentHashMap() {
       this(DEFAULT_MAXIMUM_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
    }
 
+   /**
+    * Returns whether this map evicts elements based on the estimated memory they hold.
+    *
+    * @return <tt>true</tt> if this map was created with a memory bound
+    */
+   public boolean isMemoryBounded() {
+      return segments[0].sizeCalculator != null;
+   }
+
+   /**
+    * Returns the upper bound for the estimated memory held by the elements in this map.
+    *
+    * @return maximum memory in bytes, or -1 if this map is not memory bounded
+    */
+   public long getMaxMemory() {
+      if (!isMemoryBounded()) {
+         return -1;
+      }
+      return segments[0].maxMemory * segments.length;
+   }
+
+   /**
+    * Returns the estimated memory currently held by the elements in this map. The value is computed without locking
+    * and is therefore only a snapshot.
+    *
+    * @return estimated memory in bytes, or 0 if this map is not memory bounded
+    */
+   public long getMemoryUsed() {
+      long total = 0;
+      for (Segment<K, V> segment : segments) {
+         total += segment.memoryUsed;
+      }
+      return total;
+   }
+
+   /**
+    * Returns the estimated memory currently held by the elements of each segment of this map.
+    *
+    * @return estimated memory in bytes, indexed by segment
+    */
+   public long[] getSegmentMemoryUsed() {
+      long[] used = new long[segments.length];
+      for (int i = 0; i < segments.length; i++) {
+         used[i] = segments[i].memoryUsed;
+      }
+      return used;
+   }
+
    /**
     * Returns <tt>true</tt> if this map contains no key-value mappings.
     *
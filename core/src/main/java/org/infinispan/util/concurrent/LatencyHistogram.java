@@ -0,0 +1,178 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.util.concurrent;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.util.concurrent.jdk8backported.LongAdder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A histogram of latencies, recorded in nanoseconds, from which percentiles can be read.
+ * <p/>
+ * Like an HDR histogram, values are counted in log-linear buckets: each power of two is split into 8 equal
+ * sub-buckets, so a percentile is reported with a relative error below 12.5% whatever its magnitude, and recording
+ * a value takes a constant time and space. Latencies of more than about a minute all fall in the last bucket.
+ * <p/>
+ * Each bucket is a {@link LongAdder}, so threads recording similar latencies concurrently don't contend on a single
+ * counter. Reads are not atomic with respect to concurrent recording, which is fine for monitoring.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class LatencyHistogram {
+
+   private static final int SUB_BUCKET_BITS = 3;
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   /**
+    * The highest power of two (in nanoseconds) with buckets of its own: 2^36 ns is a little more than a minute.
+    */
+   private static final int MAX_EXPONENT = 36;
+   private static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+   private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+   private final LongAdder totalNanos = new LongAdder();
+   private final AtomicLong maxNanos = new AtomicLong();
+
+   public LatencyHistogram() {
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+         buckets[i] = new LongAdder();
+      }
+   }
+
+   /**
+    * Records a latency.
+    *
+    * @param nanos the latency, in nanoseconds
+    */
+   public void record(long nanos) {
+      if (nanos < 0)
+         nanos = 0;
+      buckets[bucketIndex(nanos)].increment();
+      totalNanos.add(nanos);
+      long max = maxNanos.get();
+      // only contended while the maximum is still growing
+      while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+         max = maxNanos.get();
+      }
+   }
+
+   /**
+    * @return the number of latencies recorded
+    */
+   public long getCount() {
+      long count = 0;
+      for (LongAdder bucket : buckets) {
+         count += bucket.sum();
+      }
+      return count;
+   }
+
+   /**
+    * @return the sum of the latencies recorded, in nanoseconds
+    */
+   public long getTotalNanos() {
+      return totalNanos.sum();
+   }
+
+   /**
+    * @return the highest latency recorded, in nanoseconds
+    */
+   public long getMaxNanos() {
+      return maxNanos.get();
+   }
+
+   /**
+    * Returns the latency below which the given percentage of the recorded latencies fall.
+    *
+    * @param percentile between 0 and 100
+    * @return the latency, in nanoseconds, or 0 if nothing was recorded
+    */
+   public long getPercentileNanos(double percentile) {
+      if (percentile < 0 || percentile > 100)
+         throw new IllegalArgumentException("Percentile must be between 0 and 100, was " + percentile);
+      long[] counts = new long[NUM_BUCKETS];
+      long total = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+         counts[i] = buckets[i].sum();
+         total += counts[i];
+      }
+      if (total == 0)
+         return 0;
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+      long seen = 0;
+      for (int i = 0; i < NUM_BUCKETS; i++) {
+         seen += counts[i];
+         if (seen >= rank)
+            return Math.min(bucketUpperBound(i), maxNanos.get());
+      }
+      return maxNanos.get();
+   }
+
+   public void reset() {
+      for (LongAdder bucket : buckets) {
+         bucket.reset();
+      }
+      totalNanos.reset();
+      maxNanos.set(0);
+   }
+
+   /**
+    * @return a summary of the histogram with the usual percentiles, in microseconds
+    */
+   @Override
+   public String toString() {
+      return "LatencyHistogram{" +
+            "count=" + getCount() +
+            ", p50=" + micros(getPercentileNanos(50)) +
+            ", p90=" + micros(getPercentileNanos(90)) +
+            ", p99=" + micros(getPercentileNanos(99)) +
+            ", p99.9=" + micros(getPercentileNanos(99.9)) +
+            ", max=" + micros(getMaxNanos()) +
+            ", unit=us}";
+   }
+
+   private static long micros(long nanos) {
+      return TimeUnit.NANOSECONDS.toMicros(nanos);
+   }
+
+   static int bucketIndex(long nanos) {
+      if (nanos < SUB_BUCKETS)
+         return (int) nanos;
+      int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+      if (exponent > MAX_EXPONENT)
+         return NUM_BUCKETS - 1;
+      int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+   }
+
+   static long bucketUpperBound(int index) {
+      if (index < SUB_BUCKETS)
+         return index;
+      int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+      long subBucket = index % SUB_BUCKETS;
+      long width = 1L << (exponent - SUB_BUCKET_BITS);
+      return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+   }
+}
@@ -26,7 +26,9 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -172,27 +174,48 @@ static final int hash(Object x) {
    }
 
    /**
-    * Releases locks on all keys passed in.  Makes multiple calls to {@link #releaseLock(Object)}. This method is
-    * idempotent.
+    * Releases locks on all keys passed in.  Each lock stripe shared by the keys is released once, mirroring {@link
+    * #acquireAllLocks(java.util.Collection, boolean)}. This method is idempotent.
     *
     * @param keys keys to unlock
     */
-   public void releaseAllLocks(List<Object> keys) {
-      for (Object k : keys) {
-        releaseLock(k);
-    }
+   public void releaseAllLocks(Collection<?> keys) {
+      for (int i : stripesFor(keys)) {
+         ReentrantReadWriteLock lock = sharedLocks[i];
+         if (lock.isWriteLockedByCurrentThread()) {
+            lock.writeLock().unlock();
+         } else {
+            lock.readLock().unlock();
+         }
+      }
+      if (trace) log.tracef("Released locks for %s", keys);
    }
 
    /**
-    * Acquires locks on keys passed in.  Makes multiple calls to {@link #acquireLock(Object, boolean)}
+    * Acquires locks on keys passed in.  The lock stripes shared by the keys are acquired once each and always in the
+    * same order, so that concurrent callers locking overlapping sets of keys cannot deadlock each other.
     *
-    * @param keys      keys to unlock
+    * @param keys      keys to lock
     * @param exclusive whether locks are exclusive.
     */
-   public void acquireAllLocks(List<Object> keys, boolean exclusive) {
+   public void acquireAllLocks(Collection<?> keys, boolean exclusive) {
+      for (int i : stripesFor(keys)) {
+         ReentrantReadWriteLock lock = sharedLocks[i];
+         if (exclusive) {
+            lock.writeLock().lock();
+         } else {
+            lock.readLock().lock();
+         }
+      }
+      if (trace) log.tracef("%s acquired for %s", exclusive ? "WL" : "RL", keys);
+   }
+
+   private SortedSet<Integer> stripesFor(Collection<?> keys) {
+      SortedSet<Integer> stripes = new TreeSet<Integer>();
       for (Object k : keys) {
-        acquireLock(k, exclusive);
-    }
+         stripes.add(hashToIndex(k));
+      }
+      return stripes;
    }
 
    /**
@@ -0,0 +1,325 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.xsite;
+
+import org.infinispan.commands.remote.SingleRpcCommand;
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.commands.write.ClearCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.RemoveCommand;
+import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.remoting.transport.BackupResponse;
+import org.infinispan.remoting.transport.Transport;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.transaction.xa.TransactionFactory;
+import org.infinispan.util.concurrent.TimeoutException;
+import org.infinispan.util.concurrent.jdk8backported.LongAdder;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Queues the updates of a cache for an async backup site and sends them in batches.
+ * <p/>
+ * An unconditional put or remove replaces any update of the same key still in the queue, so a hot key only costs one
+ * update per batch, and a clear replaces the whole queue. The other updates (conditional operations, putAll) are
+ * queued as they are. The queue is sent every {@link org.infinispan.configuration.cache.BackupConfiguration#batchFlushInterval()}
+ * millis, or as soon as it holds {@link org.infinispan.configuration.cache.BackupConfiguration#batchMaxElements()}
+ * updates, as a single one phase {@link PrepareCommand} that the {@link BackupReceiver} replays as a whole.
+ * <p/>
+ * When the queue is full, the writers block until a batch is sent, for up to the replication timeout of the backup,
+ * after which their update is dropped: this is how a slow inter-site link pushes back on the writers. Like for any
+ * async backup, failures to send a batch are only logged.
+ *
+ * @since 5.2
+ */
+public class AsyncBackupQueue {
+
+   private static final Log log = LogFactory.getLog(AsyncBackupQueue.class);
+
+   private final String cacheName;
+   private final XSiteBackup backup;
+   private final Transport transport;
+   private final OfflineStatus offlineStatus;
+   private final long flushInterval;
+   private final int maxElements;
+   private final int capacity;
+
+   private final ReentrantLock lock = new ReentrantLock();
+   private final Condition notFull = lock.newCondition();
+   /**
+    * The queued updates, by key. The updates that must not be coalesced are mapped to a key of their own.
+    */
+   private LinkedHashMap<Object, WriteCommand> queue = new LinkedHashMap<Object, WriteCommand>();
+   /**
+    * When the oldest update still queued was added, if the queue is not empty.
+    */
+   private long oldestQueuedNanos;
+   /**
+    * When the oldest update of the batch being sent was added, or 0 if no batch is being sent.
+    */
+   private volatile long oldestSendingNanos;
+   private volatile int queueSize;
+
+   private final AtomicBoolean flushRequested = new AtomicBoolean();
+   private ScheduledExecutorService executor;
+   private final Runnable flushTask = new Runnable() {
+      @Override
+      public void run() {
+         flushRequested.set(false);
+         try {
+            flush();
+         } catch (Throwable t) {
+            log.warnXsiteBackupFailed(cacheName, backup.getSiteName(), t);
+         }
+      }
+   };
+
+   private final LongAdder updatesQueued = new LongAdder();
+   private final LongAdder updatesCoalesced = new LongAdder();
+   private final LongAdder updatesDropped = new LongAdder();
+   private final LongAdder batchesSent = new LongAdder();
+   private final LongAdder bytesSent = new LongAdder();
+   private final long startNanos = System.nanoTime();
+
+   public AsyncBackupQueue(String cacheName, XSiteBackup backup, Transport transport, OfflineStatus offlineStatus,
+                           long flushInterval, int maxElements, int capacity) {
+      this.cacheName = cacheName;
+      this.backup = backup;
+      this.transport = transport;
+      this.offlineStatus = offlineStatus;
+      this.flushInterval = flushInterval;
+      this.maxElements = maxElements;
+      this.capacity = capacity;
+   }
+
+   /**
+    * Starts sending the queued updates periodically, on the given executor.
+    */
+   public void start(ScheduledExecutorService executor) {
+      this.executor = executor;
+      executor.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+   }
+
+   public String getSiteName() {
+      return backup.getSiteName();
+   }
+
+   /**
+    * Queues updates to be sent to the backup site. The updates of a transaction are always sent in the same batch.
+    *
+    * @return false if the queue stayed full for longer than the replication timeout, and the updates were dropped
+    */
+   public boolean enqueue(List<WriteCommand> modifications) throws InterruptedException {
+      if (modifications.isEmpty())
+         return true;
+      boolean full;
+      lock.lock();
+      try {
+         long remainingNanos = TimeUnit.MILLISECONDS.toNanos(backup.getTimeout());
+         // a transaction larger than the whole queue is still accepted once the queue is empty
+         while (!queue.isEmpty() && queue.size() + modifications.size() > capacity) {
+            requestFlush();
+            if (backup.getTimeout() <= 0) {
+               notFull.await();
+            } else {
+               if (remainingNanos <= 0) {
+                  updatesDropped.add(modifications.size());
+                  log.warnXsiteBackupFailed(cacheName, backup.getSiteName(), new TimeoutException(
+                        "Timed out after " + backup.getTimeout() + " ms waiting for space in the backup queue"));
+                  return false;
+               }
+               remainingNanos = notFull.awaitNanos(remainingNanos);
+            }
+         }
+         if (queue.isEmpty())
+            oldestQueuedNanos = System.nanoTime();
+         for (WriteCommand command : modifications) {
+            add(command);
+         }
+         updatesQueued.add(modifications.size());
+         queueSize = queue.size();
+         full = queue.size() >= maxElements;
+      } finally {
+         lock.unlock();
+      }
+      if (full)
+         requestFlush();
+      return true;
+   }
+
+   private void add(WriteCommand command) {
+      if (command instanceof ClearCommand) {
+         updatesCoalesced.add(queue.size());
+         queue.clear();
+         queue.put(new Object(), command);
+      } else if (isCoalescable(command)) {
+         Object key = command instanceof PutKeyValueCommand ? ((PutKeyValueCommand) command).getKey() : ((RemoveCommand) command).getKey();
+         // remove first so that the update moves to the end of the queue
+         if (queue.remove(key) != null)
+            updatesCoalesced.increment();
+         queue.put(key, command);
+      } else {
+         queue.put(new Object(), command);
+      }
+   }
+
+   private boolean isCoalescable(WriteCommand command) {
+      return (command instanceof PutKeyValueCommand || command instanceof RemoveCommand) && !command.isConditional();
+   }
+
+   private void requestFlush() {
+      if (executor != null && flushRequested.compareAndSet(false, true))
+         executor.execute(flushTask);
+   }
+
+   /**
+    * Sends the queued updates now, in the calling thread. If the site is offline the queued updates are discarded.
+    */
+   public void flush() {
+      LinkedHashMap<Object, WriteCommand> batch;
+      long batchOldestNanos;
+      lock.lock();
+      try {
+         if (queue.isEmpty())
+            return;
+         batch = queue;
+         batchOldestNanos = oldestQueuedNanos;
+         queue = new LinkedHashMap<Object, WriteCommand>();
+         queueSize = 0;
+         oldestSendingNanos = batchOldestNanos;
+         notFull.signalAll();
+      } finally {
+         lock.unlock();
+      }
+      try {
+         if (offlineStatus != null && offlineStatus.isOffline()) {
+            log.tracef("The site '%s' is offline, discarding %d queued updates", backup.getSiteName(), batch.size());
+            updatesDropped.add(batch.size());
+            return;
+         }
+         send(new ArrayList<WriteCommand>(batch.values()));
+      } finally {
+         oldestSendingNanos = 0;
+      }
+   }
+
+   private void send(List<WriteCommand> modifications) {
+      GlobalTransaction gtx = TransactionFactory.TxFactoryEnum.NODLD_NORECOVERY_NOXA.newGlobalTransaction(
+            transport.getAddress(), false, null, false);
+      PrepareCommand batch = new PrepareCommand(cacheName, gtx, modifications, true);
+      log.tracef("Sending a batch of %d updates to site %s", modifications.size(), backup.getSiteName());
+      try {
+         BackupResponse response = transport.backupRemotely(Collections.singletonList(backup),
+                                                            new SingleRpcCommand(cacheName, batch));
+         batchesSent.increment();
+         bytesSent.add(response.getMessageSize());
+      } catch (Exception e) {
+         updatesDropped.add(modifications.size());
+         log.warnXsiteBackupFailed(cacheName, backup.getSiteName(), e);
+      }
+   }
+
+   /**
+    * @return the number of updates waiting to be sent
+    */
+   public int getQueueSize() {
+      return queueSize;
+   }
+
+   /**
+    * @return for how many millis the oldest update not sent yet has been waiting, or 0 if there is none
+    */
+   public long getLagMillis() {
+      long oldest = oldestSendingNanos;
+      if (oldest == 0) {
+         lock.lock();
+         try {
+            if (queue.isEmpty())
+               return 0;
+            oldest = oldestQueuedNanos;
+         } finally {
+            lock.unlock();
+         }
+      }
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest);
+   }
+
+   /**
+    * @return the average number of bytes sent to the site per second, since this queue was started
+    */
+   public long getBytesPerSecond() {
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      return elapsedMillis == 0 ? 0 : bytesSent.sum() * 1000 / elapsedMillis;
+   }
+
+   public long getBytesSent() {
+      return bytesSent.sum();
+   }
+
+   public long getBatchesSent() {
+      return batchesSent.sum();
+   }
+
+   public long getUpdatesQueued() {
+      return updatesQueued.sum();
+   }
+
+   /**
+    * @return the number of updates that were not sent because a later update of the same key superseded them
+    */
+   public long getUpdatesCoalesced() {
+      return updatesCoalesced.sum();
+   }
+
+   /**
+    * @return the number of updates that were not sent because the queue was full, the site was offline or the sending
+    *         failed
+    */
+   public long getUpdatesDropped() {
+      return updatesDropped.sum();
+   }
+
+   @Override
+   public String toString() {
+      return "AsyncBackupQueue{" +
+            "site=" + backup.getSiteName() +
+            ", queueSize=" + getQueueSize() +
+            ", lagMillis=" + getLagMillis() +
+            ", bytesPerSecond=" + getBytesPerSecond() +
+            ", batchesSent=" + getBatchesSent() +
+            ", updatesQueued=" + getUpdatesQueued() +
+            ", updatesCoalesced=" + getUpdatesCoalesced() +
+            ", updatesDropped=" + getUpdatesDropped() +
+            '}';
+   }
+}
@@ -60,6 +60,13 @@ public interface BackupSender {
 
    OfflineStatus getOfflineStatus(String siteName);
 
+   /**
+    * Returns the queue batching the updates for the given site, or null if the updates are not batched for that site.
+    *
+    * @see org.infinispan.configuration.cache.BackupConfiguration#isBatching()
+    */
+   AsyncBackupQueue getAsyncBackupQueue(String siteName);
+
    /**
     * Returns a Map having as entries the site names and as value Boolean.TRUE if the site is online and Boolean.FALSE
     * if it is offline.
@@ -42,6 +42,7 @@
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
 import org.infinispan.remoting.transport.AggregateBackupResponse;
 import org.infinispan.remoting.transport.BackupResponse;
 import org.infinispan.remoting.transport.Transport;
@@ -54,11 +55,17 @@
 
 import javax.transaction.Transaction;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * @author Mircea Markus
@@ -74,6 +81,8 @@ public class BackupSenderImpl implements BackupSender {
    private TransactionTable txTable;
    private final Map<String, CustomFailurePolicy> siteFailurePolicy = new HashMap<String, CustomFailurePolicy>();
    private final ConcurrentMap<String, OfflineStatus> offlineStatus = ConcurrentMapFactory.makeConcurrentMap();
+   private final Map<String, AsyncBackupQueue> asyncBackupQueues = new HashMap<String, AsyncBackupQueue>();
+   private ScheduledExecutorService batchFlushExecutor;
 
 
    private final String localSiteName;
@@ -109,7 +118,37 @@ public void start() {
          }
          OfflineStatus offline = new OfflineStatus(bc.takeOffline());
          offlineStatus.put(bc.site(), offline);
+         if (bc.isBatching() && !bc.site().equals(localSiteName)) {
+            startAsyncBackupQueue(bc, offline);
+         }
+      }
+   }
+
+   private void startAsyncBackupQueue(BackupConfiguration bc, OfflineStatus offline) {
+      if (batchFlushExecutor == null) {
+         batchFlushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+               Thread th = new Thread(r, "XSiteBatchFlusher," + cacheName);
+               th.setDaemon(true);
+               return th;
+            }
+         });
       }
+      AsyncBackupQueue queue = new AsyncBackupQueue(cacheName, new XSiteBackup(bc.site(), false, bc.replicationTimeout()),
+                                                    transport, offline, bc.batchFlushInterval(),
+                                                    bc.batchMaxElements(), bc.batchQueueCapacity());
+      queue.start(batchFlushExecutor);
+      asyncBackupQueues.put(bc.site(), queue);
+   }
+
+   @Stop
+   public void stop() {
+      for (AsyncBackupQueue queue : asyncBackupQueues.values()) {
+         queue.flush();
+      }
+      if (batchFlushExecutor != null)
+         batchFlushExecutor.shutdownNow();
    }
    
    @Override
@@ -117,7 +156,7 @@ public BackupResponse backupPrepare(PrepareCommand command) throws Exception {
       //if we run a 2PC then filter out 1PC prepare backup calls as they will happen during the local commit phase.
       BackupFilter filter = !command.isOnePhaseCommit() ? BackupFilter.KEEP_2PC_ONLY : BackupFilter.KEEP_ALL;
       List<XSiteBackup> backups = calculateBackupInfo(filter);
-      return backupCommand(command, backups);
+      return backupCommand(command, backups, Arrays.asList(command.getModifications()));
    }
 
    @Override
@@ -153,7 +192,7 @@ private void updateOfflineSites(BackupResponse backupResponse) {
    @Override
    public BackupResponse backupWrite(WriteCommand command) throws Exception {
       List<XSiteBackup> xSiteBackups = calculateBackupInfo(BackupFilter.KEEP_ALL);
-      return backupCommand(command, xSiteBackups);
+      return backupCommand(command, xSiteBackups, Collections.singletonList(command));
    }
 
    @Override
@@ -198,12 +237,34 @@ private BackupResponse backupCommand(ReplicableCommand command, List<XSiteBackup
       return transport.backupRemotely(xSiteBackups, new SingleRpcCommand(cacheName, command));
    }
 
+   /**
+    * Same as {@link #backupCommand(ReplicableCommand, List)}, but the sites that batch their updates get the
+    * modifications queued instead of the command being sent.
+    */
+   private BackupResponse backupCommand(ReplicableCommand command, List<XSiteBackup> xSiteBackups,
+                                        List<WriteCommand> modifications) throws Exception {
+      if (asyncBackupQueues.isEmpty())
+         return backupCommand(command, xSiteBackups);
+      boolean enqueued = false;
+      for (Iterator<XSiteBackup> it = xSiteBackups.iterator(); it.hasNext(); ) {
+         AsyncBackupQueue queue = asyncBackupQueues.get(it.next().getSiteName());
+         if (queue != null) {
+            it.remove();
+            queue.enqueue(modifications);
+            enqueued = true;
+         }
+      }
+      if (enqueued && xSiteBackups.isEmpty())
+         return new AggregateBackupResponse(null, null);
+      return backupCommand(command, xSiteBackups);
+   }
+
    private BackupResponse sendTo1PCBackups(CommitCommand command) throws Exception {
       List<XSiteBackup> backups = calculateBackupInfo(BackupFilter.KEEP_1PC_ONLY);
       LocalTransaction localTx = txTable.getLocalTransaction(command.getGlobalTransaction());
       PrepareCommand prepare = new PrepareCommand(cacheName, localTx.getGlobalTransaction(),
                                                   localTx.getModifications(), true);
-      return backupCommand(prepare, backups);
+      return backupCommand(prepare, backups, localTx.getModifications());
    }
 
    private void processFailedResponses(BackupResponse backupResponse, VisitableCommand command, Transaction transaction) throws Throwable {
@@ -333,6 +394,11 @@ public OfflineStatus getOfflineStatus(String site) {
       return offlineStatus.get(site);
    }
 
+   @Override
+   public AsyncBackupQueue getAsyncBackupQueue(String siteName) {
+      return asyncBackupQueues.get(siteName);
+   }
+
    @Override
    public Map<String, Boolean> status() {
       Map<String, Boolean> result = new HashMap<String, Boolean>(offlineStatus.size());
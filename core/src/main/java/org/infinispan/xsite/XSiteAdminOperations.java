@@ -235,6 +235,38 @@ public String bringSiteOnline(String site) {
       return returnFailureOrSuccess(failed, "Could not take the site online on nodes:");
    }
 
+   @Operation(displayName = "Returns the number of updates waiting to be sent to the given backup site by this node.")
+   @ManagedOperation(description = "Returns the number of updates waiting to be sent to the given backup site by this node.")
+   public String getBackupQueueSize(String site) {
+      AsyncBackupQueue queue = backupSender.getAsyncBackupQueue(site);
+      if (queue == null) return notBatching(site);
+      return String.valueOf(queue.getQueueSize());
+   }
+
+   @Operation(displayName = "Returns for how many millis the oldest update not sent yet to the given backup site by this node has been waiting.")
+   @ManagedOperation(description = "Returns for how many millis the oldest update not sent yet to the given backup site by this node has been waiting.")
+   public String getBackupLag(String site) {
+      AsyncBackupQueue queue = backupSender.getAsyncBackupQueue(site);
+      if (queue == null) return notBatching(site);
+      return String.valueOf(queue.getLagMillis());
+   }
+
+   @Operation(displayName = "Returns the average number of bytes per second sent to the given backup site by this node.")
+   @ManagedOperation(description = "Returns the average number of bytes per second sent to the given backup site by this node.")
+   public String getBackupBytesPerSecond(String site) {
+      AsyncBackupQueue queue = backupSender.getAsyncBackupQueue(site);
+      if (queue == null) return notBatching(site);
+      return String.valueOf(queue.getBytesPerSecond());
+   }
+
+   @Operation(displayName = "Returns the batching statistics of the given backup site on this node.")
+   @ManagedOperation(description = "Returns the batching statistics (batches sent, updates queued, coalesced and dropped) of the given backup site on this node.")
+   public String getBackupBatchingStatistics(String site) {
+      AsyncBackupQueue queue = backupSender.getAsyncBackupQueue(site);
+      if (queue == null) return notBatching(site);
+      return queue.toString();
+   }
+
    private List<Address> checkForErrors(Map<Address, Response> responses) {
       List<Address> failed = new ArrayList<Address>(responses.size());
       for (Map.Entry<Address, Response> e : responses.entrySet()) {
@@ -277,6 +309,11 @@ private String incorrectSiteName(String site) {
       return "Incorrect site name: " + site;
    }
 
+   private String notBatching(String site) {
+      if (backupSender.getOfflineStatus(site) == null) return incorrectSiteName(site);
+      return "Updates are not batched for site " + site;
+   }
+
    private Map<Address, Response> invokeRemotely(XSiteAdminCommand command) {
       return rpcManager.invokeRemotely(null, command, true, true);
    }
@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.api;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.stats.Stats;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests {@link Cache#getAll(java.util.Set)} and {@link Cache#getAllAsync(java.util.Set)} on a local cache. Values are
+ * stored as binary so that keys are wrapped in marshalled values on their way through the interceptor chain.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "api.GetAllTest")
+public class GetAllTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.storeAsBinary().enable().jmxStatistics().enable();
+      return TestCacheManagerFactory.createCacheManager(builder);
+   }
+
+   public void testGetAll() {
+      Cache<Object, String> c = cache();
+      c.put(new Key("k1"), "v1");
+      c.put(new Key("k2"), "v2");
+      c.put("k3", "v3");
+
+      Map<Object, String> result = c.getAll(keys(new Key("k1"), new Key("k2"), "k3"));
+      assertEquals(3, result.size());
+      assertEquals("v1", result.get(new Key("k1")));
+      assertEquals("v2", result.get(new Key("k2")));
+      assertEquals("v3", result.get("k3"));
+   }
+
+   public void testGetAllMissingKeys() {
+      Cache<Object, String> c = cache();
+      c.put(new Key("k1"), "v1");
+      c.put(new Key("k2"), "v2");
+      c.remove(new Key("k2"));
+
+      Map<Object, String> result = c.getAll(keys(new Key("k1"), new Key("k2"), "doesNotExist"));
+      assertEquals(Collections.singletonMap(new Key("k1"), "v1"), result);
+      assertTrue(c.getAll(Collections.emptySet()).isEmpty());
+   }
+
+   public void testGetAllUpdatesStatistics() {
+      Cache<Object, String> c = cache();
+      Stats stats = c.getAdvancedCache().getStats();
+      long hits = stats.getHits();
+      long misses = stats.getMisses();
+      c.put("k1", "v1");
+      c.put("k2", "v2");
+
+      c.getAll(keys("k1", "k2", "k3"));
+      stats = c.getAdvancedCache().getStats();
+      assertEquals(hits + 2, stats.getHits());
+      assertEquals(misses + 1, stats.getMisses());
+   }
+
+   public void testGetAllAsync() throws Exception {
+      Cache<Object, String> c = cache();
+      c.put(new Key("k1"), "v1");
+
+      NotifyingFuture<Map<Object, String>> f = c.getAllAsync(keys(new Key("k1"), new Key("k2")));
+      assertEquals(Collections.singletonMap(new Key("k1"), "v1"), f.get());
+      assertTrue(f.isDone());
+      assertFalse(f.isCancelled());
+   }
+
+   public void testGetAllWithFlags() {
+      Cache<Object, String> c = cache();
+      c.put("k1", "v1");
+      Map<Object, String> result = c.getAdvancedCache().withFlags(Flag.SKIP_CACHE_LOAD).getAll(keys("k1", "k2"));
+      assertEquals(Collections.singletonMap("k1", "v1"), result);
+   }
+
+   private static Set<Object> keys(Object... keys) {
+      return new HashSet<Object>(Arrays.asList(keys));
+   }
+
+   public static class Key implements Serializable {
+      private final String name;
+
+      public Key(String name) {
+         this.name = name;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof Key && name.equals(((Key) o).name);
+      }
+
+      @Override
+      public int hashCode() {
+         return name.hashCode();
+      }
+
+      @Override
+      public String toString() {
+         return "Key{" + name + "}";
+      }
+   }
+}
@@ -420,6 +420,8 @@ private void assertNamedCacheFile(EmbeddedCacheManager cm, boolean deprecated) {
       assert c.clustering().stateTransfer().fetchInMemoryState();
       assert c.clustering().stateTransfer().timeout() == 120000;
       assert c.clustering().stateTransfer().chunkSize() == 1000;
+      if (!deprecated) assert c.clustering().stateTransfer().maxInFlightChunks() == 4;
+      if (!deprecated) assert c.clustering().stateTransfer().compressChunks();
 
       c = cm.getCacheConfiguration("cacheWithCustomInterceptors");
       assert !c.customInterceptors().interceptors().isEmpty();
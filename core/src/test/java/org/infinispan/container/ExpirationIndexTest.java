@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+@Test(groups = "unit", testName = "container.ExpirationIndexTest")
+public class ExpirationIndexTest extends AbstractInfinispanTest {
+   DefaultDataContainer dc;
+
+   @BeforeMethod
+   public void setUp() {
+      dc = new DefaultDataContainer(16);
+      dc.initialize(null, null, new InternalEntryFactoryImpl(), null, null);
+   }
+
+   public void testOnlyExpirableEntriesAreIndexed() {
+      for (int i = 0; i < 100; i++) dc.put("immortal" + i, "v", null, -1, -1);
+      dc.put("mortal", "v", null, 6000000, -1);
+      dc.put("transient", "v", null, -1, 6000000);
+      assertEquals(2, dc.getExpirableEntries());
+
+      dc.put("mortal", "v", null, -1, -1);
+      assertEquals(1, dc.getExpirableEntries());
+      dc.put("immortal0", "v", null, 6000000, -1);
+      assertEquals(2, dc.getExpirableEntries());
+      dc.remove("transient");
+      assertEquals(1, dc.getExpirableEntries());
+      dc.clear();
+      assertEquals(0, dc.getExpirableEntries());
+   }
+
+   public void testPurgeOnlyRemovesExpiredEntries() throws InterruptedException {
+      for (int i = 0; i < 100; i++) dc.put("immortal" + i, "v", null, -1, -1);
+      for (int i = 0; i < 10; i++) dc.put("expiring" + i, "v", null, 50, -1);
+      for (int i = 0; i < 10; i++) dc.put("mortal" + i, "v", null, 6000000, -1);
+      Thread.sleep(100);
+      dc.purgeExpired();
+
+      assertEquals(110, dc.size());
+      assertEquals(10, dc.getPurgedEntries());
+      assertEquals(1, dc.getPurges());
+      assertEquals(10, dc.getExpirableEntries());
+      for (int i = 0; i < 10; i++) assert dc.peek("expiring" + i) == null;
+   }
+
+   public void testTouchedEntriesAreRescheduled() throws InterruptedException {
+      dc.put("k", "v", null, -1, 200);
+      Thread.sleep(150);
+      assert dc.get("k") != null;
+      Thread.sleep(100);
+      // due according to the index, but touched in the meantime
+      dc.purgeExpired();
+      assert dc.peek("k") != null;
+      assertEquals(0, dc.getPurgedEntries());
+      assertEquals(1, dc.getExpirableEntries());
+
+      Thread.sleep(250);
+      dc.purgeExpired();
+      assert dc.peek("k") == null;
+      assertEquals(1, dc.getPurgedEntries());
+      assertEquals(0, dc.getExpirableEntries());
+   }
+
+   public void testUpdatedEntriesAreRescheduled() throws InterruptedException {
+      dc.put("k", "v", null, 50, -1);
+      dc.put("k", "v2", null, 6000000, -1);
+      Thread.sleep(100);
+      dc.purgeExpired();
+      assertEquals("v2", dc.peek("k").getValue());
+      assertEquals(1, dc.getExpirableEntries());
+
+      dc.resetStatistics();
+      assertEquals(0, dc.getPurges());
+   }
+}
@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.commons.hash.MurmurHash3;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.distribution.ch.DefaultConsistentHash;
+import org.infinispan.distribution.ch.DefaultConsistentHashFactory;
+import org.infinispan.remoting.transport.Address;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Runs the {@link SimpleDataContainerTest} checks against a {@link DefaultSegmentedDataContainer}, and checks that its
+ * segments match those of the consistent hash.
+ *
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "container.SegmentedDataContainerTest")
+public class SegmentedDataContainerTest extends SimpleDataContainerTest {
+
+   private static final int NUM_SEGMENTS = 20;
+
+   @Override
+   protected DataContainer createContainer() {
+      DefaultSegmentedDataContainer dc = new DefaultSegmentedDataContainer(16, NUM_SEGMENTS, new MurmurHash3());
+      dc.initialize(null, null, new InternalEntryFactoryImpl(), null, null);
+      return dc;
+   }
+
+   public void testSegmentsMatchConsistentHash() {
+      SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      DefaultConsistentHash ch = new DefaultConsistentHashFactory().create(new MurmurHash3(), 1, NUM_SEGMENTS,
+            Collections.<Address>singletonList(new TestAddress(0)));
+
+      for (int i = 0; i < 1000; i++) {
+         dc.put("k" + i, "v" + i, null, -1, -1);
+      }
+
+      int total = 0;
+      for (int segment = 0; segment < NUM_SEGMENTS; segment++) {
+         int count = 0;
+         for (Iterator<InternalCacheEntry> it = sdc.segmentIterator(segment); it.hasNext(); ) {
+            Object key = it.next().getKey();
+            assertEquals(segment, ch.getSegment(key));
+            assertEquals(segment, sdc.getSegment(key));
+            count++;
+         }
+         assertEquals(count, sdc.segmentSize(segment));
+         total += count;
+      }
+      assertEquals(1000, total);
+      assertEquals(1000, dc.size());
+   }
+
+   public void testClearSegment() {
+      SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      for (int i = 0; i < 1000; i++) {
+         dc.put("k" + i, "v" + i, null, i % 2 == 0 ? 600000 : -1, -1);
+      }
+      int segment = sdc.getSegment("k0");
+      int segmentSize = sdc.segmentSize(segment);
+      assert segmentSize > 0;
+
+      sdc.clearSegment(segment);
+
+      assertEquals(0, sdc.segmentSize(segment));
+      assertEquals(1000 - segmentSize, dc.size());
+      assert !dc.containsKey("k0");
+      Set<Object> keys = new HashSet<Object>(dc.keySet());
+      for (Object key : keys) {
+         assert sdc.getSegment(key) != segment;
+      }
+      // the expirable entries of the cleared segment were dropped from the expiration index as well
+      assertEquals(500 - countExpirable(segment), ((DefaultDataContainer) dc).getExpirableEntries());
+   }
+
+   private int countExpirable(int segment) {
+      SegmentedDataContainer sdc = (SegmentedDataContainer) dc;
+      int count = 0;
+      for (int i = 0; i < 1000; i += 2) {
+         if (sdc.getSegment("k" + i) == segment) count++;
+      }
+      return count;
+   }
+}
@@ -41,7 +41,7 @@
 
 @Test(groups = "unit", testName = "container.SimpleDataContainerTest")
 public class SimpleDataContainerTest extends AbstractInfinispanTest {
-   DataContainer dc;
+   protected DataContainer dc;
 
    @BeforeMethod
    public void setUp() {
@@ -0,0 +1,194 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container.offheap;
+
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntryFactoryImpl;
+import org.infinispan.container.VersionedInternalEntryFactoryImpl;
+import org.infinispan.container.SimpleDataContainerTest;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.versioning.InequalVersionComparisonResult;
+import org.infinispan.container.versioning.SimpleClusteredVersion;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.marshall.TestObjectStreamMarshaller;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.AssertJUnit.assertEquals;
+
+@Test(groups = "unit", testName = "container.offheap.OffHeapDataContainerTest")
+public class OffHeapDataContainerTest extends SimpleDataContainerTest {
+
+   @Override
+   protected DataContainer createContainer() {
+      OffHeapDataContainer dc = new OffHeapDataContainer(16, -1, -1, 4096);
+      dc.initialize(new TestObjectStreamMarshaller(), new InternalEntryFactoryImpl(), null, null, null, null);
+      return dc;
+   }
+
+   @Override
+   public void testUpdatingLastUsed() throws Exception {
+      // entries are copies, so the last used stamp is only visible on the entries returned by later reads
+      long idle = 600000;
+      dc.put("k", "v", null, -1, idle);
+      long lastUsed = dc.get("k").getLastUsed();
+      Thread.sleep(100); // for time calc granularity
+      InternalCacheEntry ice = dc.get("k");
+      assert ice.getLastUsed() > lastUsed;
+      assertEquals(idle, ice.getMaxIdle());
+      Thread.sleep(100); // for time calc granularity
+      assertEquals(ice.getLastUsed(), dc.peek("k").getLastUsed());
+   }
+
+   @Override
+   public void testEntrySet() {
+      // entries are copies, not all of which define equality, so compare their contents
+      dc.put("k1", "v1", null, 6000000, -1);
+      dc.put("k2", "v2", null, -1, -1);
+      dc.put("k3", "v3", null, -1, 6000000);
+      dc.put("k4", "v4", null, 6000000, 6000000);
+
+      Map<Object, Object> expected = new HashMap<Object, Object>();
+      for (int i = 1; i <= 4; i++)
+         expected.put("k" + i, "v" + i);
+
+      Map<Object, Object> actual = new HashMap<Object, Object>();
+      for (InternalCacheEntry ice : dc.entrySet()) {
+         assertEquals(dc.peek(ice.getKey()).getExpiryTime(), ice.getExpiryTime());
+         actual.put(ice.getKey(), ice.getValue());
+      }
+      assertEquals(expected, actual);
+   }
+
+   public void testVersionAndLargeValues() {
+      OffHeapDataContainer dc = new OffHeapDataContainer(16, -1, -1, 4096);
+      dc.initialize(new TestObjectStreamMarshaller(), new VersionedInternalEntryFactoryImpl(), null, null, null, null);
+      byte[] large = new byte[10000];
+      large[9999] = 42;
+      dc.put("k", large, new SimpleClusteredVersion(1, 3), -1, -1);
+      InternalCacheEntry ice = dc.get("k");
+      assertEquals(42, ((byte[]) ice.getValue())[9999]);
+      assertEquals(InequalVersionComparisonResult.EQUAL, ice.getVersion().compareTo(new SimpleClusteredVersion(1, 3)));
+
+      dc.put("k", "small", null, -1, -1);
+      assertEquals("small", dc.get("k").getValue());
+      assertEquals(null, dc.get("k").getVersion());
+      assertEquals(1, dc.size());
+   }
+
+   public void testRemoveAndClearReleaseMemory() {
+      OffHeapDataContainer container = (OffHeapDataContainer) dc;
+      dc.put("k1", "v1", null, -1, -1);
+      long used = container.getMemoryUsed();
+      assert used > 0;
+      dc.put("k2", new byte[1000], null, -1, -1);
+      assert container.getMemoryUsed() > used;
+      assertEquals(new byte[1000].length, ((byte[]) dc.remove("k2").getValue()).length);
+      assertEquals(used, container.getMemoryUsed());
+      assert dc.remove("k2") == null;
+      dc.clear();
+      assertEquals(0, container.getMemoryUsed());
+      assertEquals(0, dc.size());
+      assert dc.get("k1") == null;
+   }
+
+   public void testKeysWithDifferentSerializedForms() {
+      // equal keys which do not serialize to the same bytes must still be found
+      dc.put(new Key(1, "first"), "v", null, -1, -1);
+      assertEquals("v", dc.get(new Key(1, "second")).getValue());
+      dc.put(new Key(1, "third"), "v2", null, -1, -1);
+      assertEquals(1, dc.size());
+      assertEquals("v2", dc.remove(new Key(1, "fourth")).getValue());
+      assertEquals(0, dc.size());
+   }
+
+   public void testIterationWhileGrowing() {
+      for (int i = 0; i < 100; i++) dc.put(i, "v", null, -1, -1);
+
+      Set<Object> seen = new HashSet<Object>();
+      int i = 100;
+      for (Object key : dc.keySet()) {
+         assert seen.add(key) : "Key " + key + " seen twice";
+         dc.put(i++, "v", null, -1, -1);
+      }
+      for (int j = 0; j < 100; j++)
+         assert seen.contains(j) : "Key " + j + " not seen";
+   }
+
+   public void testBoundedByEntries() {
+      OffHeapDataContainer container = boundedContainer(10, -1);
+      container.put("k0", "v", null, -1, -1);
+      for (int i = 1; i < 10; i++) container.put("k" + i, "v", null, -1, -1);
+      // touch the oldest entry, so that it is not the least recently used anymore
+      container.get("k0");
+      container.put("k10", "v", null, -1, -1);
+      assertEquals(10, container.size());
+      assert container.containsKey("k0");
+      assert !container.containsKey("k1");
+   }
+
+   public void testBoundedByMemory() {
+      OffHeapDataContainer container = boundedContainer(-1, 64 * 1024);
+      for (int i = 0; i < 200; i++) container.put(i, new byte[1024], null, -1, -1);
+      assert container.getMemoryUsed() <= 64 * 1024 : "Memory used too big: " + container.getMemoryUsed();
+      assert container.size() < 64 : "Container size too big: " + container.size();
+      assert container.containsKey(199);
+      assert !container.containsKey(0);
+   }
+
+   private OffHeapDataContainer boundedContainer(int maxEntries, long maxMemory) {
+      OffHeapDataContainer container = new OffHeapDataContainer(1, maxEntries, maxMemory, 4096);
+      container.initialize(new TestObjectStreamMarshaller(), new InternalEntryFactoryImpl(),
+            mock(EvictionManager.class), mock(PassivationManager.class), mock(ActivationManager.class),
+            mock(CacheLoaderManager.class));
+      return container;
+   }
+
+   static class Key implements java.io.Serializable {
+      final int id;
+      final String label;
+
+      Key(int id, String label) {
+         this.id = id;
+         this.label = label;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof Key && ((Key) o).id == id;
+      }
+
+      @Override
+      public int hashCode() {
+         return id;
+      }
+   }
+}
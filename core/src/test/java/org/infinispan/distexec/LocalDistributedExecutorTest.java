@@ -452,6 +452,35 @@ public void testDistributedCallableEverywhereWithKeys() throws Exception {
       }
    }
 
+   public void testDistributedCallableEverywhereWithLocalParallelism() throws Exception {
+      Cache<Object, Object> c1 = getCache();
+      String[] keys = new String[40];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = "key" + i;
+         c1.put(keys[i], "value" + i);
+      }
+
+      DistributedExecutorService des = createDES(getCache());
+      DistributedTaskBuilder<int[]> taskBuilder = des.createDistributedTaskBuilder(new ValueCountingCallable());
+      taskBuilder.localParallelism(4, new SumMerger());
+      List<Future<int[]>> list = des.submitEverywhere(taskBuilder.build(), keys);
+      assert list != null && !list.isEmpty();
+      int total = 0;
+      for (Future<int[]> f : list) {
+         int[] result = f.get();
+         total += result[0];
+         // each node splits its input keys in up to 4 subsets
+         assert result[1] == Math.min(4, result[2]) : "Expected " + Math.min(4, result[2]) + " invocations but got " + result[1];
+      }
+      assert total == keys.length;
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testLocalParallelismWithoutMerger() throws Exception {
+      DistributedExecutorService des = createDES(getCache());
+      des.createDistributedTaskBuilder(new ValueCountingCallable()).localParallelism(4, null);
+   }
+
    public void testDistributedCallableEverywhereWithEmptyKeys() throws Exception {
       Cache<Object, Object> c1 = getCache();
       c1.put("key1", "Manik");
@@ -542,6 +571,51 @@ public boolean validlyInvoked() {
       }
    }
 
+   /**
+    * Returns the number of values found, the number of invocations, and the number of input keys, all summed up by
+    * {@link SumMerger}.
+    */
+   static class ValueCountingCallable implements DistributedCallable<String, String, int[]>, Serializable {
+
+      /** The serialVersionUID */
+      private static final long serialVersionUID = -1792549342417412452L;
+      private transient Cache<String, String> cache;
+      private transient Set<String> inputKeys;
+
+      @Override
+      public int[] call() throws Exception {
+         int count = 0;
+         for (String key : inputKeys) {
+            if (cache.get(key) != null)
+               count++;
+         }
+         return new int[] { count, 1, inputKeys.size() };
+      }
+
+      @Override
+      public void setEnvironment(Cache<String, String> cache, Set<String> inputKeys) {
+         this.cache = cache;
+         this.inputKeys = inputKeys;
+      }
+   }
+
+   static class SumMerger implements DistributedTaskResultMerger<int[]> {
+
+      /** The serialVersionUID */
+      private static final long serialVersionUID = 4406395372342716233L;
+
+      @Override
+      public int[] merge(List<int[]> partialResults) {
+         int[] sum = new int[3];
+         for (int[] result : partialResults) {
+            for (int i = 0; i < sum.length; i++) {
+               sum[i] += result[i];
+            }
+         }
+         return sum;
+      }
+   }
+
    static class SimpleCallable implements Callable<Integer>, Serializable {
 
       /** The serialVersionUID */
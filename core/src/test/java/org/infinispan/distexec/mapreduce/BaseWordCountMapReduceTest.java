@@ -218,6 +218,35 @@ public void testCombinerDoesNotChangeResult() throws Exception {
       assert mapReduce2.get("RedHat") == mapReduce.get("RedHat");      
    }
    
+   public void testSpillToDiskDoesNotChangeResult() throws Exception {
+      MapReduceTask<String,String,String,Integer> task = invokeMapReduce(null, false);
+      task.spillToDiskAfter(3).shuffleBatchSize(2);
+      Map<String, Integer> mapReduce = task.execute();
+      verifyResults(mapReduce);
+      assert task.getSpillCount() > 0;
+      assert task.getIntermediateBytesSpilled() > 0;
+      assert task.getIntermediateValuesShuffled() == countWords(mapReduce);
+      assert task.getMapPhaseTime() >= 0;
+      assert task.getReducePhaseTime() >= 0;
+   }
+
+   public void testSpillToDiskWithCombiner() throws Exception {
+      MapReduceTask<String,String,String,Integer> task = invokeMapReduce(null, true);
+      task.spillToDiskAfter(3);
+      Map<String, Integer> mapReduce = task.execute();
+      verifyResults(mapReduce);
+      assert task.getSpillCount() > 0;
+      // values are combined on each node, so at most one value per word per node is shuffled
+      assert task.getIntermediateValuesShuffled() <= mapReduce.size() * nodeCount();
+   }
+
+   public void testSpillToDiskOnSubsetOfKeys() throws Exception {
+      MapReduceTask<String,String,String,Integer> task = invokeMapReduce(new String[] { "1", "2", "3" });
+      task.spillToDiskAfter(2);
+      Map<String, Integer> mapReduce = task.execute();
+      assertWordCount(countWords(mapReduce), 13);
+   }
+
    /**
     * Tests isolation as mapper and reducer get invoked across the cluster
     * https://issues.jboss.org/browse/ISPN-1041
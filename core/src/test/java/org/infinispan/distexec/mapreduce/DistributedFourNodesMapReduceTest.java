@@ -128,4 +128,19 @@ public void testinvokeMapReduceOnAllKeysWithCollatorAsync() throws Exception {
    public void testinvokeMapReduceOnSubsetOfKeysWithCollatorAsync() throws Exception {
       super.testinvokeMapReduceOnSubsetOfKeysWithCollatorAsync();    
    }
+
+   @Override
+   public void testSpillToDiskDoesNotChangeResult() throws Exception {
+      super.testSpillToDiskDoesNotChangeResult();
+   }
+
+   @Override
+   public void testSpillToDiskWithCombiner() throws Exception {
+      super.testSpillToDiskWithCombiner();
+   }
+
+   @Override
+   public void testSpillToDiskOnSubsetOfKeys() throws Exception {
+      super.testSpillToDiskOnSubsetOfKeys();
+   }
 }
@@ -130,4 +130,19 @@ public void testinvokeMapReduceOnSubsetOfKeysWithCollatorAsync() throws Exceptio
       super.testinvokeMapReduceOnSubsetOfKeysWithCollatorAsync();
    }
 
+   @Override
+   public void testSpillToDiskDoesNotChangeResult() throws Exception {
+      super.testSpillToDiskDoesNotChangeResult();
+   }
+
+   @Override
+   public void testSpillToDiskWithCombiner() throws Exception {
+      super.testSpillToDiskWithCombiner();
+   }
+
+   @Override
+   public void testSpillToDiskOnSubsetOfKeys() throws Exception {
+      super.testSpillToDiskOnSubsetOfKeys();
+   }
+
 }
@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.infinispan.marshall.StreamingMarshaller;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.CacheManagerCallable;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import static org.infinispan.test.TestingUtil.withCacheManager;
+
+/**
+ * Tests merging the spill runs of a {@link SpillingCollector}.
+ *
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "distexec.mapreduce.SpillingCollectorTest")
+public class SpillingCollectorTest extends AbstractInfinispanTest {
+
+   private static final int MAX_COLLECTED_VALUES = 10;
+
+   public void testMergeRunsOfDifferentLengths() {
+      withCacheManager(new CacheManagerCallable(TestCacheManagerFactory.createCacheManager(false)) {
+         @Override
+         public void call() {
+            StreamingMarshaller marshaller = TestingUtil.extractCacheMarshaller(cm.getCache());
+            mergeRunsOfDifferentLengths(marshaller);
+         }
+      });
+   }
+
+   private void mergeRunsOfDifferentLengths(StreamingMarshaller marshaller) {
+      SpillingCollector<String, Integer> collector = new SpillingCollector<String, Integer>(
+               "SpillingCollectorTest", null, MAX_COLLECTED_VALUES, marshaller);
+      Map<String, Integer> expected = new HashMap<String, Integer>();
+      try {
+         // each run holds MAX_COLLECTED_VALUES + 1 values, spread over a different number of keys
+         int[] keysPerRun = { 11, 2, 5, 7 };
+         for (int run = 0; run < keysPerRun.length; run++) {
+            for (int i = 0; i <= MAX_COLLECTED_VALUES; i++) {
+               emit(collector, expected, "k" + (i % keysPerRun[run]), run * 100 + i);
+            }
+         }
+         // a few more values stay in memory
+         emit(collector, expected, "k0", 1000);
+         emit(collector, expected, "m0", 1001);
+         emit(collector, expected, "m1", 1002);
+         assert collector.getSpillCount() == keysPerRun.length : "Expected " + keysPerRun.length + " spill runs but got " + collector.getSpillCount();
+
+         Map<String, Integer> merged = new HashMap<String, Integer>();
+         Entry<String, List<Integer>> group;
+         while ((group = collector.nextGroup()) != null) {
+            assert !merged.containsKey(group.getKey()) : "Key " + group.getKey() + " returned more than once";
+            int sum = 0;
+            for (Integer value : group.getValue()) {
+               sum += value;
+            }
+            merged.put(group.getKey(), sum);
+            // unmarshalling something else on this thread, as a reducer reading the cache would,
+            // must not disturb the runs still being read
+            roundTrip(marshaller, group.getKey());
+         }
+         assert expected.equals(merged) : "Expected " + expected + " but got " + merged;
+      } finally {
+         collector.close();
+      }
+   }
+
+   private void emit(SpillingCollector<String, Integer> collector, Map<String, Integer> expected, String key, int value) {
+      collector.emit(key, value);
+      Integer sum = expected.get(key);
+      expected.put(key, sum == null ? value : sum + value);
+   }
+
+   private void roundTrip(StreamingMarshaller marshaller, Object o) {
+      try {
+         Object read = marshaller.objectFromByteBuffer(marshaller.objectToByteBuffer(o));
+         assert o.equals(read);
+      } catch (Exception e) {
+         throw new RuntimeException(e);
+      }
+   }
+}
@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distribution;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests {@link Cache#getAll(java.util.Set)} in a distributed cache, with keys owned by every node of the cluster.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "distribution.DistGetAllTest")
+public class DistGetAllTest extends MultipleCacheManagersTest {
+
+   protected boolean transactional = false;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, transactional);
+      builder.clustering().hash().numOwners(1).l1().enable();
+      createCluster(builder, 3);
+      waitForClusterToForm();
+   }
+
+   public void testGetAllFromEveryNode() {
+      Map<Object, String> expected = populate("testGetAllFromEveryNode");
+      Set<Object> keys = new HashSet<Object>(expected.keySet());
+      keys.add(new MagicKey("missing", cache(1)));
+
+      for (Cache<Object, String> c : this.<Object, String>caches()) {
+         assertEquals(expected, c.getAll(keys));
+      }
+   }
+
+   public void testRemoteValuesAreStoredInL1() {
+      Map<Object, String> expected = populate("testRemoteValuesAreStoredInL1");
+      Cache<Object, String> requestor = cache(0);
+      requestor.getAll(expected.keySet());
+
+      for (Object key : expected.keySet()) {
+         assertTrue("Expected " + key + " in the data container",
+                    requestor.getAdvancedCache().getDataContainer().containsKey(key));
+         assertEquals(expected.get(key), requestor.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).get(key));
+      }
+   }
+
+   public void testSkipRemoteLookup() {
+      Map<Object, String> expected = populate("testSkipRemoteLookup");
+      Cache<Object, String> c = cache(2);
+      Map<Object, String> local = c.getAdvancedCache().withFlags(Flag.SKIP_REMOTE_LOOKUP).getAll(expected.keySet());
+
+      Map<Object, String> expectedLocal = new HashMap<Object, String>();
+      for (Map.Entry<Object, String> e : expected.entrySet()) {
+         if (((MagicKey) e.getKey()).address.equals(address(2).toString())) expectedLocal.put(e.getKey(), e.getValue());
+      }
+      assertEquals(expectedLocal, local);
+   }
+
+   public void testGetAllAsync() throws Exception {
+      Map<Object, String> expected = populate("testGetAllAsync");
+      Cache<Object, String> c = cache(1);
+      NotifyingFuture<Map<Object, String>> f = c.getAllAsync(expected.keySet());
+      assertEquals(expected, f.get());
+   }
+
+   /**
+    * Stores two keys owned by each of the nodes.
+    */
+   private Map<Object, String> populate(String prefix) {
+      Map<Object, String> data = new HashMap<Object, String>();
+      for (int i = 0; i < 3; i++) {
+         for (int j = 0; j < 2; j++) {
+            data.put(new MagicKey(prefix + "-" + i + "-" + j, cache(i)), "v-" + i + "-" + j);
+         }
+      }
+      cache(0).putAll(data);
+      return data;
+   }
+}
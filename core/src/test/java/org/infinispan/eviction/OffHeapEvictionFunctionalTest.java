@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.eviction;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+@Test(groups = "functional", testName = "eviction.OffHeapEvictionFunctionalTest")
+public class OffHeapEvictionFunctionalTest extends SingleCacheManagerTest {
+
+   private static final long MAX_MEMORY = 256 * 1024;
+   private static final int VALUE_SIZE = 1024;
+
+   private final MemoryBasedEvictionFunctionalTest.EvictionCounter counter =
+         new MemoryBasedEvictionFunctionalTest.EvictionCounter();
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.dataContainer().offHeap().slabSize(64 * 1024)
+            .eviction().maxMemory(MAX_MEMORY);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(builder);
+      cache = cm.getCache();
+      cache.addListener(counter);
+      return cm;
+   }
+
+   public void testMemoryBoundIsHonoured() {
+      for (int i = 0; i < MAX_MEMORY / VALUE_SIZE * 2; i++) {
+         cache.put("key-" + i, new byte[VALUE_SIZE]);
+      }
+      OffHeapDataContainer dc = (OffHeapDataContainer) cache.getAdvancedCache().getDataContainer();
+      assert dc.getMaxMemory() <= MAX_MEMORY : "Unexpected max memory " + dc.getMaxMemory();
+      assert dc.getMemoryUsed() <= MAX_MEMORY : "Memory used too big: " + dc.getMemoryUsed();
+      assert dc.size() < MAX_MEMORY / VALUE_SIZE : "Cache size too big: " + dc.size();
+      assert counter.evicted.get() > 0 : "Expected evictions to be notified";
+      assert cache.get("key-" + (MAX_MEMORY / VALUE_SIZE * 2 - 1)) != null;
+   }
+}
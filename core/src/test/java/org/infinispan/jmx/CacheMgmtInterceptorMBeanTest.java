@@ -32,6 +32,7 @@
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
+import javax.management.Attribute;
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 import java.util.HashMap;
@@ -172,6 +173,41 @@ public void testRemoves() throws Exception {
       assertRemoveMisses(1);
    }
 
+   public void testLatencyPercentiles() throws Exception {
+      cache.put("key", "value");
+      cache.get("key");
+      cache.remove("key");
+      for (String operation : new String[]{"read", "write", "remove"}) {
+         long p50 = (Long) threadMBeanServer.invoke(mgmtInterceptor, "getLatencyPercentile",
+               new Object[]{operation, 50d}, new String[]{String.class.getName(), double.class.getName()});
+         long p100 = (Long) threadMBeanServer.invoke(mgmtInterceptor, "getLatencyPercentile",
+               new Object[]{operation, 100d}, new String[]{String.class.getName(), double.class.getName()});
+         assert p50 >= 0 && p50 <= p100 : "expecting p50 <= p100 for " + operation + ", but was " + p50 + " > " + p100;
+      }
+      String histogram = threadMBeanServer.getAttribute(mgmtInterceptor, "ReadLatencyHistogram").toString();
+      assert histogram.contains("count=1") : histogram;
+
+      resetStats();
+      histogram = threadMBeanServer.getAttribute(mgmtInterceptor, "ReadLatencyHistogram").toString();
+      assert histogram.contains("count=0") : histogram;
+   }
+
+   public void testNoStatisticsWhenDisabled() throws Exception {
+      threadMBeanServer.setAttribute(mgmtInterceptor, new Attribute("StatisticsEnabled", false));
+      try {
+         cache.put("key", "value");
+         cache.get("key");
+         cache.remove("key");
+         assertStores(0);
+         assertHits(0);
+         assertRemoveHits(0);
+      } finally {
+         threadMBeanServer.setAttribute(mgmtInterceptor, new Attribute("StatisticsEnabled", true));
+      }
+      cache.put("key", "value");
+      assertStores(1);
+   }
+
    private void assertAttributeValue(String attrName, float expectedValue) throws Exception {
       String receivedVal = threadMBeanServer.getAttribute(mgmtInterceptor, attrName).toString();
       assert Float.parseFloat(receivedVal) == expectedValue : "expecting " + expectedValue + " for " + attrName + ", but received " + receivedVal;
@@ -501,6 +501,36 @@ public void testStoreAndRemoveAll() throws CacheLoaderException {
       assert expected.isEmpty();
    }
 
+   public void testStoreAllAndLoadAllKeys() throws CacheLoaderException {
+      List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>();
+      for (int i = 0; i < 10; i++) entries.add(TestInternalCacheEntryFactory.create("k" + i, "v" + i));
+      cs.storeAll(entries);
+
+      for (int i = 0; i < 10; i++) assert cs.load("k" + i).getValue().equals("v" + i);
+
+      Set<Object> keys = new HashSet<Object>();
+      keys.add("k1");
+      keys.add("k5");
+      keys.add("k9");
+      keys.add("missing");
+      Set<InternalCacheEntry> loaded = cs.loadAll(keys);
+      assert loaded.size() == 3 : "Expected 3 entries but got " + loaded;
+      for (InternalCacheEntry se : loaded) {
+         assert keys.remove(se.getKey());
+         assert se.getValue().equals("v" + ((String) se.getKey()).substring(1));
+      }
+      assert keys.size() == 1 && keys.contains("missing");
+
+      // storing again overwrites the existing entries
+      entries.clear();
+      entries.add(TestInternalCacheEntryFactory.create("k1", "v1-new"));
+      entries.add(TestInternalCacheEntryFactory.create("k10", "v10"));
+      cs.storeAll(entries);
+      assert cs.load("k1").getValue().equals("v1-new");
+      assert cs.load("k10").getValue().equals("v10");
+      assert cs.loadAll().size() == 11;
+   }
+
    public void testPurgeExpired() throws Exception {
       // Increased lifespan and idle timeouts to accommodate slower cache stores
       long lifespan = 6000;
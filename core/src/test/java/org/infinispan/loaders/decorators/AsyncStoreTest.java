@@ -50,7 +50,10 @@
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
@@ -239,6 +242,62 @@ private Object getKey(Modification modification) {
       }
    }
 
+   public void testModificationsAreAppliedInBulk(Method m) throws Exception {
+      final AtomicInteger singleStores = new AtomicInteger();
+      final AtomicInteger bulkStoredEntries = new AtomicInteger();
+      final AtomicInteger bulkRemovedKeys = new AtomicInteger();
+      DummyInMemoryCacheStore underlying = new DummyInMemoryCacheStore() {
+         @Override
+         public void store(InternalCacheEntry ed) {
+            super.store(ed);
+            singleStores.incrementAndGet();
+         }
+
+         @Override
+         public void storeAll(Collection<InternalCacheEntry> entries) {
+            for (InternalCacheEntry entry : entries) super.store(entry);
+            bulkStoredEntries.addAndGet(entries.size());
+         }
+
+         @Override
+         public void removeAll(Set<Object> keys) throws CacheLoaderException {
+            super.removeAll(keys);
+            bulkRemovedKeys.addAndGet(keys.size());
+         }
+      };
+      store.stop();
+      store = new AsyncStore(underlying, asyncConfig);
+      dummyCfg = new DummyInMemoryCacheStore.Cfg().storeName(m.getName());
+      store.init(dummyCfg, null, null);
+      store.start();
+
+      final int number = 100;
+      List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>(number);
+      Set<Object> keys = new HashSet<Object>();
+      for (int i = 0; i < number; i++) {
+         entries.add(TestInternalCacheEntryFactory.create(k(m, i), v(m, i)));
+         keys.add(k(m, i));
+      }
+      store.storeAll(entries);
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return bulkStoredEntries.get() == number;
+         }
+      });
+      assert singleStores.get() == 0 : "Expected no single stores but got " + singleStores.get();
+      assert store.loadAll(keys).size() == number;
+
+      store.removeAll(keys);
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return bulkRemovedKeys.get() == number;
+         }
+      });
+      assert underlying.loadAll().isEmpty();
+   }
+
    public void testTransactionalModificationsAreCoalesced(Method m) throws Exception {
       final int waitTimeout = 10;
       final TimeUnit waitUnit = TimeUnit.SECONDS;
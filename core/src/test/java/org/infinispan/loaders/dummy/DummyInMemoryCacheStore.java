@@ -27,6 +27,7 @@
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.loaders.AbstractCacheStore;
 import org.infinispan.loaders.AbstractCacheStoreConfig;
+import org.infinispan.loaders.BulkCacheLoader;
 import org.infinispan.loaders.CacheLoaderConfig;
 import org.infinispan.loaders.CacheLoaderException;
 import org.infinispan.loaders.CacheLoaderMetadata;
@@ -54,7 +55,7 @@
 import java.util.concurrent.atomic.AtomicInteger;
 
 @CacheLoaderMetadata(configurationClass = DummyInMemoryCacheStore.Cfg.class)
-public class DummyInMemoryCacheStore extends AbstractCacheStore {
+public class DummyInMemoryCacheStore extends AbstractCacheStore implements BulkCacheLoader {
    private static final Log log = LogFactory.getLog(DummyInMemoryCacheStore.class);
    private static final boolean trace = log.isTraceEnabled();
    private static final boolean debug = log.isDebugEnabled();
@@ -237,6 +238,18 @@ public Set<Object> loadAllKeys(Set<Object> keysToExclude) throws CacheLoaderExce
       return set;
    }
 
+   @Override
+   public void visitEntries(KeyFilter filter, EntryVisitor visitor) throws CacheLoaderException {
+      record("visitEntries");
+      final long currentTimeMillis = System.currentTimeMillis();
+      for (Map.Entry<Object, byte[]> e : store.entrySet()) {
+         if (filter != null && !filter.accept(e.getKey())) continue;
+         InternalCacheEntry se = deserializeEntry(e.getValue());
+         if (se == null || se.isExpired(currentTimeMillis)) continue;
+         if (visitor.visit(se)) return;
+      }
+   }
+
    @Override
    public Class<? extends CacheLoaderConfig> getConfigurationClass() {
       record("getConfigurationClass");
@@ -280,6 +293,9 @@ private ConcurrentMap<String, AtomicInteger> newStatsMap() {
       for (Method method: CacheStore.class.getMethods()) {
          m.put(method.getName(), new AtomicInteger(0));
       }
+      for (Method method: BulkCacheLoader.class.getDeclaredMethods()) {
+         m.put(method.getName(), new AtomicInteger(0));
+      }
       return m;
    }
 
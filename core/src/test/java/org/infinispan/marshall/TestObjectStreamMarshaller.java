@@ -36,7 +36,7 @@
  * @author Manik Surtani
  */
 public class TestObjectStreamMarshaller extends AbstractMarshaller implements StreamingMarshaller {
-   XStream xs = new XStream();
+   XStream xs = new XStream(new com.thoughtworks.xstream.converters.reflection.Sun14ReflectionProvider());
    boolean debugXml = false;
 
    public TestObjectStreamMarshaller(boolean debugXml) {
@@ -25,15 +25,23 @@
 import org.infinispan.Cache;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.notifications.cachelistener.CacheNotifierImpl;
 import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryModified;
 import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.notifications.cachelistener.event.CacheEntryModifiedEvent;
 import org.infinispan.test.AbstractInfinispanTest;
 import org.infinispan.test.TestingUtil;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 @Test(groups = "functional", testName = "notifications.AsyncNotificationTest")
 public class AsyncNotificationTest extends AbstractInfinispanTest {
@@ -65,6 +73,45 @@ public void testAsyncNotification() throws InterruptedException {
       assert asyncListener.caller != Thread.currentThread();
    }
 
+   public void testAsyncEventsDeliveredInOrder() throws InterruptedException {
+      OrderedListener listener = new OrderedListener();
+      c.addListener(listener);
+      List<Object> expected = new ArrayList<Object>();
+      for (int i = 0; i < 100; i++) {
+         c.put("k", "v" + i);
+         expected.add("v" + i);
+      }
+      eventually(listener.values, 100);
+      assert listener.values.equals(expected) : listener.values;
+   }
+
+   public void testDiscardOverflowPolicy() throws InterruptedException {
+      CountDownLatch release = new CountDownLatch(1);
+      DiscardingListener listener = new DiscardingListener(release);
+      c.addListener(listener);
+      CacheNotifierImpl notifier = (CacheNotifierImpl) TestingUtil.extractComponent(c, CacheNotifier.class);
+      try {
+         // each put raises a pre and a post event, but the listener is stuck and can only hold two of them
+         for (int i = 0; i < 10; i++)
+            c.put("k" + i, "v");
+         assert notifier.getAsyncEventsDiscarded() > 0;
+         assert notifier.getAsyncQueueDepth() <= 2;
+      } finally {
+         release.countDown();
+      }
+      eventually(listener.events, 20 - (int) notifier.getAsyncEventsDiscarded());
+      assert notifier.getAsyncQueueDepth() == 0;
+      notifier.resetStatistics();
+      assert notifier.getAsyncEventsDiscarded() == 0;
+   }
+
+   private void eventually(List<?> events, int expectedEvents) throws InterruptedException {
+      long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+      while (events.size() < expectedEvents && System.currentTimeMillis() < end)
+         Thread.sleep(10);
+      assert events.size() == expectedEvents : events;
+   }
+
    public abstract static class AbstractListener {
       Thread caller;
       CountDownLatch latch;
@@ -104,4 +151,31 @@ public void handle(CacheEntryCreatedEvent e) {
       }
    }
 
+   @Listener(sync = false)
+   public static class OrderedListener {
+      final List<Object> values = Collections.synchronizedList(new ArrayList<Object>());
+
+      @CacheEntryModified
+      public void handle(CacheEntryModifiedEvent e) {
+         if (!e.isPre())
+            values.add(e.getValue());
+      }
+   }
+
+   @Listener(sync = false, queueSize = 2, overflowPolicy = Listener.OverflowPolicy.DISCARD)
+   public static class DiscardingListener {
+      final List<Object> events = Collections.synchronizedList(new ArrayList<Object>());
+      final CountDownLatch release;
+
+      public DiscardingListener(CountDownLatch release) {
+         this.release = release;
+      }
+
+      @CacheEntryCreated
+      public void handle(CacheEntryCreatedEvent e) throws InterruptedException {
+         release.await();
+         events.add(e.getKey());
+      }
+   }
+
 }
@@ -0,0 +1,60 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.statetransfer;
+
+import org.infinispan.Cache;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the cache loader state transfer tests with small, compressed chunks and several chunks in flight, and checks
+ * that the stored entries are streamed with a single pass over the store.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "statetransfer.StateTransferStreamingFunctionalTest")
+public class StateTransferStreamingFunctionalTest extends StateTransferCacheLoaderFunctionalTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() {
+      configurationBuilder.clustering().stateTransfer().chunkSize(2).maxInFlightChunks(3).compressChunks(true);
+      return super.createCacheManager();
+   }
+
+   public void testStoredEntriesAreVisited() throws Exception {
+      Cache<Object, Object> cache1 = createCacheManager().getCache(cacheName);
+      writeInitialData(cache1);
+      DummyInMemoryCacheStore store1 = (DummyInMemoryCacheStore) TestingUtil.extractComponent(cache1, CacheLoaderManager.class).getCacheStore();
+      store1.clearStats();
+
+      JoiningNode node = new JoiningNode(createCacheManager());
+      Cache<Object, Object> cache2 = node.getCache(cacheName);
+      node.waitForJoin(60000, cache1, cache2);
+      verifyInitialData(cache2);
+
+      assert store1.stats().get("visitEntries") == 1;
+   }
+}
@@ -0,0 +1,91 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.util.concurrent;
+
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the percentiles reported by {@link LatencyHistogram}.
+ *
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "util.concurrent.LatencyHistogramTest")
+public class LatencyHistogramTest {
+
+   public void testEmpty() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      assertEquals(0, histogram.getCount());
+      assertEquals(0, histogram.getPercentileNanos(50));
+      assertEquals(0, histogram.getMaxNanos());
+   }
+
+   public void testBucketsCoverAllValues() {
+      long previousUpperBound = -1;
+      for (long value = 0; value < 1L << 20; value++) {
+         int index = LatencyHistogram.bucketIndex(value);
+         long upperBound = LatencyHistogram.bucketUpperBound(index);
+         assertTrue(value + " above bound " + upperBound, value <= upperBound);
+         if (upperBound != previousUpperBound) {
+            // a new bucket starts right after the previous one
+            assertEquals(previousUpperBound + 1, value);
+            previousUpperBound = upperBound;
+         }
+      }
+      assertEquals(LatencyHistogram.bucketIndex(Long.MAX_VALUE), LatencyHistogram.bucketIndex(1L << 40));
+   }
+
+   public void testPercentiles() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (long micros = 1; micros <= 1000; micros++) {
+         histogram.record(micros * 1000);
+      }
+      assertEquals(1000, histogram.getCount());
+      assertEquals(1000000, histogram.getMaxNanos());
+      assertEquals(1000000, histogram.getPercentileNanos(100));
+      assertWithinPrecision(500000, histogram.getPercentileNanos(50));
+      assertWithinPrecision(990000, histogram.getPercentileNanos(99));
+      assertWithinPrecision(1000, histogram.getPercentileNanos(0));
+   }
+
+   public void testReset() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.record(12345);
+      histogram.reset();
+      assertEquals(0, histogram.getCount());
+      assertEquals(0, histogram.getTotalNanos());
+      assertEquals(0, histogram.getPercentileNanos(99));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testInvalidPercentile() {
+      new LatencyHistogram().getPercentileNanos(101);
+   }
+
+   private void assertWithinPrecision(long expected, long actual) {
+      // a bucket is at most an eighth of its lower bound wide
+      assertTrue("expected about " + expected + " but was " + actual, actual >= expected && actual <= expected + expected / 8);
+   }
+}
@@ -41,6 +41,7 @@ public abstract class AbstractTwoSitesTest extends AbstractXSiteTest {
    protected BackupConfiguration.BackupStrategy lonBackupStrategy = BackupConfiguration.BackupStrategy.SYNC;
    protected String lonCustomFailurePolicyClass = null;
    protected boolean use2Pc = false;
+   protected long lonBatchFlushInterval = 0;
 
    @Override
    protected void createSites() {
@@ -55,6 +56,7 @@ protected void createSites() {
             .strategy(lonBackupStrategy)
             .failurePolicyClass(lonCustomFailurePolicyClass)
             .useTwoPhaseCommit(use2Pc)
+            .batchFlushInterval(lonBatchFlushInterval)
             .sites().addInUseBackupSite("NYC");
       ConfigurationBuilder nycBackup = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
       nycBackup.sites().backupFor().remoteSite("NYC").defaultRemoteCache();
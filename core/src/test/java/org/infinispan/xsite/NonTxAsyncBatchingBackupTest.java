@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.xsite;
+
+import org.infinispan.configuration.cache.BackupConfiguration;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the batching of the updates sent to an async backup site.
+ *
+ * @since 5.2
+ */
+@Test(groups = "xsite", testName = "xsite.NonTxAsyncBatchingBackupTest")
+public class NonTxAsyncBatchingBackupTest extends AbstractTwoSitesTest {
+
+   public NonTxAsyncBatchingBackupTest() {
+      super.lonBackupStrategy = BackupConfiguration.BackupStrategy.ASYNC;
+      super.lonBatchFlushInterval = 500;
+   }
+
+   @Override
+   protected ConfigurationBuilder getNycActiveConfig() {
+      return getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+   }
+
+   @Override
+   protected ConfigurationBuilder getLonActiveConfig() {
+      return getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+   }
+
+   public void testUpdatesOfSameKeyAreCoalesced() {
+      AsyncBackupQueue queue = backupQueue();
+      long coalescedBefore = queue.getUpdatesCoalesced();
+      for (int i = 0; i < 20; i++) {
+         cache("LON", 0).put("k", "v" + i);
+      }
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return "v19".equals(backup("LON").get("k"));
+         }
+      });
+      assertTrue(queue.getUpdatesCoalesced() > coalescedBefore);
+      assertTrue(queue.getBytesSent() > 0);
+   }
+
+   public void testRemove() {
+      cache("LON", 0).put("k2", "v");
+      cache("LON", 0).remove("k2");
+      cache("LON", 0).put("k3", "v");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return "v".equals(backup("LON").get("k3"));
+         }
+      });
+      assertNull(backup("LON").get("k2"));
+   }
+
+   public void testClear() {
+      cache("LON", 0).put("k4", "v");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return "v".equals(backup("LON").get("k4"));
+         }
+      });
+      cache("LON", 0).clear();
+      cache("LON", 0).put("k5", "v");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return "v".equals(backup("LON").get("k5"));
+         }
+      });
+      assertNull(backup("LON").get("k4"));
+   }
+
+   public void testManyUpdates() {
+      // more than the default batch size, so some batches are sent because they are full
+      int count = 1200;
+      for (int i = 0; i < count; i++) {
+         cache("LON", 0).put("key" + i, "value" + i);
+      }
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return backupQueue().getQueueSize() == 0 && "value0".equals(backup("LON").get("key0"));
+         }
+      });
+      for (int i = 0; i < count; i++) {
+         assertEquals("value" + i, backup("LON").get("key" + i));
+      }
+   }
+
+   public void testAdminOperations() {
+      XSiteAdminOperations adminOperations = cache("LON", 0).getAdvancedCache().getComponentRegistry()
+            .getComponent(XSiteAdminOperations.class);
+      Long.parseLong(adminOperations.getBackupQueueSize("NYC"));
+      Long.parseLong(adminOperations.getBackupLag("NYC"));
+      Long.parseLong(adminOperations.getBackupBytesPerSecond("NYC"));
+      assertTrue(adminOperations.getBackupBatchingStatistics("NYC").startsWith("AsyncBackupQueue"));
+      assertEquals("Incorrect site name: SFO", adminOperations.getBackupQueueSize("SFO"));
+   }
+
+   private AsyncBackupQueue backupQueue() {
+      AsyncBackupQueue queue = cache("LON", 0).getAdvancedCache().getComponentRegistry()
+            .getComponent(BackupSender.class).getAsyncBackupQueue("NYC");
+      assertNotNull(queue);
+      return queue;
+   }
+}
@@ -73,6 +73,19 @@ public void testTakeOfflineDifferentConfig() {
 
    }
 
+   public void testBatching() {
+      Configuration dcc = cacheManager.getCacheConfiguration("batching");
+      assertEquals(1, dcc.sites().allBackups().size());
+      BackupConfiguration bc = dcc.sites().allBackups().get(0);
+      assertTrue(bc.isBatching());
+      assertEquals(200, bc.batchFlushInterval());
+      assertEquals(100, bc.batchMaxElements());
+      assertEquals(2000, bc.batchQueueCapacity());
+      assertTrue(dcc.sites().allBackups().contains(new BackupConfiguration("NYC", BackupConfiguration.BackupStrategy.ASYNC,
+                                                                        12003l, BackupFailurePolicy.WARN, null, false,
+                                                                        new TakeOfflineConfiguration(0, 0), 200, 100, 2000)));
+   }
+
    private void testDefault(Configuration dcc) {
       TakeOfflineConfiguration toc = new TakeOfflineConfiguration(123, 5673);
       assertTrue(dcc.sites().allBackups().contains(new BackupConfiguration("NYC", BackupConfiguration.BackupStrategy.SYNC,
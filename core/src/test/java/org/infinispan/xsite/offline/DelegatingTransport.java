@@ -83,6 +83,11 @@ public Set<String> getCommunicationErrors() {
          public long getSendTimeMillis() {
             return creationTime;
          }
+
+         @Override
+         public long getMessageSize() {
+            return 0;
+         }
       };
    }
 
@@ -95,6 +95,10 @@ public class InfinispanDirectory extends Directory {
    private final FileListOperations fileOps;
    private final SegmentReadLocker readLocks;
 
+   // optional read optimizations, both disabled by default
+   private volatile int readAheadChunks = 0;
+   private volatile LocalChunkCache localChunkCache;
+
    /**
     * @param metadataCache the cache to be used for all smaller metadata: prefer replication over distribution, avoid eviction
     * @param chunksCache the cache to use for the space consuming segments: prefer distribution, enable eviction if needed
@@ -295,7 +299,7 @@ else if (fileMetadata.getSize() <= fileMetadata.getBufferSize()) {
             // safest reaction is to tell this file doesn't exist anymore.
             throw new FileNotFoundException("Error loading metadata for index file: " + fileKey);
          }
-         return new InfinispanIndexInput(chunksCache, fileKey, fileMetadata, readLocks);
+         return new InfinispanIndexInput(chunksCache, fileKey, fileMetadata, readLocks, readAheadChunks, localChunkCache);
       }
    }
 
@@ -305,6 +309,44 @@ else if (fileMetadata.getSize() <= fileMetadata.getBufferSize()) {
    @Override
    public void close() {
       isOpen = false;
+      LocalChunkCache localChunks = localChunkCache;
+      if (localChunks != null) {
+         localChunks.clear();
+      }
+   }
+
+   /**
+    * Enables asynchronous read-ahead: when an IndexInput reading sequentially moves to the next chunk, the following
+    * chunks are requested in parallel so that in a distributed index sequential reads don't wait for a remote fetch
+    * at every chunk boundary. Only affects inputs opened afterwards.
+    *
+    * @param readAheadChunks number of chunks to request ahead of the one being read; 0, the default, disables read-ahead
+    */
+   public void setReadAheadChunks(int readAheadChunks) {
+      if (readAheadChunks < 0)
+         throw new IllegalArgumentException("readAheadChunks must not be negative");
+      this.readAheadChunks = readAheadChunks;
+   }
+
+   public int getReadAheadChunks() {
+      return readAheadChunks;
+   }
+
+   /**
+    * Enables a node-local cache of index chunks, shared by all the inputs opened by this directory and their clones,
+    * which are then fetched from the chunks cache only the first time they're read on this node. Only affects inputs
+    * opened afterwards.
+    *
+    * @param maxMemory approximate number of bytes held by the local cache; 0, the default, disables it
+    */
+   public void setLocalChunkCacheSize(long maxMemory) {
+      if (maxMemory < 0)
+         throw new IllegalArgumentException("maxMemory must not be negative");
+      this.localChunkCache = maxMemory == 0 ? null : new LocalChunkCache(maxMemory, chunkSize);
+   }
+
+   LocalChunkCache getLocalChunkCache() {
+      return localChunkCache;
    }
 
    @Override
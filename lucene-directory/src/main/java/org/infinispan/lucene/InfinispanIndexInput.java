@@ -23,6 +23,11 @@
 package org.infinispan.lucene;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.store.IndexInput;
 import org.infinispan.AdvancedCache;
@@ -52,6 +57,13 @@ final public class InfinispanIndexInput extends IndexInput {
    private final SegmentReadLocker readLocks;
    private final String filename;
    private final long fileLength;
+   private final long fileVersion;
+   private final int lastChunk;
+   private final int readAheadChunks;
+   private final LocalChunkCache localChunkCache;
+
+   // Chunks requested ahead of sequential reads, by chunk id; never shared with clones
+   private Map<Integer, Future<Object>> readAhead;
 
    private int currentBufferSize;
    private byte[] buffer;
@@ -61,13 +73,26 @@ final public class InfinispanIndexInput extends IndexInput {
    private boolean isClone;
 
    public InfinispanIndexInput(final AdvancedCache<?, ?> chunksCache, final FileCacheKey fileKey, final FileMetadata fileMetadata, final SegmentReadLocker readLocks) {
+      this(chunksCache, fileKey, fileMetadata, readLocks, 0, null);
+   }
+
+   /**
+    * @param readAheadChunks number of chunks to request asynchronously ahead of sequential reads, 0 to disable
+    * @param localChunkCache node-local cache to look chunks up in before the chunks cache, might be null
+    */
+   InfinispanIndexInput(final AdvancedCache<?, ?> chunksCache, final FileCacheKey fileKey, final FileMetadata fileMetadata, final SegmentReadLocker readLocks,
+            final int readAheadChunks, final LocalChunkCache localChunkCache) {
       super(fileKey.getFileName());
       this.chunksCache = (Cache<ChunkCacheKey, Object>) chunksCache;
       this.fileKey = fileKey;
       this.chunkSize = fileMetadata.getBufferSize();
       this.fileLength = fileMetadata.getSize();
+      this.fileVersion = fileMetadata.getLastModified();
+      this.lastChunk = fileLength == 0 ? 0 : (int) ((fileLength - 1) / chunkSize);
       this.readLocks = readLocks;
       this.filename = fileKey.getFileName();
+      this.readAheadChunks = readAheadChunks;
+      this.localChunkCache = localChunkCache;
       if (trace) {
          log.tracef("Opened new IndexInput for file:%s in index: %s", filename, fileKey.getIndexName());
       }
@@ -106,6 +131,7 @@ public void close() {
       bufferPosition = 0;
       currentLoadedChunk = -1;
       buffer = null;
+      readAhead = null;
       if (isClone) return;
       readLocks.deleteOrReleaseReadLock(filename);
       if (trace) {
@@ -131,11 +157,15 @@ public void seek(final long pos) {
    private void nextChunk() throws IOException {
       currentLoadedChunk++;
       setBufferToCurrentChunk();
+      // Only sequential reads trigger read-ahead, seeks are often followed by short reads
+      if (readAheadChunks > 0) {
+         readAhead(currentLoadedChunk);
+      }
    }
 
    private void setBufferToCurrentChunk() throws IOException {
       ChunkCacheKey key = new ChunkCacheKey(fileKey.getIndexName(), filename, currentLoadedChunk, chunkSize);
-      buffer = (byte[]) chunksCache.get(key);
+      buffer = getChunk(key);
       if (buffer == null) {
          throw new IOException("Read past EOF: Chunk value could not be found for key " + key);
       }
@@ -146,7 +176,7 @@ private void setBufferToCurrentChunk() throws IOException {
    // RAMDirectory teaches to position the cursor to the end of previous chunk in this case
    private void setBufferToCurrentChunkIfPossible() {
       ChunkCacheKey key = new ChunkCacheKey(fileKey.getIndexName(), filename, currentLoadedChunk, chunkSize);
-      buffer = (byte[]) chunksCache.get(key);
+      buffer = getChunk(key);
       if (buffer == null) {
          currentLoadedChunk--;
          bufferPosition = chunkSize;
@@ -156,6 +186,67 @@ private void setBufferToCurrentChunkIfPossible() {
       }
    }
 
+   private byte[] getChunk(final ChunkCacheKey key) {
+      byte[] chunk = null;
+      if (localChunkCache != null) {
+         chunk = localChunkCache.get(key, fileVersion);
+         if (chunk != null) {
+            return chunk;
+         }
+      }
+      Future<Object> pending = readAhead == null ? null : readAhead.remove(key.getChunkId());
+      if (pending != null) {
+         chunk = waitForChunk(pending, key);
+      }
+      else {
+         chunk = (byte[]) chunksCache.get(key);
+      }
+      if (chunk != null && localChunkCache != null) {
+         localChunkCache.put(key, fileVersion, chunk);
+      }
+      return chunk;
+   }
+
+   private byte[] waitForChunk(final Future<Object> pending, final ChunkCacheKey key) {
+      try {
+         return (byte[]) pending.get();
+      }
+      catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      catch (ExecutionException e) {
+         log.debugf(e.getCause(), "Read-ahead of chunk %s failed, reading it again", key);
+      }
+      return (byte[]) chunksCache.get(key);
+   }
+
+   /**
+    * Requests the chunks following the given one which have not been requested yet, and forgets about those
+    * outside of the read-ahead window as the reader won't need them anymore.
+    */
+   private void readAhead(final int chunkId) {
+      if (readAhead == null) {
+         readAhead = new HashMap<Integer, Future<Object>>();
+      }
+      else {
+         for (Iterator<Integer> it = readAhead.keySet().iterator(); it.hasNext(); ) {
+            int pendingId = it.next();
+            if (pendingId <= chunkId || pendingId > chunkId + readAheadChunks) {
+               it.remove();
+            }
+         }
+      }
+      final int last = Math.min(lastChunk, chunkId + readAheadChunks);
+      for (int i = chunkId + 1; i <= last; i++) {
+         if (!readAhead.containsKey(i)) {
+            ChunkCacheKey key = new ChunkCacheKey(fileKey.getIndexName(), filename, i, chunkSize);
+            if (localChunkCache == null || !localChunkCache.contains(key, fileVersion)) {
+               readAhead.put(i, chunksCache.getAsync(key));
+            }
+         }
+      }
+   }
+
    @Override
    public long length() {
       return this.fileLength;
@@ -168,6 +259,8 @@ public Object clone() {
       // as in other Directory implementations. Apparently not all clones
       // are cleaned up, but the original is (especially .tis files)
       clone.isClone = true; 
+      // pending read-ahead belongs to the position of the original
+      clone.readAhead = null;
       return clone;
     }
 
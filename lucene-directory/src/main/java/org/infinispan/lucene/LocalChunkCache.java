@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.lucene;
+
+import java.util.Map;
+
+import org.infinispan.eviction.EntrySizeCalculator;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EvictionListener;
+
+/**
+ * A node-local, memory bounded cache of index chunks shared by all the {@link InfinispanIndexInput}s, and their
+ * clones, opened by an {@link InfinispanDirectory}. In a distributed index reading a chunk from the chunks cache
+ * might be a remote fetch, while segments are written once, so chunks read again are served from here.
+ * <p/>
+ * Chunks are kept together with the last modification time of the file they belong to, so that a file which is
+ * deleted and later written again under the same name doesn't see the chunks of its previous incarnation.
+ *
+ * @since 5.2
+ * @see InfinispanDirectory#setLocalChunkCacheSize(long)
+ */
+final class LocalChunkCache {
+
+   // Estimated overhead of the map node and of the key, on top of the chunk's bytes
+   private static final int ENTRY_OVERHEAD = 128;
+
+   private final BoundedConcurrentHashMap<Key, byte[]> chunks;
+
+   /**
+    * @param maxMemory the approximate number of bytes held by the cached chunks
+    * @param chunkSize the chunk size of the directory, used to estimate how many chunks can be held
+    */
+   LocalChunkCache(long maxMemory, int chunkSize) {
+      // The memory bound is the one that matters; the number of entries is only bounded to size the map
+      int capacity = (int) Math.min(Integer.MAX_VALUE / 2, 2 * (maxMemory / chunkSize) + 16);
+      chunks = new BoundedConcurrentHashMap<Key, byte[]>(capacity, maxMemory, 16, Eviction.LRU,
+            new IgnoreEvictions(), new ChunkSizeCalculator());
+   }
+
+   byte[] get(ChunkCacheKey key, long fileVersion) {
+      return chunks.get(new Key(key, fileVersion));
+   }
+
+   boolean contains(ChunkCacheKey key, long fileVersion) {
+      return chunks.containsKey(new Key(key, fileVersion));
+   }
+
+   void put(ChunkCacheKey key, long fileVersion, byte[] chunk) {
+      chunks.put(new Key(key, fileVersion), chunk);
+   }
+
+   int size() {
+      return chunks.size();
+   }
+
+   void clear() {
+      chunks.clear();
+   }
+
+   private static final class ChunkSizeCalculator implements EntrySizeCalculator<Key, byte[]> {
+      @Override
+      public long calculateSize(Key key, byte[] chunk) {
+         return ENTRY_OVERHEAD + chunk.length;
+      }
+   }
+
+   private static final class IgnoreEvictions implements EvictionListener<Key, byte[]> {
+      @Override
+      public void onEntryEviction(Map<Key, byte[]> evicted) {
+      }
+
+      @Override
+      public void onEntryChosenForEviction(byte[] chunk) {
+      }
+
+      @Override
+      public void onEntryActivated(Object key) {
+      }
+
+      @Override
+      public void onEntryRemoved(Object key) {
+      }
+   }
+
+   private static final class Key {
+
+      private final ChunkCacheKey chunkKey;
+      private final long fileVersion;
+
+      Key(ChunkCacheKey chunkKey, long fileVersion) {
+         this.chunkKey = chunkKey;
+         this.fileVersion = fileVersion;
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * chunkKey.hashCode() + (int) (fileVersion ^ (fileVersion >>> 32));
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof Key))
+            return false;
+         Key other = (Key) obj;
+         return fileVersion == other.fileVersion && chunkKey.equals(other.chunkKey);
+      }
+   }
+
+}
@@ -105,6 +105,18 @@ public Set<InternalCacheEntry> loadAll() throws CacheLoaderException {
       return load(Integer.MAX_VALUE);
    }
 
+   @Override
+   public Set<InternalCacheEntry> loadAll(final Set<Object> keys) throws CacheLoaderException {
+      final HashSet<InternalCacheEntry> entries = new HashSet<InternalCacheEntry>();
+      for (Object key : keys) {
+         InternalCacheEntry entry = load(key);
+         if (entry != null) {
+            entries.add(entry);
+         }
+      }
+      return entries;
+   }
+
    /**
     * Loads up to a specific number of entries.  There is no guarantee about the order of loaded entries.
     */
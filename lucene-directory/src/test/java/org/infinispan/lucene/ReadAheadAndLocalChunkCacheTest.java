@@ -0,0 +1,136 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.lucene;
+
+import static org.infinispan.lucene.CacheTestSupport.assertTextIsFoundInIds;
+import static org.infinispan.lucene.CacheTestSupport.writeTextToIndex;
+
+import java.io.IOException;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.lucene.testutils.RepeatableLongByteSequence;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies reads through the asynchronous read-ahead and the node-local chunk cache of an
+ * {@link InfinispanDirectory} return the same contents as plain reads.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "lucene.ReadAheadAndLocalChunkCacheTest")
+public class ReadAheadAndLocalChunkCacheTest extends SingleCacheManagerTest {
+
+   private static final int CHUNK_SIZE = 32;
+   private static final int FILE_SIZE = CHUNK_SIZE * 50 + 7;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(true);
+      builder.clustering().cacheMode(CacheMode.LOCAL)
+            .invocationBatching().enable();
+      return TestCacheManagerFactory.createCacheManager(builder);
+   }
+
+   public void testSequentialReadsWithReadAhead() throws IOException {
+      InfinispanDirectory dir = new InfinispanDirectory(cache, cache, cache, "readAhead", CHUNK_SIZE);
+      dir.setReadAheadChunks(4);
+      createFile(dir, "file.bin");
+      assertContents(dir.openInput("file.bin"));
+
+      // Clones read ahead independently from the original
+      IndexInput original = dir.openInput("file.bin");
+      original.seek(CHUNK_SIZE * 10 + 3);
+      IndexInput clone = (IndexInput) original.clone();
+      clone.seek(0);
+      assertContents(clone);
+      Assert.assertEquals(original.getFilePointer(), CHUNK_SIZE * 10 + 3);
+      original.close();
+   }
+
+   public void testLocalChunkCache() throws IOException {
+      InfinispanDirectory dir = new InfinispanDirectory(cache, cache, cache, "localChunks", CHUNK_SIZE);
+      dir.setReadAheadChunks(2);
+      dir.setLocalChunkCacheSize(1024 * 1024);
+      createFile(dir, "file.bin");
+      assertContents(dir.openInput("file.bin"));
+      Assert.assertEquals(dir.getLocalChunkCache().size(), FILE_SIZE / CHUNK_SIZE + 1);
+
+      // Chunks are now read from the local cache only
+      for (int i = 0; i <= FILE_SIZE / CHUNK_SIZE; i++) {
+         cache.remove(new ChunkCacheKey("localChunks", "file.bin", i, CHUNK_SIZE));
+      }
+      assertContents(dir.openInput("file.bin"));
+
+      // A file written again with the same name doesn't see the old chunks
+      dir.deleteFile("file.bin");
+      TestingUtil.sleepThread(5);
+      IndexOutput output = dir.createOutput("file.bin");
+      for (int i = 0; i < FILE_SIZE; i++) {
+         output.writeByte((byte) 7);
+      }
+      output.close();
+      IndexInput input = dir.openInput("file.bin");
+      for (int i = 0; i < FILE_SIZE; i++) {
+         Assert.assertEquals(input.readByte(), 7);
+      }
+      input.close();
+   }
+
+   public void testIndexing() throws IOException {
+      InfinispanDirectory dir = new InfinispanDirectory(cache, cache, cache, "index", CHUNK_SIZE);
+      dir.setReadAheadChunks(8);
+      dir.setLocalChunkCacheSize(1024 * 1024);
+      writeTextToIndex(dir, 0, "read ahead of the chunks of this index");
+      writeTextToIndex(dir, 1, "the local cache holds the chunks of this index");
+      assertTextIsFoundInIds(dir, "chunks", 0, 1);
+      assertTextIsFoundInIds(dir, "ahead", 0);
+      assertTextIsFoundInIds(dir, "local", 1);
+   }
+
+   private void createFile(InfinispanDirectory dir, String fileName) throws IOException {
+      IndexOutput output = dir.createOutput(fileName);
+      RepeatableLongByteSequence bytesGenerator = new RepeatableLongByteSequence();
+      for (int i = 0; i < FILE_SIZE; i++) {
+         output.writeByte(bytesGenerator.nextByte());
+      }
+      output.close();
+   }
+
+   private void assertContents(IndexInput input) throws IOException {
+      Assert.assertEquals(input.length(), FILE_SIZE);
+      RepeatableLongByteSequence bytesGenerator = new RepeatableLongByteSequence();
+      for (int i = 0; i < FILE_SIZE; i++) {
+         Assert.assertEquals(input.readByte(), bytesGenerator.nextByte());
+      }
+      input.close();
+   }
+
+}
@@ -19,8 +19,12 @@
 package org.infinispan.query;
 
 import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
+import org.rhq.helpers.pluginAnnotations.agent.DisplayType;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
 import org.rhq.helpers.pluginAnnotations.agent.Operation;
+import org.rhq.helpers.pluginAnnotations.agent.Units;
 
 /**
  * Component to rebuild the indexes from the existing data.
@@ -31,6 +35,10 @@
  * While reindexing is being performed queries should not be executed as they
  * will very likely miss many or all results.
  * 
+ * Each node indexes the entries it is the primary owner of, using several threads
+ * and sending the documents to the index in batches. The progress attributes
+ * describe the share of the work done by the local node.
+ * 
  * @author Sanne Grinovero <sanne@hibernate.org> (C) 2012 Red Hat Inc.
  */
 @MBean(objectName = "MassIndexer",
@@ -43,4 +51,38 @@ public interface MassIndexer {
    @Operation(displayName = "Rebuild index")
    void start();
 
+   @ManagedAttribute(description = "Number of documents sent to the index in each batch", writable = true)
+   int getBatchSize();
+
+   void setBatchSize(int batchSize);
+
+   @ManagedAttribute(description = "Number of threads each node uses to build documents", writable = true)
+   int getThreads();
+
+   void setThreads(int threads);
+
+   @ManagedAttribute(description = "Whether entries only present in the cache store are indexed as well", writable = true)
+   boolean isIndexStoredEntries();
+
+   void setIndexStoredEntries(boolean indexStoredEntries);
+
+   @ManagedAttribute(description = "Whether this node is currently rebuilding its share of the index")
+   boolean isRunning();
+
+   @ManagedAttribute(description = "Number of entries this node has indexed in the current or last run")
+   @Metric(displayName = "Indexed entries", displayType = DisplayType.SUMMARY)
+   long getIndexedEntries();
+
+   @ManagedAttribute(description = "Estimated number of entries this node has to index in the current or last run")
+   @Metric(displayName = "Entries to index", displayType = DisplayType.SUMMARY)
+   long getTotalEntries();
+
+   @ManagedAttribute(description = "Entries indexed per second by this node in the current or last run")
+   @Metric(displayName = "Indexing throughput", displayType = DisplayType.SUMMARY)
+   double getThroughput();
+
+   @ManagedAttribute(description = "Estimated time in milliseconds until this node completes the current run")
+   @Metric(displayName = "Estimated time remaining", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   long getEstimatedTimeRemaining();
+
 }
@@ -34,7 +34,7 @@
 import org.infinispan.query.clustered.ClusteredCacheQueryImpl;
 import org.infinispan.query.impl.CacheQueryImpl;
 import org.infinispan.query.impl.ComponentRegistryUtils;
-import org.infinispan.query.impl.massindex.MapReduceMassIndexer;
+import org.infinispan.query.impl.massindex.DistributedMassIndexer;
 
 /**
  * Class that is used to build {@link org.infinispan.query.CacheQuery}
@@ -115,7 +115,7 @@ public SearchFactory getSearchFactory() {
    @Override
    public MassIndexer getMassIndexer() {
       // TODO: Should a new instance be created every time?
-      return new MapReduceMassIndexer(cache, searchFactory);
+      return new DistributedMassIndexer(cache);
    }
 
 }
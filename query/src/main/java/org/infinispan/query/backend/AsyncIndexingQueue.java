@@ -0,0 +1,436 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.backend;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+
+import org.hibernate.search.backend.TransactionContext;
+import org.hibernate.search.backend.spi.Work;
+import org.hibernate.search.backend.spi.WorkType;
+import org.hibernate.search.backend.spi.Worker;
+import org.hibernate.search.spi.SearchFactoryIntegrator;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.query.logging.Log;
+import org.infinispan.util.TypedProperties;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.logging.LogFactory;
+import org.rhq.helpers.pluginAnnotations.agent.DisplayType;
+import org.rhq.helpers.pluginAnnotations.agent.MeasurementType;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
+import org.rhq.helpers.pluginAnnotations.agent.Operation;
+import org.rhq.helpers.pluginAnnotations.agent.Units;
+
+/**
+ * Queues the indexing work produced by the {@link QueryInterceptor} and applies it from a background
+ * thread, so that cache writes don't wait for Lucene.
+ * <p/>
+ * Repeated changes to the same key are coalesced while they wait, so only the latest state of an entry
+ * gets indexed, and all the work pending at each flush is handed to Hibernate Search as a single batch.
+ * Changes made within a transaction are queued when the transaction commits, and dropped if it rolls back.
+ * <p/>
+ * The queue is bounded: when {@link #QUEUE_SIZE} keys are pending, writers block until a flush makes room.
+ * Enabled by setting the {@link #ASYNC} indexing property to <code>true</code>.
+ *
+ * @since 5.2
+ */
+@MBean(objectName = "AsyncIndexing", description = "Indexing work queued to be applied asynchronously")
+public class AsyncIndexingQueue {
+
+   /**
+    * Indexing property enabling asynchronous indexing.
+    */
+   public static final String ASYNC = "infinispan.query.indexing.async";
+
+   /**
+    * Indexing property setting the maximum number of keys waiting to be indexed.
+    */
+   public static final String QUEUE_SIZE = "infinispan.query.indexing.async.queue_size";
+
+   /**
+    * Indexing property setting the interval, in milliseconds, between two flushes of the queue.
+    */
+   public static final String FLUSH_INTERVAL = "infinispan.query.indexing.async.flush_interval";
+
+   static final int DEFAULT_QUEUE_SIZE = 10000;
+   static final long DEFAULT_FLUSH_INTERVAL = 100;
+
+   private static final Log log = LogFactory.getLog(AsyncIndexingQueue.class, Log.class);
+
+   private final SearchFactoryIntegrator searchFactory;
+   private final String cacheName;
+   private final int queueSize;
+   private final long flushInterval;
+
+   // Guarded by lock. Iteration order is the order in which the keys were first queued.
+   private final LinkedHashMap<WorkKey, PendingWork> pending = new LinkedHashMap<WorkKey, PendingWork>();
+   private final Lock lock = new ReentrantLock();
+   private final Condition notFull = lock.newCondition();
+   // Keeps batches reaching the indexes in the order they were queued
+   private final Lock flushLock = new ReentrantLock();
+   private final ConcurrentMap<Object, TransactionWorks> transactions = ConcurrentMapFactory.makeConcurrentMap();
+   private final AtomicBoolean flushRequested = new AtomicBoolean();
+   private final AtomicLong coalescedWorks = new AtomicLong();
+   private final AtomicLong appliedWorks = new AtomicLong();
+
+   private volatile boolean running;
+   // Time at which the oldest work of the batch being applied was queued, 0 when idle
+   private volatile long applyingSince;
+   private ScheduledExecutorService executor;
+
+   private final Runnable flushTask = new Runnable() {
+      @Override
+      public void run() {
+         flushRequested.set(false);
+         flush();
+      }
+   };
+
+   public AsyncIndexingQueue(SearchFactoryIntegrator searchFactory, String cacheName, int queueSize, long flushInterval) {
+      if (queueSize <= 0) throw new IllegalArgumentException("Queue size must be positive: " + queueSize);
+      if (flushInterval <= 0) throw new IllegalArgumentException("Flush interval must be positive: " + flushInterval);
+      this.searchFactory = searchFactory;
+      this.cacheName = cacheName;
+      this.queueSize = queueSize;
+      this.flushInterval = flushInterval;
+   }
+
+   /**
+    * Creates the queue described by the given indexing properties.
+    *
+    * @return the queue, or null if asynchronous indexing is not enabled
+    */
+   public static AsyncIndexingQueue fromProperties(TypedProperties properties, SearchFactoryIntegrator searchFactory, String cacheName) {
+      if (!properties.getBooleanProperty(ASYNC, false)) {
+         return null;
+      }
+      return new AsyncIndexingQueue(searchFactory, cacheName,
+            properties.getIntProperty(QUEUE_SIZE, DEFAULT_QUEUE_SIZE),
+            properties.getLongProperty(FLUSH_INTERVAL, DEFAULT_FLUSH_INTERVAL));
+   }
+
+   public void start() {
+      if (running) return;
+      executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "AsyncIndexing-" + cacheName);
+            t.setDaemon(true);
+            return t;
+         }
+      });
+      running = true;
+      executor.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Stops the background flushes and applies whatever is still pending. Work queued after this
+    * point is applied by the calling thread.
+    */
+   public void stop() {
+      lock.lock();
+      try {
+         running = false;
+         notFull.signalAll();
+      } finally {
+         lock.unlock();
+      }
+      if (executor != null) {
+         executor.shutdown();
+         try {
+            executor.awaitTermination(flushInterval * 10, TimeUnit.MILLISECONDS);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+      flush();
+   }
+
+   /**
+    * Queues a unit of indexing work. If a transaction is in progress the work is held back until
+    * it commits.
+    */
+   public void enqueue(Work<Object> work, TransactionContext transactionContext) {
+      if (transactionContext != null && transactionContext.isTransactionInProgress()) {
+         Object transactionId = transactionContext.getTransactionIdentifier();
+         TransactionWorks transactionWorks = transactions.get(transactionId);
+         if (transactionWorks == null) {
+            transactionWorks = new TransactionWorks(transactionId);
+            TransactionWorks existing = transactions.putIfAbsent(transactionId, transactionWorks);
+            if (existing == null) {
+               transactionContext.registerSynchronization(transactionWorks);
+            } else {
+               transactionWorks = existing;
+            }
+         }
+         transactionWorks.add(work);
+      } else {
+         offer(work);
+      }
+   }
+
+   private void offer(Work<Object> work) {
+      WorkKey key = new WorkKey(work);
+      lock.lock();
+      try {
+         if (running && work.getType() == WorkType.PURGE_ALL) {
+            // A purge supersedes anything still queued for the same type
+            for (Iterator<WorkKey> it = pending.keySet().iterator(); it.hasNext(); ) {
+               if (it.next().type == key.type) {
+                  it.remove();
+                  coalescedWorks.incrementAndGet();
+               }
+            }
+         }
+         while (running) {
+            PendingWork queued = pending.get(key);
+            if (queued != null) {
+               queued.work = work;
+               coalescedWorks.incrementAndGet();
+               return;
+            }
+            if (pending.size() < queueSize) {
+               pending.put(key, new PendingWork(work, System.currentTimeMillis()));
+               return;
+            }
+            requestFlush();
+            notFull.awaitUninterruptibly();
+         }
+      } finally {
+         lock.unlock();
+      }
+      // Stopped: nothing is going to flush the queue anymore
+      apply(Collections.singletonList(work), System.currentTimeMillis());
+   }
+
+   private void requestFlush() {
+      if (flushRequested.compareAndSet(false, true)) {
+         executor.execute(flushTask);
+      }
+   }
+
+   @ManagedOperation(description = "Applies all pending indexing work to the indexes")
+   @Operation(displayName = "Flush pending indexing work")
+   public void flush() {
+      flushLock.lock();
+      try {
+         List<Work<Object>> batch;
+         long oldest;
+         lock.lock();
+         try {
+            if (pending.isEmpty()) return;
+            batch = new ArrayList<Work<Object>>(pending.size());
+            oldest = Long.MAX_VALUE;
+            for (PendingWork queued : pending.values()) {
+               batch.add(queued.work);
+               oldest = Math.min(oldest, queued.queuedAt);
+            }
+            pending.clear();
+            notFull.signalAll();
+         } finally {
+            lock.unlock();
+         }
+         apply(batch, oldest);
+      } finally {
+         flushLock.unlock();
+      }
+   }
+
+   private void apply(List<Work<Object>> batch, long oldest) {
+      applyingSince = oldest;
+      try {
+         BatchTransactionContext batchContext = new BatchTransactionContext();
+         Worker worker = searchFactory.getWorker();
+         for (Work<Object> work : batch) {
+            worker.performWork(work, batchContext);
+         }
+         batchContext.commit();
+         appliedWorks.addAndGet(batch.size());
+      } catch (RuntimeException e) {
+         log.asyncIndexingFailed(batch.size(), e);
+      } finally {
+         applyingSince = 0;
+      }
+   }
+
+   @ManagedAttribute(description = "Number of keys with indexing work waiting to be applied")
+   @Metric(displayName = "Indexing queue depth", displayType = DisplayType.SUMMARY)
+   public int getQueueDepth() {
+      lock.lock();
+      try {
+         return pending.size();
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @ManagedAttribute(description = "Time in milliseconds the oldest pending indexing work has been waiting to be applied")
+   @Metric(displayName = "Indexing lag", units = Units.MILLISECONDS, displayType = DisplayType.SUMMARY)
+   public long getIndexingLag() {
+      long oldest = applyingSince;
+      lock.lock();
+      try {
+         if (!pending.isEmpty()) {
+            long queuedAt = pending.values().iterator().next().queuedAt;
+            oldest = oldest == 0 ? queuedAt : Math.min(oldest, queuedAt);
+         }
+      } finally {
+         lock.unlock();
+      }
+      return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+   }
+
+   @ManagedAttribute(description = "Number of indexing works superseded by a later change to the same key before being applied")
+   @Metric(displayName = "Coalesced indexing works", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getCoalescedWorks() {
+      return coalescedWorks.get();
+   }
+
+   @ManagedAttribute(description = "Number of indexing works applied to the indexes")
+   @Metric(displayName = "Applied indexing works", measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getAppliedWorks() {
+      return appliedWorks.get();
+   }
+
+   /**
+    * Identifies the indexed document a work applies to: the entity type plus the document id, or
+    * just the type for purges.
+    */
+   private static final class WorkKey {
+      final Class<?> type;
+      final Object id;
+
+      WorkKey(Work<Object> work) {
+         Object entity = work.getEntity();
+         this.type = entity != null ? entity.getClass() : work.getEntityClass();
+         this.id = work.getType() == WorkType.PURGE_ALL ? null : work.getId();
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (!(o instanceof WorkKey)) return false;
+         WorkKey other = (WorkKey) o;
+         return type == other.type && (id == null ? other.id == null : id.equals(other.id));
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * type.hashCode() + (id == null ? 0 : id.hashCode());
+      }
+   }
+
+   private static final class PendingWork {
+      Work<Object> work;
+      final long queuedAt;
+
+      PendingWork(Work<Object> work, long queuedAt) {
+         this.work = work;
+         this.queuedAt = queuedAt;
+      }
+   }
+
+   /**
+    * Holds the work of a transaction until it completes.
+    */
+   private final class TransactionWorks implements Synchronization {
+      private final Object transactionId;
+      private final List<Work<Object>> works = new ArrayList<Work<Object>>();
+
+      TransactionWorks(Object transactionId) {
+         this.transactionId = transactionId;
+      }
+
+      synchronized void add(Work<Object> work) {
+         works.add(work);
+      }
+
+      @Override
+      public void beforeCompletion() {
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+         transactions.remove(transactionId);
+         if (status == Status.STATUS_COMMITTED) {
+            List<Work<Object>> committed;
+            synchronized (this) {
+               committed = new ArrayList<Work<Object>>(works);
+            }
+            for (Work<Object> work : committed) {
+               offer(work);
+            }
+         }
+      }
+   }
+
+   /**
+    * Makes Hibernate Search collect all the work of a flush and apply it as one batch, the same
+    * way it does for the work of a transaction.
+    */
+   private static final class BatchTransactionContext implements TransactionContext {
+      private final List<Synchronization> synchronizations = new ArrayList<Synchronization>(1);
+
+      @Override
+      public boolean isTransactionInProgress() {
+         return true;
+      }
+
+      @Override
+      public Object getTransactionIdentifier() {
+         return this;
+      }
+
+      @Override
+      public void registerSynchronization(Synchronization synchronization) {
+         synchronizations.add(synchronization);
+      }
+
+      void commit() {
+         for (Synchronization synchronization : synchronizations) {
+            synchronization.beforeCompletion();
+         }
+         for (Synchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(Status.STATUS_COMMITTED);
+         }
+      }
+   }
+}
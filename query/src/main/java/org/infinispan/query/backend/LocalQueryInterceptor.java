@@ -47,6 +47,10 @@ public LocalQueryInterceptor(SearchFactoryIntegrator searchFactory) {
       super(searchFactory);
    }
 
+   public LocalQueryInterceptor(SearchFactoryIntegrator searchFactory, AsyncIndexingQueue asyncIndexingQueue) {
+      super(searchFactory, asyncIndexingQueue);
+   }
+
    @Override
    protected Log getLog() {
       return log;
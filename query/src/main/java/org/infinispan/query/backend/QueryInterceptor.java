@@ -80,6 +80,7 @@ public class QueryInterceptor extends CommandInterceptor {
    private final ConcurrentMap<Class<?>,Boolean> knownClasses = ConcurrentMapFactory.makeConcurrentMap();
    private final Lock mutating = new ReentrantLock();
    private final KeyTransformationHandler keyTransformationHandler = new KeyTransformationHandler();
+   private final AsyncIndexingQueue asyncIndexingQueue;
 
    private DataContainer dataContainer;
    protected TransactionManager transactionManager;
@@ -94,7 +95,16 @@ protected Log getLog() {
    }
 
    public QueryInterceptor(SearchFactoryIntegrator searchFactory) {
+      this(searchFactory, null);
+   }
+
+   /**
+    * @param asyncIndexingQueue if not null, index changes are queued there instead of being
+    *                           applied during the write
+    */
+   public QueryInterceptor(SearchFactoryIntegrator searchFactory, AsyncIndexingQueue asyncIndexingQueue) {
       this.searchFactory = searchFactory;
+      this.asyncIndexingQueue = asyncIndexingQueue;
    }
 
    @Inject
@@ -171,7 +181,7 @@ private void purgeAllIndexes(TransactionContext transactionContext) {
       for (Class c : this.knownClasses.keySet()) {
          EntityIndexBinder binder = this.searchFactory.getIndexBindingForEntity(c);
          if ( binder != null ) { //check as not all known classes are indexed
-            searchFactory.getWorker().performWork(new Work<Object>(c, (Serializable)null, WorkType.PURGE_ALL), transactionContext);
+            performWork(new Work<Object>(c, (Serializable)null, WorkType.PURGE_ALL), transactionContext);
          }
       }
    }
@@ -183,7 +193,7 @@ protected void removeFromIndexes(final Object value, final Object key, final Tra
       // The key is going to be the documentID for Lucene.
       // The object parameter is the actual value that needs to be removed from lucene.
       if (value == null) throw new NullPointerException("Cannot handle a null value!");
-      searchFactory.getWorker().performWork(new Work<Object>(value, keyToString(key), WorkType.DELETE), transactionContext);
+      performWork(new Work<Object>(value, keyToString(key), WorkType.DELETE), transactionContext);
    }
 
    protected void updateIndexes(Object value, Object key, TransactionContext transactionContext) {
@@ -191,7 +201,15 @@ protected void updateIndexes(Object value, Object key, TransactionContext transa
       // The key is going to be the documentID for Lucene.
       // The object parameter is the actual value that needs to be removed from lucene.
       if (value == null) throw new NullPointerException("Cannot handle a null value!");
-      searchFactory.getWorker().performWork(new Work<Object>(value, keyToString(key), WorkType.UPDATE), transactionContext);
+      performWork(new Work<Object>(value, keyToString(key), WorkType.UPDATE), transactionContext);
+   }
+
+   private void performWork(Work<Object> work, TransactionContext transactionContext) {
+      if (asyncIndexingQueue != null) {
+         asyncIndexingQueue.enqueue(work, transactionContext);
+      } else {
+         searchFactory.getWorker().performWork(work, transactionContext);
+      }
    }
 
    private Object extractValue(Object wrappedValue) {
@@ -281,6 +299,13 @@ public SearchFactoryIntegrator getSearchFactory() {
       return searchFactory;
    }
 
+   /**
+    * @return the queue index changes go through, or null if indexing is synchronous
+    */
+   public AsyncIndexingQueue getAsyncIndexingQueue() {
+      return asyncIndexingQueue;
+   }
+
    /**
     * In case of a remotely originating transactions we don't have a chance to visit the single
     * commands but receive this "batch". We then need the before-apply snapshot of some types
@@ -45,6 +45,7 @@
 import org.infinispan.factories.components.ComponentMetadataRepo;
 import org.infinispan.factories.components.ManageableComponentMetadata;
 import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.interceptors.locking.NonTransactionalLockingInterceptor;
 import org.infinispan.interceptors.locking.OptimisticLockingInterceptor;
 import org.infinispan.interceptors.locking.PessimisticLockingInterceptor;
@@ -54,11 +55,14 @@
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.query.CommandInitializer;
 import org.infinispan.query.MassIndexer;
+import org.infinispan.query.backend.AsyncIndexingQueue;
 import org.infinispan.query.backend.LocalQueryInterceptor;
 import org.infinispan.query.backend.QueryInterceptor;
 import org.infinispan.query.backend.SearchableCacheConfiguration;
 import org.infinispan.query.clustered.QueryBox;
-import org.infinispan.query.impl.massindex.MapReduceMassIndexer;
+import org.infinispan.query.impl.massindex.DistributedMassIndexer;
+import org.infinispan.query.impl.massindex.IndexingThreadPool;
+import org.infinispan.query.impl.massindex.MassIndexingProgress;
 import org.infinispan.query.logging.Log;
 import org.infinispan.transaction.LockingMode;
 import org.infinispan.util.logging.LogFactory;
@@ -100,14 +104,18 @@ public void cacheStarting(ComponentRegistry cr, Configuration cfg, String cacheN
       if (cfg.indexing().enabled()) {
          log.registeringQueryInterceptor();
          SearchFactoryIntegrator searchFactory = getSearchFactory(cfg.indexing().properties(), cr);
-         createQueryInterceptorIfNeeded(cr, cfg, searchFactory);
+         QueryInterceptor queryInterceptor = createQueryInterceptorIfNeeded(cr, cfg, searchFactory, cacheName);
+         AsyncIndexingQueue asyncIndexingQueue = queryInterceptor.getAsyncIndexingQueue();
+         if (asyncIndexingQueue != null) {
+            asyncIndexingQueue.start();
+         }
       }
    }
 
-   private void createQueryInterceptorIfNeeded(ComponentRegistry cr, Configuration cfg, SearchFactoryIntegrator searchFactory) {
+   private QueryInterceptor createQueryInterceptorIfNeeded(ComponentRegistry cr, Configuration cfg, SearchFactoryIntegrator searchFactory, String cacheName) {
       QueryInterceptor queryInterceptor = cr.getComponent(QueryInterceptor.class);
       if (queryInterceptor == null) {
-         queryInterceptor = buildQueryInterceptor(cfg, searchFactory);
+         queryInterceptor = buildQueryInterceptor(cfg, searchFactory, cacheName);
 
          // Interceptor registration not needed, core configuration handling
          // already does it for all custom interceptors - UNLESS the InterceptorChain already exists in the component registry!
@@ -133,14 +141,16 @@ private void createQueryInterceptorIfNeeded(ComponentRegistry cr, Configuration
          }
          cfg.customInterceptors().interceptors(builder.build().customInterceptors().interceptors());
       }
+      return queryInterceptor;
    }
 
-   private QueryInterceptor buildQueryInterceptor(Configuration cfg, SearchFactoryIntegrator searchFactory) {
+   private QueryInterceptor buildQueryInterceptor(Configuration cfg, SearchFactoryIntegrator searchFactory, String cacheName) {
+      AsyncIndexingQueue asyncIndexingQueue = AsyncIndexingQueue.fromProperties(cfg.indexing().properties(), searchFactory, cacheName);
       if ( cfg.indexing().indexLocalOnly() ) {
-         return new LocalQueryInterceptor(searchFactory);
+         return new LocalQueryInterceptor(searchFactory, asyncIndexingQueue);
       }
       else {
-         return new QueryInterceptor(searchFactory);
+         return new QueryInterceptor(searchFactory, asyncIndexingQueue);
       }
    }
 
@@ -166,6 +176,8 @@ public void cacheStarted(ComponentRegistry cr, String cacheName) {
       QueryBox queryBox = new QueryBox();
       queryBox.setCache(cache.getAdvancedCache());
       cr.registerComponent(queryBox, QueryBox.class);
+      cr.registerComponent(new MassIndexingProgress(), MassIndexingProgress.class);
+      cr.registerComponent(new IndexingThreadPool(cacheName), IndexingThreadPool.class);
 
       // Register query mbeans
       registerQueryMBeans(cache.getAdvancedCache(), cr, cacheName);
@@ -204,7 +216,7 @@ private void registerQueryMBeans(AdvancedCache cache,
             .toManageableComponentMetadata();
       try {
          // TODO: MassIndexer should be some kind of query cache component?
-         MapReduceMassIndexer maxIndexer = new MapReduceMassIndexer(cache, sf);
+         DistributedMassIndexer maxIndexer = new DistributedMassIndexer(cache);
          ResourceDMBean mbean = new ResourceDMBean(maxIndexer, metadata);
          ObjectName massIndexerObjName = new ObjectName(jmxDomain + ":"
                + queryGroupName+ ",component=" + metadata.getJmxObjectName());
@@ -212,12 +224,38 @@ private void registerQueryMBeans(AdvancedCache cache,
       } catch (Exception e) {
          throw new CacheException("Unable to create ", e);
       }
+
+      // Register the asynchronous indexing queue MBean, if indexing is asynchronous
+      AsyncIndexingQueue asyncIndexingQueue = getAsyncIndexingQueue(cr);
+      if (asyncIndexingQueue != null) {
+         ManageableComponentMetadata queueMetadata = metadataRepo
+               .findComponentMetadata(AsyncIndexingQueue.class)
+               .toManageableComponentMetadata();
+         try {
+            ResourceDMBean mbean = new ResourceDMBean(asyncIndexingQueue, queueMetadata);
+            ObjectName queueObjName = new ObjectName(jmxDomain + ":"
+                  + queryGroupName + ",component=" + queueMetadata.getJmxObjectName());
+            JmxUtil.registerMBean(mbean, queueObjName, mbeanServer);
+         } catch (Exception e) {
+            throw new CacheException("Unable to register asynchronous indexing mbean", e);
+         }
+      }
    }
 
    private String getQueryGroupName(String cacheName) {
       return "type=Query,name=" + ObjectName.quote(cacheName);
    }
 
+   private AsyncIndexingQueue getAsyncIndexingQueue(ComponentRegistry cr) {
+      InterceptorChain interceptorChain = cr.getComponent(InterceptorChain.class);
+      if (interceptorChain != null) {
+         for (CommandInterceptor interceptor : interceptorChain.getInterceptorsWhichExtend(QueryInterceptor.class)) {
+            return ((QueryInterceptor) interceptor).getAsyncIndexingQueue();
+         }
+      }
+      return null;
+   }
+
    private boolean verifyChainContainsQueryInterceptor(ComponentRegistry cr) {
       InterceptorChain interceptorChain = cr.getComponent(InterceptorChain.class);
       return interceptorChain.containsInterceptorType(QueryInterceptor.class, true);
@@ -243,6 +281,17 @@ private SearchFactoryIntegrator getSearchFactory(Properties indexingProperties,
 
    @Override
    public void cacheStopping(ComponentRegistry cr, String cacheName) {
+      // Drain pending index changes while the SearchFactory is still open
+      AsyncIndexingQueue asyncIndexingQueue = getAsyncIndexingQueue(cr);
+      if (asyncIndexingQueue != null) {
+         asyncIndexingQueue.stop();
+      }
+
+      IndexingThreadPool indexingThreadPool = cr.getComponent(IndexingThreadPool.class);
+      if (indexingThreadPool != null) {
+         indexingThreadPool.stop();
+      }
+
       //TODO move this to cacheStopped event (won't work right now as the ComponentRegistry is half empty at that point: ISPN-1006)
       Object searchFactoryIntegrator = cr.getComponent(SearchFactoryIntegrator.class);
       if (searchFactoryIntegrator != null && searchFactoryIntegrator != REMOVED_REGISTRY_COMPONENT) {
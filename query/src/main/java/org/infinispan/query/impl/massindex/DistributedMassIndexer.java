@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.impl.massindex;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.CacheException;
+import org.infinispan.distexec.DefaultExecutorService;
+import org.infinispan.distexec.DistributedExecutorService;
+import org.infinispan.query.MassIndexer;
+import org.infinispan.query.backend.AsyncIndexingQueue;
+import org.infinispan.query.backend.QueryInterceptor;
+import org.infinispan.query.impl.ComponentRegistryUtils;
+import org.infinispan.util.TypedProperties;
+
+/**
+ * {@link MassIndexer} running an {@link IndexingTask} on every node, each of them indexing the
+ * entries it is the primary owner of.
+ * <p/>
+ * The defaults for the batch size, the number of threads and whether stored entries are indexed
+ * are read from the {@link #BATCH_SIZE}, {@link #THREADS} and {@link #INDEX_STORED_ENTRIES}
+ * indexing properties.
+ *
+ * @since 5.2
+ */
+public class DistributedMassIndexer implements MassIndexer {
+
+   public static final String BATCH_SIZE = "infinispan.query.massindex.batch_size";
+   public static final String THREADS = "infinispan.query.massindex.threads";
+   public static final String INDEX_STORED_ENTRIES = "infinispan.query.massindex.index_stored_entries";
+
+   static final int DEFAULT_BATCH_SIZE = 1000;
+
+   private final AdvancedCache<Object, Object> cache;
+   private final MassIndexingProgress progress;
+   private volatile int batchSize;
+   private volatile int threads;
+   private volatile boolean indexStoredEntries;
+
+   @SuppressWarnings("unchecked")
+   public DistributedMassIndexer(AdvancedCache cache) {
+      this.cache = cache;
+      MassIndexingProgress registered = cache.getComponentRegistry().getComponent(MassIndexingProgress.class);
+      this.progress = registered != null ? registered : new MassIndexingProgress();
+      TypedProperties properties = cache.getCacheConfiguration().indexing().properties();
+      setBatchSize(properties.getIntProperty(BATCH_SIZE, DEFAULT_BATCH_SIZE));
+      setThreads(properties.getIntProperty(THREADS, Runtime.getRuntime().availableProcessors()));
+      setIndexStoredEntries(properties.getBooleanProperty(INDEX_STORED_ENTRIES, false));
+   }
+
+   @Override
+   public void start() {
+      if (progress.isRunning()) {
+         throw new IllegalStateException("Mass indexing of cache " + cache.getName() + " is already running");
+      }
+      wipeExistingIndexes();
+      DistributedExecutorService executor = new DefaultExecutorService(cache);
+      try {
+         List<Future<Long>> results = executor.submitEverywhere(new IndexingTask(batchSize, threads, indexStoredEntries));
+         for (Future<Long> result : results) {
+            result.get();
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Interrupted while rebuilding the indexes", e);
+      } catch (ExecutionException e) {
+         throw new CacheException("Failed to rebuild the indexes", e.getCause());
+      } finally {
+         executor.shutdown();
+      }
+   }
+
+   private void wipeExistingIndexes() {
+      QueryInterceptor queryInterceptor = ComponentRegistryUtils.getQueryInterceptor(cache);
+      queryInterceptor.purgeAllIndexes();
+      AsyncIndexingQueue asyncIndexingQueue = queryInterceptor.getAsyncIndexingQueue();
+      if (asyncIndexingQueue != null) {
+         // The purge has to reach the indexes before the new documents do
+         asyncIndexingQueue.flush();
+      }
+   }
+
+   @Override
+   public int getBatchSize() {
+      return batchSize;
+   }
+
+   @Override
+   public void setBatchSize(int batchSize) {
+      if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+      this.batchSize = batchSize;
+   }
+
+   @Override
+   public int getThreads() {
+      return threads;
+   }
+
+   @Override
+   public void setThreads(int threads) {
+      if (threads <= 0) throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+      this.threads = threads;
+   }
+
+   @Override
+   public boolean isIndexStoredEntries() {
+      return indexStoredEntries;
+   }
+
+   @Override
+   public void setIndexStoredEntries(boolean indexStoredEntries) {
+      this.indexStoredEntries = indexStoredEntries;
+   }
+
+   @Override
+   public boolean isRunning() {
+      return progress.isRunning();
+   }
+
+   @Override
+   public long getIndexedEntries() {
+      return progress.getIndexedEntries();
+   }
+
+   @Override
+   public long getTotalEntries() {
+      return progress.getTotalEntries();
+   }
+
+   @Override
+   public double getThroughput() {
+      return progress.getThroughput();
+   }
+
+   @Override
+   public long getEstimatedTimeRemaining() {
+      return progress.getEstimatedTimeRemaining();
+   }
+
+}
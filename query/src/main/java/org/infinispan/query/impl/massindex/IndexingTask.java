@@ -0,0 +1,442 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.impl.massindex;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.search.backend.AddLuceneWork;
+import org.hibernate.search.backend.LuceneWork;
+import org.hibernate.search.bridge.spi.ConversionContext;
+import org.hibernate.search.bridge.util.impl.ContextualExceptionBridgeHelper;
+import org.hibernate.search.engine.spi.EntityIndexBinder;
+import org.hibernate.search.impl.SimpleInitializer;
+import org.hibernate.search.indexes.spi.IndexManager;
+import org.hibernate.search.spi.SearchFactoryIntegrator;
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distexec.DistributedCallable;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.loaders.BulkCacheLoader;
+import org.infinispan.loaders.CacheLoader;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.marshall.MarshalledValue;
+import org.infinispan.query.backend.KeyTransformationHandler;
+import org.infinispan.query.backend.QueryInterceptor;
+import org.infinispan.query.impl.ComponentRegistryUtils;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.statetransfer.StateTransferManager;
+
+/**
+ * Rebuilds the local node's share of the indexes: the entries held in memory, and optionally
+ * the ones only present in the cache store, whose primary owner is the local node. Stored entries
+ * are read straight from the store, so they are not activated.
+ * <p/>
+ * Entries are handed out to the indexing threads in chunks, and the documents built for each
+ * index are sent to it in batches of <code>batchSize</code>. Stored entries are read in a single
+ * pass, with {@link BulkCacheLoader#visitEntries} when the store supports it, and reach the
+ * indexing threads as they are read.
+ *
+ * @since 5.2
+ */
+public final class IndexingTask implements DistributedCallable<Object, Object, Long>, Serializable {
+
+   private static final long serialVersionUID = -2941874470519128643L;
+
+   private final int batchSize;
+   private final int threads;
+   private final boolean indexStoredEntries;
+
+   private transient AdvancedCache<Object, Object> cache;
+   private transient SearchFactoryIntegrator searchFactory;
+   private transient QueryInterceptor queryInterceptor;
+   private transient KeyTransformationHandler keyTransformationHandler;
+   private transient MassIndexingProgress progress;
+   private transient DefaultMassIndexerProgressMonitor monitor;
+   private transient ConsistentHash consistentHash;
+   private transient BitSet primarySegments;
+
+   public IndexingTask(int batchSize, int threads, boolean indexStoredEntries) {
+      this.batchSize = batchSize;
+      this.threads = threads;
+      this.indexStoredEntries = indexStoredEntries;
+   }
+
+   @Override
+   public void setEnvironment(Cache<Object, Object> cache, Set<Object> inputKeys) {
+      this.cache = cache.getAdvancedCache();
+   }
+
+   @Override
+   public Long call() throws Exception {
+      ComponentRegistry cr = cache.getComponentRegistry();
+      queryInterceptor = ComponentRegistryUtils.getQueryInterceptor(cache);
+      searchFactory = queryInterceptor.getSearchFactory();
+      keyTransformationHandler = queryInterceptor.getKeyTransformationHandler();
+      monitor = new DefaultMassIndexerProgressMonitor(batchSize * 10);
+      progress = cr.getComponent(MassIndexingProgress.class);
+      if (progress == null) {
+         progress = new MassIndexingProgress();
+      }
+      if (!progress.start()) {
+         throw new IllegalStateException("Mass indexing of cache " + cache.getName() + " is already running on this node");
+      }
+      IndexingThreadPool threadPool = cr.getComponent(IndexingThreadPool.class);
+      boolean ownThreadPool = threadPool == null;
+      if (ownThreadPool) {
+         threadPool = new IndexingThreadPool(cache.getName());
+      }
+      try {
+         initOwnership(cr);
+         DataContainer dataContainer = cr.getComponent(DataContainer.class);
+         CacheLoader loader = getCacheLoader(cr);
+         // Stored entries are added to the total as they are read
+         progress.addToTotal(estimateOwnedEntries(dataContainer.size()));
+
+         ExecutorService executor = threadPool.getExecutor(threads);
+         ContainerSource containerSource = new ContainerSource(dataContainer.iterator());
+         awaitWorkers(startWorkers(executor, containerSource));
+         if (loader != null) {
+            indexStoredEntries(executor, loader, dataContainer);
+         }
+         monitor.indexingCompleted();
+         return progress.getIndexedEntries();
+      } finally {
+         if (ownThreadPool) {
+            threadPool.stop();
+         }
+         progress.finish();
+      }
+   }
+
+   private void initOwnership(ComponentRegistry cr) {
+      StateTransferManager stateTransferManager = cr.getComponent(StateTransferManager.class);
+      if (stateTransferManager == null || cache.getRpcManager() == null) {
+         // Local or invalidation cache: everything in memory is ours to index
+         return;
+      }
+      consistentHash = stateTransferManager.getCacheTopology().getReadConsistentHash();
+      Address self = cache.getRpcManager().getAddress();
+      primarySegments = new BitSet(consistentHash.getNumSegments());
+      for (int segment = 0; segment < consistentHash.getNumSegments(); segment++) {
+         if (self.equals(consistentHash.locatePrimaryOwnerForSegment(segment))) {
+            primarySegments.set(segment);
+         }
+      }
+   }
+
+   private boolean isPrimaryOwner(Object key) {
+      return consistentHash == null || primarySegments.get(consistentHash.getSegment(key));
+   }
+
+   private long estimateOwnedEntries(int inMemory) {
+      if (consistentHash == null) return inMemory;
+      int ownedSegments = consistentHash.getSegmentsForOwner(cache.getRpcManager().getAddress()).size();
+      return ownedSegments == 0 ? 0 : (long) inMemory * primarySegments.cardinality() / ownedSegments;
+   }
+
+   private CacheLoader getCacheLoader(ComponentRegistry cr) {
+      if (!indexStoredEntries) return null;
+      CacheLoaderManager loaderManager = cr.getComponent(CacheLoaderManager.class);
+      return loaderManager != null && loaderManager.isEnabled() ? loaderManager.getCacheLoader() : null;
+   }
+
+   /**
+    * Reads the stored entries not held in memory on the calling thread, while the workers index
+    * them.
+    */
+   private void indexStoredEntries(ExecutorService executor, CacheLoader loader, final DataContainer dataContainer) throws Exception {
+      final StoreSource source = new StoreSource(batchSize, threads * 2);
+      List<Future<Void>> futures = startWorkers(executor, source);
+      try {
+         BulkCacheLoader.KeyFilter filter = new BulkCacheLoader.KeyFilter() {
+            @Override
+            public boolean accept(Object key) {
+               // Entries in memory have already been indexed
+               return isPrimaryOwner(key) && !dataContainer.containsKey(key);
+            }
+         };
+         if (loader instanceof BulkCacheLoader) {
+            ((BulkCacheLoader) loader).visitEntries(filter, new BulkCacheLoader.EntryVisitor() {
+               @Override
+               public boolean visit(InternalCacheEntry entry) throws CacheLoaderException {
+                  return !add(source, entry);
+               }
+            });
+         } else {
+            for (InternalCacheEntry entry : loader.loadAll()) {
+               if (filter.accept(entry.getKey()) && !add(source, entry)) break;
+            }
+         }
+         source.finish();
+      } catch (Exception e) {
+         for (Future<Void> future : futures) {
+            future.cancel(true);
+         }
+         throw e;
+      }
+      awaitWorkers(futures);
+   }
+
+   private boolean add(StoreSource source, InternalCacheEntry entry) throws CacheLoaderException {
+      try {
+         return source.add(entry);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheLoaderException("Interrupted while reading the stored entries to index", e);
+      }
+   }
+
+   private List<Future<Void>> startWorkers(ExecutorService executor, EntrySource source) {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>(threads);
+      for (int i = 0; i < threads; i++) {
+         futures.add(executor.submit(new Worker(source)));
+      }
+      return futures;
+   }
+
+   private void awaitWorkers(List<Future<Void>> futures) throws Exception {
+      try {
+         for (Future<Void> future : futures) {
+            future.get();
+         }
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         throw cause instanceof Exception ? (Exception) cause : e;
+      } finally {
+         // The pool outlives the run, so stop the workers left once one of them failed
+         for (Future<Void> future : futures) {
+            future.cancel(true);
+         }
+      }
+   }
+
+   private static Object extractValue(Object wrappedValue) {
+      if (wrappedValue instanceof MarshalledValue)
+         return ((MarshalledValue) wrappedValue).get();
+      else
+         return wrappedValue;
+   }
+
+   /**
+    * Hands out the entries to index, in chunks, to any number of workers.
+    */
+   private abstract static class EntrySource {
+      /**
+       * @return the next entries to index, or an empty list once there are no more
+       */
+      abstract List<Object> nextChunk(int size) throws InterruptedException;
+
+      /**
+       * @return the entry to index, or null if it must be skipped
+       */
+      abstract InternalCacheEntry resolve(Object element);
+
+      /**
+       * Called when a worker fails, so that the source stops waiting for the workers.
+       */
+      void close() {
+      }
+   }
+
+   private final class ContainerSource extends EntrySource {
+      private final Iterator<InternalCacheEntry> iterator;
+
+      ContainerSource(Iterator<InternalCacheEntry> iterator) {
+         this.iterator = iterator;
+      }
+
+      @Override
+      synchronized List<Object> nextChunk(int size) {
+         List<Object> chunk = new ArrayList<Object>(size);
+         while (chunk.size() < size && iterator.hasNext()) {
+            chunk.add(iterator.next());
+         }
+         return chunk;
+      }
+
+      @Override
+      InternalCacheEntry resolve(Object element) {
+         InternalCacheEntry entry = (InternalCacheEntry) element;
+         return isPrimaryOwner(entry.getKey()) ? entry : null;
+      }
+   }
+
+   /**
+    * Passes the stored entries from the thread reading them to the workers, through a bounded queue
+    * of chunks so that the store is read no faster than the entries are indexed.
+    */
+   private final class StoreSource extends EntrySource {
+      private final List<Object> end = Collections.emptyList();
+      private final int chunkSize;
+      private final BlockingQueue<List<Object>> chunks;
+      private List<Object> pending;
+      private volatile boolean closed;
+
+      StoreSource(int chunkSize, int capacity) {
+         this.chunkSize = chunkSize;
+         this.chunks = new ArrayBlockingQueue<List<Object>>(capacity);
+         this.pending = new ArrayList<Object>(chunkSize);
+      }
+
+      /**
+       * @return false if the workers have stopped, and no more entries should be added
+       */
+      boolean add(InternalCacheEntry entry) throws InterruptedException {
+         pending.add(entry);
+         if (pending.size() < chunkSize) return !closed;
+         List<Object> chunk = pending;
+         pending = new ArrayList<Object>(chunkSize);
+         return offer(chunk);
+      }
+
+      void finish() throws InterruptedException {
+         if (!pending.isEmpty()) {
+            offer(pending);
+         }
+         offer(end);
+      }
+
+      private boolean offer(List<Object> chunk) throws InterruptedException {
+         if (chunk != end) progress.addToTotal(chunk.size());
+         while (!closed) {
+            if (chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) return true;
+         }
+         return false;
+      }
+
+      @Override
+      List<Object> nextChunk(int size) throws InterruptedException {
+         List<Object> chunk = chunks.take();
+         if (chunk == end) {
+            // Leave the end marker for the other workers
+            chunks.put(end);
+         }
+         return chunk;
+      }
+
+      @Override
+      InternalCacheEntry resolve(Object element) {
+         return (InternalCacheEntry) element;
+      }
+
+      @Override
+      void close() {
+         closed = true;
+      }
+   }
+
+   private final class Worker implements Callable<Void> {
+      private final EntrySource source;
+      private final ConversionContext conversionContext = new ContextualExceptionBridgeHelper();
+      private final Map<IndexManager, List<LuceneWork>> batches = new HashMap<IndexManager, List<LuceneWork>>();
+
+      Worker(EntrySource source) {
+         this.source = source;
+      }
+
+      @Override
+      public Void call() throws Exception {
+         try {
+            List<Object> chunk;
+            while (!(chunk = source.nextChunk(batchSize)).isEmpty()) {
+               for (Object element : chunk) {
+                  if (Thread.currentThread().isInterrupted()) {
+                     throw new InterruptedException();
+                  }
+                  InternalCacheEntry entry = source.resolve(element);
+                  if (entry != null && !entry.isExpired()) {
+                     index(entry.getKey(), extractValue(entry.getValue()));
+                  }
+               }
+            }
+            for (Map.Entry<IndexManager, List<LuceneWork>> batch : batches.entrySet()) {
+               send(batch.getKey(), batch.getValue());
+            }
+            batches.clear();
+            return null;
+         } catch (Exception e) {
+            source.close();
+            throw e;
+         }
+      }
+
+      @SuppressWarnings("unchecked")
+      private void index(Object key, Object value) {
+         if (!queryInterceptor.updateKnownTypesIfNeeded(value)) {
+            return;
+         }
+         Class clazz = value.getClass();
+         EntityIndexBinder entityIndexBinding = searchFactory.getIndexBindingForEntity(clazz);
+         if (entityIndexBinding == null) {
+            // it might be possible to receive not-indexes types
+            return;
+         }
+         final String idInString = keyTransformationHandler.keyToString(extractValue(key));
+         AddLuceneWork addTask = entityIndexBinding.getDocumentBuilder().createAddWork(
+               clazz,
+               value,
+               idInString,
+               idInString,
+               SimpleInitializer.INSTANCE,
+               conversionContext
+         );
+         IndexManager indexManager = entityIndexBinding.getSelectionStrategy()
+               .getIndexManagerForAddition(clazz, idInString, idInString, addTask.getDocument());
+         List<LuceneWork> batch = batches.get(indexManager);
+         if (batch == null) {
+            batch = new ArrayList<LuceneWork>(batchSize);
+            batches.put(indexManager, batch);
+         }
+         batch.add(addTask);
+         if (batch.size() >= batchSize) {
+            send(indexManager, batch);
+            batches.remove(indexManager);
+         }
+      }
+
+      private void send(IndexManager indexManager, List<LuceneWork> batch) {
+         if (batch.isEmpty()) return;
+         indexManager.performOperations(batch, monitor);
+         progress.entriesIndexed(batch.size());
+      }
+   }
+}
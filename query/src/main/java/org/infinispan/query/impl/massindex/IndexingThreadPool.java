@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.impl.massindex;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The threads indexing the entries of a cache during mass indexing. One instance is registered per
+ * cache and reused by every run; the threads are only kept alive for a short while after a run.
+ *
+ * @since 5.2
+ */
+public class IndexingThreadPool {
+
+   private static final long KEEP_ALIVE_SECONDS = 60;
+
+   private final ThreadPoolExecutor executor;
+
+   public IndexingThreadPool(String cacheName) {
+      executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new IndexingThreadFactory(cacheName));
+      executor.allowCoreThreadTimeOut(true);
+   }
+
+   /**
+    * Returns the pool, grown if needed to run the given number of indexing threads at the same time.
+    */
+   public synchronized ExecutorService getExecutor(int threads) {
+      if (executor.getMaximumPoolSize() < threads) {
+         executor.setMaximumPoolSize(threads);
+         executor.setCorePoolSize(threads);
+      }
+      return executor;
+   }
+
+   public void stop() {
+      executor.shutdownNow();
+   }
+
+   private static final class IndexingThreadFactory implements ThreadFactory {
+      private final String cacheName;
+      private final AtomicInteger threadCounter = new AtomicInteger();
+
+      IndexingThreadFactory(String cacheName) {
+         this.cacheName = cacheName;
+      }
+
+      @Override
+      public Thread newThread(Runnable r) {
+         Thread t = new Thread(r, "MassIndexer-" + cacheName + "-" + threadCounter.incrementAndGet());
+         t.setDaemon(true);
+         return t;
+      }
+   }
+}
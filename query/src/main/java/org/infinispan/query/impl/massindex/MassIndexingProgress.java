@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.impl.massindex;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the mass indexing work performed by the local node. One instance is registered
+ * per cache, so every {@link org.infinispan.query.MassIndexer} of the cache reports the same run.
+ *
+ * @since 5.2
+ */
+public class MassIndexingProgress {
+
+   private final AtomicLong indexed = new AtomicLong();
+   private final AtomicLong total = new AtomicLong();
+   private volatile long startTime;
+   private volatile long endTime;
+   private volatile boolean running;
+
+   /**
+    * Starts tracking a new run.
+    *
+    * @return false if a run is already in progress on this node
+    */
+   public synchronized boolean start() {
+      if (running) return false;
+      indexed.set(0);
+      total.set(0);
+      startTime = System.nanoTime();
+      endTime = 0;
+      running = true;
+      return true;
+   }
+
+   public void addToTotal(long entries) {
+      total.addAndGet(entries);
+   }
+
+   public void entriesIndexed(long entries) {
+      indexed.addAndGet(entries);
+   }
+
+   public synchronized void finish() {
+      endTime = System.nanoTime();
+      // The total is only an estimate until all entries have been seen
+      total.set(indexed.get());
+      running = false;
+   }
+
+   public boolean isRunning() {
+      return running;
+   }
+
+   public long getIndexedEntries() {
+      return indexed.get();
+   }
+
+   public long getTotalEntries() {
+      return Math.max(total.get(), indexed.get());
+   }
+
+   public double getThroughput() {
+      long start = startTime;
+      if (start == 0) return 0;
+      long end = running ? System.nanoTime() : endTime;
+      long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(end - start);
+      return elapsedMillis == 0 ? 0 : indexed.get() * 1000d / elapsedMillis;
+   }
+
+   public long getEstimatedTimeRemaining() {
+      if (!running) return 0;
+      double throughput = getThroughput();
+      if (throughput == 0) return -1;
+      return (long) ((getTotalEntries() - getIndexedEntries()) * 1000 / throughput);
+   }
+}
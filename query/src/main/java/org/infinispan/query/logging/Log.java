@@ -77,4 +77,8 @@ public interface Log extends org.infinispan.util.logging.Log {
    		" overriden to use the Infinispan Directory", id = 14008)
    void ignoreDirectoryProviderProperty(String indexName, String directoryOption);
 
+   @LogMessage(level = ERROR)
+   @Message(value = "Failed to apply a batch of %d queued indexing works", id = 14009)
+   void asyncIndexingFailed(int workCount, @Cause Throwable t);
+
 }
@@ -0,0 +1,140 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.backend;
+
+import org.apache.lucene.queryParser.ParseException;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.query.impl.ComponentRegistryUtils;
+import org.infinispan.query.test.Person;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.infinispan.query.helper.TestQueryHelperFactory.createCacheQuery;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests indexing through the {@link AsyncIndexingQueue}. The flush interval is long enough for the
+ * tests to decide when the queue gets flushed.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "query.backend.AsyncIndexingTest")
+public class AsyncIndexingTest extends SingleCacheManagerTest {
+
+   private AsyncIndexingQueue queue;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder cfg = getDefaultStandaloneCacheConfig(true);
+      cfg.indexing().enable().indexLocalOnly(false)
+            .addProperty("default.directory_provider", "ram")
+            .addProperty("lucene_version", "LUCENE_CURRENT")
+            .addProperty(AsyncIndexingQueue.ASYNC, "true")
+            .addProperty(AsyncIndexingQueue.FLUSH_INTERVAL, "3600000");
+      return TestCacheManagerFactory.createCacheManager(cfg);
+   }
+
+   @BeforeMethod
+   public void clearIndexes() {
+      queue = ComponentRegistryUtils.getQueryInterceptor(cache).getAsyncIndexingQueue();
+      cache.clear();
+      queue.flush();
+   }
+
+   public void testUpdatesAreCoalesced() throws ParseException {
+      long coalesced = queue.getCoalescedWorks();
+      cache.put("k", new Person("Navin", "Eats fruit", 20));
+      cache.put("k", new Person("Navin", "Goes fishing", 21));
+      cache.put("k", new Person("Navin", "Plays chess", 22));
+
+      // Each overwrite queues a delete of the previous value and an update, all for the same document
+      assertEquals(queue.getQueueDepth(), 1);
+      assertEquals(queue.getCoalescedWorks() - coalesced, 4);
+      assertTrue(queue.getIndexingLag() >= 0);
+      assertEquals(createCacheQuery(cache, "blurb", "chess").getResultSize(), 0);
+
+      queue.flush();
+
+      assertEquals(queue.getQueueDepth(), 0);
+      assertEquals(queue.getIndexingLag(), 0);
+      assertEquals(createCacheQuery(cache, "blurb", "chess").getResultSize(), 1);
+      assertEquals(createCacheQuery(cache, "blurb", "fishing").getResultSize(), 0);
+   }
+
+   public void testRemoveSupersedesUpdate() throws ParseException {
+      cache.put("k", new Person("Sanne", "Plays chess", 30));
+      queue.flush();
+      assertEquals(createCacheQuery(cache, "blurb", "chess").getResultSize(), 1);
+
+      cache.put("k", new Person("Sanne", "Plays poker", 30));
+      cache.remove("k");
+      assertEquals(queue.getQueueDepth(), 1);
+      queue.flush();
+
+      assertEquals(createCacheQuery(cache, "blurb", "chess").getResultSize(), 0);
+      assertEquals(createCacheQuery(cache, "blurb", "poker").getResultSize(), 0);
+   }
+
+   public void testWorkIsQueuedOnCommit() throws Exception {
+      tm().begin();
+      cache.put("a", new Person("Mircea", "Plays tennis", 35));
+      cache.put("b", new Person("Manik", "Plays tennis", 33));
+      assertEquals(queue.getQueueDepth(), 0);
+      tm().commit();
+
+      assertEquals(queue.getQueueDepth(), 2);
+      queue.flush();
+      assertEquals(createCacheQuery(cache, "blurb", "tennis").getResultSize(), 2);
+   }
+
+   public void testWorkIsDroppedOnRollback() throws Exception {
+      tm().begin();
+      cache.put("a", new Person("Mircea", "Plays golf", 35));
+      tm().rollback();
+
+      assertEquals(queue.getQueueDepth(), 0);
+      queue.flush();
+      assertEquals(createCacheQuery(cache, "blurb", "golf").getResultSize(), 0);
+   }
+
+   public void testStopFlushesPendingWork() throws ParseException {
+      cache.put("k", new Person("Galder", "Plays football", 32));
+      assertEquals(queue.getQueueDepth(), 1);
+      queue.stop();
+      try {
+         assertEquals(queue.getQueueDepth(), 0);
+         assertEquals(createCacheQuery(cache, "blurb", "football").getResultSize(), 1);
+
+         // Once stopped, work is applied right away
+         cache.put("j", new Person("Galder", "Plays football", 32));
+         assertEquals(queue.getQueueDepth(), 0);
+         assertEquals(createCacheQuery(cache, "blurb", "football").getResultSize(), 2);
+      } finally {
+         queue.start();
+      }
+   }
+}
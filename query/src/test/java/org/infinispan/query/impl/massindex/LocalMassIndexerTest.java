@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.impl.massindex;
+
+import org.apache.lucene.queryParser.ParseException;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.query.MassIndexer;
+import org.infinispan.query.Search;
+import org.infinispan.query.test.Person;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import static org.infinispan.query.helper.TestQueryHelperFactory.createCacheQuery;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Tests the {@link DistributedMassIndexer} on a local cache with a passivating cache store.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "query.impl.massindex.LocalMassIndexerTest")
+public class LocalMassIndexerTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder cfg = new ConfigurationBuilder();
+      cfg.loaders()
+            .passivation(true)
+            .addStore()
+            .cacheStore(new DummyInMemoryCacheStore())
+            .purgeOnStartup(true)
+         .indexing()
+            .enable()
+            .addProperty("default.directory_provider", "ram")
+            .addProperty("lucene_version", "LUCENE_CURRENT")
+            .addProperty(DistributedMassIndexer.BATCH_SIZE, "2");
+      return TestCacheManagerFactory.createCacheManager(cfg);
+   }
+
+   public void testRebuildIndexes() throws ParseException {
+      for (int i = 0; i < 5; i++) {
+         cache.getAdvancedCache().withFlags(Flag.SKIP_INDEXING)
+               .put("k" + i, new Person("Person" + i, "Plays chess", i));
+      }
+      cache.evict("k4");
+      assertEquals(createCacheQuery(cache, "blurb", "chess").getResultSize(), 0);
+
+      MassIndexer massIndexer = Search.getSearchManager(cache).getMassIndexer();
+      assertEquals(massIndexer.getBatchSize(), 2);
+      massIndexer.setThreads(3);
+      massIndexer.start();
+
+      // The passivated entry is only indexed on request
+      assertEquals(createCacheQuery(cache, "blurb", "chess").getResultSize(), 4);
+      assertFalse(massIndexer.isRunning());
+      assertEquals(massIndexer.getIndexedEntries(), 4);
+      assertEquals(massIndexer.getTotalEntries(), 4);
+      assertEquals(massIndexer.getEstimatedTimeRemaining(), 0);
+
+      massIndexer.setIndexStoredEntries(true);
+      massIndexer.start();
+
+      assertEquals(createCacheQuery(cache, "blurb", "chess").getResultSize(), 5);
+      assertEquals(massIndexer.getIndexedEntries(), 5);
+      assertNull(cache.getAdvancedCache().getDataContainer().get("k4"), "Stored entry should not be activated");
+   }
+}
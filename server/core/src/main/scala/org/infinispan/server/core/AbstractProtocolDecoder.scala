@@ -172,8 +172,9 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
          if (response != null) {
             if (isTrace) trace("Write response %s", response)
             response match {
-               // We only expect Lists of ChannelBuffer instances, so don't worry about type erasure
-               case l: List[ChannelBuffer] => l.foreach(ch.write(_))
+               // We only expect Lists of ChannelBuffer instances, so don't worry about type erasure.
+               // Write them as a single gathering buffer so that they go out in one write without being copied
+               case l: List[ChannelBuffer] => ch.write(ChannelBuffers.wrappedBuffer(true, l: _*))
                case a: Array[Byte] => ch.write(wrappedBuffer(a))
                case cs: CharSequence => ch.write(ChannelBuffers.copiedBuffer(cs, CharsetUtil.UTF_8))
                case _ => ch.write(response)
@@ -368,14 +369,7 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
     * Otherwise it's just considered number of seconds from
     * now and it's returned in milliseconds unit.
     */
-   protected def toMillis(lifespan: Int): Long = {
-      if (lifespan > SecondsInAMonth) {
-         val unixTimeExpiry = TimeUnit.SECONDS.toMillis(lifespan) - System.currentTimeMillis
-         if (unixTimeExpiry < 0) 0 else unixTimeExpiry
-      } else {
-         TimeUnit.SECONDS.toMillis(lifespan)
-      }
-   }
+   protected def toMillis(lifespan: Int): Long = AbstractProtocolDecoder.toMillis(lifespan)
 
    override def writeComplete(ctx: ChannelHandlerContext, e: WriteCompletionEvent) {
       transport.updateTotalBytesWritten(e)
@@ -392,6 +386,15 @@ abstract class AbstractProtocolDecoder[K, V <: CacheValue](transport: NettyTrans
 object AbstractProtocolDecoder extends Log {
    private val SecondsInAMonth = 60 * 60 * 24 * 30
    private val DefaultTimeUnit = TimeUnit.MILLISECONDS
+
+   def toMillis(lifespan: Int): Long = {
+      if (lifespan > SecondsInAMonth) {
+         val unixTimeExpiry = TimeUnit.SECONDS.toMillis(lifespan) - System.currentTimeMillis
+         if (unixTimeExpiry < 0) 0 else unixTimeExpiry
+      } else {
+         TimeUnit.SECONDS.toMillis(lifespan)
+      }
+   }
 }
 
 class RequestHeader {
@@ -39,8 +39,10 @@ object ExtendedChannelBuffer {
    def readRangedBytes(bf: ChannelBuffer): Array[Byte] = {
       val length = readUnsignedInt(bf)
       if (length > 0) {
+         // Slice first so that a replaying decoder gives up before allocating if the bytes have not arrived yet
+         val slice = bf.readSlice(length)
          val array = new Array[Byte](length)
-         bf.readBytes(array)
+         slice.getBytes(0, array)
          array;
       } else {
          Array[Byte]()
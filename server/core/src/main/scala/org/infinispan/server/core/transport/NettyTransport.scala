@@ -171,7 +171,7 @@ class NettyTransport(server: ProtocolServer, encoder: ChannelDownstreamHandler,
          getNumberOfLocalConnections
    }
 
-   private[core] def updateTotalBytesWritten(e: WriteCompletionEvent) {
+   private[server] def updateTotalBytesWritten(e: WriteCompletionEvent) {
       if (isGlobalStatsEnabled)
          incrementTotalBytesWritten(totalBytesWritten, e)
    }
@@ -181,7 +181,7 @@ class NettyTransport(server: ProtocolServer, encoder: ChannelDownstreamHandler,
          base.addAndGet(e.getWrittenAmount)
    }
 
-   private[core] def updateTotalBytesRead(e: MessageEvent) {
+   private[server] def updateTotalBytesRead(e: MessageEvent) {
       if (isGlobalStatsEnabled)
          incrementTotalBytesRead(totalBytesRead, e)
    }
@@ -0,0 +1,90 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.infinispan.server.core.transport
+
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
+import ExtendedChannelBuffer._
+
+/**
+ * Accumulates a response made of small fields, which are copied into a buffer, and large byte arrays, such as cached
+ * values, which are wrapped rather than copied. The resulting buffer is a gathering composite, so Netty writes the
+ * wrapped arrays straight to the socket and a get of a large value does not allocate or copy anything proportional
+ * to the size of the value.
+ *
+ * Fields must always be written to the buffer returned by `buffer`, since it changes every time a large array is
+ * appended.
+ *
+ * @since 5.2
+ */
+class ResponseBuffer(initial: ChannelBuffer) {
+
+   import ResponseBuffer._
+
+   private var parts: List[ChannelBuffer] = Nil
+   private var current = initial
+
+   def this() = this(dynamicBuffer)
+
+   /**
+    * Buffer to write small fields to.
+    */
+   def buffer: ChannelBuffer = current
+
+   def writeBytes(src: Array[Byte]) {
+      if (isCopied(src.length)) {
+         current.writeBytes(src)
+      } else {
+         parts = ChannelBuffers.wrappedBuffer(src) :: current :: parts
+         current = dynamicBuffer
+      }
+   }
+
+   def writeRangedBytes(src: Array[Byte]) {
+      writeUnsignedInt(src.length, current)
+      writeBytes(src)
+   }
+
+   /**
+    * Returns the buffer to write to the channel. No further writes should be done once this has been called.
+    */
+   def toChannelBuffer: ChannelBuffer =
+      if (parts.isEmpty) current
+      else ChannelBuffers.wrappedBuffer(true, (current :: parts).reverse: _*)
+
+}
+
+object ResponseBuffer {
+
+   /**
+    * Arrays smaller than this are copied, since writing them as separate components costs more than the copy.
+    */
+   val ZeroCopyThreshold = 1024
+
+   /**
+    * Whether an array of the given length is copied into the buffer rather than wrapped. Callers sizing a fixed
+    * capacity buffer use this to know whether to reserve space for the array.
+    */
+   def isCopied(length: Int): Boolean = length < ZeroCopyThreshold
+
+}
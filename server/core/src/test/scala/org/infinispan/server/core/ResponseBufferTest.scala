@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.core
+
+import org.testng.annotations.Test
+import org.testng.Assert._
+import org.jboss.netty.buffer.CompositeChannelBuffer
+import transport.ResponseBuffer
+import transport.ExtendedChannelBuffer._
+
+/**
+ * Tests that responses built with a ResponseBuffer contain the same bytes as a plain copied buffer while avoiding
+ * copies of large arrays.
+ *
+ * @since 5.2
+ */
+@Test(groups = Array("functional"), testName = "server.core.ResponseBufferTest")
+class ResponseBufferTest {
+
+   def testSmallArraysAreCopied() {
+      val out = new ResponseBuffer
+      out.buffer.writeByte(1)
+      out.writeRangedBytes(Array[Byte](2, 3, 4))
+      out.buffer.writeByte(5)
+      val buf = out.toChannelBuffer
+      assertFalse(buf.isInstanceOf[CompositeChannelBuffer])
+      assertEquals(buf.readByte, 1.toByte)
+      assertEquals(readRangedBytes(buf).toSeq, Seq[Byte](2, 3, 4))
+      assertEquals(buf.readByte, 5.toByte)
+      assertFalse(buf.readable)
+   }
+
+   def testLargeArraysAreWrapped() {
+      val large = new Array[Byte](ResponseBuffer.ZeroCopyThreshold * 4)
+      large(0) = 7
+      large(large.length - 1) = 8
+      val out = new ResponseBuffer
+      out.buffer.writeByte(1)
+      out.writeRangedBytes(large)
+      out.buffer.writeByte(2)
+      out.writeRangedBytes(large)
+      val buf = out.toChannelBuffer
+      assertTrue(buf.isInstanceOf[CompositeChannelBuffer])
+      assertTrue(buf.asInstanceOf[CompositeChannelBuffer].useGathering)
+      assertEquals(buf.readByte, 1.toByte)
+      assertEquals(readRangedBytes(buf).toSeq, large.toSeq)
+      assertEquals(buf.readByte, 2.toByte)
+      assertEquals(readRangedBytes(buf).toSeq, large.toSeq)
+      assertFalse(buf.readable)
+      // The array is written straight from the cached instance
+      large(1) = 9
+      assertEquals(buf.getByte(buf.readerIndex - large.length + 1), 9.toByte)
+   }
+
+}
@@ -29,6 +29,7 @@ import collection.JavaConversions._
 import OperationStatus._
 import org.infinispan.util.ByteArrayKey
 import org.infinispan.server.core.CacheValue
+import org.infinispan.server.core.transport.ResponseBuffer
 import org.infinispan.configuration.cache.Configuration
 import org.infinispan.distribution.ch.DefaultConsistentHash
 import collection.mutable.ArrayBuffer
@@ -67,13 +68,15 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
    }
 
    override def writeResponse(r: Response, buf: ChannelBuffer,
-           cacheManager: EmbeddedCacheManager, server: HotRodServer) {
+           cacheManager: EmbeddedCacheManager, server: HotRodServer): ChannelBuffer = {
+      // Values are appended without copying them, so fields following a value must go to out.buffer
+      val out = new ResponseBuffer(buf)
       r match {
          case r: ResponseWithPrevious => {
             if (r.previous == None)
                writeUnsignedInt(0, buf)
             else
-               writeRangedBytes(r.previous.get, buf)
+               out.writeRangedBytes(r.previous.get)
          }
          case s: StatsResponse => {
             writeUnsignedInt(s.stats.size, buf)
@@ -85,7 +88,7 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
          case g: GetWithVersionResponse => {
             if (g.status == Success) {
                buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
+               out.writeRangedBytes(g.data.get)
             }
          }
          case g: GetWithMetadataResponse => {
@@ -101,7 +104,40 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                   writeUnsignedInt(g.maxIdle, buf)
                }
                buf.writeLong(g.dataVersion)
-               writeRangedBytes(g.data.get, buf)
+               out.writeRangedBytes(g.data.get)
+            }
+         }
+         case g: BulkGetResponse if g.operation == OperationResponse.BulkGetWithMetadataResponse => {
+            log.trace("About to respond to bulk get with metadata request")
+            if (g.status == Success) {
+               val cache: Cache[ByteArrayKey, CacheValue] =
+                  server.getCacheInstance(g.cacheName, cacheManager, false)
+               val now = System.currentTimeMillis
+               var iterator = asScalaIterator(cache.getAdvancedCache.getDataContainer.iterator)
+                     .filter(ice => !ice.isExpired(now))
+               if (g.count != 0) {
+                  trace("About to write (max) %d messages to the client", g.count)
+                  iterator = iterator.take(g.count)
+               }
+               for (ice <- iterator) {
+                  val v = ice.getValue.asInstanceOf[CacheValue]
+                  val lifespan = if (ice.getLifespan < 0) -1 else (ice.getLifespan / 1000).toInt
+                  val maxIdle = if (ice.getMaxIdle < 0) -1 else (ice.getMaxIdle / 1000).toInt
+                  out.buffer.writeByte(1) // Not done
+                  writeRangedBytes(ice.getKey.asInstanceOf[ByteArrayKey].getData, out.buffer)
+                  out.buffer.writeByte((if (lifespan < 0) INFINITE_LIFESPAN else 0) + (if (maxIdle < 0) INFINITE_MAXIDLE else 0))
+                  if (lifespan >= 0) {
+                     out.buffer.writeLong(ice.getCreated)
+                     writeUnsignedInt(lifespan, out.buffer)
+                  }
+                  if (maxIdle >= 0) {
+                     out.buffer.writeLong(ice.getLastUsed)
+                     writeUnsignedInt(maxIdle, out.buffer)
+                  }
+                  out.buffer.writeLong(v.version)
+                  out.writeRangedBytes(v.data)
+               }
+               out.buffer.writeByte(0) // Done
             }
          }
          case g: BulkGetResponse => {
@@ -115,19 +151,30 @@ abstract class AbstractEncoder1x extends AbstractVersionedEncoder with Constants
                   iterator = iterator.take(g.count)
                }
                for (entry <- iterator) {
-                  buf.writeByte(1) // Not done
-                  writeRangedBytes(entry.getKey.getData, buf)
-                  writeRangedBytes(entry.getValue.data, buf)
+                  out.buffer.writeByte(1) // Not done
+                  writeRangedBytes(entry.getKey.getData, out.buffer)
+                  out.writeRangedBytes(entry.getValue.data)
+               }
+               out.buffer.writeByte(0) // Done
+            }
+         }
+         case g: GetAllResponse => {
+            if (g.status == Success) {
+               for (entry <- g.entries.entrySet) {
+                  out.buffer.writeByte(1) // Not done
+                  writeRangedBytes(entry.getKey.getData, out.buffer)
+                  out.writeRangedBytes(entry.getValue.data)
                }
-               buf.writeByte(0) // Done
+               out.buffer.writeByte(0) // Done
             }
          }
          case g: GetResponse =>
-            if (g.status == Success) writeRangedBytes(g.data.get, buf)
+            if (g.status == Success) out.writeRangedBytes(g.data.get)
          case e: ErrorResponse => writeString(e.msg, buf)
          case _ => if (buf == null)
             throw new IllegalArgumentException("Response received is unknown: " + r);
       }
+      out.toChannelBuffer
    }
 
    def getTopologyResponse(r: Response, addressCache: Cache[Address, ServerAddress],
@@ -40,8 +40,10 @@ abstract class AbstractVersionedEncoder {
          addressCache: Cache[Address, ServerAddress], server: HotRodServer)
 
    /**
-    * Write operation response using the given channel buffer
+    * Write operation response using the given channel buffer, returning the buffer to write to the channel. This might
+    * not be the given buffer if large values have been appended without copying them.
     */
-   def writeResponse(r: Response, buf: ChannelBuffer, cacheManager: EmbeddedCacheManager, server: HotRodServer)
+   def writeResponse(r: Response, buf: ChannelBuffer, cacheManager: EmbeddedCacheManager,
+         server: HotRodServer): ChannelBuffer
 
 }
@@ -31,6 +31,7 @@ import org.infinispan.stats.Stats
 import org.infinispan.server.core._
 import collection.mutable
 import collection.immutable
+import collection.JavaConversions._
 import org.infinispan.util.concurrent.TimeoutException
 import java.io.IOException
 import org.infinispan.context.Flag.IGNORE_RETURN_VALUES
@@ -75,6 +76,10 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case 0x17 => (PingRequest, true)
          case 0x19 => (BulkGetRequest, false)
          case 0x1B => (GetWithMetadataRequest, false)
+         case 0x1D => (GetAllRequest, false)
+         case 0x1F => (PutAllRequest, false)
+         case 0x21 => (RemoveAllRequest, false)
+         case 0x23 => (BulkGetWithMetadataRequest, false)
          case _ => throw new HotRodUnknownOperationException(
                "Unknown operation: " + streamOp, version, messageId)
       }
@@ -109,6 +114,22 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
 
    private def readKey(buffer: ChannelBuffer): ByteArrayKey = new ByteArrayKey(readRangedBytes(buffer))
 
+   private def readKeys(buffer: ChannelBuffer): java.util.Set[ByteArrayKey] = {
+      val count = readUnsignedInt(buffer)
+      val keys = new HashSet[ByteArrayKey](count)
+      for (i <- 0 until count) keys.add(readKey(buffer))
+      keys
+   }
+
+   override def readEntries(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, Seq[(ByteArrayKey, Array[Byte])]) = {
+      val lifespan = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultLifespan))
+      val maxIdle = readLifespanOrMaxIdle(buffer, hasFlag(header, ProtocolFlag.DefaultMaxIdle))
+      val count = readUnsignedInt(buffer)
+      val entries = new mutable.ArrayBuffer[(ByteArrayKey, Array[Byte])](count)
+      for (i <- 0 until count) entries += ((readKey(buffer), readRangedBytes(buffer)))
+      (new RequestParameters(-1, lifespan, maxIdle, -1), entries)
+   }
+
    override def readParameters(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, Boolean) = {
       header.op match {
          case RemoveRequest => (null, true)
@@ -229,10 +250,29 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
             new BulkGetResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
                                 BulkGetResponse, Success, h.topologyId, count)
          }
+         case BulkGetWithMetadataRequest => {
+            val count = readUnsignedInt(buffer)
+            if (isTrace) trace("About to create bulk get with metadata response, count = %d", count)
+            new BulkGetResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                                BulkGetWithMetadataResponse, Success, h.topologyId, count)
+         }
          case GetWithMetadataRequest => {
             val k = readKey(buffer)
             getKeyMetadata(h, k, cache)
          }
+         case GetAllRequest => {
+            val keys = readKeys(buffer)
+            if (isTrace) trace("About to create get all response for %d keys", keys.size)
+            new GetAllResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                               GetAllResponse, Success, h.topologyId, cache.getAll(keys))
+         }
+         case RemoveAllRequest => {
+            val keys = readKeys(buffer)
+            val c = getOptimizedCache(h, cache)
+            for (k <- keys) c.remove(k)
+            new Response(h.version, h.messageId, h.cacheName, h.clientIntel,
+                         RemoveAllResponse, Success, h.topologyId)
+         }
       }
    }
 
@@ -310,6 +350,10 @@ object Decoder10 extends AbstractVersionedDecoder with ServerConstants with Log
          case PingRequest => PingResponse
          case BulkGetRequest => BulkGetResponse
          case GetWithMetadataRequest => GetWithMetadataResponse
+         case GetAllRequest => GetAllResponse
+         case PutAllRequest => PutAllResponse
+         case RemoveAllRequest => RemoveAllResponse
+         case BulkGetWithMetadataRequest => BulkGetWithMetadataResponse
       }
    }
 
@@ -331,6 +375,10 @@ object OperationResponse extends Enumeration {
    val PingResponse = Value(0x18)
    val BulkGetResponse = Value(0x1A)
    val GetWithMetadataResponse = Value(0x1C)
+   val GetAllResponse = Value(0x1E)
+   val PutAllResponse = Value(0x20)
+   val RemoveAllResponse = Value(0x22)
+   val BulkGetWithMetadataResponse = Value(0x24)
    val ErrorResponse = Value(0x50)
 }
 
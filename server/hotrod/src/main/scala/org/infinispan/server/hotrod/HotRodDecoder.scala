@@ -35,6 +35,7 @@ import java.io.{IOException, StreamCorruptedException}
 import org.jboss.netty.buffer.ChannelBuffer
 import org.jboss.netty.channel.Channel
 import java.lang.StringBuilder
+import java.util.concurrent.TimeUnit
 
 /**
  * Top level Hot Rod decoder that after figuring out the version, delegates the rest of the reading to the
@@ -156,8 +157,29 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
    override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
 
-   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadKey(header, buffer, cache))
+   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case HotRodOperation.PutAllRequest => writeResponse(ch, putAll(buffer))
+         case _ => writeResponse(ch, header.decoder.customReadKey(header, buffer, cache))
+      }
+   }
+
+   private def putAll(buffer: ChannelBuffer): AnyRef = {
+      val (parameters, entries) = header.decoder.readEntries(header, buffer)
+      val map = new java.util.HashMap[ByteArrayKey, CacheValue](entries.size)
+      for ((k, v) <- entries) map.put(k, header.decoder.createValue(parameters, generateVersion(cache), v))
+      // Get an optimised cache in case we can make the operation more efficient
+      val c = getOptimizedCache(cache)
+      (parameters.lifespan, parameters.maxIdle) match {
+         case (EXPIRATION_DEFAULT, EXPIRATION_DEFAULT) => c.putAll(map)
+         case (_, EXPIRATION_DEFAULT) => c.putAll(map, toMillis(parameters.lifespan), TimeUnit.MILLISECONDS)
+         case (_, _) => c.putAll(map,
+               toMillis(parameters.lifespan), TimeUnit.MILLISECONDS,
+               toMillis(parameters.maxIdle), TimeUnit.MILLISECONDS)
+      }
+      new Response(header.version, header.messageId, header.cacheName, header.clientIntel,
+                   OperationResponse.PutAllResponse, Success, header.topologyId)
+   }
 
    override protected def customDecodeValue(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadValue(header, buffer, cache))
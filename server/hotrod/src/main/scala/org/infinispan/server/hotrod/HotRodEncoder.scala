@@ -66,12 +66,12 @@ class HotRodEncoder(cacheManager: EmbeddedCacheManager, server: HotRodServer)
          case 0 => encoder.writeHeader(r, buf, null, null)
       }
 
-      encoder.writeResponse(r, buf, cacheManager, server)
+      val out = encoder.writeResponse(r, buf, cacheManager, server)
       if (isTrace)
          trace("Write buffer contents %s to channel %s",
-            Util.hexDump(buf.toByteBuffer), ctx.getChannel)
+            Util.hexDump(out.toByteBuffer), ctx.getChannel)
 
-      buf
+      out
    }
 
 }
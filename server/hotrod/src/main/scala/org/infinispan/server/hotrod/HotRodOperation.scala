@@ -38,4 +38,8 @@ object HotRodOperation extends Enumeration(20) {
    val PingRequest = Value
    val BulkGetRequest = Value
    val GetWithMetadataRequest = Value
+   val GetAllRequest = Value
+   val PutAllRequest = Value
+   val RemoveAllRequest = Value
+   val BulkGetWithMetadataRequest = Value
 }
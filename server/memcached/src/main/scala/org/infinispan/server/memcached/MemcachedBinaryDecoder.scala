@@ -0,0 +1,471 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import logging.Log
+import java.util.concurrent.{TimeUnit, ScheduledExecutorService}
+import org.infinispan.{AdvancedCache, Version, Cache}
+import java.io.StreamCorruptedException
+import org.infinispan.context.Flag
+import org.infinispan.server.core.transport.{ResponseBuffer, NettyTransport}
+import org.infinispan.server.core.AbstractProtocolDecoder
+import org.infinispan.server.memcached.TextProtocolUtil._
+import org.infinispan.util.ClusterIdGenerator
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
+import org.jboss.netty.channel._
+import org.jboss.netty.handler.codec.frame.FrameDecoder
+
+/**
+ * Decoder for the memcached binary protocol.
+ *
+ * Unlike the text protocol, every binary request carries its total length in a fixed size header, so requests are
+ * only decoded once they have been fully received and never need to be re-parsed. All the requests received in a
+ * single read are processed in one go and their responses are sent back with a single write, which makes pipelined
+ * batches of quiet commands (i.e. multi-gets sent as a series of getkq followed by a noop) cheap to serve: quiet
+ * commands only produce a response on a hit or on an error.
+ *
+ * @since 5.2
+ */
+class MemcachedBinaryDecoder(cache: Cache[String, MemcachedValue], scheduler: ScheduledExecutorService,
+                             transport: NettyTransport, versionGenerator: ClusterIdGenerator, maxBodyLength: Long)
+      extends FrameDecoder with Log {
+
+   import MemcachedBinaryDecoder._
+
+   private val isTrace = isTraceEnabled
+
+   /**
+    * Bytes of the body of a rejected request that have not been received yet, and must be dropped as they arrive.
+    */
+   private var bytesToDiscard = 0L
+
+   override protected def decode(ctx: ChannelHandlerContext, ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      var out: ResponseBuffer = null
+      var quit = false
+      var more = true
+      while (!quit && more) {
+         if (bytesToDiscard > 0) {
+            val discarded = math.min(bytesToDiscard, buffer.readableBytes).toInt
+            buffer.skipBytes(discarded)
+            bytesToDiscard -= discarded
+            more = bytesToDiscard == 0
+         } else if (buffer.readableBytes < HeaderLength) {
+            more = false
+         } else if (bodyLength(buffer) > maxBodyLength) {
+            // Reject the request before its body is buffered, rather than holding up to 4GB for it
+            if (out == null) out = new ResponseBuffer
+            reject(buffer, out, ValueTooLarge, "Too large.")
+         } else if (!hasValidLengths(buffer)) {
+            // The key and extras must fit in the body, or the value length computed from them would be negative
+            if (out == null) out = new ResponseBuffer
+            reject(buffer, out, InvalidArguments, "Invalid arguments.")
+         } else if (isRequestComplete(buffer)) {
+            if (out == null) out = new ResponseBuffer
+            quit = process(ch, buffer, out)
+         } else {
+            more = false
+         }
+      }
+      val response = if (out != null) out.toChannelBuffer else null
+      if (response != null && response.readable) {
+         val future = ch.write(response)
+         if (quit) future.addListener(ChannelFutureListener.CLOSE)
+      } else if (quit) {
+         ch.close
+      }
+      null
+   }
+
+   /**
+    * Returns the body length of the request whose header has been received.
+    */
+   private def bodyLength(buffer: ChannelBuffer): Long = {
+      val start = buffer.readerIndex
+      val magic = buffer.getUnsignedByte(start)
+      if (magic != RequestMagic)
+         throw new StreamCorruptedException("Invalid memcached binary request magic: " + Integer.toHexString(magic))
+      buffer.getInt(start + 8) & 0xFFFFFFFFL
+   }
+
+   private def hasValidLengths(buffer: ChannelBuffer): Boolean = {
+      val start = buffer.readerIndex
+      val keyLength = buffer.getUnsignedShort(start + 2)
+      val extrasLength = buffer.getUnsignedByte(start + 4)
+      keyLength + extrasLength <= bodyLength(buffer)
+   }
+
+   private def isRequestComplete(buffer: ChannelBuffer): Boolean =
+      buffer.readableBytes >= HeaderLength + bodyLength(buffer)
+
+   /**
+    * Answers a request that cannot be processed with the given error status, and skips its body.
+    */
+   private def reject(buffer: ChannelBuffer, out: ResponseBuffer, status: Int, message: String) {
+      val start = buffer.readerIndex
+      val opcode = buffer.getUnsignedByte(start + 1)
+      val opaque = buffer.getInt(start + 12)
+      bytesToDiscard = bodyLength(buffer)
+      buffer.skipBytes(HeaderLength)
+      val req = new BinaryRequest(opcode, opaque, 0, ChannelBuffers.EMPTY_BUFFER, Array.empty, Array.empty)
+      if (isTrace) trace("Rejecting memcached binary request with a %d bytes body and status %d: %s", bytesToDiscard, status, req)
+      writeError(out, req, status, message)
+   }
+
+   /**
+    * Processes a fully received request, appending its response, if any, to the given buffer. Returns true if the
+    * connection must be closed.
+    */
+   private def process(ch: Channel, buffer: ChannelBuffer, out: ResponseBuffer): Boolean = {
+      buffer.skipBytes(1) // magic
+      val opcode = buffer.readUnsignedByte
+      val keyLength = buffer.readUnsignedShort
+      val extrasLength = buffer.readUnsignedByte
+      buffer.skipBytes(3) // data type and vbucket id
+      val bodyLength = buffer.readInt
+      val opaque = buffer.readInt
+      val cas = buffer.readLong
+      val extras = buffer.readSlice(extrasLength)
+      val key = new Array[Byte](keyLength)
+      buffer.readBytes(key)
+      val value = new Array[Byte](bodyLength - keyLength - extrasLength)
+      buffer.readBytes(value)
+      val req = new BinaryRequest(opcode, opaque, cas, extras, key, value)
+      if (isTrace) trace("Memcached binary request: %s", req)
+      try {
+         opcode match {
+            case GET | GETQ | GETK | GETKQ => get(req, out)
+            case SET | SETQ | ADD | ADDQ | REPLACE | REPLACEQ => store(req, out)
+            case DELETE | DELETEQ => delete(req, out)
+            case INCREMENT | INCREMENTQ | DECREMENT | DECREMENTQ => incrDecr(req, out)
+            case APPEND | APPENDQ | PREPEND | PREPENDQ => appendPrepend(req, out)
+            case FLUSH | FLUSHQ => flush(req, out)
+            case NOOP => writeResponse(out, req, NoError)
+            case VERSION => writeResponse(out, req, NoError, value = Version.VERSION.getBytes(CHARSET))
+            case STAT => stats(req, out)
+            case QUIT | QUITQ => {
+               if (!req.isQuiet) writeResponse(out, req, NoError)
+               return true
+            }
+            case _ => writeError(out, req, UnknownCommand, "Unknown command")
+         }
+      } catch {
+         case e: NumberFormatException => writeError(out, req, NonNumericValue, "Non-numeric server-side value for incr or decr")
+         case e: Exception => {
+            logExceptionReported(e)
+            writeError(out, req, InternalError, String.valueOf(e.getMessage))
+         }
+      }
+      false
+   }
+
+   private def get(req: BinaryRequest, out: ResponseBuffer) {
+      val v = cache.get(req.keyString)
+      if (v != null) {
+         val withKey = req.opcode == GETK || req.opcode == GETKQ
+         writeHeader(out, req.opcode, if (withKey) req.key.length else 0, 4, NoError,
+                     4 + (if (withKey) req.key.length else 0) + v.data.length, req.opaque, v.version)
+         out.buffer.writeInt(v.flags.toInt)
+         if (withKey) out.buffer.writeBytes(req.key)
+         out.writeBytes(v.data)
+      } else if (!req.isQuiet) {
+         writeError(out, req, KeyNotFound, "Not found")
+      }
+   }
+
+   private def store(req: BinaryRequest, out: ResponseBuffer) {
+      val flags = req.extras.readUnsignedInt
+      val expiration = req.extras.readInt
+      val k = req.keyString
+      val next = new MemcachedValue(req.value, generateVersion, flags)
+      val status =
+         if (req.cas != 0) {
+            // Compare and swap, only allowed for existing entries
+            val prev = cache.get(k)
+            if (prev == null) {
+               KeyNotFound
+            } else if (prev.version != req.cas) {
+               KeyExists
+            } else {
+               if (replace(k, prev, next, expiration)) NoError else KeyExists
+            }
+         } else {
+            req.opcode match {
+               case SET | SETQ => {
+                  put(k, next, expiration)
+                  NoError
+               }
+               case ADD | ADDQ => if (putIfAbsent(k, next, expiration) == null) NoError else KeyExists
+               case REPLACE | REPLACEQ => if (replace(k, next, expiration) != null) NoError else KeyNotFound
+            }
+         }
+      if (status == NoError) {
+         if (!req.isQuiet) writeResponse(out, req, NoError, cas = next.version)
+      } else {
+         writeError(out, req, status, if (status == KeyNotFound) "Not found" else "Data exists for key.")
+      }
+   }
+
+   private def delete(req: BinaryRequest, out: ResponseBuffer) {
+      val k = req.keyString
+      val status =
+         if (req.cas != 0) {
+            val prev = cache.get(k)
+            if (prev == null) KeyNotFound
+            else if (prev.version != req.cas) KeyExists
+            else if (cache.remove(k, prev)) NoError
+            else KeyExists
+         } else {
+            if (cache.remove(k) != null) NoError else KeyNotFound
+         }
+      if (status == NoError) {
+         if (!req.isQuiet) writeResponse(out, req, NoError)
+      } else {
+         writeError(out, req, status, if (status == KeyNotFound) "Not found" else "Data exists for key.")
+      }
+   }
+
+   private def incrDecr(req: BinaryRequest, out: ResponseBuffer) {
+      val delta = toUnsigned(req.extras.readLong)
+      val initial = req.extras.readLong
+      val expiration = req.extras.readInt
+      val k = req.keyString
+      val isIncrement = req.opcode == INCREMENT || req.opcode == INCREMENTQ
+      var result: MemcachedValue = null
+      var missing = false
+      // Retry until the counter is updated without interference from concurrent modifications
+      while (result == null && !missing) {
+         val prev = cache.get(k)
+         if (prev == null) {
+            if (expiration == NoAutoCreate) {
+               missing = true
+            } else {
+               val created = new MemcachedValue(toUnsigned(initial).toString.getBytes, generateVersion, 0)
+               if (putIfAbsent(k, created, expiration) == null) result = created
+            }
+         } else {
+            val counter = BigInt(new String(prev.data, CHARSET))
+            val updated =
+               if (isIncrement) (counter + delta) mod TwoToThe64
+               else if (counter > delta) counter - delta
+               else BigInt(0)
+            val next = new MemcachedValue(updated.toString.getBytes, generateVersion, prev.flags)
+            if (cache.replace(k, prev, next)) result = next
+         }
+      }
+      if (missing) {
+         writeError(out, req, KeyNotFound, "Not found")
+      } else if (!req.isQuiet) {
+         writeHeader(out, req.opcode, 0, 0, NoError, 8, req.opaque, result.version)
+         out.buffer.writeLong(BigInt(new String(result.data, CHARSET)).longValue)
+      }
+   }
+
+   private def appendPrepend(req: BinaryRequest, out: ResponseBuffer) {
+      val k = req.keyString
+      val prev = cache.get(k)
+      val stored =
+         if (prev != null && (req.cas == 0 || req.cas == prev.version)) {
+            val isAppend = req.opcode == APPEND || req.opcode == APPENDQ
+            val data = if (isAppend) concat(prev.data, req.value) else concat(req.value, prev.data)
+            cache.replace(k, prev, new MemcachedValue(data, generateVersion, prev.flags))
+         } else false
+      if (stored) {
+         if (!req.isQuiet) writeResponse(out, req, NoError)
+      } else {
+         writeError(out, req, ItemNotStored, "Not stored.")
+      }
+   }
+
+   private def flush(req: BinaryRequest, out: ResponseBuffer) {
+      val flushFunction = (cache: AdvancedCache[String, MemcachedValue]) => cache.withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_STORE).clear
+      val flushDelay = if (req.extras.readableBytes >= 4) req.extras.readInt else 0
+      if (flushDelay == 0)
+         flushFunction(cache.getAdvancedCache)
+      else
+         scheduler.schedule(new DelayedFlushAll(cache, flushFunction), AbstractProtocolDecoder.toMillis(flushDelay), TimeUnit.MILLISECONDS)
+      if (!req.isQuiet) writeResponse(out, req, NoError)
+   }
+
+   private def stats(req: BinaryRequest, out: ResponseBuffer) {
+      val stats = cache.getAdvancedCache.getStats
+      val values = List(
+         ("pid", 0),
+         ("uptime", stats.getTimeSinceStart),
+         ("time", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis)),
+         ("version", cache.getVersion),
+         ("curr_items", stats.getCurrentNumberOfEntries),
+         ("total_items", stats.getTotalNumberOfEntries),
+         ("cmd_get", stats.getRetrievals),
+         ("cmd_set", stats.getStores),
+         ("get_hits", stats.getHits),
+         ("get_misses", stats.getMisses),
+         ("delete_misses", stats.getRemoveMisses),
+         ("delete_hits", stats.getRemoveHits),
+         ("evictions", stats.getEvictions),
+         ("bytes_read", transport.getTotalBytesRead),
+         ("bytes_written", transport.getTotalBytesWritten))
+      for ((name, value) <- values) {
+         val statKey = name.getBytes(CHARSET)
+         val statValue = String.valueOf(value).getBytes(CHARSET)
+         writeHeader(out, req.opcode, statKey.length, 0, NoError, statKey.length + statValue.length, req.opaque, 0)
+         out.buffer.writeBytes(statKey)
+         out.buffer.writeBytes(statValue)
+      }
+      // An empty key terminates the list of statistics
+      writeResponse(out, req, NoError)
+   }
+
+   private def put(k: String, v: MemcachedValue, expiration: Int) {
+      if (expiration == 0) cache.put(k, v)
+      else cache.put(k, v, AbstractProtocolDecoder.toMillis(expiration), TimeUnit.MILLISECONDS)
+   }
+
+   private def putIfAbsent(k: String, v: MemcachedValue, expiration: Int): MemcachedValue = {
+      if (expiration == 0) cache.putIfAbsent(k, v)
+      else cache.putIfAbsent(k, v, AbstractProtocolDecoder.toMillis(expiration), TimeUnit.MILLISECONDS)
+   }
+
+   private def replace(k: String, v: MemcachedValue, expiration: Int): MemcachedValue = {
+      if (expiration == 0) cache.replace(k, v)
+      else cache.replace(k, v, AbstractProtocolDecoder.toMillis(expiration), TimeUnit.MILLISECONDS)
+   }
+
+   private def replace(k: String, prev: MemcachedValue, v: MemcachedValue, expiration: Int): Boolean = {
+      if (expiration == 0) cache.replace(k, prev, v)
+      else cache.replace(k, prev, v, AbstractProtocolDecoder.toMillis(expiration), TimeUnit.MILLISECONDS)
+   }
+
+   private def generateVersion: Long = versionGenerator.newVersion(cache.getAdvancedCache.getRpcManager != null)
+
+   private def writeResponse(out: ResponseBuffer, req: BinaryRequest, status: Int,
+                             value: Array[Byte] = Array.empty, cas: Long = 0) {
+      writeHeader(out, req.opcode, 0, 0, status, value.length, req.opaque, cas)
+      out.writeBytes(value)
+   }
+
+   private def writeError(out: ResponseBuffer, req: BinaryRequest, status: Int, message: String) {
+      writeResponse(out, req, status, message.getBytes(CHARSET))
+   }
+
+   private def writeHeader(out: ResponseBuffer, opcode: Int, keyLength: Int, extrasLength: Int, status: Int,
+                           bodyLength: Int, opaque: Int, cas: Long) {
+      val buf = out.buffer
+      buf.writeByte(ResponseMagic)
+      buf.writeByte(opcode)
+      buf.writeShort(keyLength)
+      buf.writeByte(extrasLength)
+      buf.writeByte(0) // raw bytes data type
+      buf.writeShort(status)
+      buf.writeInt(bodyLength)
+      buf.writeInt(opaque)
+      buf.writeLong(cas)
+   }
+
+   override def exceptionCaught(ctx: ChannelHandlerContext, e: ExceptionEvent) {
+      val ch = ctx.getChannel
+      debug(e.getCause, "Exception caught, closing channel %s", ch)
+      ch.close
+   }
+
+   override def writeComplete(ctx: ChannelHandlerContext, e: WriteCompletionEvent) {
+      transport.updateTotalBytesWritten(e)
+      ctx.sendUpstream(e)
+   }
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      transport.updateTotalBytesRead(e)
+      super.messageReceived(ctx, e)
+   }
+}
+
+object MemcachedBinaryDecoder {
+   val RequestMagic = 0x80
+   val ResponseMagic = 0x81
+   private val HeaderLength = 24
+
+   // Request opcodes
+   private val GET = 0x00
+   private val SET = 0x01
+   private val ADD = 0x02
+   private val REPLACE = 0x03
+   private val DELETE = 0x04
+   private val INCREMENT = 0x05
+   private val DECREMENT = 0x06
+   private val QUIT = 0x07
+   private val FLUSH = 0x08
+   private val GETQ = 0x09
+   private val NOOP = 0x0A
+   private val VERSION = 0x0B
+   private val GETK = 0x0C
+   private val GETKQ = 0x0D
+   private val APPEND = 0x0E
+   private val PREPEND = 0x0F
+   private val STAT = 0x10
+   private val SETQ = 0x11
+   private val ADDQ = 0x12
+   private val REPLACEQ = 0x13
+   private val DELETEQ = 0x14
+   private val INCREMENTQ = 0x15
+   private val DECREMENTQ = 0x16
+   private val QUITQ = 0x17
+   private val FLUSHQ = 0x18
+   private val APPENDQ = 0x19
+   private val PREPENDQ = 0x1A
+
+   private val QuietOpcodes = collection.immutable.Set(GETQ, GETKQ, SETQ, ADDQ, REPLACEQ, DELETEQ, INCREMENTQ,
+      DECREMENTQ, QUITQ, FLUSHQ, APPENDQ, PREPENDQ)
+
+   // Response status
+   private val NoError = 0x0000
+   private val KeyNotFound = 0x0001
+   private val KeyExists = 0x0002
+   private val ValueTooLarge = 0x0003
+   private val InvalidArguments = 0x0004
+   private val ItemNotStored = 0x0005
+   private val NonNumericValue = 0x0006
+   private val UnknownCommand = 0x0081
+   private val InternalError = 0x0084
+
+   // Expiration of incr/decr requests which must not create missing counters
+   private val NoAutoCreate = 0xFFFFFFFF
+   private val TwoToThe64 = BigInt(1) << 64
+
+   private def toUnsigned(l: Long): BigInt = if (l >= 0) BigInt(l) else BigInt(l) + TwoToThe64
+
+   private class BinaryRequest(val opcode: Int, val opaque: Int, val cas: Long, val extras: ChannelBuffer,
+                               val key: Array[Byte], val value: Array[Byte]) {
+      def keyString: String = new String(key, CHARSET)
+
+      def isQuiet: Boolean = QuietOpcodes.contains(opcode)
+
+      override def toString = {
+         new java.lang.StringBuilder().append("BinaryRequest").append("{")
+            .append("opcode=0x").append(Integer.toHexString(opcode))
+            .append(", opaque=").append(opaque)
+            .append(", cas=").append(cas)
+            .append(", key=").append(keyString)
+            .append(", valueLength=").append(value.length)
+            .append("}").toString
+      }
+   }
+}
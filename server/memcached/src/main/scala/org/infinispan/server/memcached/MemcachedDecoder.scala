@@ -35,7 +35,7 @@ import org.infinispan.{AdvancedCache, Version, CacheException, Cache}
 import collection.mutable.{HashMap, ListBuffer}
 import scala.collection.immutable
 import org.jboss.netty.buffer.ChannelBuffer
-import transport.NettyTransport
+import transport.{ResponseBuffer, NettyTransport}
 import DecoderState._
 import java.lang.StringBuilder
 import java.io.{ByteArrayOutputStream, IOException, EOFException, StreamCorruptedException}
@@ -538,18 +538,18 @@ class MemcachedDecoder(memcachedCache: Cache[String, MemcachedValue], scheduler:
    }   
 
    private def buildGetResponse(op: Enumeration#Value, k: String, v: MemcachedValue): ChannelBuffer = {
-      val buf = buildGetHeaderBegin(k, v, 0)
-      writeGetHeaderData(v.data, buf)
+      val out = buildGetHeaderBegin(k, v, 0)
+      writeGetHeaderData(v.data, out).toChannelBuffer
    }
 
    private def buildSingleGetResponse(k: String, v: MemcachedValue): ChannelBuffer = {
-      val buf = buildGetHeaderBegin(k, v, END_SIZE)
-      writeGetHeaderData(v.data, buf)
-      writeGetHeaderEnd(buf)
+      val out = buildGetHeaderBegin(k, v, END_SIZE)
+      writeGetHeaderData(v.data, out)
+      writeGetHeaderEnd(out)
    }
    
    private def buildGetHeaderBegin(k: String, v: MemcachedValue,
-           extraSpace: Int): ChannelBuffer = {
+           extraSpace: Int): ResponseBuffer = {
       val data = v.data
       val dataSize = Integer.valueOf(data.length).toString.getBytes
       val key = k.getBytes
@@ -559,7 +559,9 @@ class MemcachedDecoder(memcachedCache: Cache[String, MemcachedValue], scheduler:
          else ZERO
 
       val flagsSize = flags.length
-      val buf = buffer(VALUE_SIZE + key.length + data.length + flagsSize
+      // Large values are not copied into the response, so only reserve space for small ones
+      val dataSpace = if (ResponseBuffer.isCopied(data.length)) data.length else 0
+      val buf = buffer(VALUE_SIZE + key.length + dataSpace + flagsSize
               + dataSize.length + 6 + extraSpace)
       buf.writeBytes(VALUE)
       buf.writeBytes(key)
@@ -567,28 +569,28 @@ class MemcachedDecoder(memcachedCache: Cache[String, MemcachedValue], scheduler:
       buf.writeBytes(flags)
       buf.writeByte(SP)
       buf.writeBytes(dataSize)
-      buf
+      new ResponseBuffer(buf)
    }
 
-   private def writeGetHeaderData(data: Array[Byte], buf: ChannelBuffer): ChannelBuffer = {
-      buf.writeBytes(CRLFBytes)
-      buf.writeBytes(data)
-      buf.writeBytes(CRLFBytes)
-      buf
+   private def writeGetHeaderData(data: Array[Byte], out: ResponseBuffer): ResponseBuffer = {
+      out.buffer.writeBytes(CRLFBytes)
+      out.writeBytes(data)
+      out.buffer.writeBytes(CRLFBytes)
+      out
    }
 
-   private def writeGetHeaderEnd(buf: ChannelBuffer): ChannelBuffer = {
-      buf.writeBytes(END)
-      buf
+   private def writeGetHeaderEnd(out: ResponseBuffer): ChannelBuffer = {
+      out.buffer.writeBytes(END)
+      out.toChannelBuffer
    }
 
    private def buildSingleGetWithVersionResponse(k: String, v: MemcachedValue): ChannelBuffer = {
       val version = v.version.toString.getBytes
-      val buf = buildGetHeaderBegin(k, v, version.length + 1 + END_SIZE)
-      buf.writeByte(SP) // 1
-      buf.writeBytes(version) // version.length
-      writeGetHeaderData(v.data, buf)
-      writeGetHeaderEnd(buf)
+      val out = buildGetHeaderBegin(k, v, version.length + 1 + END_SIZE)
+      out.buffer.writeByte(SP) // 1
+      out.buffer.writeBytes(version) // version.length
+      writeGetHeaderData(v.data, out)
+      writeGetHeaderEnd(out)
    }
 
    private def friendlyMaxIntCheck(number: String, message: String): Int = {
@@ -0,0 +1,50 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import org.jboss.netty.buffer.ChannelBuffer
+import org.jboss.netty.channel.{Channel, ChannelHandler, ChannelHandlerContext}
+import org.jboss.netty.handler.codec.frame.FrameDecoder
+
+/**
+ * Chooses the memcached protocol spoken by a new connection by looking at its first byte: binary requests start with
+ * a magic byte that cannot start a text command. The selector then replaces itself with the decoder for the chosen
+ * protocol and hands over the bytes received so far.
+ *
+ * @since 5.2
+ */
+class MemcachedProtocolSelector(textDecoder: () => ChannelHandler, binaryDecoder: () => ChannelHandler)
+      extends FrameDecoder {
+
+   override protected def decode(ctx: ChannelHandlerContext, ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      if (buffer.readableBytes < 1) return null
+
+      val pipeline = ctx.getPipeline
+      if (buffer.getUnsignedByte(buffer.readerIndex) == MemcachedBinaryDecoder.RequestMagic)
+         pipeline.addAfter(ctx.getName, "binaryDecoder", binaryDecoder())
+      else
+         pipeline.addAfter(ctx.getName, "textDecoder", textDecoder())
+      pipeline.remove(this)
+      buffer.readBytes(buffer.readableBytes)
+   }
+}
@@ -28,10 +28,13 @@ import org.infinispan.manager.EmbeddedCacheManager
 import java.util.Properties
 import org.infinispan.config.Configuration
 import org.infinispan.Cache
+import org.infinispan.util.TypedProperties
+import org.jboss.netty.channel.ChannelHandler
 
 /**
  * Memcached server defining its decoder/encoder settings. In fact, Memcached does not use an encoder since there's
- * no really common headers between protocol operations.
+ * no really common headers between protocol operations. Both the text and the binary protocols are served on the
+ * same port, the protocol of each connection being detected from its first request.
  *
  * @author Galder Zamarreño
  * @since 4.1
@@ -41,9 +44,14 @@ class MemcachedServer extends AbstractProtocolServer("Memcached") {
 
    protected lazy val scheduler = Executors.newScheduledThreadPool(1)
    private var memcachedCache: Cache[String, MemcachedValue] = _
+   protected var maxBodyLength: Long = _
 
    override def start(p: Properties, cacheManager: EmbeddedCacheManager) {
       val properties = if (p == null) new Properties else p
+      maxBodyLength = TypedProperties.toTypedProperties(properties)
+            .getLongProperty(PROP_KEY_MAX_BODY_LENGTH, MAX_BODY_LENGTH_DEFAULT, true)
+      if (maxBodyLength <= 0)
+         throw new IllegalArgumentException("Maximum binary request body length must be positive: " + maxBodyLength)
       // Define the Memcached cache as clone of the default one
       cacheManager.defineConfiguration(cacheName, new Configuration)
       memcachedCache = cacheManager.getCache(cacheName)
@@ -52,12 +60,18 @@ class MemcachedServer extends AbstractProtocolServer("Memcached") {
 
    override def getEncoder = null
 
-   override def getDecoder: MemcachedDecoder = {
+   override def getDecoder: ChannelHandler =
+      new MemcachedProtocolSelector(() => getTextDecoder, () => getBinaryDecoder)
+
+   def getTextDecoder: MemcachedDecoder = {
       val dec = new MemcachedDecoder(memcachedCache, scheduler, transport)
       dec.versionGenerator = this.versionGenerator
       dec
    }
 
+   def getBinaryDecoder: MemcachedBinaryDecoder =
+      new MemcachedBinaryDecoder(memcachedCache, scheduler, transport, versionGenerator, maxBodyLength)
+
    override def stop {
       super.stop
       scheduler.shutdown
@@ -66,4 +80,10 @@ class MemcachedServer extends AbstractProtocolServer("Memcached") {
 
 object MemcachedServer {
    private[memcached] val cacheName = "memcachedCache"
+   /**
+    * Largest body (extras, key and value) accepted in a binary protocol request. Larger requests are answered with a
+    * "value too large" error without being buffered.
+    */
+   val PROP_KEY_MAX_BODY_LENGTH = "infinispan.server.memcached.max_body_length"
+   val MAX_BODY_LENGTH_DEFAULT = 1024L * 1024
 }
\ No newline at end of file
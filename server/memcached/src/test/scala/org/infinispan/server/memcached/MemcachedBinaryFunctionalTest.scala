@@ -0,0 +1,224 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import java.io.{BufferedOutputStream, DataInputStream, DataOutputStream}
+import java.lang.reflect.Method
+import java.net.Socket
+import org.testng.Assert._
+import org.testng.annotations.Test
+import net.spy.memcached.{CASResponse, MemcachedClient}
+import org.infinispan.test.TestingUtil._
+import java.util.concurrent.TimeUnit
+import org.infinispan.manager.EmbeddedCacheManager
+import org.infinispan.Version
+import test.MemcachedTestingUtil._
+import scala.collection.JavaConversions._
+
+/**
+ * Tests the Memcached binary protocol against the Infinispan Memcached server, which serves it on the same port as
+ * the text protocol.
+ *
+ * @since 5.2
+ */
+@Test(groups = Array("functional"), testName = "server.memcached.MemcachedBinaryFunctionalTest")
+class MemcachedBinaryFunctionalTest extends MemcachedSingleNodeTest {
+
+   private var binaryClient: MemcachedClient = _
+
+   override def createCacheManager: EmbeddedCacheManager = {
+      val cm = super.createCacheManager
+      binaryClient = createMemcachedBinaryClient(60000, server.getPort)
+      cm
+   }
+
+   @Test(enabled = false) // Disable explicitly to avoid TestNG thinking this is a test!!
+   override protected def shutdownClient() {
+      super.shutdownClient()
+      killClient(binaryClient)
+   }
+
+   def testSetGet(m: Method) {
+      val f = binaryClient.set(k(m), 0, v(m))
+      assertTrue(f.get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), v(m))
+      // Entries stored through the binary protocol are visible to text clients
+      assertEquals(client.get(k(m)), v(m))
+   }
+
+   def testGetMissing(m: Method) {
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testPipelinedMultiGet(m: Method) {
+      val keys = for (i <- 0 until 100) yield k(m, "k" + i + "-")
+      for (i <- 0 until 100 if i % 2 == 0)
+         assertTrue(binaryClient.set(keys(i), 0, v(m, "v" + i + "-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val values = binaryClient.getBulk(seqAsJavaList(keys))
+      assertEquals(values.size, 50)
+      for (i <- 0 until 100 if i % 2 == 0)
+         assertEquals(values.get(keys(i)), v(m, "v" + i + "-"))
+   }
+
+   def testAdd(m: Method) {
+      assertTrue(binaryClient.add(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertFalse(binaryClient.add(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), v(m))
+   }
+
+   def testReplace(m: Method) {
+      assertFalse(binaryClient.replace(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS)
+      assertTrue(binaryClient.replace(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), v(m, "v1-"))
+   }
+
+   def testCas(m: Method) {
+      binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS)
+      val value = binaryClient.gets(k(m))
+      assertEquals(binaryClient.cas(k(m), value.getCas, v(m, "v1-")), CASResponse.OK)
+      assertEquals(binaryClient.cas(k(m), value.getCas, v(m, "v2-")), CASResponse.EXISTS)
+      assertEquals(binaryClient.get(k(m)), v(m, "v1-"))
+   }
+
+   def testDelete(m: Method) {
+      binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS)
+      assertTrue(binaryClient.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(binaryClient.get(k(m)))
+      assertFalse(binaryClient.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+   }
+
+   def testDeleteWithCas(m: Method) {
+      binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS)
+      val value = binaryClient.gets(k(m))
+      withRawConnection { (out, in) =>
+         // A CAS mismatch on an existing key is reported as "key exists", as for set and replace
+         writeRawRequest(out, 0x04, k(m).getBytes, value.getCas + 1)
+         assertEquals(readRawResponseStatus(in), 0x0002)
+         writeRawRequest(out, 0x04, k(m, "missing-").getBytes, value.getCas)
+         assertEquals(readRawResponseStatus(in), 0x0001)
+         writeRawRequest(out, 0x04, k(m).getBytes, value.getCas)
+         assertEquals(readRawResponseStatus(in), 0x0000)
+      }
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testRejectTooLargeBody(m: Method) {
+      withRawConnection { (out, in) =>
+         val key = k(m).getBytes
+         val bodyLength = MemcachedServer.MAX_BODY_LENGTH_DEFAULT + 1
+         // The request is answered as soon as its header is received
+         writeRawHeader(out, 0x01, key.length, 8, bodyLength, 0)
+         out.flush()
+         assertEquals(readRawResponseStatus(in), 0x0003)
+         // The rest of the body is dropped, and the following requests are served
+         out.write(new Array[Byte](bodyLength.toInt))
+         writeRawRequest(out, 0x0A, Array.empty, 0)
+         assertEquals(readRawResponseStatus(in), 0x0000)
+      }
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testRejectKeyLongerThanBody(m: Method) {
+      withRawConnection { (out, in) =>
+         val key = k(m).getBytes
+         // A set whose key and extras do not fit in the declared body
+         writeRawHeader(out, 0x01, key.length, 8, key.length, 0)
+         out.write(key)
+         out.flush()
+         assertEquals(readRawResponseStatus(in), 0x0004)
+         // The connection is still usable
+         writeRawRequest(out, 0x0A, Array.empty, 0)
+         assertEquals(readRawResponseStatus(in), 0x0000)
+      }
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testIncrDecr(m: Method) {
+      assertEquals(binaryClient.incr(k(m), 1, 10), 10)
+      assertEquals(binaryClient.incr(k(m), 5), 15)
+      assertEquals(binaryClient.decr(k(m), 20), 0)
+      assertEquals(binaryClient.incr(k(m, "missing-"), 1), -1)
+   }
+
+   def testAppendPrepend(m: Method) {
+      binaryClient.set(k(m), 0, "middle").get(timeout, TimeUnit.SECONDS)
+      assertTrue(binaryClient.append(0, k(m), "-end").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(binaryClient.prepend(0, k(m), "start-").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(binaryClient.get(k(m)), "start-middle-end")
+   }
+
+   def testFlush(m: Method) {
+      binaryClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS)
+      assertTrue(binaryClient.flush.get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(binaryClient.get(k(m)))
+   }
+
+   def testVersion() {
+      assertEquals(binaryClient.getVersions.values.head, Version.VERSION)
+   }
+
+   def testStats() {
+      val stats = binaryClient.getStats.values.head
+      assertTrue(stats.containsKey("curr_items"))
+   }
+
+   private def withRawConnection(f: (DataOutputStream, DataInputStream) => Unit) {
+      val socket = new Socket(host, server.getPort)
+      try {
+         socket.setSoTimeout(timeout.toInt * 1000)
+         f(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream)), new DataInputStream(socket.getInputStream))
+      } finally {
+         socket.close()
+      }
+   }
+
+   private def writeRawHeader(out: DataOutputStream, opcode: Int, keyLength: Int, extrasLength: Int,
+                              bodyLength: Long, cas: Long) {
+      out.writeByte(0x80)
+      out.writeByte(opcode)
+      out.writeShort(keyLength)
+      out.writeByte(extrasLength)
+      out.writeByte(0) // data type
+      out.writeShort(0) // vbucket id
+      out.writeInt(bodyLength.toInt)
+      out.writeInt(0) // opaque
+      out.writeLong(cas)
+   }
+
+   private def writeRawRequest(out: DataOutputStream, opcode: Int, key: Array[Byte], cas: Long) {
+      writeRawHeader(out, opcode, key.length, 0, key.length, cas)
+      out.write(key)
+      out.flush()
+   }
+
+   private def readRawResponseStatus(in: DataInputStream): Int = {
+      assertEquals(in.readUnsignedByte, 0x81)
+      in.skipBytes(5) // opcode, key length, extras length and data type
+      val status = in.readUnsignedShort
+      val bodyLength = in.readInt
+      in.skipBytes(12) // opaque and cas
+      in.readFully(new Array[Byte](bodyLength))
+      status
+   }
+}
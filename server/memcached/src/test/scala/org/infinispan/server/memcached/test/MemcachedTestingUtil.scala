@@ -22,10 +22,10 @@
  */
 package org.infinispan.server.memcached.test
 
-import net.spy.memcached.{DefaultConnectionFactory, MemcachedClient}
+import net.spy.memcached.{BinaryConnectionFactory, DefaultConnectionFactory, MemcachedClient}
 import java.net.InetSocketAddress
 import java.util.concurrent.atomic.AtomicInteger
-import org.infinispan.server.memcached.{MemcachedDecoder, MemcachedValue, MemcachedServer}
+import org.infinispan.server.memcached.{MemcachedBinaryDecoder, MemcachedDecoder, MemcachedValue, MemcachedServer}
 import org.infinispan.manager.EmbeddedCacheManager
 import java.util.{Properties, Arrays}
 import org.infinispan.server.core.Main._
@@ -47,6 +47,13 @@ object MemcachedTestingUtil {
       new MemcachedClient(d, Arrays.asList(new InetSocketAddress(host, port)))
    }
 
+   def createMemcachedBinaryClient(timeout: Long, port: Int): MemcachedClient = {
+      val d: BinaryConnectionFactory = new BinaryConnectionFactory {
+         override def getOperationTimeout: Long = timeout
+      }
+      new MemcachedClient(d, Arrays.asList(new InetSocketAddress(host, port)))
+   }
+
    def startMemcachedTextServer(cacheManager: EmbeddedCacheManager): MemcachedServer =
       startMemcachedTextServer(cacheManager, UniquePortThreadLocal.get.intValue)
 
@@ -70,12 +77,15 @@ object MemcachedTestingUtil {
    def startMemcachedTextServer(cacheManager: EmbeddedCacheManager, port: Int, cacheName: String): MemcachedServer = {
       val server = new MemcachedServer {
 
-         override def getDecoder: MemcachedDecoder = {
+         override def getTextDecoder: MemcachedDecoder = {
             val memcachedDecoder = new MemcachedDecoder(getCacheManager.getCache[String, MemcachedValue](cacheName), scheduler, transport)
             memcachedDecoder.versionGenerator = this.versionGenerator
             memcachedDecoder
          }
 
+         override def getBinaryDecoder: MemcachedBinaryDecoder =
+            new MemcachedBinaryDecoder(getCacheManager.getCache[String, MemcachedValue](cacheName), scheduler, transport, versionGenerator, maxBodyLength)
+
          override def startDefaultCache = getCacheManager.getCache(cacheName)
       }
       server.start(getProperties(host, port), cacheManager)
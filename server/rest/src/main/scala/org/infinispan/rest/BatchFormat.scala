@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.rest
+
+import java.io.{StreamCorruptedException, DataOutputStream, DataInputStream, InputStream}
+import collection.mutable.ListBuffer
+
+/**
+ * Compact binary format used by the batch and entry listing endpoints. Strings are written as with
+ * `DataOutput.writeUTF` and numbers are big endian.
+ *
+ * A batch request is a sequence of operations, read until the end of the body:
+ * <ul>
+ *    <li>operation: byte, one of 'G' (get), 'P' (put) or 'D' (delete)</li>
+ *    <li>key: string</li>
+ *    <li>entity tag: string, empty for none. Gets only return the value if it does not match it, in the same way
+ *    as If-None-Match, whereas puts and deletes are only applied if it matches, in the same way as If-Match</li>
+ *    <li>puts only: content type: string, time to live in seconds: long, max idle time in seconds: long (both
+ *    interpreted as the timeToLiveSeconds and maxIdleTimeSeconds headers of single puts), data length: int, data</li>
+ * </ul>
+ *
+ * A batch response contains a result per operation, in the same order as the request, and an entry listing contains
+ * a result per entry:
+ * <ul>
+ *    <li>status: short, an HTTP status code</li>
+ *    <li>key: string</li>
+ *    <li>value present: byte, 1 if followed by a value, which is only the case for successful gets and listings,
+ *    or 0 otherwise</li>
+ *    <li>value only: content type: string, entity tag: string, empty if the value has none, data length: int,
+ *    data</li>
+ * </ul>
+ *
+ * @since 5.2
+ */
+object BatchFormat {
+
+   val MEDIA_TYPE = "application/x-infinispan-batch"
+
+   val GET = 'G'.toByte
+   val PUT = 'P'.toByte
+   val DELETE = 'D'.toByte
+
+   case class BatchOperation(op: Byte, key: String, etag: String, contentType: String,
+         ttl: Long, idleTime: Long, data: Array[Byte])
+
+   def readOperations(is: InputStream): List[BatchOperation] = {
+      val in = new DataInputStream(is)
+      val ops = new ListBuffer[BatchOperation]
+      var op = in.read
+      while (op != -1) {
+         val key = in.readUTF
+         val etag = in.readUTF
+         ops += (op.toByte match {
+            case GET | DELETE => BatchOperation(op.toByte, key, etag, null, 0, 0, null)
+            case PUT => {
+               val contentType = in.readUTF
+               val ttl = in.readLong
+               val idleTime = in.readLong
+               val data = new Array[Byte](in.readInt)
+               in.readFully(data)
+               BatchOperation(PUT, key, etag, contentType, ttl, idleTime, data)
+            }
+            case _ => throw new StreamCorruptedException("Unknown batch operation: " + op)
+         })
+         op = in.read
+      }
+      ops.toList
+   }
+
+   def writeResult(out: DataOutputStream, status: Int, key: String) {
+      out.writeShort(status)
+      out.writeUTF(key)
+      out.writeByte(0)
+   }
+
+   def writeResult(out: DataOutputStream, status: Int, key: String,
+         contentType: String, etag: String, data: Array[Byte]) {
+      out.writeShort(status)
+      out.writeUTF(key)
+      out.writeByte(1)
+      out.writeUTF(contentType)
+      out.writeUTF(etag)
+      out.writeInt(data.length)
+      out.write(data)
+   }
+
+}
@@ -24,6 +24,7 @@ package org.infinispan.rest
 
 import com.thoughtworks.xstream.XStream
 import java.io._
+import java.net.URLEncoder
 import java.util.Date
 import java.util.concurrent.TimeUnit.{SECONDS => SECS}
 import javax.ws.rs._
@@ -38,6 +39,8 @@ import org.infinispan.commons.hash.MurmurHash3
 import org.infinispan.util.concurrent.ConcurrentMapFactory
 import javax.ws.rs._
 import javax.servlet.http.HttpServletResponse
+import BatchFormat.BatchOperation
+import collection.JavaConversions
 
 /**
  * Integration server linking REST requests with Infinispan calls.
@@ -49,10 +52,7 @@ import javax.servlet.http.HttpServletResponse
 @Path("/rest")
 class Server(@Context request: Request, @HeaderParam("performAsync") useAsync: Boolean) {
 
-   /**For dealing with binary entries in the cache */
-   lazy val variantList = Variant.VariantListBuilder.newInstance.mediaTypes(MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE).build
-   lazy val jsonMapper = new ObjectMapper
-   lazy val xstream = new XStream
+   import Server._
 
    @GET
    @Path("/{cacheName}/{cacheKey}")
@@ -241,13 +241,170 @@ class Server(@Context request: Request, @HeaderParam("performAsync") useAsync: B
       }
    }
 
+   /**
+    * Lists the keys of a cache, or its entries in batch format with values=true.
+    *
+    * With a limit, keys are listed in a fixed order (by hash code, then by key) and the nextCursor header, URL encoded,
+    * holds the last key of the page for as long as more keys remain. Passing it back as the cursor resumes right after
+    * that key, so keys present during the whole listing are returned exactly once whatever is added or removed
+    * meanwhile. Each page costs a full pass over the key set, holding no more than limit + 1 keys: listing n keys takes
+    * n / limit passes, so pick a limit that keeps the number of pages small for large caches. Without a limit all the
+    * keys following the cursor are streamed in a single pass, in no particular order.
+    */
+   @GET
+   @Path("/{cacheName}")
+   def listEntries(@PathParam("cacheName") cacheName: String,
+                   @DefaultValue("") @QueryParam("cursor") cursor: String,
+                   @DefaultValue("0") @QueryParam("limit") limit: Int,
+                   @DefaultValue("false") @QueryParam("values") withValues: Boolean): Response = {
+      protectCacheNotFound(request, useAsync) { (request, useAsync) =>
+         val cache = ManagerInstance.getCache(cacheName)
+         val keys = JavaConversions.asScalaIterator(cache.keySet.iterator)
+         val following = if (cursor.isEmpty) keys else keys.filter(keyOrder(_, cursor) > 0)
+         val (page, nextCursor): (Iterator[String], Option[String]) =
+            if (limit > 0) {
+               // keep the limit + 1 lowest keys after the cursor, the largest on top
+               val lowest = new java.util.PriorityQueue[String](limit + 1, new java.util.Comparator[String] {
+                  override def compare(k1: String, k2: String): Int = keyOrder(k2, k1)
+               })
+               following.foreach { k =>
+                  if (lowest.size <= limit) lowest.add(k)
+                  else if (keyOrder(k, lowest.peek) < 0) {
+                     lowest.poll
+                     lowest.add(k)
+                  }
+               }
+               val hasMore = lowest.size > limit
+               if (hasMore) lowest.poll
+               val sorted = JavaConversions.collectionAsScalaIterable(lowest).toList.sortWith(keyOrder(_, _) < 0)
+               (sorted.iterator, if (hasMore) Some(sorted.last) else None)
+            } else {
+               (following, None)
+            }
+         val bldr =
+            if (withValues)
+               Response.ok.`type`(BatchFormat.MEDIA_TYPE).entity(streamIt(writeEntries(cache, page, _)))
+            else
+               Response.ok.`type`("text/plain").entity(streamIt(writeKeys(page, _)))
+         nextCursor.foreach(k => bldr.header("nextCursor", URLEncoder.encode(k, "UTF-8")))
+         bldr.build
+      }
+   }
+
+   /**
+    * The order of paged key listings: by hash code first, so that the keys of a page can be picked in one pass
+    * over the key set, then by key to break ties.
+    */
+   private def keyOrder(k1: String, k2: String): Int = {
+      val h1 = k1.hashCode
+      val h2 = k2.hashCode
+      if (h1 != h2) (if (h1 < h2) -1 else 1) else k1.compareTo(k2)
+   }
+
+   @POST
+   @Path("/{cacheName}")
+   @Consumes(Array("application/x-infinispan-batch"))
+   def batch(@PathParam("cacheName") cacheName: String, body: InputStream): Response = {
+      protectCacheNotFound(request, useAsync) { (request, useAsync) =>
+         val cache = ManagerInstance.getCache(cacheName)
+         try {
+            // Operations are applied in order before responding, so only the results' values are streamed
+            val results = BatchFormat.readOperations(body).map(executeBatchOperation(cache, _))
+            Response.ok.`type`(BatchFormat.MEDIA_TYPE).entity(streamIt(writeBatchResults(results, _))).build
+         } catch {
+            case e: IOException => Response.status(Status.BAD_REQUEST).entity("Malformed batch: " + e.getMessage).build
+         }
+      }
+   }
+
+   private def executeBatchOperation(cache: Cache[String, Any], op: BatchOperation): (Int, String, Any) = {
+      val key = op.key
+      op.op match {
+         case BatchFormat.GET =>
+            cache.get(key) match {
+               case null => (HttpServletResponse.SC_NOT_FOUND, key, null)
+               case b: MIMECacheEntry if matchesETAG(b, op.etag) => (HttpServletResponse.SC_NOT_MODIFIED, key, null)
+               case v => (HttpServletResponse.SC_OK, key, v)
+            }
+         case BatchFormat.PUT => {
+            val obj = toCacheEntry(op.data, op.contentType)
+            if (op.etag.isEmpty) {
+               (putInCache(cache, key, obj, op.ttl, op.idleTime, None).getStatus, key, null)
+            } else {
+               cache.get(key) match {
+                  case b: MIMECacheEntry if matchesETAG(b, op.etag) =>
+                     (putOrReplace(cache, key, obj, op.ttl, op.idleTime, Some(b)).getStatus, key, null)
+                  case _ => (HttpServletResponse.SC_PRECONDITION_FAILED, key, null)
+               }
+            }
+         }
+         case BatchFormat.DELETE => {
+            if (op.etag.isEmpty) {
+               if (useAsync) cache.removeAsync(key) else cache.remove(key)
+               (HttpServletResponse.SC_OK, key, null)
+            } else {
+               cache.get(key) match {
+                  case b: MIMECacheEntry if matchesETAG(b, op.etag) && cache.remove(key, b) =>
+                     (HttpServletResponse.SC_OK, key, null)
+                  case _ => (HttpServletResponse.SC_PRECONDITION_FAILED, key, null)
+               }
+            }
+         }
+      }
+   }
+
+   private def matchesETAG(entry: MIMECacheEntry, etag: String): Boolean =
+      !etag.isEmpty && calcETAG(entry).getValue == etag
+
+   private def writeKeys(keys: Iterator[String], os: OutputStream) {
+      val writer = new BufferedWriter(new OutputStreamWriter(os, "UTF-8"))
+      keys.foreach { key =>
+         writer.write(key)
+         writer.write('\n')
+      }
+      writer.flush()
+   }
+
+   private def writeEntries(cache: Cache[String, Any], keys: Iterator[String], os: OutputStream) {
+      val out = new DataOutputStream(new BufferedOutputStream(os))
+      keys.foreach { key =>
+         cache.get(key) match {
+            // Removed since the keys were listed
+            case null => BatchFormat.writeResult(out, HttpServletResponse.SC_NOT_FOUND, key)
+            case v => writeBatchValue(out, HttpServletResponse.SC_OK, key, v)
+         }
+      }
+      out.flush()
+   }
+
+   private def writeBatchResults(results: List[(Int, String, Any)], os: OutputStream) {
+      val out = new DataOutputStream(new BufferedOutputStream(os))
+      for ((status, key, value) <- results) {
+         if (value != null) writeBatchValue(out, status, key, value)
+         else BatchFormat.writeResult(out, status, key)
+      }
+      out.flush()
+   }
+
+   private def writeBatchValue(out: DataOutputStream, status: Int, key: String, value: Any) {
+      value match {
+         case b: MIMECacheEntry =>
+            BatchFormat.writeResult(out, status, key, b.contentType, calcETAG(b).getValue, b.data)
+         case ba: Array[Byte] =>
+            BatchFormat.writeResult(out, status, key, "application/x-java-serialized-object", "", ba)
+         case s: String =>
+            BatchFormat.writeResult(out, status, key, "text/plain", "", s.getBytes("UTF-8"))
+         case obj =>
+            BatchFormat.writeResult(out, status, key, MediaType.APPLICATION_JSON, "",
+               jsonMapper.writeValueAsBytes(obj.asInstanceOf[AnyRef]))
+      }
+   }
+
    private def preconditionNotImplementedResponse() = {
       Response.status(501).entity(
          "Preconditions were not implemented yet for PUT, POST, and DELETE methods.").build()
    }
 
-   val hashFunc = new MurmurHash3()
-
    def calcETAG(entry: MIMECacheEntry) = new EntityTag(entry.contentType + hashFunc.hash(entry.data))
 
    private def protectCacheNotFound(request: Request, useAsync: Boolean) (op: (Request, Boolean) => Response): Response = {
@@ -264,6 +421,20 @@ class Server(@Context request: Request, @HeaderParam("performAsync") useAsync: B
 
 }
 
+object Server {
+
+   // A resource instance is created per request, so keep anything expensive to create, such as the
+   // (thread safe once configured) mappers, in here so that they're shared by all requests
+
+   /**For dealing with binary entries in the cache */
+   lazy val variantList = Variant.VariantListBuilder.newInstance.mediaTypes(MediaType.APPLICATION_XML_TYPE, MediaType.APPLICATION_JSON_TYPE).build
+   lazy val jsonMapper = new ObjectMapper
+   lazy val xstream = new XStream
+
+   val hashFunc = new MurmurHash3()
+
+}
+
 /**
  * Just wrap a single instance of the Infinispan cache manager.
  */
@@ -859,6 +859,146 @@ class IntegrationTest {
             v2PutLatch, v3PutLatch, v2FinishLatch)
    }
 
+   def testBatch(m: Method) {
+      val k1 = m.getName + "-1"
+      val k2 = m.getName + "-2"
+      var results = batch { out =>
+         writeBatchPut(out, k1, "", "v1")
+         writeBatchPut(out, k2, "", "v2")
+         writeBatchOp(out, BatchFormat.GET, k1, "")
+         writeBatchOp(out, BatchFormat.GET, m.getName + "-missing", "")
+         writeBatchOp(out, BatchFormat.DELETE, k2, "")
+         writeBatchOp(out, BatchFormat.GET, k2, "")
+      }
+      assertEquals(List(SC_OK, SC_OK, SC_OK, SC_NOT_FOUND, SC_OK, SC_NOT_FOUND), results.map(_._1))
+      assertEquals(k1, results(2)._2)
+      assertEquals("v1", new String(results(2)._4))
+      val etag = results(2)._3
+      assertFalse(etag.isEmpty)
+
+      results = batch { out =>
+         writeBatchOp(out, BatchFormat.GET, k1, etag)
+         writeBatchPut(out, k1, "bogus", "v1b")
+         writeBatchOp(out, BatchFormat.DELETE, k1, "bogus")
+         writeBatchPut(out, k1, etag, "v1c")
+         writeBatchOp(out, BatchFormat.GET, k1, etag)
+      }
+      assertEquals(List(SC_NOT_MODIFIED, SC_PRECONDITION_FAILED, SC_PRECONDITION_FAILED, SC_OK, SC_OK),
+         results.map(_._1))
+      assertEquals("v1c", new String(results(4)._4))
+
+      val newEtag = results(4)._3
+      results = batch { out =>
+         writeBatchOp(out, BatchFormat.DELETE, k1, etag)
+         writeBatchOp(out, BatchFormat.DELETE, k1, newEtag)
+      }
+      assertEquals(List(SC_PRECONDITION_FAILED, SC_OK), results.map(_._1))
+      assertEquals(SC_NOT_FOUND, Client.call(new GetMethod(fullPath + "/" + k1)).getStatusCode)
+   }
+
+   def testMalformedBatch() {
+      val post = new PostMethod(fullPath)
+      post.setRequestEntity(new ByteArrayRequestEntity(Array[Byte](88, 0, 1, 107), BatchFormat.MEDIA_TYPE))
+      assertEquals(SC_BAD_REQUEST, Client.call(post).getStatusCode)
+   }
+
+   def testListEntries(m: Method) {
+      Client.call(new DeleteMethod(fullPath))
+      val keys = (0 until 5).map(m.getName + "-" + _)
+      batch { out => keys.foreach(writeBatchPut(out, _, "", "v")) }
+
+      var listed = List[String]()
+      var cursor = ""
+      var pages = 0
+      while (cursor != null) {
+         val get = Client.call(new GetMethod(fullPath + "?limit=2" + (if (cursor.isEmpty) "" else "&cursor=" + cursor)))
+         assertEquals(SC_OK, get.getStatusCode)
+         listed ++= get.getResponseBodyAsString.split("\n").filter(!_.isEmpty)
+         val next = get.getResponseHeader("nextCursor")
+         cursor = if (next != null) next.getValue else null
+         pages += 1
+      }
+      assertEquals(3, pages)
+      assertEquals(keys.toSet, listed.toSet)
+      assertEquals(5, listed.size)
+
+      val get = Client.call(new GetMethod(fullPath + "?values=true"))
+      assertEquals(BatchFormat.MEDIA_TYPE, get.getResponseHeader("Content-Type").getValue)
+      val entries = readBatchResults(get.getResponseBody)
+      assertEquals(keys.toSet, entries.map(_._2).toSet)
+      entries.foreach { e =>
+         assertEquals(SC_OK, e._1)
+         assertEquals("v", new String(e._4))
+      }
+   }
+
+   def testListEntriesWhileModified(m: Method) {
+      Client.call(new DeleteMethod(fullPath))
+      val keys = (0 until 6).map(m.getName + "-" + _)
+      batch { out => keys.foreach(writeBatchPut(out, _, "", "v")) }
+
+      val first = Client.call(new GetMethod(fullPath + "?limit=2"))
+      var listed = first.getResponseBodyAsString.split("\n").filter(!_.isEmpty).toList
+      // keys removed or added after the first page must not shift the following pages
+      Client.call(new DeleteMethod(fullPath + "/" + listed.head))
+      batch { out => (0 until 4).foreach(i => writeBatchPut(out, m.getName + "-new-" + i, "", "v")) }
+      var next = first.getResponseHeader("nextCursor")
+      while (next != null) {
+         val get = Client.call(new GetMethod(fullPath + "?limit=2&cursor=" + next.getValue))
+         assertEquals(SC_OK, get.getStatusCode)
+         listed ++= get.getResponseBodyAsString.split("\n").filter(!_.isEmpty)
+         next = get.getResponseHeader("nextCursor")
+      }
+      keys.foreach(k => assertEquals(1, listed.count(_ == k)))
+      assertEquals(listed.size, listed.toSet.size)
+   }
+
+   private def batch(ops: DataOutputStream => Unit): List[(Int, String, String, Array[Byte])] = {
+      val bytes = new ByteArrayOutputStream
+      val out = new DataOutputStream(bytes)
+      ops(out)
+      out.flush()
+      val post = new PostMethod(fullPath)
+      post.setRequestEntity(new ByteArrayRequestEntity(bytes.toByteArray, BatchFormat.MEDIA_TYPE))
+      Client.call(post)
+      assertEquals(SC_OK, post.getStatusCode)
+      readBatchResults(post.getResponseBody)
+   }
+
+   private def writeBatchOp(out: DataOutputStream, op: Byte, key: String, etag: String) {
+      out.writeByte(op)
+      out.writeUTF(key)
+      out.writeUTF(etag)
+   }
+
+   private def writeBatchPut(out: DataOutputStream, key: String, etag: String, value: String) {
+      writeBatchOp(out, BatchFormat.PUT, key, etag)
+      out.writeUTF("text/plain")
+      out.writeLong(-1)
+      out.writeLong(-1)
+      out.writeInt(value.getBytes.length)
+      out.write(value.getBytes)
+   }
+
+   private def readBatchResults(body: Array[Byte]): List[(Int, String, String, Array[Byte])] = {
+      val in = new DataInputStream(new ByteArrayInputStream(body))
+      var results = List[(Int, String, String, Array[Byte])]()
+      while (in.available > 0) {
+         val status = in.readShort
+         val key = in.readUTF
+         if (in.readByte == 1) {
+            in.readUTF // content type
+            val etag = in.readUTF
+            val data = new Array[Byte](in.readInt)
+            in.readFully(data)
+            results :+= ((status.toInt, key, etag, data))
+         } else {
+            results :+= ((status.toInt, key, "", null))
+         }
+      }
+      results
+   }
+
    class ControlledCache[String, Any](cache: Cache[String, Any],
            v2PutLatch: CountDownLatch, v3PutLatch: CountDownLatch,
            v2FinishLatch: CountDownLatch)